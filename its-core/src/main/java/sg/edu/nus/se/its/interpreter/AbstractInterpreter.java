@@ -9,12 +9,14 @@ import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import org.javatuples.Pair;
 import sg.edu.nus.se.its.model.Constant;
 import sg.edu.nus.se.its.model.Expression;
 import sg.edu.nus.se.its.model.Function;
 import sg.edu.nus.se.its.model.Input;
 import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Opcode;
 import sg.edu.nus.se.its.model.Operation;
 import sg.edu.nus.se.its.model.Program;
 import sg.edu.nus.se.its.model.Variable;
@@ -24,22 +26,46 @@ import sg.edu.nus.se.its.util.constants.Constants;
 /** Abstract interpreter as base class for concrete instances. */
 public abstract class AbstractInterpreter implements Interpreter {
 
+  // kinds of operators, as bits of the operator table
+  private static final int UNARY_OP = 1;
+  private static final int BINARY_OP = 2;
+  private static final int SPECIAL_OP = 4;
+  private static final int SPECIAL_FUNCTION = 8;
+
   private Integer timeout;
-  private double startTime;
+  private Integer stepLimit;
+  private Integer callDepthLimit;
+  private int callDepth;
+  private Long heapLimit;
+  private long allocatedBytes;
+  private long startTime;
+  private long deadline;
+  private boolean hasDeadline;
+  private int steps;
+  private boolean profiling;
+  private Profile profile = null;
+  private boolean coverageEnabled;
+  private Coverage coverage = null;
   private String entryFunctionName;
   private Program program = null;
+  private ConstantPool constantPool = null;
   private Memory memory = null;
   private Trace trace = null;
   private String functionName = null;
   private int location;
+  private int[] operatorKinds = null;
 
   protected AbstractInterpreter() {
     this.timeout = Constants.DEFAULT_TIMEOUT_INTERPRETATION;
+    this.heapLimit = Constants.DEFAULT_HEAP_LIMIT_INTERPRETATION;
+    this.callDepthLimit = Constants.DEFAULT_CALL_DEPTH_LIMIT;
     this.entryFunctionName = Constants.DEFAULT_ENTRY_FUNCTION_NAME;
   }
 
   protected AbstractInterpreter(Integer timeout, String entryFunctionName) {
     this.timeout = timeout;
+    this.heapLimit = Constants.DEFAULT_HEAP_LIMIT_INTERPRETATION;
+    this.callDepthLimit = Constants.DEFAULT_CALL_DEPTH_LIMIT;
     this.entryFunctionName = entryFunctionName;
   }
 
@@ -68,6 +94,66 @@ public abstract class AbstractInterpreter implements Interpreter {
     this.timeout = newTimeout;
   }
 
+  /**
+   * Sets the maximum number of blocks that may be executed in one run, including the blocks of
+   * called functions. Runs that exceed the limit stop with {@link ExecutionStatus#DIVERGED}.
+   *
+   * @param newStepLimit -- maximum number of executed blocks, null for no limit
+   */
+  public void setStepLimit(Integer newStepLimit) {
+    this.stepLimit = newStepLimit;
+  }
+
+  /**
+   * Sets the maximum depth of nested function calls in one run. Runs that exceed the limit stop
+   * with {@link ExecutionStatus#LIMIT_EXCEEDED}, whatever the stack size of the calling thread.
+   *
+   * @param newCallDepthLimit -- maximum number of nested calls, null for no limit other than the
+   *     stack of the thread
+   */
+  public void setCallDepthLimit(Integer newCallDepthLimit) {
+    this.callDepthLimit = newCallDepthLimit;
+  }
+
+  /**
+   * Sets the budget for the approximate number of bytes that one run may allocate for the values
+   * stored in memory and the recorded trace. Runs that exceed the budget stop with
+   * {@link ExecutionStatus#LIMIT_EXCEEDED}.
+   *
+   * @param newHeapLimit -- budget in bytes, null to disable the accounting
+   */
+  public void setHeapLimit(Long newHeapLimit) {
+    this.heapLimit = newHeapLimit;
+  }
+
+  /**
+   * Returns the approximate number of bytes allocated by the last run, as estimated by
+   * {@link HeapSizeEstimator}. Always 0 if the heap accounting is disabled.
+   */
+  public long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  /**
+   * Enables or disables the profiling of runs. The profile of a run is attached to its trace, see
+   * {@link Trace#getProfile()}.
+   *
+   * @param enabled -- true to collect a Profile for each run
+   */
+  public void setProfiling(boolean enabled) {
+    this.profiling = enabled;
+  }
+
+  /**
+   * Enables or disables the recording of block and edge coverage. The coverage of a run is attached
+   * to its trace, see {@link Trace#getCoverage()}.
+   *
+   * @param enabled -- true to record the Coverage of each run
+   */
+  public void setCoverage(boolean enabled) {
+    this.coverageEnabled = enabled;
+  }
+
   private Program getProgram() {
     return program;
   }
@@ -84,6 +170,32 @@ public abstract class AbstractInterpreter implements Interpreter {
     return executeProgram(program, null, inputs);
   }
 
+  /**
+   * Executes the given program and reports failures as status codes instead of exceptions. If the
+   * execution stops early, the outcome holds the trace up to the last completely executed block.
+   *
+   * @param theProgram -- the program to execute
+   * @param input -- inputs that should be provided to the program during execution, can be null
+   * @return ExecutionOutcome object as result of the interpreted execution
+   */
+  @Override
+  public ExecutionOutcome runProgram(Program theProgram, Input input) {
+    try {
+      return ExecutionOutcome.ok(executeProgram(theProgram, null, input));
+    } catch (InterpretationException e) {
+      return failure(e.getStatus(), e.getMessage());
+    } catch (StackOverflowError e) {
+      // last resort for a call depth limit beyond the stack of the thread
+      return failure(ExecutionStatus.LIMIT_EXCEEDED, "Maximum call depth exceeded");
+    } catch (RuntimeException | AssertionError e) {
+      return failure(ExecutionStatus.RUNTIME_ERROR, e.getMessage());
+    }
+  }
+
+  private ExecutionOutcome failure(ExecutionStatus status, String message) {
+    return new ExecutionOutcome(status, message, getTrace(), getFunctionName(), getLocation());
+  }
+
   /**
    * Executes the given program with regard to the provided parameters.
    *
@@ -95,44 +207,107 @@ public abstract class AbstractInterpreter implements Interpreter {
   private Trace executeProgram(Program theProgram, Memory theMemory, Input input) {
 
     this.program = theProgram;
+    this.constantPool = theProgram.getConstantPool(getClass());
+    this.trace = new Trace();
+    this.functionName = null;
+    this.location = 0;
+    this.steps = 0;
+    this.callDepth = 0;
+    this.allocatedBytes = 0;
+    this.profile = profiling ? new Profile() : null;
+    this.trace.setProfile(profile);
+    this.coverage = coverageEnabled ? new Coverage(theProgram.getLocationIndex()) : null;
+    this.trace.setCoverage(coverage);
+
+    try {
+      input = Optional.ofNullable(input).orElseGet(Input::new);
+
+      final Function entryFunction = program.getFunctionForName(entryFunctionName);
+      if (entryFunction == null) {
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Unknown function: '%s'", entryFunctionName);
+      }
 
-    input = Optional.ofNullable(input).orElseGet(Input::new);
+      /* Initialize the memory */
+      this.memory = Optional.ofNullable(theMemory).orElseGet(Memory::new);
 
-    final Function entryFunction =
-        Optional.ofNullable(program.getFunctionForName(entryFunctionName)).orElseThrow(
-            () -> new RuntimeException(String.format("Unknown function: '%s'", entryFunctionName)));
-    this.trace = new Trace();
+      String[] inputs = input.getInputs();
+      allocate(inputs);
+      memory.put(Constants.VAR_IN, inputs);
+      if (!memory.containsKey(Constants.VAR_OUT)) {
+        memory.put(Constants.VAR_OUT, "");
+      }
+      memory.put(Constants.VAR_RET, UNDEFINED);
+
+      String[] args = input.getArgs();
+      if (args.length != entryFunction.getParams().size()) {
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Wrong number of args: expected %s, got %s", entryFunction.getParams().size(),
+            args.length);
+      }
+      for (String var : entryFunction.getTypes().keySet()) {
+        memory.put(var, UNDEFINED);
+      }
 
-    /* Initialize the memory */
-    this.memory = Optional.ofNullable(theMemory).orElseGet(Memory::new);
+      for (int i = 0; i < args.length; i++) {
+        String var = entryFunction.getParams().get(i).getValue0();
+        String type = entryFunction.getParams().get(i).getValue1();
+        Object arg = convertArgument(args[i], type);
+        allocate(arg);
+        memory.put(var, arg);
+      }
 
-    String[] inputs = input.getInputs();
-    memory.put(Constants.VAR_IN, inputs);
-    if (!memory.containsKey(Constants.VAR_OUT)) {
-      memory.put(Constants.VAR_OUT, "");
+      startTimer();
+      return executeFunction(entryFunction, memory);
+    } finally {
+      this.program = null;
+      this.constantPool = null;
+      this.profile = null;
+      this.coverage = null;
+      this.hasDeadline = false;
     }
-    memory.put(Constants.VAR_RET, UNDEFINED);
+  }
 
-    String[] args = input.getArgs();
-    if (args.length != entryFunction.getParams().size()) {
-      throw new RuntimeException(String.format("Wrong number of args: expected %s, got %s",
-          entryFunction.getParams().size(), args.length));
+  /**
+   * Accounts for a value that was created by the program and is kept in memory.
+   */
+  private void allocate(Object value) {
+    if (heapLimit != null) {
+      charge(HeapSizeEstimator.estimate(value));
     }
-    for (String var : entryFunction.getTypes().keySet()) {
-      memory.put(var, UNDEFINED);
+  }
+
+  /**
+   * Checks that a value of the given number of elements fits into the remaining heap budget before
+   * the value is created, so that a program that creates a huge value stops with
+   * {@link ExecutionStatus#LIMIT_EXCEEDED} instead of exhausting the heap of the JVM. The value is
+   * accounted once it is stored.
+   *
+   * @param count -- the number of elements of the value
+   * @param elementBytes -- the estimated size of an element, see {@link HeapSizeEstimator}
+   */
+  protected void reserve(long count, long elementBytes) {
+    if (heapLimit != null && count > 0 && count > (heapLimit - allocatedBytes) / elementBytes) {
+      throw new InterpretationException(ExecutionStatus.LIMIT_EXCEEDED,
+          "Heap limit exceeded (%d elements of %d bytes > %d bytes)", count, elementBytes,
+          heapLimit);
     }
+  }
 
-    for (int i = 0; i < args.length; i++) {
-      String var = entryFunction.getParams().get(i).getValue0();
-      String type = entryFunction.getParams().get(i).getValue1();
-      String arg = args[i];
-      memory.put(var, convert(arg, type));
+  private void charge(long bytes) {
+    allocatedBytes += bytes;
+    if (allocatedBytes > heapLimit) {
+      throw new InterpretationException(ExecutionStatus.LIMIT_EXCEEDED,
+          "Heap limit exceeded (%d > %d bytes)", allocatedBytes, heapLimit);
     }
+  }
 
-    startTime = UtilFunctions.secondsSinceEpoch();
-    Trace result = executeFunction(entryFunction, memory);
-    this.program = null;
-    return result;
+  private void startTimer() {
+    startTime = System.nanoTime();
+    hasDeadline = timeout != null;
+    if (hasDeadline) {
+      deadline = startTime + TimeUnit.SECONDS.toNanos(timeout);
+    }
   }
 
   /**
@@ -146,22 +321,7 @@ public abstract class AbstractInterpreter implements Interpreter {
   public TraceEntry executeBlock(Function function, Memory memory, int loc) {
     setFunctionName(function.getName());
     setLocation(loc);
-    for (Pair<String, Expression> p : function.getExprs(getLocation())) {
-      String var = p.getValue0();
-      Expression expr = p.getValue1();
-      Object val = execute(expr, memory);
-      String varp = Variable.asPrimedVariableName(var);
-      String vtype;
-      if (Objects.equals(var, Constants.VAR_RET)) {
-        vtype = function.getRettype();
-      } else {
-        vtype = Optional.ofNullable(function.getTypes().get(var)).orElse("*");
-      }
-      memory.put(varp, convert(val, vtype));
-      if (Objects.equals(var, Constants.VAR_RET) && !UtilFunctions.isUndefined(val)) {
-        break;
-      }
-    }
+    executeAssignments(function, function.getExprs(getLocation()), memory);
 
     Pair<Memory, Memory> memPair = processMemory(memory);
     return new TraceEntry(getFunctionName(), getLocation(), memPair.getValue1());
@@ -178,6 +338,19 @@ public abstract class AbstractInterpreter implements Interpreter {
    */
   public TraceEntry executeBlock(Function function, List<Pair<String, Expression>> block,
       Memory memory) {
+    executeAssignments(function, block, memory);
+
+    Pair<Memory, Memory> memPair = processMemory(memory);
+    return new TraceEntry(getFunctionName(), getLocation(), memPair.getValue1());
+  }
+
+  /**
+   * Executes the assignments of a block and stores the results as primed variables, converted to
+   * the declared types except for temporaries. The execution of the block stops after the first
+   * defined assignment to the return value.
+   */
+  private void executeAssignments(Function function, List<Pair<String, Expression>> block,
+      Memory memory) {
     for (Pair<String, Expression> p : block) {
       String var = p.getValue0();
       Expression expr = p.getValue1();
@@ -189,14 +362,13 @@ public abstract class AbstractInterpreter implements Interpreter {
       } else {
         vtype = Optional.ofNullable(function.getTypes().get(var)).orElse("*");
       }
-      memory.put(varp, convert(val, vtype));
+      Object converted = var.startsWith(Constants.VAR_TEMP_PREFIX) ? val : convert(val, vtype);
+      allocate(converted);
+      memory.put(varp, converted);
       if (Objects.equals(var, Constants.VAR_RET) && !UtilFunctions.isUndefined(val)) {
         break;
       }
     }
-
-    Pair<Memory, Memory> memPair = processMemory(memory);
-    return new TraceEntry(getFunctionName(), getLocation(), memPair.getValue1());
   }
 
   /**
@@ -208,9 +380,12 @@ public abstract class AbstractInterpreter implements Interpreter {
    */
   public Object execute(Executable executable, Memory memory) {
     /* Check for timeout. */
-    double nowTime = UtilFunctions.secondsSinceEpoch();
-    if (timeout != null && startTime + timeout < nowTime) {
-      throw new RuntimeException(String.format("Timeout (%.3f)", nowTime - startTime));
+    if (hasDeadline) {
+      long nowTime = System.nanoTime();
+      if (nowTime - deadline > 0) {
+        throw new InterpretationException(ExecutionStatus.TIMEOUT, "Timeout (%.3f)",
+            (nowTime - startTime) / 1e9);
+      }
     }
 
     return executable.execute(memory, this);
@@ -218,6 +393,43 @@ public abstract class AbstractInterpreter implements Interpreter {
 
   public abstract Object convert(Object value, String type);
 
+  /**
+   * Returns the declared type of a variable or parameter of the executed function, e.g., for
+   * operations whose semantics depend on the types of their operands.
+   *
+   * @param name -- the name of the variable
+   * @return the declared type, or null if the variable is not declared
+   */
+  protected String getVariableType(String name) {
+    Function function = program == null || functionName == null ? null
+        : program.getFunctionForName(functionName);
+    if (function == null) {
+      return null;
+    }
+    String type = function.getTypes().get(name);
+    if (type != null) {
+      return type;
+    }
+    for (Pair<String, String> param : function.getParams()) {
+      if (param.getValue0().equals(name)) {
+        return param.getValue1();
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Converts an argument of the entry function, which is given as string, to the type of the
+   * parameter. By default, arguments are converted like any other value.
+   *
+   * @param arg -- the argument as given in the input
+   * @param type -- the type of the parameter
+   * @return the converted value
+   */
+  protected Object convertArgument(String arg, String type) {
+    return convert(arg, type);
+  }
+
 
   /**
    * Executes a function and produces a Trace object.
@@ -227,26 +439,37 @@ public abstract class AbstractInterpreter implements Interpreter {
    * @return result of execution
    */
   public Trace executeFunction(Function function, Memory memory) {
+    if (profile == null) {
+      return executeBlocks(function, memory);
+    }
+    profile.enterFunction(function.getName());
+    try {
+      return executeBlocks(function, memory);
+    } finally {
+      profile.exitFunction();
+    }
+  }
+
+  private Trace executeBlocks(Function function, Memory memory) {
     setFunctionName(function.getName());
     setLocation(function.getInitloc());
     while (true) {
-      for (Pair<String, Expression> p : function.getExprs(getLocation())) {
-        String var = p.getValue0();
-        Expression expr = p.getValue1();
-        Object val = execute(expr, memory);
-        String varp = Variable.asPrimedVariableName(var);
-        String vtype;
-        if (Objects.equals(var, Constants.VAR_RET)) {
-          vtype = function.getRettype();
-        } else {
-          vtype = Optional.ofNullable(function.getTypes().get(var)).orElse("*");
-        }
-        memory.put(varp, convert(val, vtype));
-        if (Objects.equals(var, Constants.VAR_RET) && !UtilFunctions.isUndefined(val)) {
-          break;
-        }
+      if (stepLimit != null && ++steps > stepLimit) {
+        throw new InterpretationException(ExecutionStatus.DIVERGED,
+            "Step limit exceeded (%d blocks)", stepLimit);
       }
+      if (profile != null) {
+        profile.countBlock(getFunctionName(), getLocation());
+      }
+      if (coverage != null) {
+        coverage.markBlock(getFunctionName(), getLocation());
+      }
+      executeAssignments(function, function.getExprs(getLocation()), memory);
       Pair<Memory, Memory> memPair = processMemory(memory);
+      if (heapLimit != null) {
+        charge(HeapSizeEstimator.TRACE_ENTRY
+            + HeapSizeEstimator.HASH_ENTRY * memPair.getValue1().size());
+      }
       getTrace().add(getFunctionName(), getLocation(), memPair.getValue1());
       memory = memPair.getValue0();
       Object ret = Optional.ofNullable(memory.get(Constants.VAR_RET)).orElse(UNDEFINED);
@@ -257,11 +480,16 @@ public abstract class AbstractInterpreter implements Interpreter {
       if (numtrans == 0) {
         break;
       } else if (numtrans == 1) {
+        if (coverage != null) {
+          coverage.markEdge(getFunctionName(), getLocation(), true);
+        }
         setLocation(function.getTrans(getLocation(), true));
       } else {
-        Object cond = memory.get(Constants.VAR_COND);
-        UtilFunctions.assertType(cond, Boolean.class);
-        setLocation(function.getTrans(getLocation(), (boolean) cond));
+        boolean cond = isTrue(memory.get(Constants.VAR_COND));
+        if (coverage != null) {
+          coverage.markEdge(getFunctionName(), getLocation(), cond);
+        }
+        setLocation(function.getTrans(getLocation(), cond));
       }
     }
     return getTrace();
@@ -286,6 +514,45 @@ public abstract class AbstractInterpreter implements Interpreter {
     return Pair.with(newMem, mem);
   }
 
+  private int operatorKinds(String operationName) {
+    int kinds = 0;
+    if (getUnaryOps().contains(operationName)) {
+      kinds |= UNARY_OP;
+    }
+    if (getBinaryOps().contains(operationName)) {
+      kinds |= BINARY_OP;
+    }
+    if (getSpecialOps().contains(operationName)) {
+      kinds |= SPECIAL_OP;
+    }
+    if (getSpecialFunctions().contains(operationName)) {
+      kinds |= SPECIAL_FUNCTION;
+    }
+    return kinds;
+  }
+
+  /**
+   * Returns how the interpreter executes an operation. The kinds of the registered opcodes are
+   * taken from a table indexed by the opcode, which is filled from the lists of operators on the
+   * first use. Only the names outside the registry are looked up in the lists.
+   */
+  private int operatorKinds(Opcode opcode, String operationName) {
+    if (opcode == Opcode.UNKNOWN) {
+      return operatorKinds(operationName);
+    }
+    if (operatorKinds == null) {
+      Opcode[] opcodes = Opcode.values();
+      int[] table = new int[opcodes.length];
+      for (Opcode registered : opcodes) {
+        if (registered != Opcode.UNKNOWN) {
+          table[registered.ordinal()] = operatorKinds(registered.getName());
+        }
+      }
+      operatorKinds = table;
+    }
+    return operatorKinds[opcode.ordinal()];
+  }
+
   /**
    * Executes the given operation with regard to the memory instance.
    *
@@ -296,46 +563,52 @@ public abstract class AbstractInterpreter implements Interpreter {
   public Object executeOperation(Operation operation, Memory memory) {
     List<Expression> args = operation.getArgs();
     String operationName = operation.getName();
+    if (profile != null) {
+      profile.countOperation(operationName);
+    }
     Memory clone = memory.clone();
-    if (getUnaryOps().contains(operationName)) {
-      if (args.size() != 1 && !getBinaryOps().contains(operationName)) {
-        throw new RuntimeException(
-            String.format("Got <>1 args for unary op in '%s'", operationName));
+    Opcode opcode = operation.getOpcode();
+    int kinds = operatorKinds(opcode, operationName);
+    if ((kinds & UNARY_OP) != 0) {
+      if (args.size() != 1 && (kinds & BINARY_OP) == 0) {
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Got <>1 args for unary op in '%s'", operationName);
       }
       if (args.size() == 1) {
-        return executeUnaryOp(operationName, args.get(0), clone);
+        return executeUnaryOp(opcode, args.get(0), clone);
       }
     }
 
-    if (getBinaryOps().contains(operationName)) {
+    if ((kinds & BINARY_OP) != 0) {
       if (args.size() != 2) {
-        throw new RuntimeException(
-            String.format("Got <>2 args for binary op in '%s'", operationName));
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Got <>2 args for binary op in '%s'", operationName);
       }
 
-      return executeBinaryOp(operationName, args.get(0), args.get(1), clone);
+      return executeBinaryOp(opcode, args.get(0), args.get(1), clone);
     }
 
-    if (getSpecialOps().contains(operationName)) {
+    if ((kinds & SPECIAL_OP) != 0) {
       return executeSpecialOp(operation, clone);
     }
 
-    if (getSpecialFunctions().contains(operationName)) {
+    if ((kinds & SPECIAL_FUNCTION) != 0) {
       List<Object> argList = executeOpArgs(operation, clone);
       return executeSpecialFunction(operationName, argList, clone);
     }
 
-    switch (operationName) {
-      case "ite":
+    switch (opcode) {
+      case ITE:
         return executeIte(operation, clone);
-      case "ListHead":
+      case LIST_HEAD:
         return executeListHead(operation, clone);
-      case "ListTail":
+      case LIST_TAIL:
         return executeListTail(operation, clone);
-      case "FuncCall":
+      case FUNC_CALL:
         return executeFuncCall(operation, clone);
       default:
-        throw new RuntimeException(String.format("Unknown operator: '%s'", operationName));
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Unknown operator: '%s'", operationName);
     }
   }
 
@@ -357,13 +630,23 @@ public abstract class AbstractInterpreter implements Interpreter {
 
   protected Object executeFuncCall(Operation op, Memory mem) {
     Expression funcObject = op.getArgs().get(0);
-    UtilFunctions.assertType(funcObject, Variable.class);
-    String funcName = ((Variable) funcObject).getName();
-    Function fnc = Optional.ofNullable(getProgram().getFunctionForName(funcName))
-        .orElseThrow(() -> new RuntimeException(String.format("Unknown function: '%s'", funcName)));
+    String funcName;
+    if (funcObject instanceof Constant) {
+      // models of Python programs name the called function with a constant
+      funcName = ((Constant) funcObject).getValue();
+    } else {
+      UtilFunctions.assertType(funcObject, Variable.class);
+      funcName = ((Variable) funcObject).getName();
+    }
+    Function fnc = getProgram().getFunctionForName(funcName);
+    if (fnc == null) {
+      throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR, "Unknown function: '%s'",
+          funcName);
+    }
     if (fnc.getParams().size() != op.getArgs().size() - 1) {
-      throw new RuntimeException(String.format("Wrong number of args: expected %s, got %s",
-          fnc.getParams().size(), op.getArgs().size() - 1));
+      throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+          "Wrong number of args: expected %s, got %s", fnc.getParams().size(),
+          op.getArgs().size() - 1);
     }
     List<Object> args = executeFuncCallArgs(op, mem);
     Memory newMem = new Memory();
@@ -372,11 +655,22 @@ public abstract class AbstractInterpreter implements Interpreter {
 
     for (int i = 0; i < args.size(); i++) {
       String varName = fnc.getParams().get(i).getValue0();
-      newMem.put(varName, args.get(i));
+      String type = fnc.getParams().get(i).getValue1();
+      newMem.put(varName, convert(args.get(i), type));
+    }
+    if (callDepthLimit != null && callDepth >= callDepthLimit) {
+      throw new InterpretationException(ExecutionStatus.LIMIT_EXCEEDED,
+          "Maximum call depth exceeded (%d calls)", callDepthLimit);
     }
     String oldFnc = getFunctionName();
     int oldLoc = getLocation();
-    Trace trace = executeFunction(fnc, newMem);
+    callDepth++;
+    Trace trace;
+    try {
+      trace = executeFunction(fnc, newMem);
+    } finally {
+      callDepth--;
+    }
     setFunctionName(oldFnc);
     setLocation(oldLoc);
     Memory lastTraceMem = trace.getLastEntry().getMem();
@@ -385,9 +679,7 @@ public abstract class AbstractInterpreter implements Interpreter {
   }
 
   private Object executeIte(Operation op, Memory mem) {
-    Object cond = execute(op.getArgs().get(0), mem);
-    UtilFunctions.assertType(cond, Boolean.class);
-    if ((boolean) cond) {
+    if (isTrue(execute(op.getArgs().get(0), mem))) {
       return execute(op.getArgs().get(1), mem);
     } else {
       return execute(op.getArgs().get(2), mem);
@@ -402,7 +694,7 @@ public abstract class AbstractInterpreter implements Interpreter {
     String[] list = (String[]) listObject;
     String type = typeObject.toString();
     if (list.length < 1) {
-      throw new RuntimeException("ListHead on empty list");
+      throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR, "ListHead on empty list");
     }
     return convert(list[0], type);
   }
@@ -412,11 +704,34 @@ public abstract class AbstractInterpreter implements Interpreter {
     UtilFunctions.assertType(listObject, String[].class);
     String[] list = (String[]) listObject;
     if (list.length < 1) {
-      throw new RuntimeException("ListHead on empty list");
+      throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR, "ListHead on empty list");
     }
     return Arrays.copyOfRange(list, 1, list.length);
   }
 
+  /**
+   * Evaluates a value used as condition of a branch or an ite operation. By default, conditions
+   * must be Boolean values.
+   *
+   * @param cond -- value of the condition
+   * @return truth value of the condition
+   */
+  public boolean isTrue(Object cond) {
+    UtilFunctions.assertType(cond, Boolean.class);
+    return (boolean) cond;
+  }
+
+  /**
+   * Returns the text of a constant that is executed to the given value, which allows to replace an
+   * expression with its value. By default, no value has a literal.
+   *
+   * @param value -- the value
+   * @return the text of the constant, or null if the value has no literal
+   */
+  public String toLiteral(Object value) {
+    return null;
+  }
+
   /**
    * Executes the variable, i.e., retrieves the variable for the current memory instance.
    *
@@ -433,7 +748,23 @@ public abstract class AbstractInterpreter implements Interpreter {
   }
 
   /**
-   * Executes a constant, i.e., determines its value and the correct data type.
+   * Evaluates a constant. While a program is executed, the value is taken from the constant pool
+   * of the program, so that every literal is parsed once.
+   *
+   * @param constant -- Constant object
+   * @param memory -- Memory object
+   * @return value of Constant object
+   */
+  public Object evaluateConstant(Constant constant, Memory memory) {
+    if (constantPool == null) {
+      return executeConstant(constant, memory);
+    }
+    return constantPool.valueOf(constant, memory, this);
+  }
+
+  /**
+   * Executes a constant, i.e., determines its value and the correct data type. The value may only
+   * depend on the literal and must be immutable, as it is cached by the constant pool.
    *
    * @param constant -- Constant object
    * @param memory -- Memory object
@@ -451,9 +782,9 @@ public abstract class AbstractInterpreter implements Interpreter {
 
   public abstract Object executeSpecialOp(Operation op, Memory mem);
 
-  public abstract Object executeUnaryOp(String opname, Expression arg, Memory mem);
+  public abstract Object executeUnaryOp(Opcode opcode, Expression arg, Memory mem);
 
-  public abstract Object executeBinaryOp(String opname, Expression arg1, Expression arg2,
+  public abstract Object executeBinaryOp(Opcode opcode, Expression arg1, Expression arg2,
       Memory mem);
 
   public abstract Object executeSpecialFunction(String fncname, List<Object> args, Memory mem);
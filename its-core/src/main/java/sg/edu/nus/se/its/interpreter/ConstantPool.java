@@ -0,0 +1,56 @@
+package sg.edu.nus.se.its.interpreter;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Memory;
+
+/**
+ * Typed values of the constants of one program for one interpreter. Every distinct literal is
+ * parsed once, and the value is also cached on the constant nodes, so that evaluating a constant
+ * again neither parses nor allocates. Interned constants, see
+ * {@link sg.edu.nus.se.its.model.ExpressionInterner}, are shared by the programs of many pools and
+ * are only looked up in the pool, as a cache on the node would be overwritten by every pool. The
+ * pools are kept by the program, see
+ * {@link sg.edu.nus.se.its.model.Program#getConstantPool(Class)}.
+ */
+public final class ConstantPool {
+
+  private final Map<String, Object> values = new ConcurrentHashMap<>();
+
+  /**
+   * Returns the value of a constant, parsing its literal with the interpreter if it is not in the
+   * pool yet.
+   *
+   * @param constant -- Constant object
+   * @param memory -- Memory object
+   * @param interpreter -- the interpreter that parses the literal
+   * @return value of Constant object
+   */
+  public Object valueOf(Constant constant, Memory memory, AbstractInterpreter interpreter) {
+    boolean shared = constant.isInterned();
+    Object value = shared ? null : constant.getTypedValue(this);
+    if (value != null) {
+      return value;
+    }
+    value = values.get(constant.getValue());
+    if (value == null) {
+      value = interpreter.executeConstant(constant, memory);
+      if (value == null) {
+        return null;
+      }
+      values.putIfAbsent(constant.getValue(), value);
+    }
+    if (!shared) {
+      constant.setTypedValue(this, value);
+    }
+    return value;
+  }
+
+  /**
+   * Returns the number of distinct literals in the pool.
+   */
+  public int size() {
+    return values.size();
+  }
+}
@@ -0,0 +1,151 @@
+package sg.edu.nus.se.its.interpreter;
+
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Block and edge coverage of one or more executions. Blocks are identified by their id in the
+ * {@link LocationIndex} of the program. The edge id of a block is {@code 2 * id} for the true
+ * branch and {@code 2 * id + 1} for the false branch; blocks with a single successor only use the
+ * true branch.
+ */
+public class Coverage {
+
+  private final LocationIndex index;
+  private final BitSet blocks;
+  private final BitSet edges;
+
+  public Coverage(LocationIndex index) {
+    this(index, new BitSet(index.size()), new BitSet(2 * index.size()));
+  }
+
+  private Coverage(LocationIndex index, BitSet blocks, BitSet edges) {
+    this.index = index;
+    this.blocks = blocks;
+    this.edges = edges;
+  }
+
+  /**
+   * Marks the given block as executed.
+   */
+  public void markBlock(String functionName, int location) {
+    int id = index.getId(functionName, location);
+    if (id >= 0) {
+      blocks.set(id);
+    }
+  }
+
+  /**
+   * Marks the given branch of the block as taken.
+   */
+  public void markEdge(String functionName, int location, boolean branch) {
+    int id = index.getId(functionName, location);
+    if (id >= 0) {
+      edges.set(edgeId(id, branch));
+    }
+  }
+
+  public boolean isCovered(String functionName, int location) {
+    int id = index.getId(functionName, location);
+    return id >= 0 && blocks.get(id);
+  }
+
+  public boolean isCovered(String functionName, int location, boolean branch) {
+    int id = index.getId(functionName, location);
+    return id >= 0 && edges.get(edgeId(id, branch));
+  }
+
+  /**
+   * Returns the executed locations of the given function in ascending order.
+   */
+  public Set<Integer> getCoveredLocations(String functionName) {
+    Set<Integer> result = new TreeSet<>();
+    for (int id = blocks.nextSetBit(0); id >= 0; id = blocks.nextSetBit(id + 1)) {
+      if (index.getFunctionName(id).equals(functionName)) {
+        result.add(index.getLocation(id));
+      }
+    }
+    return result;
+  }
+
+  public LocationIndex getIndex() {
+    return index;
+  }
+
+  /**
+   * Returns a copy of the block bitmap.
+   */
+  public BitSet getBlocks() {
+    return (BitSet) blocks.clone();
+  }
+
+  /**
+   * Returns a copy of the edge bitmap.
+   */
+  public BitSet getEdges() {
+    return (BitSet) edges.clone();
+  }
+
+  public int getBlockCount() {
+    return blocks.cardinality();
+  }
+
+  public int getEdgeCount() {
+    return edges.cardinality();
+  }
+
+  /**
+   * Computes the coverage of all given executions, i.e., the blocks and edges covered by at least
+   * one of them.
+   *
+   * @param coverages -- coverage of executions of the same program
+   * @return the union, or null if no coverage is given
+   */
+  public static Coverage union(Iterable<Coverage> coverages) {
+    return combine(coverages, true);
+  }
+
+  /**
+   * Computes the blocks and edges covered by every given execution.
+   *
+   * @param coverages -- coverage of executions of the same program
+   * @return the intersection, or null if no coverage is given
+   */
+  public static Coverage intersection(Iterable<Coverage> coverages) {
+    return combine(coverages, false);
+  }
+
+  private static Coverage combine(Iterable<Coverage> coverages, boolean union) {
+    Iterator<Coverage> it = coverages.iterator();
+    if (!it.hasNext()) {
+      return null;
+    }
+    Coverage first = it.next();
+    Coverage result = new Coverage(first.index, first.getBlocks(), first.getEdges());
+    while (it.hasNext()) {
+      Coverage other = it.next();
+      if (result.index != other.index && !result.index.equals(other.index)) {
+        throw new IllegalArgumentException("Coverage of different programs cannot be combined");
+      }
+      if (union) {
+        result.blocks.or(other.blocks);
+        result.edges.or(other.edges);
+      } else {
+        result.blocks.and(other.blocks);
+        result.edges.and(other.edges);
+      }
+    }
+    return result;
+  }
+
+  private static int edgeId(int id, boolean branch) {
+    return branch ? 2 * id : 2 * id + 1;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Coverage [blocks=%s, edges=%s]", blocks, edges);
+  }
+}
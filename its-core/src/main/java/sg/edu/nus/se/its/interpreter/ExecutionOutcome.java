@@ -0,0 +1,91 @@
+package sg.edu.nus.se.its.interpreter;
+
+/**
+ * Result of a program execution that does not rely on exceptions. Besides the status code, it holds
+ * the (possibly partial) trace recorded until the execution stopped.
+ */
+public class ExecutionOutcome {
+
+  private final ExecutionStatus status;
+  private final String message;
+  private final Trace trace;
+  private final String functionName;
+  private final int location;
+
+  /**
+   * Creates a new execution outcome.
+   *
+   * @param status -- the status of the execution
+   * @param message -- description of the failure, null for successful executions
+   * @param trace -- the trace recorded so far, can be null if nothing was executed
+   * @param functionName -- the function that was executed last, can be null
+   * @param location -- the location that was executed last
+   */
+  public ExecutionOutcome(ExecutionStatus status, String message, Trace trace,
+      String functionName, int location) {
+    this.status = status;
+    this.message = message;
+    this.trace = trace;
+    this.functionName = functionName;
+    this.location = location;
+  }
+
+  /**
+   * Creates the outcome of a successful execution.
+   *
+   * @param trace -- the complete execution trace
+   * @return execution outcome with status {@link ExecutionStatus#OK}
+   */
+  public static ExecutionOutcome ok(Trace trace) {
+    return new ExecutionOutcome(ExecutionStatus.OK, null, trace, null, 0);
+  }
+
+  /**
+   * Creates the outcome of a failed execution.
+   *
+   * @param status -- the status of the execution
+   * @param message -- description of the failure
+   * @param trace -- the partial trace, can be null
+   * @return execution outcome
+   */
+  public static ExecutionOutcome failure(ExecutionStatus status, String message, Trace trace) {
+    return new ExecutionOutcome(status, message, trace, null, 0);
+  }
+
+  public ExecutionStatus getStatus() {
+    return status;
+  }
+
+  public boolean isOk() {
+    return status == ExecutionStatus.OK;
+  }
+
+  public String getMessage() {
+    return message;
+  }
+
+  /**
+   * Returns the recorded trace. For unsuccessful executions, this is the partial trace up to the
+   * last completely executed block.
+   */
+  public Trace getTrace() {
+    return trace;
+  }
+
+  public String getFunctionName() {
+    return functionName;
+  }
+
+  public int getLocation() {
+    return location;
+  }
+
+  @Override
+  public String toString() {
+    if (isOk()) {
+      return String.format("ExecutionOutcome [%s]", status);
+    }
+    return String.format("ExecutionOutcome [%s: %s (fnc=%s, loc=%d)]", status, message,
+        functionName, location);
+  }
+}
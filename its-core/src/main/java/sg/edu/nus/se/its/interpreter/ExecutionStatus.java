@@ -0,0 +1,35 @@
+package sg.edu.nus.se.its.interpreter;
+
+/**
+ * Status codes describing how the interpretation of a program ended.
+ */
+public enum ExecutionStatus {
+
+  /**
+   * The program terminated normally.
+   */
+  OK,
+
+  /**
+   * The interpretation took longer than the configured timeout.
+   */
+  TIMEOUT,
+
+  /**
+   * The program model could not be executed, e.g., unknown functions or operators, wrong number of
+   * arguments, type mismatches or reading from an exhausted input.
+   */
+  RUNTIME_ERROR,
+
+  /**
+   * The program executed more blocks than the configured step limit, which usually indicates a
+   * non-terminating loop or recursion.
+   */
+  DIVERGED,
+
+  /**
+   * The program exceeded a resource limit of the interpreter, e.g., the call depth or the heap
+   * budget.
+   */
+  LIMIT_EXCEEDED
+}
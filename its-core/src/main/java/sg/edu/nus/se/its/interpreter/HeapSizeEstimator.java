@@ -0,0 +1,130 @@
+package sg.edu.nus.se.its.interpreter;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Approximates the heap footprint of values created during interpretation. The estimates assume a
+ * 64-bit JVM with compressed references and compact strings. Large containers are estimated from a
+ * fixed-size sample of their elements, so that the cost of an estimate does not grow with the size
+ * of the value.
+ */
+public final class HeapSizeEstimator {
+
+  /**
+   * Estimated size of an object header including padding.
+   */
+  public static final long OBJECT_HEADER = 16;
+
+  /**
+   * Estimated size of a single reference.
+   */
+  public static final long REFERENCE = 4;
+
+  /**
+   * Estimated size of one entry in a hash-based map or set.
+   */
+  public static final long HASH_ENTRY = 32;
+
+  /**
+   * Estimated fixed size of a recorded trace entry without its memory entries.
+   */
+  public static final long TRACE_ENTRY = 96;
+
+  private static final int SAMPLE_SIZE = 16;
+  private static final int MAX_DEPTH = 4;
+
+  private HeapSizeEstimator() {}
+
+  /**
+   * Returns the approximate number of bytes that the given value occupies on the heap.
+   *
+   * @param value -- any value stored in a Memory object
+   * @return estimated size in bytes
+   */
+  public static long estimate(Object value) {
+    return estimate(value, 0);
+  }
+
+  private static long estimate(Object value, int depth) {
+    // the undefined marker is a shared constant and never allocated by the program
+    if (value == null || value == Constants.UNDEFINED) {
+      return 0;
+    }
+    if (value instanceof String) {
+      return 2 * OBJECT_HEADER + 8 + ((String) value).length();
+    }
+    if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+      return OBJECT_HEADER;
+    }
+    if (depth >= MAX_DEPTH) {
+      return OBJECT_HEADER;
+    }
+    if (value.getClass().isArray()) {
+      int length = Array.getLength(value);
+      long elements = value instanceof Object[]
+          ? estimateElements(new ArrayIterator((Object[]) value), length, depth)
+          : length * 8L;
+      return OBJECT_HEADER + length * REFERENCE + elements;
+    }
+    if (value instanceof Set) {
+      Set<?> set = (Set<?>) value;
+      return 3 * OBJECT_HEADER + set.size() * HASH_ENTRY
+          + estimateElements(set.iterator(), set.size(), depth);
+    }
+    if (value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      return 2 * OBJECT_HEADER + collection.size() * REFERENCE
+          + estimateElements(collection.iterator(), collection.size(), depth);
+    }
+    if (value instanceof Map) {
+      Map<?, ?> map = (Map<?, ?>) value;
+      return 3 * OBJECT_HEADER + map.size() * HASH_ENTRY
+          + estimateElements(map.keySet().iterator(), map.size(), depth)
+          + estimateElements(map.values().iterator(), map.size(), depth);
+    }
+    return OBJECT_HEADER;
+  }
+
+  /**
+   * Sums the sizes of the first elements and extrapolates the result to all elements.
+   */
+  private static long estimateElements(Iterator<?> elements, int size, int depth) {
+    long sum = 0;
+    int sampled = 0;
+    while (sampled < SAMPLE_SIZE && elements.hasNext()) {
+      sum += estimate(elements.next(), depth + 1);
+      sampled++;
+    }
+    if (sampled == 0 || sampled == size) {
+      return sum;
+    }
+    return sum * size / sampled;
+  }
+
+  /**
+   * Iterator over an object array, which avoids copying the array into a list.
+   */
+  private static class ArrayIterator implements Iterator<Object> {
+    private final Object[] array;
+    private int index = 0;
+
+    ArrayIterator(Object[] array) {
+      this.array = array;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < array.length;
+    }
+
+    @Override
+    public Object next() {
+      return array[index++];
+    }
+  }
+}
@@ -0,0 +1,43 @@
+package sg.edu.nus.se.its.interpreter;
+
+/**
+ * Signals that the interpretation of a program stopped with a non-OK {@link ExecutionStatus}.
+ *
+ * <p>Instances are thrown on the hot path of the interpreter, so they neither capture a stack trace
+ * nor format their message until {@link #getMessage()} is called.
+ */
+public class InterpretationException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final ExecutionStatus status;
+  private final String format;
+  private final transient Object[] args;
+  private String message;
+
+  /**
+   * Creates a new exception for the given status and a lazily formatted message.
+   *
+   * @param status -- the status describing why the interpretation stopped
+   * @param format -- format string of the message, see {@link String#format(String, Object...)}
+   * @param args -- arguments referenced by the format string
+   */
+  public InterpretationException(ExecutionStatus status, String format, Object... args) {
+    super(null, null, false, false);
+    this.status = status;
+    this.format = format;
+    this.args = args;
+  }
+
+  public ExecutionStatus getStatus() {
+    return status;
+  }
+
+  @Override
+  public String getMessage() {
+    if (message == null) {
+      message = args == null || args.length == 0 ? format : String.format(format, args);
+    }
+    return message;
+  }
+}
@@ -25,4 +25,22 @@ public interface Interpreter {
    */
   public Trace executeProgram(Program program, Input input);
 
+  /**
+   * Executes a program with the given input and reports failures as status codes instead of
+   * exceptions. Implementations that can provide partial traces should override this method.
+   *
+   * @param program -- Program object
+   * @param input -- program's input, can be null
+   * @return execution outcome holding the status and the trace
+   */
+  public default ExecutionOutcome runProgram(Program program, Input input) {
+    try {
+      return ExecutionOutcome.ok(executeProgram(program, input));
+    } catch (InterpretationException e) {
+      return ExecutionOutcome.failure(e.getStatus(), e.getMessage(), null);
+    } catch (RuntimeException | AssertionError e) {
+      return ExecutionOutcome.failure(ExecutionStatus.RUNTIME_ERROR, e.getMessage(), null);
+    }
+  }
+
 }
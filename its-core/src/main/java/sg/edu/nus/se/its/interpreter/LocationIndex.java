@@ -0,0 +1,90 @@
+package sg.edu.nus.se.its.interpreter;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeSet;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Program;
+
+/**
+ * Assigns dense ids to the (function, location) pairs of a program. The ids are deterministic,
+ * i.e., functions are numbered by name and locations in ascending order, so that the indices of
+ * the same program created at different times are equal.
+ */
+public final class LocationIndex {
+
+  private final Map<String, Map<Integer, Integer>> ids = new HashMap<>();
+  private final List<String> functionNames = new ArrayList<>();
+  private final List<Integer> locations = new ArrayList<>();
+
+  private LocationIndex() {}
+
+  /**
+   * Creates the location index of the given program.
+   *
+   * @param program -- program model
+   * @return location index
+   */
+  public static LocationIndex of(Program program) {
+    LocationIndex index = new LocationIndex();
+    for (String name : new TreeSet<>(program.getFncs().keySet())) {
+      Function function = program.getFncs().get(name);
+      TreeSet<Integer> locs = new TreeSet<>(function.getLocations());
+      locs.addAll(function.getLoctrans().keySet());
+      Map<Integer, Integer> functionIds = new HashMap<>();
+      for (int loc : locs) {
+        functionIds.put(loc, index.size());
+        index.functionNames.add(name);
+        index.locations.add(loc);
+      }
+      index.ids.put(name, functionIds);
+    }
+    return index;
+  }
+
+  /**
+   * Returns the id of the given location, or -1 if the location does not exist.
+   */
+  public int getId(String functionName, int location) {
+    Map<Integer, Integer> functionIds = ids.get(functionName);
+    if (functionIds == null) {
+      return -1;
+    }
+    return functionIds.getOrDefault(location, -1);
+  }
+
+  public String getFunctionName(int id) {
+    return functionNames.get(id);
+  }
+
+  public int getLocation(int id) {
+    return locations.get(id);
+  }
+
+  /**
+   * Returns the number of locations in the program.
+   */
+  public int size() {
+    return locations.size();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
+    if (o == null || getClass() != o.getClass()) {
+      return false;
+    }
+    LocationIndex that = (LocationIndex) o;
+    return functionNames.equals(that.functionNames) && locations.equals(that.locations);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(functionNames, locations);
+  }
+}
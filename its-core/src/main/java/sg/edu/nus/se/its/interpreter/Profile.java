@@ -0,0 +1,208 @@
+package sg.edu.nus.se.its.interpreter;
+
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Execution profile of one interpreter run. It counts the executed blocks per function and
+ * location, the evaluated operations per operator name, and measures the time spent per function.
+ * The total time of a function includes the time of its callees, the self time does not.
+ */
+public class Profile {
+
+  private final Map<String, Map<Integer, Long>> blockCounts = new HashMap<>();
+  private final Map<String, Long> operationCounts = new HashMap<>();
+  private final Map<String, FunctionStats> functionStats = new HashMap<>();
+  private final Map<String, Long> stackNanos = new HashMap<>();
+  private final Deque<Frame> frames = new ArrayDeque<>();
+
+  /**
+   * Records that the given block was executed once.
+   */
+  public void countBlock(String functionName, int location) {
+    blockCounts.computeIfAbsent(functionName, f -> new HashMap<>()).merge(location, 1L, Long::sum);
+  }
+
+  /**
+   * Records that an operation with the given operator name was evaluated once.
+   */
+  public void countOperation(String operationName) {
+    operationCounts.merge(operationName, 1L, Long::sum);
+  }
+
+  /**
+   * Records that the execution of the given function starts now.
+   */
+  public void enterFunction(String functionName) {
+    Frame parent = frames.peek();
+    String stack = parent == null ? functionName : parent.stack + ";" + functionName;
+    FunctionStats stats = functionStats.computeIfAbsent(functionName, f -> new FunctionStats());
+    stats.calls++;
+    stats.activeCalls++;
+    frames.push(new Frame(stack, stats, System.nanoTime()));
+  }
+
+  /**
+   * Records that the execution of the most recently entered function ends now.
+   */
+  public void exitFunction() {
+    Frame frame = frames.pop();
+    long elapsed = System.nanoTime() - frame.start;
+    long self = elapsed - frame.childNanos;
+    Frame parent = frames.peek();
+    if (parent != null) {
+      parent.childNanos += elapsed;
+    }
+
+    frame.stats.activeCalls--;
+    // recursive calls are already covered by the outermost call of the function
+    if (frame.stats.activeCalls == 0) {
+      frame.stats.totalNanos += elapsed;
+    }
+    frame.stats.selfNanos += self;
+    stackNanos.merge(frame.stack, self, Long::sum);
+  }
+
+  /**
+   * Returns how often the block at the given location was executed.
+   */
+  public long getBlockCount(String functionName, int location) {
+    return blockCounts.getOrDefault(functionName, Collections.emptyMap()).getOrDefault(location,
+        0L);
+  }
+
+  /**
+   * Returns the number of executed blocks per location for each function.
+   */
+  public Map<String, Map<Integer, Long>> getBlockCounts() {
+    return Collections.unmodifiableMap(blockCounts);
+  }
+
+  public long getOperationCount(String operationName) {
+    return operationCounts.getOrDefault(operationName, 0L);
+  }
+
+  public Map<String, Long> getOperationCounts() {
+    return Collections.unmodifiableMap(operationCounts);
+  }
+
+  /**
+   * Returns the total number of evaluated operations.
+   */
+  public long getTotalOperationCount() {
+    long total = 0;
+    for (long count : operationCounts.values()) {
+      total += count;
+    }
+    return total;
+  }
+
+  public long getCallCount(String functionName) {
+    FunctionStats stats = functionStats.get(functionName);
+    return stats == null ? 0 : stats.calls;
+  }
+
+  /**
+   * Returns the time spent in the given function, including the time spent in its callees.
+   */
+  public long getTotalNanos(String functionName) {
+    FunctionStats stats = functionStats.get(functionName);
+    return stats == null ? 0 : stats.totalNanos;
+  }
+
+  /**
+   * Returns the time spent in the given function, excluding the time spent in its callees.
+   */
+  public long getSelfNanos(String functionName) {
+    FunctionStats stats = functionStats.get(functionName);
+    return stats == null ? 0 : stats.selfNanos;
+  }
+
+  /**
+   * Exports the profile in the folded stack format, which is the input format of flame graph
+   * tools. Each line holds a semicolon-separated call stack and the self time in nanoseconds.
+   *
+   * @return folded stacks, one per line
+   */
+  public String toFoldedStacks() {
+    StringBuilder sb = new StringBuilder();
+    for (Map.Entry<String, Long> entry : new TreeMap<>(stackNanos).entrySet()) {
+      sb.append(entry.getKey()).append(' ').append(entry.getValue()).append('\n');
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Exports the profile as JSON object with the properties "blocks", "operations" and
+   * "functions".
+   *
+   * @return JSON representation of the profile
+   */
+  public String toJson() {
+    JsonObject blocks = new JsonObject();
+    for (Map.Entry<String, Map<Integer, Long>> function : new TreeMap<>(blockCounts).entrySet()) {
+      JsonObject locations = new JsonObject();
+      for (Map.Entry<Integer, Long> entry : new TreeMap<>(function.getValue()).entrySet()) {
+        locations.addProperty(String.valueOf(entry.getKey()), entry.getValue());
+      }
+      blocks.add(function.getKey(), locations);
+    }
+
+    JsonObject operations = new JsonObject();
+    for (Map.Entry<String, Long> entry : new TreeMap<>(operationCounts).entrySet()) {
+      operations.addProperty(entry.getKey(), entry.getValue());
+    }
+
+    JsonObject functions = new JsonObject();
+    for (Map.Entry<String, FunctionStats> entry : new TreeMap<>(functionStats).entrySet()) {
+      JsonObject stats = new JsonObject();
+      stats.addProperty("calls", entry.getValue().calls);
+      stats.addProperty("totalNanos", entry.getValue().totalNanos);
+      stats.addProperty("selfNanos", entry.getValue().selfNanos);
+      functions.add(entry.getKey(), stats);
+    }
+
+    JsonObject profile = new JsonObject();
+    profile.add("blocks", blocks);
+    profile.add("operations", operations);
+    profile.add("functions", functions);
+    return new GsonBuilder().setPrettyPrinting().create().toJson(profile);
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Profile [blocks=%s, operations=%s]", blockCounts, operationCounts);
+  }
+
+  /**
+   * Aggregated call statistics of one function.
+   */
+  private static class FunctionStats {
+    private long calls;
+    private long totalNanos;
+    private long selfNanos;
+    private int activeCalls;
+  }
+
+  /**
+   * One active function call.
+   */
+  private static class Frame {
+    private final String stack;
+    private final FunctionStats stats;
+    private final long start;
+    private long childNanos;
+
+    Frame(String stack, FunctionStats stats, long start) {
+      this.stack = stack;
+      this.stats = stats;
+      this.start = start;
+    }
+  }
+}
@@ -11,6 +11,8 @@ import sg.edu.nus.se.its.model.Memory;
  */
 public class Trace implements Iterable<TraceEntry> {
   private List<TraceEntry> entries = new ArrayList<>();
+  private transient Profile profile;
+  private transient Coverage coverage;
 
   public void add(String fnc, int loc, Memory mem) {
     entries.add(new TraceEntry(fnc, loc, mem));
@@ -91,7 +93,46 @@ public class Trace implements Iterable<TraceEntry> {
     return entries;
   }
 
+  /**
+   * Returns the profile of the run that produced this trace, or null if profiling was disabled.
+   */
+  public Profile getProfile() {
+    return profile;
+  }
+
+  public void setProfile(Profile profile) {
+    this.profile = profile;
+  }
+
+  /**
+   * Returns the coverage of the run that produced this trace, or null if it was not recorded.
+   */
+  public Coverage getCoverage() {
+    return coverage;
+  }
+
+  public void setCoverage(Coverage coverage) {
+    this.coverage = coverage;
+  }
+
   public int size() {
     return entries.size();
   }
+
+  /**
+   * Returns a copy of the trace with new, unchecked entries, see {@link #getUnique(int)}, for a
+   * caller that shares the trace with others. The memories, the profile and the coverage are
+   * shared with this trace.
+   *
+   * @return the copy
+   */
+  public Trace copy() {
+    Trace copy = new Trace();
+    for (TraceEntry entry : entries) {
+      copy.add(entry.getFunctionName(), entry.getLocation(), entry.getMem());
+    }
+    copy.setProfile(profile);
+    copy.setCoverage(coverage);
+    return copy;
+  }
 }
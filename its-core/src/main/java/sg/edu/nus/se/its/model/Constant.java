@@ -2,6 +2,7 @@ package sg.edu.nus.se.its.model;
 
 import java.util.Objects;
 import sg.edu.nus.se.its.interpreter.AbstractInterpreter;
+import sg.edu.nus.se.its.interpreter.ConstantPool;
 
 /**
  * Represents a constant expression.
@@ -10,6 +11,9 @@ public class Constant extends Expression {
 
   private String value;
 
+  // typed value of the literal, cached for the pool that parsed it
+  private transient TypedValue typedValue;
+
   public Constant(String value, int line) {
     super(line);
     this.value = value;
@@ -19,6 +23,27 @@ public class Constant extends Expression {
     return value;
   }
 
+  /**
+   * Returns the typed value of the literal cached for a constant pool.
+   *
+   * @param pool -- the constant pool
+   * @return the typed value, or null if the pool has not parsed the constant yet
+   */
+  public Object getTypedValue(ConstantPool pool) {
+    TypedValue cached = typedValue;
+    return cached != null && cached.pool == pool ? cached.value : null;
+  }
+
+  /**
+   * Caches the typed value of the literal parsed by a constant pool.
+   *
+   * @param pool -- the constant pool
+   * @param value -- the typed value
+   */
+  public void setTypedValue(ConstantPool pool, Object value) {
+    typedValue = new TypedValue(pool, value);
+  }
+
   @Override
   public String toString() {
     return value;
@@ -31,7 +56,7 @@ public class Constant extends Expression {
 
   @Override
   public Object execute(Memory memory, AbstractInterpreter withInterpreter) {
-    return withInterpreter.executeConstant(this, memory);
+    return withInterpreter.evaluateConstant(this, memory);
   }
 
   @Override
@@ -48,4 +73,17 @@ public class Constant extends Expression {
     return Objects.hash(value);
   }
 
+  /**
+   * Value of a constant together with the pool it belongs to, published as one object so that
+   * threads sharing the program never see a value of another pool.
+   */
+  private static final class TypedValue {
+    private final ConstantPool pool;
+    private final Object value;
+
+    private TypedValue(ConstantPool pool, Object value) {
+      this.pool = pool;
+      this.value = value;
+    }
+  }
 }
@@ -1,6 +1,7 @@
 package sg.edu.nus.se.its.model;
 
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import sg.edu.nus.se.its.interpreter.Executable;
 import sg.edu.nus.se.its.util.JsonSerializable;
 
@@ -9,6 +10,9 @@ import sg.edu.nus.se.its.util.JsonSerializable;
  */
 public abstract class Expression implements Executable, JsonSerializable {
 
+  // clock shared by all expressions, which orders their modifications, see getStamp()
+  private static final AtomicLong CLOCK = new AtomicLong();
+
   /**
    * The source line number of the expression.
    */
@@ -19,6 +23,13 @@ public abstract class Expression implements Executable, JsonSerializable {
    */
   private Expression originalExpr;
 
+  // structure of the expression if it is the shared instance of the structure, which keeps the
+  // entry of the ExpressionInterner alive as long as the expression
+  private transient Object internKey;
+
+  // time of the latest modification of the expression itself, or 0
+  private transient long stamp;
+
   /**
    * Initiates an expression.
    *
@@ -52,7 +63,9 @@ public abstract class Expression implements Executable, JsonSerializable {
   }
 
   public void setOriginalExpression(Expression expression) {
+    checkNotInterned();
     this.originalExpr = expression;
+    modified();
   }
 
   public Expression getOriginalExpr() {
@@ -71,6 +84,49 @@ public abstract class Expression implements Executable, JsonSerializable {
     return this;
   }
 
+  /**
+   * Returns whether the expression is shared by several programs, see {@link ExpressionInterner}.
+   * An interned expression is immutable: prime(), unprime() and replace() return a modified copy
+   * instead of modifying the expression, and the setters throw an IllegalStateException.
+   *
+   * @return true if the expression is interned
+   */
+  public boolean isInterned() {
+    return internKey != null;
+  }
+
+  /**
+   * Makes the expression the shared instance of its structure.
+   */
+  void intern(Object key, Expression original) {
+    this.originalExpr = original;
+    this.internKey = key;
+  }
+
+  void checkNotInterned() {
+    if (internKey != null) {
+      throw new IllegalStateException("Interned expression must not be modified: " + this);
+    }
+  }
+
+  /**
+   * Records a modification of the expression, which invalidates the serialized forms of the
+   * programs that contain it, see
+   * {@link Program#getSerialized(String, java.util.function.Function)}.
+   */
+  void modified() {
+    stamp = CLOCK.incrementAndGet();
+  }
+
+  /**
+   * Returns the time of the latest modification of the expression or of the expressions it
+   * contains. The clock is shared by all expressions, so the result grows with every modification,
+   * also with one that replaces a subexpression by an expression modified earlier.
+   */
+  long getStamp() {
+    return originalExpr == null ? stamp : Math.max(stamp, originalExpr.getStamp());
+  }
+
   @Override
   public Object clone() throws CloneNotSupportedException {
     return this;
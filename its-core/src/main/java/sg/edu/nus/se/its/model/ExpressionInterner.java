@@ -0,0 +1,187 @@
+package sg.edu.nus.se.its.model;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import org.javatuples.Pair;
+
+/**
+ * Table of shared expressions, which lets the programs of many submissions share structurally
+ * identical constants, variables and operations instead of holding their own copies. Expressions
+ * are interned bottom-up: an operation is identical to another if it has the same name, line and
+ * original expression and the same interned arguments, so interned expressions with identical
+ * structure are the same object and are compared by reference.
+ *
+ * <p>Interned expressions are immutable, see {@link Expression#isInterned()}, so that no program
+ * modifies the expressions of another. The table references the expressions weakly, so
+ * expressions no longer used by any program are garbage collected.
+ */
+public final class ExpressionInterner {
+
+  private static final ExpressionInterner SHARED = new ExpressionInterner();
+
+  // the keys are referenced by their expressions, so an entry lives as long as its expression
+  private final Map<Key, WeakReference<Expression>> table = new WeakHashMap<>();
+  private long lookups;
+  private long hits;
+
+  /**
+   * Returns the table shared by all programs of the process.
+   */
+  public static ExpressionInterner getShared() {
+    return SHARED;
+  }
+
+  /**
+   * Replaces the expressions of the program by their shared instances. Meant to be called when a
+   * program is loaded, before the program is shared with other threads; afterwards the
+   * expressions of the program are immutable.
+   *
+   * @param program -- the program
+   * @return the program
+   */
+  public Program intern(Program program) {
+    for (Function fnc : program.getFncs().values()) {
+      for (Integer loc : new ArrayList<>(fnc.getLocexprs().keySet())) {
+        ArrayList<Pair<String, Expression>> block = new ArrayList<>();
+        for (Pair<String, Expression> assignment : fnc.getLocexprs().get(loc)) {
+          block.add(Pair.with(assignment.getValue0(), intern(assignment.getValue1())));
+        }
+        fnc.replaceLocExpressions(loc, block);
+      }
+    }
+    return program;
+  }
+
+  /**
+   * Returns the shared instance of the structure of the expression. If there is none, the given
+   * expression becomes the shared instance after its arguments were replaced by their shared
+   * instances.
+   *
+   * @param expression -- the expression, or null
+   * @return the shared instance, or the expression itself if its type cannot be interned
+   */
+  public synchronized Expression intern(Expression expression) {
+    if (expression == null || expression.isInterned()) {
+      return expression;
+    }
+    Expression original = intern(expression.getOriginalExpr());
+
+    Key key;
+    List<Expression> args = null;
+    if (expression instanceof Constant) {
+      key = new Key(expression, ((Constant) expression).getValue(), false, null, original);
+    } else if (expression instanceof Variable) {
+      Variable variable = (Variable) expression;
+      key = new Key(expression, variable.getUnprimedName(), variable.isPrimed(), null, original);
+    } else if (expression instanceof Operation) {
+      Operation operation = (Operation) expression;
+      args = new ArrayList<>();
+      for (Expression arg : operation.getArgs()) {
+        args.add(intern(arg));
+      }
+      key = new Key(expression, operation.getName(), false, args, original);
+    } else {
+      return expression;
+    }
+
+    lookups++;
+    WeakReference<Expression> reference = table.get(key);
+    Expression shared = reference == null ? null : reference.get();
+    if (shared != null) {
+      hits++;
+      return shared;
+    }
+    if (args != null) {
+      ((Operation) expression).internArgs(args);
+    }
+    expression.intern(key, original);
+    table.put(key, new WeakReference<>(expression));
+    return expression;
+  }
+
+  /**
+   * Returns the number of shared expressions in use.
+   */
+  public synchronized int size() {
+    return table.size();
+  }
+
+  /**
+   * Returns the number of expressions looked up in the table.
+   */
+  public synchronized long getLookups() {
+    return lookups;
+  }
+
+  /**
+   * Returns the number of expressions replaced by an existing shared instance.
+   */
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  /**
+   * Structure of an expression, whose parts are compared by reference where they are interned
+   * expressions themselves.
+   */
+  private static final class Key {
+    private final Class<?> type;
+    private final int line;
+    private final String name;
+    private final boolean primed;
+    private final List<Expression> args;
+    private final Expression original;
+    private final int hash;
+
+    private Key(Expression expression, String name, boolean primed, List<Expression> args,
+        Expression original) {
+      this.type = expression.getClass();
+      this.line = expression.getLineNumber();
+      this.name = name;
+      this.primed = primed;
+      this.args = args;
+      this.original = original;
+
+      int result = Objects.hash(type, line, name, primed, System.identityHashCode(original));
+      if (args != null) {
+        for (Expression arg : args) {
+          result = 31 * result + System.identityHashCode(arg);
+        }
+      }
+      this.hash = result;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) o;
+      if (hash != key.hash || type != key.type || line != key.line || primed != key.primed
+          || original != key.original || !Objects.equals(name, key.name)) {
+        return false;
+      }
+      if (args == null || key.args == null) {
+        return args == key.args;
+      }
+      if (args.size() != key.args.size()) {
+        return false;
+      }
+      for (int i = 0; i < args.size(); i++) {
+        if (args.get(i) != key.args.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    @Override
+    public int hashCode() {
+      return hash;
+    }
+  }
+}
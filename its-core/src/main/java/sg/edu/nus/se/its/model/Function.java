@@ -22,6 +22,8 @@ public class Function implements JsonSerializable, Executable {
   private HashMap<Integer, HashMap<Boolean, Integer>> loctrans;
   private HashMap<Integer, String> locdescs;
   private HashMap<String, String> types;
+  // number of modifications through the methods below, see Program#getSerialized
+  private transient int modCount;
 
   /**
    * Creates new Function object for the given function name, its parameters (tuples of name and
@@ -115,6 +117,7 @@ public class Function implements JsonSerializable, Executable {
    * @param value the edge to remove
    */
   public void removeTransitionBranch(int loc, boolean value) {
+    modCount++;
     assert (loctrans.containsKey(loc));
     HashMap<Boolean, Integer> hashMap = loctrans.get(loc);
     if (hashMap.containsKey(value)) {
@@ -190,6 +193,7 @@ public class Function implements JsonSerializable, Executable {
    * @param idx refers to the index of expression to be added to the list of expressions
    */
   public void addExpr(int loc, String var, Expression exprs, int idx) {
+    modCount++;
 
     assert this.locexprs.containsKey(loc);
     assert var != null;
@@ -205,6 +209,7 @@ public class Function implements JsonSerializable, Executable {
    * @param exprs assigned expression
    */
   public void addExpr(int loc, String var, Expression exprs) {
+    modCount++;
 
     assert this.locexprs.containsKey(loc);
     assert var != null;
@@ -220,6 +225,7 @@ public class Function implements JsonSerializable, Executable {
    * @param falseLocation of type Integer rather than int as falseLocation is nullable
    */
   public void addLocationTrans(int currentLocation, Integer trueLocation, Integer falseLocation) {
+    modCount++;
     assert (locdescs.containsKey(currentLocation));
 
     HashMap<Boolean, Integer> locationTrans = new HashMap<>();
@@ -236,6 +242,7 @@ public class Function implements JsonSerializable, Executable {
    * @return updated current location
    */
   public int addLocation(int loc, String desc) {
+    modCount++;
     if (loc == 0) {
       if (this.loctrans.size() > 0) {
         loc = Collections.max(this.loctrans.keySet()) + 1;
@@ -264,6 +271,7 @@ public class Function implements JsonSerializable, Executable {
    * @param type variable type
    */
   public void addType(String var, String type) {
+    modCount++;
     assert var != null;
     assert type != null;
 
@@ -280,6 +288,7 @@ public class Function implements JsonSerializable, Executable {
    * @param loc location to be removed
    */
   public void removeLocation(int loc) {
+    modCount++;
     assert this.locexprs.containsKey(loc);
     this.locexprs.remove(loc);
     assert this.locdescs.containsKey(loc);
@@ -290,9 +299,34 @@ public class Function implements JsonSerializable, Executable {
 
   public void replaceLocExpressions(int location,
       ArrayList<Pair<String, Expression>> locationExprs) {
+    modCount++;
     locexprs.put(location, locationExprs);
   }
 
+  /**
+   * Returns the number of modifications of the function through the methods of the model, e.g.,
+   * to check whether results derived from the function are still valid.
+   */
+  public int getModCount() {
+    return modCount;
+  }
+
+  /**
+   * Returns the time of the latest modification of the expressions of the function, see
+   * {@link Expression#getStamp()}.
+   */
+  public long getExpressionStamp() {
+    long stamp = 0;
+    for (ArrayList<Pair<String, Expression>> block : locexprs.values()) {
+      for (Pair<String, Expression> assignment : block) {
+        if (assignment.getValue1() != null) {
+          stamp = Math.max(stamp, assignment.getValue1().getStamp());
+        }
+      }
+    }
+    return stamp;
+  }
+
   public String getLocationDesc(int location) {
     assert (locdescs.containsKey(location));
     return locdescs.get(location);
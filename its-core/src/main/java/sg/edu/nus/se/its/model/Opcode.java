@@ -0,0 +1,347 @@
+package sg.edu.nus.se.its.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import sg.edu.nus.se.its.util.constants.ClangConstants;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Registry of the operations of the model, i.e., the names an {@link Operation} can have. Every
+ * opcode records the language it belongs to, the number of arguments it takes, its symmetric
+ * counterpart and the categories it is listed in, so that consumers can dispatch on the opcode
+ * of an operation instead of comparing its name against lists of names. Names outside the
+ * registry are mapped to {@link #UNKNOWN}.
+ */
+public enum Opcode {
+
+  // C operators
+  PLUS("+", Language.C, 1, 2, "+", Category.ARITHMETIC),
+  MINUS("-", Language.C, 1, 2, null, Category.ARITHMETIC),
+  STAR("*", Language.C, 1, 2, "*", Category.ARITHMETIC),
+  SLASH("/", Language.C, 2, 2, null, Category.ARITHMETIC),
+  PERCENT("%", Language.C, 2, 2, null, Category.ARITHMETIC),
+  LESS("<", Language.C, 2, 2, ">", Category.COMPARISON),
+  LESS_EQUAL("<=", Language.C, 2, 2, ">=", Category.COMPARISON),
+  GREATER(">", Language.C, 2, 2, "<", Category.COMPARISON),
+  GREATER_EQUAL(">=", Language.C, 2, 2, "<=", Category.COMPARISON),
+  EQUAL("==", Language.C, 2, 2, "==", Category.COMPARISON),
+  NOT_EQUAL("!=", Language.C, 2, 2, "!=", Category.COMPARISON),
+  LOGICAL_AND("&&", Language.C, 2, Opcode.VARIADIC, "&&", Category.LOGIC),
+  LOGICAL_OR("||", Language.C, 2, Opcode.VARIADIC, "||", Category.LOGIC),
+  LOGICAL_NOT("!", Language.C, 1, 1, null),
+  BITWISE_NOT("~", Language.C, 1, 1, null),
+  AMPERSAND("&", Language.C, 1, 2, null),
+  BITWISE_OR("|", Language.C, 2, 2, null),
+  BITWISE_XOR("^", Language.C, 2, 2, null),
+  SHIFT_LEFT("<<", Language.C, 2, 2, null),
+  SHIFT_RIGHT(">>", Language.C, 2, 2, null),
+  ADDRESS_OF(ClangConstants.ADDRESS_OF, Language.C, 1, 1, null),
+  SUBSCRIPT("[]", Language.C, 2, Opcode.VARIADIC, null),
+  CAST(ClangConstants.CAST, Language.C, 2, 2, null),
+  ARRAY_CREATE(Constants.ARRAY_CREATE, Language.C, 1, Opcode.VARIADIC, null),
+  ARRAY_DECLARATION(Constants.ARRAY_DECLARATION, Language.C, 2, Opcode.VARIADIC, null),
+  ARRAY_ASSIGN(Constants.ARRAY_ASSIGN, Language.C, 3, Opcode.VARIADIC, null),
+  FLOOR("floor", Language.C, 1, 1, null, Category.MATH_FUNCTION),
+  CEIL("ceil", Language.C, 1, 1, null, Category.MATH_FUNCTION),
+  SQRT("sqrt", Language.C, 1, 1, null, Category.MATH_FUNCTION),
+  LOG2("log2", Language.C, 1, 1, null, Category.MATH_FUNCTION),
+  LOG10("log10", Language.C, 1, 1, null, Category.MATH_FUNCTION),
+  LOG("log", Language.C, 1, 1, null, Category.MATH_FUNCTION),
+  EXP("exp", Language.C, 1, 1, null, Category.MATH_FUNCTION),
+
+  // operations of both languages
+  POW("pow", Language.ANY, 2, 3, null, Category.MATH_FUNCTION, Category.PYTHON_FUNCTION),
+  ABS("abs", Language.ANY, 1, 1, null, Category.MATH_FUNCTION, Category.PYTHON_FUNCTION),
+  ITE(Constants.CONDITIONAL_OPERATOR, Language.ANY, 3, 3, null),
+  FUNC_CALL(Constants.FUNCTION_CALL, Language.ANY, 1, Opcode.VARIADIC, null),
+  LIST_HEAD("ListHead", Language.ANY, 2, 2, null),
+  LIST_TAIL("ListTail", Language.ANY, 1, 1, null),
+  STRING_APPEND(Constants.STRING_APPEND, Language.ANY, 1, Opcode.VARIADIC, null),
+  STRING_FORMAT(Constants.STRING_FORMAT, Language.ANY, 1, Opcode.VARIADIC, null),
+
+  // Python operators
+  AND("And", "and", 2, Opcode.VARIADIC, "And", Category.PYTHON_BINARY),
+  OR("Or", "or", 2, Opcode.VARIADIC, "Or", Category.PYTHON_BINARY),
+  ADD("Add", "+", 2, 2, "Add", Category.PYTHON_BINARY),
+  AUG_ADD("AssAdd", "+=", 2, 2, null, Category.PYTHON_BINARY),
+  SUB("Sub", "-", 2, 2, null, Category.PYTHON_BINARY),
+  MULT("Mult", "*", 2, 2, "Mult", Category.PYTHON_BINARY),
+  DIV("Div", "/", 2, 2, null, Category.PYTHON_BINARY),
+  MOD("Mod", "%", 2, 2, null, Category.PYTHON_BINARY),
+  POWER("Pow", "**", 2, 2, null, Category.PYTHON_BINARY),
+  LSHIFT("LShift", "<<", 2, 2, null, Category.PYTHON_BINARY),
+  RSHIFT("RShift", ">>", 2, 2, null, Category.PYTHON_BINARY),
+  BIT_OR("BitOr", "|", 2, 2, "BitOr", Category.PYTHON_BINARY),
+  BIT_AND("BitAnd", "&", 2, 2, "BitAnd", Category.PYTHON_BINARY),
+  BIT_XOR("BitXor", "^", 2, 2, "BitXor", Category.PYTHON_BINARY),
+  FLOOR_DIV("FloorDiv", "//", 2, 2, null, Category.PYTHON_BINARY),
+  EQ("Eq", "==", 2, 2, "Eq", Category.PYTHON_BINARY),
+  NOT_EQ("NotEq", "!=", 2, 2, "NotEq", Category.PYTHON_BINARY),
+  LT("Lt", "<", 2, 2, "Gt", Category.PYTHON_BINARY),
+  LT_E("LtE", "<=", 2, 2, "GtE", Category.PYTHON_BINARY),
+  GT("Gt", ">", 2, 2, "Lt", Category.PYTHON_BINARY),
+  GT_E("GtE", ">=", 2, 2, "LtE", Category.PYTHON_BINARY),
+  IS("Is", "is", 2, 2, "Is", Category.PYTHON_BINARY),
+  IS_NOT("IsNot", "is not", 2, 2, "IsNot", Category.PYTHON_BINARY),
+  IN("In", "in", 2, 2, null, Category.PYTHON_BINARY),
+  NOT_IN("NotIn", "not in", 2, 2, null, Category.PYTHON_BINARY),
+  INVERT("Invert", "~", 1, 1, null, Category.PYTHON_UNARY),
+  NOT("Not", "not", 1, 1, null, Category.PYTHON_UNARY),
+  UADD("UAdd", "+", 1, 1, null, Category.PYTHON_UNARY),
+  USUB("USub", "-", 1, 1, null, Category.PYTHON_UNARY),
+
+  // Python functions
+  PRINT("print", Language.PYTHON, 0, Opcode.VARIADIC, null),
+  LEN("len", Language.PYTHON, 1, 1, null, Category.PYTHON_FUNCTION),
+  FLOAT("float", Language.PYTHON, 0, 1, null, Category.PYTHON_FUNCTION),
+  INT("int", Language.PYTHON, 0, 2, null, Category.PYTHON_FUNCTION),
+  STR("str", Language.PYTHON, 0, 1, null, Category.PYTHON_FUNCTION),
+  INPUT("input", Language.PYTHON, 0, 1, null, Category.PYTHON_FUNCTION,
+      Category.PYTHON_NO_ARGS),
+  BOOL("bool", Language.PYTHON, 0, 1, null),
+  RANGE("range", Language.PYTHON, 1, 3, null),
+  ENUMERATE("enumerate", Language.PYTHON, 1, 2, null),
+  MIN("min", Language.PYTHON, 1, Opcode.VARIADIC, null),
+  MAX("max", Language.PYTHON, 1, Opcode.VARIADIC, null),
+  SUM("sum", Language.PYTHON, 1, 2, null),
+  SORTED("sorted", Language.PYTHON, 1, 1, null),
+  ROUND("round", Language.PYTHON, 1, 2, null),
+  GET_ELEMENT(Constants.GET_ELEMENT, Language.PYTHON, 2, 2, null),
+  ASSIGN_ELEMENT("AssignElement", Language.PYTHON, 3, 3, null),
+  SLICE("Slice", Language.PYTHON, 3, 4, null),
+
+  // Python methods, the receiver is the first argument
+  APPEND("append", Language.PYTHON, 2, 2, null, Category.SEQUENCE_BINARY,
+      Category.SEQUENCE_UNARY),
+  EXTEND("extend", Language.PYTHON, 2, 2, null, Category.SEQUENCE_BINARY),
+  POP("pop", Language.PYTHON, 1, 2, null, Category.SEQUENCE_BINARY, Category.SEQUENCE_UNARY),
+  REMOVE("remove", Language.PYTHON, 2, 2, null, Category.SEQUENCE_BINARY),
+  INSERT("insert", Language.PYTHON, 3, 3, null, Category.SEQUENCE_BINARY,
+      Category.SEQUENCE_TERNARY),
+  ADD_ELEMENT("add", Language.PYTHON, 2, 2, null, Category.SEQUENCE_BINARY),
+  UNION("union", Language.PYTHON, 1, Opcode.VARIADIC, null, Category.SEQUENCE_BINARY),
+  DISCARD("discard", Language.PYTHON, 2, 2, null, Category.SEQUENCE_BINARY),
+  GET("get", Language.PYTHON, 2, 3, null, Category.SEQUENCE_BINARY_ASSIGN),
+  ISDISJOINT("isdisjoint", Language.PYTHON, 2, 2, null, Category.SEQUENCE_BINARY_ASSIGN),
+  ISSUBSET("issubset", Language.PYTHON, 2, 2, null, Category.SEQUENCE_BINARY_ASSIGN),
+  ISSUPERSET("issuperset", Language.PYTHON, 2, 2, null, Category.SEQUENCE_BINARY_ASSIGN),
+  DIFFERENCE("difference", Language.PYTHON, 1, Opcode.VARIADIC, null,
+      Category.SEQUENCE_BINARY_ASSIGN),
+  INTERSECTION("intersection", Language.PYTHON, 1, Opcode.VARIADIC, null,
+      Category.SEQUENCE_BINARY_ASSIGN),
+  SYMMETRIC_DIFFERENCE("symmetric_difference", Language.PYTHON, 2, 2, null,
+      Category.SEQUENCE_BINARY_ASSIGN),
+  COUNT("count", Language.PYTHON, 2, 2, null, Category.SEQUENCE_BINARY_ASSIGN),
+  INDEX("index", Language.PYTHON, 2, 4, null, Category.SEQUENCE_BINARY_ASSIGN),
+  CLEAR("clear", Language.PYTHON, 1, 1, null, Category.SEQUENCE_UNARY),
+  REVERSE("reverse", Language.PYTHON, 1, 1, null, Category.SEQUENCE_UNARY),
+  SORT("sort", Language.PYTHON, 1, 1, null, Category.SEQUENCE_UNARY),
+  ITEMS("items", Language.PYTHON, 1, 1, null, Category.SEQUENCE_UNARY_ASSIGN),
+  KEYS("keys", Language.PYTHON, 1, 1, null, Category.SEQUENCE_UNARY_ASSIGN),
+  VALUES("values", Language.PYTHON, 1, 1, null, Category.SEQUENCE_UNARY_ASSIGN),
+  POPITEM("popitem", Language.PYTHON, 1, 1, null, Category.SEQUENCE_UNARY_ASSIGN),
+  COPY("copy", Language.PYTHON, 1, 1, null, Category.SEQUENCE_UNARY_ASSIGN),
+
+  // Python sequence initializations, the symbols are the brackets of the sequence
+  LIST_INIT("ListInit", "[]", 0, Opcode.VARIADIC, null, Category.SEQUENCE_INIT),
+  LIST("list", "[]", 0, 1, null, Category.SEQUENCE_INIT),
+  SET_INIT("SetInit", "{}", 0, Opcode.VARIADIC, null, Category.SEQUENCE_INIT),
+  SET("set", "{}", 0, 1, null, Category.SEQUENCE_INIT),
+  TUPLE_INIT("TupleInit", "()", 0, Opcode.VARIADIC, null, Category.SEQUENCE_INIT),
+  TUPLE("tuple", "()", 0, 1, null, Category.SEQUENCE_INIT),
+  DICT_INIT("DictInit", "{}", 0, Opcode.VARIADIC, null, Category.SEQUENCE_INIT),
+  DICT("dict", "{}", 0, 1, null, Category.SEQUENCE_INIT),
+
+  /**
+   * Opcode of the names that are not in the registry.
+   */
+  UNKNOWN(null, Language.ANY, 0, Opcode.VARIADIC, null);
+
+  /**
+   * Maximum arity of the operations that take any number of arguments.
+   */
+  public static final int VARIADIC = Integer.MAX_VALUE;
+
+  /**
+   * Languages of the operations.
+   */
+  public enum Language {
+    C, PYTHON, ANY
+  }
+
+  /**
+   * Categories of the operations, as listed in {@link Constants}.
+   */
+  public enum Category {
+    ARITHMETIC, COMPARISON, LOGIC, MATH_FUNCTION, PYTHON_UNARY, PYTHON_BINARY, PYTHON_FUNCTION,
+    PYTHON_NO_ARGS, SEQUENCE_INIT, SEQUENCE_UNARY, SEQUENCE_UNARY_ASSIGN, SEQUENCE_BINARY,
+    SEQUENCE_BINARY_ASSIGN, SEQUENCE_TERNARY
+  }
+
+  private static final Map<String, Opcode> BY_NAME = new HashMap<>();
+
+  static {
+    for (Opcode opcode : values()) {
+      if (opcode.name != null) {
+        BY_NAME.put(opcode.name, opcode);
+      }
+    }
+    for (Opcode opcode : values()) {
+      opcode.symmetric = opcode.symmetricName == null ? null : BY_NAME.get(opcode.symmetricName);
+    }
+  }
+
+  private final String name;
+  private final String symbol;
+  private final Language language;
+  private final int minArity;
+  private final int maxArity;
+  private final String symmetricName;
+  private final Set<Category> categories;
+  private Opcode symmetric;
+
+  Opcode(String name, Language language, int minArity, int maxArity, String symmetricName,
+      Category... categories) {
+    this(name, name, language, minArity, maxArity, symmetricName, categories);
+  }
+
+  Opcode(String name, String symbol, int minArity, int maxArity, String symmetricName,
+      Category... categories) {
+    this(name, symbol, Language.PYTHON, minArity, maxArity, symmetricName, categories);
+  }
+
+  Opcode(String name, String symbol, Language language, int minArity, int maxArity,
+      String symmetricName, Category... categories) {
+    this.name = name;
+    this.symbol = symbol;
+    this.language = language;
+    this.minArity = minArity;
+    this.maxArity = maxArity;
+    this.symmetricName = symmetricName;
+    this.categories = categories.length == 0 ? EnumSet.noneOf(Category.class)
+        : EnumSet.of(categories[0], categories);
+  }
+
+  /**
+   * Returns the opcode of an operation name.
+   *
+   * @param name -- the name of the operation
+   * @return the opcode, or {@link #UNKNOWN} if the name is not in the registry
+   */
+  public static Opcode of(String name) {
+    Opcode opcode = name == null ? null : BY_NAME.get(name);
+    return opcode == null ? UNKNOWN : opcode;
+  }
+
+  /**
+   * Returns the names of the operations of a category, in the order of the registry.
+   *
+   * @param category -- the category
+   * @return the unmodifiable list of names
+   */
+  public static List<String> names(Category category) {
+    List<String> names = new ArrayList<>();
+    for (Opcode opcode : values()) {
+      if (opcode.is(category)) {
+        names.add(opcode.name);
+      }
+    }
+    return Collections.unmodifiableList(names);
+  }
+
+  /**
+   * Returns the symbols of the operations of a category by their names.
+   *
+   * @param category -- the category
+   * @return the unmodifiable map of names to symbols
+   */
+  public static Map<String, String> symbols(Category category) {
+    Map<String, String> symbols = new LinkedHashMap<>();
+    for (Opcode opcode : values()) {
+      if (opcode.is(category)) {
+        symbols.put(opcode.name, opcode.symbol);
+      }
+    }
+    return Collections.unmodifiableMap(symbols);
+  }
+
+  /**
+   * Returns the name of the operation, which is null for {@link #UNKNOWN}.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Returns the symbol of the operation in the source language. Python operators and sequence
+   * initializations have their own symbols, other operations are written as their name.
+   */
+  public String getSymbol() {
+    return symbol;
+  }
+
+  public Language getLanguage() {
+    return language;
+  }
+
+  public int getMinArity() {
+    return minArity;
+  }
+
+  public int getMaxArity() {
+    return maxArity;
+  }
+
+  /**
+   * Checks whether the operation accepts a number of arguments.
+   *
+   * @param arity -- the number of arguments
+   * @return true if the operation can be applied to that many arguments
+   */
+  public boolean accepts(int arity) {
+    return minArity <= arity && arity <= maxArity;
+  }
+
+  /**
+   * Returns the operation that computes the same value with the two arguments swapped, e.g.,
+   * {@code >} for {@code <}.
+   *
+   * @return the symmetric opcode, or null if the operation has none
+   */
+  public Opcode getSymmetric() {
+    return symmetric;
+  }
+
+  /**
+   * Checks whether the operation is its own symmetric counterpart.
+   */
+  public boolean isCommutative() {
+    return symmetric == this;
+  }
+
+  /**
+   * Checks whether the operation is in a category.
+   *
+   * @param category -- the category
+   * @return true if the operation is listed in the category
+   */
+  public boolean is(Category category) {
+    return categories.contains(category);
+  }
+
+  /**
+   * Checks whether the operation is part of a language.
+   *
+   * @param language -- the language of the program
+   * @return true if the operation belongs to the language or to both languages
+   */
+  public boolean isDefinedFor(Language language) {
+    return this.language == Language.ANY || this.language == language;
+  }
+}
@@ -1,6 +1,7 @@
 package sg.edu.nus.se.its.model;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -16,6 +17,12 @@ public class Operation extends Expression {
 
   private List<Expression> args;
 
+  // resolved on first use, as deserialized operations are not constructed
+  private transient Opcode opcode;
+
+  // hash code of an interned operation, which cannot change
+  private transient int hash;
+
   /**
    * Initializes an Operation object with the pre-setting the isStatement value to false and the
    * original to null.
@@ -28,16 +35,44 @@ public class Operation extends Expression {
     super(line);
     this.name = name;
     this.args = args;
+    this.opcode = Opcode.of(name);
   }
 
   public String getName() {
     return name;
   }
 
+  /**
+   * Returns the opcode of the operation, which is looked up once from its name.
+   *
+   * @return the opcode, or {@link Opcode#UNKNOWN} if the name is not in the registry
+   */
+  public Opcode getOpcode() {
+    Opcode result = opcode;
+    if (result == null) {
+      result = Opcode.of(name);
+      opcode = result;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the arguments of the operation, which cannot be modified if the operation is
+   * interned.
+   *
+   * @return the list of arguments
+   */
   public List<Expression> getArgs() {
     return args;
   }
 
+  /**
+   * Replaces the arguments by their interned instances before the operation is interned.
+   */
+  void internArgs(List<Expression> internedArgs) {
+    this.args = Collections.unmodifiableList(new ArrayList<>(internedArgs));
+  }
+
   @Override
   public String toString() {
     List<String> argsList = new ArrayList<>();
@@ -62,6 +97,9 @@ public class Operation extends Expression {
 
   @Override
   public boolean equals(Object o) {
+    if (this == o) {
+      return true;
+    }
     if (o instanceof Operation) {
       Operation operation = (Operation) o;
       return Objects.equals(name, operation.name) && Objects.equals(args, operation.args);
@@ -71,7 +109,14 @@ public class Operation extends Expression {
 
   @Override
   public int hashCode() {
-    return Objects.hash(name, args);
+    if (hash != 0) {
+      return hash;
+    }
+    int result = Objects.hash(name, args);
+    if (isInterned()) {
+      hash = result;
+    }
+    return result;
   }
 
   @Override
@@ -80,8 +125,7 @@ public class Operation extends Expression {
     for (Expression expression : args) {
       newArguments.add(expression.prime());
     }
-    args = newArguments;
-    return this;
+    return withArgs(newArguments);
   }
 
   @Override
@@ -90,8 +134,7 @@ public class Operation extends Expression {
     for (Expression argument : this.args) {
       newArgs.add(argument.prime(name));
     }
-    this.args = newArgs;
-    return this;
+    return withArgs(newArgs);
   }
 
   @Override
@@ -100,8 +143,7 @@ public class Operation extends Expression {
     for (Expression expression : args) {
       newArguments.add(expression.unprime());
     }
-    args = newArguments;
-    return this;
+    return withArgs(newArguments);
   }
 
   @Override
@@ -110,7 +152,37 @@ public class Operation extends Expression {
     for (Expression expression : args) {
       newArguments.add(expression.replace(varName, expr));
     }
-    args = newArguments;
+    return withArgs(newArguments);
+  }
+
+  @Override
+  long getStamp() {
+    long result = super.getStamp();
+    for (Expression argument : args) {
+      if (argument != null) {
+        result = Math.max(result, argument.getStamp());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Sets the arguments, or returns a copy with the arguments if the operation is interned. The
+   * operation itself is returned if no argument was replaced.
+   */
+  private Expression withArgs(List<Expression> newArguments) {
+    for (int i = 0; i < newArguments.size(); i++) {
+      if (newArguments.get(i) != args.get(i)) {
+        if (isInterned()) {
+          Operation copy = new Operation(name, newArguments, getLineNumber());
+          copy.setOriginalExpression(getOriginalExpr());
+          return copy;
+        }
+        args = newArguments;
+        modified();
+        return this;
+      }
+    }
     return this;
   }
 
@@ -1,9 +1,12 @@
 package sg.edu.nus.se.its.model;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import sg.edu.nus.se.its.interpreter.ConstantPool;
+import sg.edu.nus.se.its.interpreter.LocationIndex;
 import sg.edu.nus.se.its.util.JsonSerializable;
 
 /**
@@ -14,6 +17,15 @@ public class Program implements JsonSerializable {
   // importStatements contains a list of header statements, this is language dependent!
   private List<String> importStatements;
   private Map<String, Function> fncs;
+  // constant pools by interpreter class, as the languages parse literals differently
+  private transient Map<Class<?>, ConstantPool> constantPools;
+  // location index shared by the coverages of the program, valid while its structure is unchanged
+  private transient LocationIndex locationIndex;
+  private transient long[] locationIndexState;
+  // serialized forms by format, valid while the state of the program is unchanged
+  private transient Map<String, String> serialized;
+  private transient long[] serializedState;
+  private transient int modCount;
 
   /**
    * Initializes the empty program object.
@@ -28,6 +40,7 @@ public class Program implements JsonSerializable {
   }
 
   public void addfnc(Function fnc) {
+    modCount++;
     this.fncs.put(fnc.getName(), fnc);
   }
 
@@ -40,6 +53,7 @@ public class Program implements JsonSerializable {
   }
 
   public void setImportStatements(List<String> importStatements) {
+    modCount++;
     this.importStatements = importStatements;
   }
 
@@ -47,6 +61,95 @@ public class Program implements JsonSerializable {
     return this.importStatements;
   }
 
+  /**
+   * Returns the pool of the typed constants of the program for an interpreter. The pool is created
+   * on the first use and shared by all executions of the program with that interpreter class.
+   *
+   * @param interpreter -- the class of the interpreter that parses the literals
+   * @return the constant pool
+   */
+  public synchronized ConstantPool getConstantPool(Class<?> interpreter) {
+    if (constantPools == null) {
+      constantPools = new HashMap<>();
+    }
+    return constantPools.computeIfAbsent(interpreter, key -> new ConstantPool());
+  }
+
+  /**
+   * Returns the location index of the program. The index is created on the first use and kept with
+   * the program until a function or a location is added through the methods of the model, so that
+   * the coverages of all executions of the program share one index.
+   *
+   * @return the location index
+   */
+  public synchronized LocationIndex getLocationIndex() {
+    long[] state = structure();
+    if (locationIndex == null || !Arrays.equals(locationIndexState, state)) {
+      locationIndex = LocationIndex.of(this);
+      locationIndexState = state;
+    }
+    return locationIndex;
+  }
+
+  /**
+   * Returns a serialized form of the program, e.g., the program model in the requests of the
+   * interpreter service. The form is computed on the first use and kept with the program until the
+   * program, one of its functions or one of their expressions is modified through the methods of
+   * the model, so that repeated executions of a program serialize it once. Checking for
+   * modifications visits the expressions of the program, but does not serialize them.
+   * Modifications of the collections returned by the getters are not detected.
+   *
+   * @param format -- the name of the serialized form
+   * @param serializer -- computes the serialized form of the program
+   * @return the serialized form
+   */
+  public synchronized String getSerialized(String format,
+      java.util.function.Function<Program, String> serializer) {
+    // read before serializing, so that a concurrent modification invalidates the result
+    long[] state = state();
+    if (serialized == null || !Arrays.equals(serializedState, state)) {
+      serialized = new HashMap<>();
+      serializedState = state;
+    }
+    String form = serialized.get(format);
+    if (form == null) {
+      // not computeIfAbsent, the serializer may build on another serialized form
+      form = serializer.apply(this);
+      serialized.put(format, form);
+    }
+    return form;
+  }
+
+  /**
+   * Returns the modification counts of the program and its functions, and the times of the latest
+   * modifications of their expressions. Functions are only replaced through the program, so the
+   * state differs from an earlier state after every modification through the methods of the model.
+   */
+  private long[] state() {
+    long[] state = new long[1 + 2 * fncs.size()];
+    int i = 0;
+    state[i++] = modCount;
+    for (Function fnc : fncs.values()) {
+      state[i++] = fnc.getModCount();
+      state[i++] = fnc.getExpressionStamp();
+    }
+    return state;
+  }
+
+  /**
+   * Returns the modification counts of the program and its functions, without visiting the
+   * expressions.
+   */
+  private long[] structure() {
+    long[] state = new long[1 + fncs.size()];
+    int i = 0;
+    state[i++] = modCount;
+    for (Function fnc : fncs.values()) {
+      state[i++] = fnc.getModCount();
+    }
+    return state;
+  }
+
   @Override
   public String toString() {
     StringBuilder programString = new StringBuilder("\n\n");
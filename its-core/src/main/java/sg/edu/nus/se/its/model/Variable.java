@@ -63,7 +63,9 @@ public class Variable extends Expression implements Cloneable {
    * Sets the prime status of the variable, without generating any clone.
    */
   public void setPrimed(boolean primed) {
+    checkNotInterned();
     this.primed = primed;
+    modified();
   }
 
   /**
@@ -156,16 +158,14 @@ public class Variable extends Expression implements Cloneable {
 
   @Override
   public Expression prime() {
-    this.setPrimed(true);
-    return this;
+    return withPrimed(true);
   }
 
   @Override
   public Expression prime(Set<String> name) {
     for (String varName : name) {
       if (this.name.equals(varName)) {
-        this.setPrimed(true);
-        return this;
+        return withPrimed(true);
       }
     }
     return this;
@@ -185,7 +185,23 @@ public class Variable extends Expression implements Cloneable {
 
   @Override
   public Expression unprime() {
-    this.setPrimed(false);
-    return this;
+    return withPrimed(false);
+  }
+
+  /**
+   * Sets the prime status, or returns a copy with the prime status if the variable is interned.
+   */
+  private Expression withPrimed(boolean primed) {
+    if (!isInterned()) {
+      setPrimed(primed);
+      return this;
+    }
+    if (this.primed == primed) {
+      return this;
+    }
+    Variable copy = new Variable(name, getLineNumber());
+    copy.primed = primed;
+    copy.setOriginalExpression(getOriginalExpr());
+    return copy;
   }
 }
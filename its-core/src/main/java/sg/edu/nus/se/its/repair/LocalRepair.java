@@ -1,19 +1,6 @@
 package sg.edu.nus.se.its.repair;
 
-import static sg.edu.nus.se.its.util.constants.Constants.ARITH_OPS;
-import static sg.edu.nus.se.its.util.constants.Constants.BINARY_OPS_PYTHON;
-import static sg.edu.nus.se.its.util.constants.Constants.COMP_OPS;
-import static sg.edu.nus.se.its.util.constants.Constants.FUNCS_UNARY_PYTHON;
-import static sg.edu.nus.se.its.util.constants.Constants.FUNCTION_CALL;
-import static sg.edu.nus.se.its.util.constants.Constants.GET_ELEMENT;
-import static sg.edu.nus.se.its.util.constants.Constants.LOGIC_OPS;
-import static sg.edu.nus.se.its.util.constants.Constants.SEQ_BINARY_ASSIGN_FUNCS_PYTHON;
-import static sg.edu.nus.se.its.util.constants.Constants.SEQ_BINARY_FUNCS_PYTHON;
-import static sg.edu.nus.se.its.util.constants.Constants.SEQ_INIT_PYTHON;
-import static sg.edu.nus.se.its.util.constants.Constants.SEQ_UNARY_FUNCS_PYTHON;
-import static sg.edu.nus.se.its.util.constants.Constants.STRING_APPEND;
 import static sg.edu.nus.se.its.util.constants.Constants.STRING_FORMAT;
-import static sg.edu.nus.se.its.util.constants.Constants.UNARY_OPS_PYTHON;
 import static sg.edu.nus.se.its.util.constants.Constants.VAR_RET;
 
 import java.util.List;
@@ -22,6 +9,8 @@ import org.javatuples.Pair;
 import org.javatuples.Triplet;
 import sg.edu.nus.se.its.model.Constant;
 import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Opcode;
+import sg.edu.nus.se.its.model.Opcode.Category;
 import sg.edu.nus.se.its.model.Operation;
 import sg.edu.nus.se.its.model.Variable;
 
@@ -87,8 +76,8 @@ public class LocalRepair {
       // Optimize ite print by highlighting difference
       if (expr1.getType().equals("Operation")
           && expr2.getType().equals("Operation")
-          && ((Operation) expr1).getName().equals("ite")
-          && ((Operation) expr2).getName().equals("ite")) {
+          && ((Operation) expr1).getOpcode() == Opcode.ITE
+          && ((Operation) expr2).getOpcode() == Opcode.ITE) {
         Operation exprOp1 = (Operation) expr1;
         Operation exprOp2 = (Operation) expr2;
 
@@ -155,7 +144,8 @@ public class LocalRepair {
 
       // Print StrFormat in the form of StrFormat(var, var)
       // Pretty print StrFormat args if they are operations
-      if (arg.getType().equals("Operation") && ((Operation) arg).getName().equals(STRING_FORMAT)) {
+      if (arg.getType().equals("Operation")
+          && ((Operation) arg).getOpcode() == Opcode.STRING_FORMAT) {
         Operation strFormatOp = (Operation) arg;
         prettyPrint.append(STRING_FORMAT + "(");
         for (int j = 0; j < strFormatOp.getArgs().size(); j++) {
@@ -186,20 +176,21 @@ public class LocalRepair {
       String name = expr.toString();
       return Variable.isPrimedName(name) ? Variable.asUnprimedVariableName(name) : name;
     } else if (expr instanceof Operation) {
-      if (((Operation) expr).getName().equals("ite")) {
+      Opcode opcode = ((Operation) expr).getOpcode();
+      if (opcode == Opcode.ITE) {
         return prettyPrintIteExpr((Operation) expr, variable);
       }
 
       List<Expression> args = ((Operation) expr).getArgs();
       String operationName = ((Operation) expr).getName();
       StringBuilder prettyPrint = new StringBuilder();
-      if (operationName.equals(STRING_APPEND)) {
+      if (opcode == Opcode.STRING_APPEND) {
         prettyPrint.append(prettyPrintStrAppend((Operation) expr, variable));
-      } else if (operationName.equals(STRING_FORMAT)) {
+      } else if (opcode == Opcode.STRING_FORMAT) {
         prettyPrint.append(STRING_FORMAT + "(");
         prettyPrint = buildOperationString(prettyPrint, args, variable, 0);
         prettyPrint.append(")");
-      } else if (operationName.equals("Slice")) {
+      } else if (opcode == Opcode.SLICE) {
         boolean notNone = false;
         for (int i = 0; i < args.size(); i++) {
           if (!(args.get(i) instanceof Constant
@@ -216,8 +207,8 @@ public class LocalRepair {
             }
           }
         }
-      } else if (SEQ_INIT_PYTHON.containsKey(operationName)) {
-        String op = SEQ_INIT_PYTHON.get(operationName);
+      } else if (opcode.is(Category.SEQUENCE_INIT)) {
+        String op = opcode.getSymbol();
         prettyPrint.append(op.charAt(0));
         for (int i = 0; i < args.size(); i++) {
           prettyPrint.append(prettyPrintExpr(args.get(i), variable));
@@ -226,15 +217,15 @@ public class LocalRepair {
           }
         }
         prettyPrint.append(op.charAt(1));
-      } else if (FUNCS_UNARY_PYTHON.contains(operationName)
-          || operationName.equals("enumerate")
-          || operationName.equals("range")
-          || operationName.equals("print")) {
+      } else if (opcode.is(Category.PYTHON_FUNCTION)
+          || opcode == Opcode.ENUMERATE
+          || opcode == Opcode.RANGE
+          || opcode == Opcode.PRINT) {
         prettyPrint.append(operationName).append("(");
         prettyPrint = buildOperationString(prettyPrint, args, variable, 0);
         prettyPrint.append(")");
-      } else if (UNARY_OPS_PYTHON.containsKey(operationName)) {
-        prettyPrint.append(UNARY_OPS_PYTHON.getOrDefault(operationName, operationName)).append("(");
+      } else if (opcode.is(Category.PYTHON_UNARY)) {
+        prettyPrint.append(opcode.getSymbol()).append("(");
         for (int i = 0; i < args.size(); i++) {
           prettyPrint.append(prettyPrintExpr(args.get(i), variable));
           if (i != args.size() - 1) {
@@ -242,9 +233,9 @@ public class LocalRepair {
           }
         }
         prettyPrint.append(")");
-      } else if (SEQ_UNARY_FUNCS_PYTHON.contains(operationName)
-          || SEQ_BINARY_ASSIGN_FUNCS_PYTHON.contains(operationName)
-          || SEQ_BINARY_FUNCS_PYTHON.contains(operationName)) {
+      } else if (opcode.is(Category.SEQUENCE_UNARY)
+          || opcode.is(Category.SEQUENCE_BINARY_ASSIGN)
+          || opcode.is(Category.SEQUENCE_BINARY)) {
         prettyPrint
             .append(prettyPrintExpr(args.get(0), variable))
             .append(".")
@@ -252,17 +243,17 @@ public class LocalRepair {
             .append("(");
         prettyPrint = buildOperationString(prettyPrint, args, variable, 1);
         prettyPrint.append(")");
-      } else if (operationName.equals(GET_ELEMENT)) {
+      } else if (opcode == Opcode.GET_ELEMENT) {
         // for python
         prettyPrint.append(prettyPrintExpr(args.get(0), variable)).append("[");
         // negative index in GetElement for python
         if (args.get(1) instanceof Operation
-            && ((Operation) args.get(1)).getName().equals("USub")) {
+            && ((Operation) args.get(1)).getOpcode() == Opcode.USUB) {
           prettyPrint.append("-").append(((Operation) args.get(1)).getArgs().get(0)).append("]");
         } else {
           prettyPrint.append(prettyPrintExpr(args.get(1), variable)).append("]");
         }
-      } else if (operationName.equals(FUNCTION_CALL)) {
+      } else if (opcode == Opcode.FUNC_CALL) {
         prettyPrint.append(prettyPrintExpr(args.get(0), variable)).append("(");
         for (int i = 1; i < args.size(); i++) {
           prettyPrint.append(prettyPrintExpr(args.get(i), variable));
@@ -272,25 +263,23 @@ public class LocalRepair {
         }
         prettyPrint.append(")");
       } else {
+        // to pretty print python operators
+        String symbol = opcode.is(Category.PYTHON_BINARY) ? opcode.getSymbol() : operationName;
         for (int i = 0; i < args.size(); i++) {
           Expression arg = args.get(i);
           prettyPrint.append(prettyPrintExpr(arg, variable));
 
-          if ((LOGIC_OPS.contains(operationName)
-              || ARITH_OPS.contains(operationName)
-              || COMP_OPS.contains(operationName)
-              || BINARY_OPS_PYTHON.containsKey(operationName)
-              || SEQ_UNARY_FUNCS_PYTHON.contains(operationName)
-              || FUNCS_UNARY_PYTHON.contains(operationName))
+          if ((opcode.is(Category.LOGIC)
+              || opcode.is(Category.ARITHMETIC)
+              || opcode.is(Category.COMPARISON)
+              || opcode.is(Category.PYTHON_BINARY)
+              || opcode.is(Category.SEQUENCE_UNARY)
+              || opcode.is(Category.PYTHON_FUNCTION))
               && i == args.size() - 1) {
             continue;
           }
 
-          // to pretty print python operators
-          prettyPrint
-              .append(" ")
-              .append(BINARY_OPS_PYTHON.getOrDefault(operationName, operationName))
-              .append(" ");
+          prettyPrint.append(" ").append(symbol).append(" ");
         }
       }
 
@@ -341,7 +330,7 @@ public class LocalRepair {
       }
       if (args.get(i).getType().equals("Constant")
           || (args.get(i) instanceof Operation
-          && ARITH_OPS.contains(((Operation) args.get(i)).getName()))) {
+          && ((Operation) args.get(i)).getOpcode().is(Category.ARITHMETIC))) {
         prefix += variable.getUnprimedName() + " = ";
       }
 
@@ -425,13 +414,13 @@ public class LocalRepair {
   }
 
   private static boolean isIte(Expression expr) {
-    return expr.getType().equals("Operation") && ((Operation) expr).getName().equals("ite");
+    return expr.getType().equals("Operation") && ((Operation) expr).getOpcode() == Opcode.ITE;
   }
 
   private static String getClangPrefix(Expression expression, Variable var) {
     if (expression instanceof Constant
         || (expression instanceof Operation
-        && ARITH_OPS.contains(((Operation) expression).getName()))) {
+        && ((Operation) expression).getOpcode().is(Category.ARITHMETIC))) {
       return var.getUnprimedName().equals(VAR_RET) ? " return " : (var.getUnprimedName() + " = ");
     } else {
       return "";
@@ -0,0 +1,114 @@
+package sg.edu.nus.se.its.util;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/**
+ * Circuit breaker for the calls of a service. After a number of consecutive failures the circuit
+ * opens and calls are rejected without contacting the service. Once the open duration has
+ * passed, a single trial call is let through, which closes the circuit if it succeeds and opens
+ * it again otherwise.
+ */
+public final class CircuitBreaker {
+
+  /**
+   * State of the circuit.
+   */
+  public enum State {
+    CLOSED, OPEN, HALF_OPEN
+  }
+
+  public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+
+  public static final Duration DEFAULT_OPEN_DURATION = Duration.ofSeconds(30);
+
+  private final int failureThreshold;
+  private final long openNanos;
+  private final LongSupplier clock;
+
+  private State state = State.CLOSED;
+  private int failures;
+  private long openedAt;
+  private boolean trialInFlight;
+  private long rejected;
+
+  public CircuitBreaker() {
+    this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_DURATION);
+  }
+
+  public CircuitBreaker(int failureThreshold, Duration openDuration) {
+    this(failureThreshold, openDuration, System::nanoTime);
+  }
+
+  /**
+   * Initializes the circuit breaker.
+   *
+   * @param failureThreshold - the number of consecutive failures that open the circuit
+   * @param openDuration - the time the circuit stays open before a trial call
+   * @param clock - the time source in nanoseconds
+   */
+  public CircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier clock) {
+    if (failureThreshold < 1) {
+      throw new IllegalArgumentException("Failure threshold must be positive: "
+          + failureThreshold);
+    }
+    this.failureThreshold = failureThreshold;
+    this.openNanos = openDuration.toNanos();
+    this.clock = clock;
+  }
+
+  /**
+   * Decides whether a call may be made. A permitted call must be followed by
+   * {@link #recordSuccess()} or {@link #recordFailure()}.
+   *
+   * @return true if the call may be made, false if the circuit is open
+   */
+  public synchronized boolean tryAcquire() {
+    if (state == State.OPEN) {
+      if (clock.getAsLong() - openedAt < openNanos) {
+        rejected++;
+        return false;
+      }
+      state = State.HALF_OPEN;
+      trialInFlight = false;
+    }
+    if (state == State.HALF_OPEN) {
+      if (trialInFlight) {
+        rejected++;
+        return false;
+      }
+      trialInFlight = true;
+    }
+    return true;
+  }
+
+  public synchronized void recordSuccess() {
+    state = State.CLOSED;
+    failures = 0;
+    trialInFlight = false;
+  }
+
+  /**
+   * Records a failed call, which opens the circuit if it was the trial call or the threshold of
+   * consecutive failures is reached.
+   */
+  public synchronized void recordFailure() {
+    failures++;
+    if (state == State.HALF_OPEN || failures >= failureThreshold) {
+      state = State.OPEN;
+      openedAt = clock.getAsLong();
+      trialInFlight = false;
+    }
+  }
+
+  public synchronized State getState() {
+    return state;
+  }
+
+  /**
+   * Returns the number of calls rejected because the circuit was open.
+   */
+  public synchronized long getRejected() {
+    return rejected;
+  }
+}
@@ -0,0 +1,350 @@
+package sg.edu.nus.se.its.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import okhttp3.HttpUrl;
+
+/**
+ * Adaptive limit of the concurrent calls of a remote host, so that the calls neither underuse
+ * nor overload the services.
+ *
+ * <p>The limit grows additively, by about one per limit of successful calls, while the recent
+ * latency stays within {@link #TOLERANCE} times the long-term latency. A rising latency
+ * indicates queueing at the host and shrinks the limit slightly, overload responses and
+ * timeouts halve it. Both latencies are moving averages, so that single slow calls do not
+ * shrink the limit. The latencies are kept per endpoint, e.g., per URL, as the endpoints of a host
+ * differ in their latencies: a batch call is slower than a single call without any queueing. The
+ * limit is shared by all endpoints of the host. Callers beyond the limit wait for a permit,
+ * asynchronous callers without blocking a thread, see {@link #acquireAsync()}.
+ */
+public final class ConcurrencyLimiter {
+
+  public static final int DEFAULT_INITIAL_LIMIT = 4;
+
+  public static final int DEFAULT_MIN_LIMIT = 1;
+
+  /**
+   * Default maximum limit, which matches the requests per host of the dispatcher of the shared
+   * client.
+   */
+  public static final int DEFAULT_MAX_LIMIT = ServiceUtils.DEFAULT_MAX_REQUESTS_PER_HOST;
+
+  /**
+   * Ratio of the recent to the long-term latency up to which the latency counts as flat.
+   */
+  public static final double TOLERANCE = 2.0;
+
+  private static final double LATENCY_BACKOFF = 0.9;
+  private static final double OVERLOAD_BACKOFF = 0.5;
+  // weights of the latest call in the moving averages of the recent and long-term latency
+  private static final double RECENT_WEIGHT = 0.25;
+  private static final double LONG_TERM_WEIGHT = 0.01;
+
+  private static final Map<String, ConcurrencyLimiter> LIMITERS = new ConcurrentHashMap<>();
+
+  /**
+   * Endpoint of the calls that do not name one.
+   */
+  private static final String DEFAULT_ENDPOINT = "";
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final LongSupplier clock;
+  private double limit;
+  private int inFlight;
+  private int waiting;
+  // asynchronous callers waiting for a permit, in the order of their calls
+  private final Deque<AsyncWaiter> asyncWaiters = new ArrayDeque<>();
+
+  private final Map<String, Latency> latencies = new HashMap<>();
+
+  private final LatencyRecorder queueWaits = new LatencyRecorder(128);
+
+  public ConcurrencyLimiter() {
+    this(DEFAULT_INITIAL_LIMIT, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT);
+  }
+
+  /**
+   * Initializes the limiter.
+   *
+   * @param initialLimit - the limit before any call completed
+   * @param minLimit - the lower bound of the limit
+   * @param maxLimit - the upper bound of the limit
+   */
+  public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit) {
+    this(initialLimit, minLimit, maxLimit, System::nanoTime);
+  }
+
+  /**
+   * Initializes the limiter.
+   *
+   * @param initialLimit - the limit before any call completed
+   * @param minLimit - the lower bound of the limit
+   * @param maxLimit - the upper bound of the limit
+   * @param clock - the time source in nanoseconds
+   */
+  public ConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, LongSupplier clock) {
+    if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+      throw new IllegalArgumentException("Invalid limits: " + minLimit + " <= " + initialLimit
+          + " <= " + maxLimit);
+    }
+    this.minLimit = minLimit;
+    this.maxLimit = maxLimit;
+    this.limit = initialLimit;
+    this.clock = clock;
+  }
+
+  /**
+   * Returns the limiter of the host of the given URL, which is shared by the calls of all
+   * services of the host.
+   *
+   * @param url - the URL of a service
+   * @return the limiter of the host
+   */
+  public static ConcurrencyLimiter forUrl(String url) {
+    HttpUrl parsed = HttpUrl.get(url);
+    return LIMITERS.computeIfAbsent(parsed.host() + ":" + parsed.port(),
+        key -> new ConcurrencyLimiter());
+  }
+
+  /**
+   * Replaces the limiter of the host of the given URL, e.g., to configure the limits.
+   *
+   * @param url - the URL of a service
+   * @param limiter - the limiter for the following calls of the services of the host
+   */
+  public static void install(String url, ConcurrencyLimiter limiter) {
+    HttpUrl parsed = HttpUrl.get(url);
+    LIMITERS.put(parsed.host() + ":" + parsed.port(), limiter);
+  }
+
+  /**
+   * Moving averages of the latencies of the calls of one endpoint.
+   */
+  private static final class Latency {
+    private double recent = -1;
+    private double longTerm = -1;
+  }
+
+  /**
+   * Outcome of a call, which must be reported exactly once per permit.
+   */
+  public final class Permit {
+
+    private final String endpoint;
+    private final long start = clock.getAsLong();
+    private boolean released;
+
+    private Permit(String endpoint) {
+      this.endpoint = endpoint;
+    }
+
+    /**
+     * Reports a successful call, whose latency adjusts the limit.
+     */
+    public void success() {
+      release(this, clock.getAsLong() - start, false);
+    }
+
+    /**
+     * Reports an overloaded host, i.e., a server error, rejection or timeout.
+     */
+    public void overload() {
+      release(this, 0, true);
+    }
+
+    /**
+     * Reports a call that says nothing about the load of the host, e.g., a cancelled call.
+     */
+    public void ignore() {
+      release(this, -1, false);
+    }
+  }
+
+  /**
+   * Waits until a call may be made.
+   *
+   * @return the permit of the call
+   * @throws InterruptedException - if the thread is interrupted while waiting
+   */
+  public Permit acquire() throws InterruptedException {
+    return acquire(DEFAULT_ENDPOINT);
+  }
+
+  /**
+   * Waits until a call of an endpoint may be made.
+   *
+   * @param endpoint - the endpoint whose latencies the call is compared with, e.g., its URL
+   * @return the permit of the call
+   * @throws InterruptedException - if the thread is interrupted while waiting
+   */
+  public synchronized Permit acquire(String endpoint) throws InterruptedException {
+    long start = clock.getAsLong();
+    waiting++;
+    try {
+      while (inFlight >= (int) limit) {
+        wait();
+      }
+    } finally {
+      waiting--;
+    }
+    inFlight++;
+    queueWaits.record(clock.getAsLong() - start);
+    return new Permit(endpoint);
+  }
+
+  /**
+   * Asynchronous caller waiting for a permit.
+   */
+  private static final class AsyncWaiter {
+    private final CompletableFuture<Permit> future = new CompletableFuture<>();
+    private final String endpoint;
+    private final long start;
+
+    private AsyncWaiter(String endpoint, long start) {
+      this.endpoint = endpoint;
+      this.start = start;
+    }
+  }
+
+  /**
+   * Returns a permit once a call may be made, without blocking the calling thread. Cancelling
+   * the returned future gives up waiting; a permit granted concurrently is released.
+   *
+   * @return the future of the permit of the call
+   */
+  public CompletableFuture<Permit> acquireAsync() {
+    return acquireAsync(DEFAULT_ENDPOINT);
+  }
+
+  /**
+   * Returns a permit once a call of an endpoint may be made, see {@link #acquireAsync()}.
+   *
+   * @param endpoint - the endpoint whose latencies the call is compared with, e.g., its URL
+   * @return the future of the permit of the call
+   */
+  public synchronized CompletableFuture<Permit> acquireAsync(String endpoint) {
+    if (inFlight < (int) limit) {
+      inFlight++;
+      queueWaits.record(0);
+      return CompletableFuture.completedFuture(new Permit(endpoint));
+    }
+    AsyncWaiter waiter = new AsyncWaiter(endpoint, clock.getAsLong());
+    asyncWaiters.add(waiter);
+    waiter.future.whenComplete((permit, e) -> {
+      if (waiter.future.isCancelled()) {
+        synchronized (this) {
+          asyncWaiters.remove(waiter);
+        }
+      }
+    });
+    return waiter.future;
+  }
+
+  /**
+   * Returns a permit if a call may be made immediately, e.g., for an optional hedged request.
+   *
+   * @return the permit of the call, or null if the limit is reached
+   */
+  public Permit tryAcquire() {
+    return tryAcquire(DEFAULT_ENDPOINT);
+  }
+
+  /**
+   * Returns a permit if a call of an endpoint may be made immediately, see {@link #tryAcquire()}.
+   *
+   * @param endpoint - the endpoint whose latencies the call is compared with, e.g., its URL
+   * @return the permit of the call, or null if the limit is reached
+   */
+  public synchronized Permit tryAcquire(String endpoint) {
+    if (inFlight >= (int) limit) {
+      return null;
+    }
+    inFlight++;
+    return new Permit(endpoint);
+  }
+
+  private void release(Permit permit, long latency, boolean overload) {
+    List<AsyncWaiter> granted = new ArrayList<>();
+    List<Permit> permits = new ArrayList<>();
+    synchronized (this) {
+      if (permit.released) {
+        return;
+      }
+      adjust(permit, latency, overload);
+      while (inFlight < (int) limit && !asyncWaiters.isEmpty()) {
+        AsyncWaiter waiter = asyncWaiters.poll();
+        if (!waiter.future.isDone()) {
+          inFlight++;
+          queueWaits.record(clock.getAsLong() - waiter.start);
+          granted.add(waiter);
+          permits.add(new Permit(waiter.endpoint));
+        }
+      }
+    }
+    // completed outside the lock, as the futures run the calls of the waiters
+    for (int i = 0; i < granted.size(); i++) {
+      if (!granted.get(i).future.complete(permits.get(i))) {
+        permits.get(i).ignore();
+      }
+    }
+  }
+
+  private void adjust(Permit permit, long latency, boolean overload) {
+    permit.released = true;
+    inFlight--;
+
+    if (overload) {
+      limit = Math.max(minLimit, limit * OVERLOAD_BACKOFF);
+    } else if (latency >= 0) {
+      Latency averages = latencies.computeIfAbsent(permit.endpoint, key -> new Latency());
+      if (averages.longTerm < 0) {
+        averages.recent = latency;
+        averages.longTerm = latency;
+      } else {
+        averages.recent += RECENT_WEIGHT * (latency - averages.recent);
+        averages.longTerm += LONG_TERM_WEIGHT * (latency - averages.longTerm);
+      }
+
+      if (averages.recent > TOLERANCE * averages.longTerm) {
+        limit = Math.max(minLimit, limit * LATENCY_BACKOFF);
+      } else if (inFlight + 1 >= limit / 2) {
+        // only grows while the limit is used, otherwise it says nothing about the host
+        limit = Math.min(maxLimit, limit + 1 / limit);
+      }
+    }
+    notifyAll();
+  }
+
+  /**
+   * Returns the current limit of concurrent calls.
+   */
+  public synchronized int getLimit() {
+    return (int) limit;
+  }
+
+  public synchronized int getInFlight() {
+    return inFlight;
+  }
+
+  /**
+   * Returns the number of callers waiting for a permit.
+   */
+  public synchronized int getWaiting() {
+    return waiting + asyncWaiters.size();
+  }
+
+  /**
+   * Returns the recent times callers waited for a permit.
+   */
+  public LatencyRecorder getQueueWaits() {
+    return queueWaits;
+  }
+}
@@ -0,0 +1,68 @@
+package sg.edu.nus.se.its.util;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * SHA-256 hash of the content of a request, e.g., to store or share the results of the
+ * services by their input.
+ */
+public final class ContentHash {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final MessageDigest digest;
+
+  /**
+   * Starts a new hash.
+   */
+  public ContentHash() {
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      // every Java platform supports SHA-256
+      throw new IllegalStateException(e);
+    }
+  }
+
+  public ContentHash update(byte b) {
+    digest.update(b);
+    return this;
+  }
+
+  public ContentHash update(byte[] bytes) {
+    digest.update(bytes);
+    return this;
+  }
+
+  /**
+   * Adds a string followed by a separator, so that consecutive strings cannot be shifted into
+   * each other.
+   *
+   * @param value - the string, or null
+   * @return this hash
+   */
+  public ContentHash update(String value) {
+    if (value != null) {
+      digest.update(value.getBytes(StandardCharsets.UTF_8));
+    }
+    digest.update((byte) 0);
+    return this;
+  }
+
+  /**
+   * Completes the hash.
+   *
+   * @return the hash as hexadecimal string
+   */
+  public String toHex() {
+    byte[] bytes = digest.digest();
+    char[] hex = new char[2 * bytes.length];
+    for (int i = 0; i < bytes.length; i++) {
+      hex[2 * i] = HEX[(bytes[i] >> 4) & 0xf];
+      hex[2 * i + 1] = HEX[bytes[i] & 0xf];
+    }
+    return new String(hex);
+  }
+}
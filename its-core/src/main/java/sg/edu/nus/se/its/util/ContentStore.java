@@ -0,0 +1,180 @@
+package sg.edu.nus.se.its.util;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content-addressed store on disk, which keeps one file per {@link ContentHash} in a directory.
+ * The store is bounded by the size of the files, the least recently used first evicted. The last
+ * use is kept as modification time of the files, so that the order survives restarts. Files are
+ * written to a temporary file first and then moved, so that readers never see partial files.
+ */
+public final class ContentStore {
+
+  private static final String TEMP_SUFFIX = ".tmp";
+
+  private final Path directory;
+  private final String suffix;
+  private final long maxBytes;
+
+  // sizes of the stored files by hash, in access order
+  private final LinkedHashMap<String, Long> stored = new LinkedHashMap<>(16, 0.75f, true);
+  private long storedBytes;
+
+  /**
+   * Initializes the store. Files stored in the directory by earlier runs are reused.
+   *
+   * @param directory - the directory of the store, which is created if needed
+   * @param suffix - the file extension of the stored files, e.g., ".json"
+   * @param maxBytes - the limit of the store in bytes
+   * @throws IOException - if the directory cannot be created or read
+   */
+  public ContentStore(Path directory, String suffix, long maxBytes) throws IOException {
+    this.directory = Files.createDirectories(directory);
+    this.suffix = suffix;
+    this.maxBytes = maxBytes;
+    load();
+  }
+
+  /**
+   * Indexes the stored files, ordered by their last use.
+   */
+  private void load() throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+      for (Path file : entries) {
+        String name = file.getFileName().toString();
+        if (name.endsWith(TEMP_SUFFIX)) {
+          // left behind by an interrupted write
+          Files.deleteIfExists(file);
+        } else if (name.endsWith(suffix)) {
+          files.add(file);
+        }
+      }
+    }
+    Map<Path, FileTime> lastUse = new LinkedHashMap<>();
+    for (Path file : files) {
+      lastUse.put(file, Files.getLastModifiedTime(file));
+    }
+    files.sort(Comparator.comparing(lastUse::get));
+    for (Path file : files) {
+      String name = file.getFileName().toString();
+      long size = Files.size(file);
+      stored.put(name.substring(0, name.length() - suffix.length()), size);
+      storedBytes += size;
+    }
+    evict();
+  }
+
+  /**
+   * Returns the content with the given hash and marks it as used.
+   *
+   * @param hash - the hash of the content
+   * @return the content, or null if it is not in the store
+   * @throws IOException - if the file cannot be read
+   */
+  public synchronized byte[] get(String hash) throws IOException {
+    if (stored.get(hash) == null) {
+      return null;
+    }
+    Path file = file(hash);
+    try {
+      byte[] content = Files.readAllBytes(file);
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      return content;
+    } catch (NoSuchFileException e) {
+      // removed by someone else
+      storedBytes -= stored.remove(hash);
+      return null;
+    }
+  }
+
+  /**
+   * Marks the content with the given hash as used without reading it, e.g., if it was found in
+   * a cache in memory.
+   *
+   * @param hash - the hash of the content
+   */
+  public synchronized void touch(String hash) {
+    stored.get(hash);
+  }
+
+  /**
+   * Stores content under its hash, unless the hash is already stored.
+   *
+   * @param hash - the hash of the content
+   * @param content - the content
+   * @throws IOException - if the file cannot be written
+   */
+  public synchronized void put(String hash, byte[] content) throws IOException {
+    if (stored.containsKey(hash)) {
+      return;
+    }
+
+    Path file = file(hash);
+    Path temp = Files.createTempFile(directory, hash, TEMP_SUFFIX);
+    try {
+      Files.write(temp, content);
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+    stored.put(hash, (long) content.length);
+    storedBytes += content.length;
+    evict();
+  }
+
+  private void evict() throws IOException {
+    Iterator<Map.Entry<String, Long>> eldest = stored.entrySet().iterator();
+    while (storedBytes > maxBytes && eldest.hasNext()) {
+      Map.Entry<String, Long> entry = eldest.next();
+      Files.deleteIfExists(file(entry.getKey()));
+      storedBytes -= entry.getValue();
+      eldest.remove();
+    }
+  }
+
+  private Path file(String hash) {
+    return directory.resolve(hash + suffix);
+  }
+
+  public synchronized long getStoredBytes() {
+    return storedBytes;
+  }
+
+  /**
+   * Returns the number of stored files.
+   */
+  public synchronized int size() {
+    return stored.size();
+  }
+
+  /**
+   * Removes all files from the store.
+   *
+   * @throws IOException - if a file cannot be deleted
+   */
+  public synchronized void clear() throws IOException {
+    for (String hash : stored.keySet()) {
+      Files.deleteIfExists(file(hash));
+    }
+    stored.clear();
+    storedBytes = 0;
+  }
+}
@@ -0,0 +1,94 @@
+package sg.edu.nus.se.its.util;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writer that escapes the characters written to it as the content of a JSON string, e.g., to
+ * embed a JSON document or a source file as a string of a service request without building the
+ * escaped string first. Closing the writer does not close the underlying writer.
+ */
+public final class JsonStringWriter extends Writer {
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final Writer out;
+
+  public JsonStringWriter(Writer out) {
+    this.out = out;
+  }
+
+  /**
+   * Writes a string as a quoted JSON string.
+   *
+   * @param out - the writer of the JSON document
+   * @param value - the string
+   * @throws IOException - thrown by the writer
+   */
+  public static void writeQuoted(Writer out, String value) throws IOException {
+    out.write('"');
+    new JsonStringWriter(out).write(value);
+    out.write('"');
+  }
+
+  @Override
+  public void write(int c) throws IOException {
+    switch (c) {
+      case '"':
+        out.write("\\\"");
+        break;
+      case '\\':
+        out.write("\\\\");
+        break;
+      case '\n':
+        out.write("\\n");
+        break;
+      case '\r':
+        out.write("\\r");
+        break;
+      case '\t':
+        out.write("\\t");
+        break;
+      case '\b':
+        out.write("\\b");
+        break;
+      case '\f':
+        out.write("\\f");
+        break;
+      default:
+        if (c < ' ') {
+          out.write("\\u");
+          out.write(HEX[(c >> 12) & 0xf]);
+          out.write(HEX[(c >> 8) & 0xf]);
+          out.write(HEX[(c >> 4) & 0xf]);
+          out.write(HEX[c & 0xf]);
+        } else {
+          out.write(c);
+        }
+    }
+  }
+
+  @Override
+  public void write(char[] chars, int offset, int length) throws IOException {
+    for (int i = offset; i < offset + length; i++) {
+      write(chars[i]);
+    }
+  }
+
+  @Override
+  public void write(String str, int offset, int length) throws IOException {
+    for (int i = offset; i < offset + length; i++) {
+      write(str.charAt(i));
+    }
+  }
+
+  @Override
+  public void flush() throws IOException {
+    out.flush();
+  }
+
+  @Override
+  public void close() throws IOException {
+    flush();
+  }
+}
@@ -0,0 +1,64 @@
+package sg.edu.nus.se.its.util;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Keeps the latencies of the most recent calls to derive percentiles, e.g., the delay after
+ * which a call is hedged.
+ */
+public final class LatencyRecorder {
+
+  private final long[] samples;
+  private int next;
+  private long count;
+
+  /**
+   * Initializes the recorder.
+   *
+   * @param capacity - the number of recent latencies kept
+   */
+  public LatencyRecorder(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+    }
+    samples = new long[capacity];
+  }
+
+  /**
+   * Records the latency of a call.
+   *
+   * @param nanos - the latency in nanoseconds
+   */
+  public synchronized void record(long nanos) {
+    samples[next] = nanos;
+    next = (next + 1) % samples.length;
+    count++;
+  }
+
+  /**
+   * Returns the number of latencies recorded so far.
+   */
+  public synchronized long getCount() {
+    return count;
+  }
+
+  /**
+   * Returns a percentile of the recent latencies.
+   *
+   * @param percentile - the percentile between 0 and 1, e.g., 0.95
+   * @return the latency, or null if nothing was recorded
+   */
+  public Duration getPercentile(double percentile) {
+    long[] recent;
+    synchronized (this) {
+      if (count == 0) {
+        return null;
+      }
+      recent = Arrays.copyOf(samples, (int) Math.min(count, samples.length));
+    }
+    Arrays.sort(recent);
+    int index = (int) Math.ceil(percentile * recent.length) - 1;
+    return Duration.ofNanos(recent[Math.max(0, Math.min(recent.length - 1, index))]);
+  }
+}
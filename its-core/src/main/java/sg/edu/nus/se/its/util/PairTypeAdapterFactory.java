@@ -0,0 +1,121 @@
+package sg.edu.nus.se.its.util;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.function.BooleanSupplier;
+import org.javatuples.Pair;
+
+/**
+ * Type adapters for pairs that can write only the values {@code val0} and {@code val1}. The
+ * default serialization of a pair repeats both values in the {@code valueArray} and
+ * {@code valueList} fields of the tuple, which nearly triples the size of the program models.
+ * The lean form is written while enabled, otherwise the default form. Reading ignores these
+ * fields, so models in either form can be read, and creates the pair with
+ * {@link Pair#with(Object, Object)}, so that the values of the tuple are consistent.
+ */
+public class PairTypeAdapterFactory implements TypeAdapterFactory {
+
+  private static final String VAL0 = "val0";
+  private static final String VAL1 = "val1";
+
+  private final BooleanSupplier lean;
+
+  /**
+   * Initializes the factory for adapters that always write the lean form.
+   */
+  public PairTypeAdapterFactory() {
+    this(() -> true);
+  }
+
+  /**
+   * Initializes the factory.
+   *
+   * @param lean - whether the lean form is written, asked for every pair
+   */
+  public PairTypeAdapterFactory(BooleanSupplier lean) {
+    this.lean = lean;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+    if (type.getRawType() != Pair.class) {
+      return null;
+    }
+    Type typeOfVal0 = Object.class;
+    Type typeOfVal1 = Object.class;
+    if (type.getType() instanceof ParameterizedType) {
+      Type[] arguments = ((ParameterizedType) type.getType()).getActualTypeArguments();
+      typeOfVal0 = arguments[0];
+      typeOfVal1 = arguments[1];
+    }
+    return (TypeAdapter<T>) new PairAdapter<>(lean, gson.getDelegateAdapter(this, type),
+        gson.getAdapter(TypeToken.get(typeOfVal0)), gson.getAdapter(TypeToken.get(typeOfVal1)));
+  }
+
+  private static final class PairAdapter<T, A, B> extends TypeAdapter<Pair<A, B>> {
+    private final BooleanSupplier lean;
+    // writes the default form
+    private final TypeAdapter<T> delegate;
+    private final TypeAdapter<A> val0Adapter;
+    private final TypeAdapter<B> val1Adapter;
+
+    private PairAdapter(BooleanSupplier lean, TypeAdapter<T> delegate,
+        TypeAdapter<A> val0Adapter, TypeAdapter<B> val1Adapter) {
+      this.lean = lean;
+      this.delegate = delegate;
+      this.val0Adapter = val0Adapter;
+      this.val1Adapter = val1Adapter;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void write(JsonWriter out, Pair<A, B> pair) throws IOException {
+      if (!lean.getAsBoolean()) {
+        delegate.write(out, (T) pair);
+        return;
+      }
+      if (pair == null) {
+        out.nullValue();
+        return;
+      }
+      out.beginObject();
+      out.name(VAL0);
+      val0Adapter.write(out, pair.getValue0());
+      out.name(VAL1);
+      val1Adapter.write(out, pair.getValue1());
+      out.endObject();
+    }
+
+    @Override
+    public Pair<A, B> read(JsonReader in) throws IOException {
+      if (in.peek() == JsonToken.NULL) {
+        in.nextNull();
+        return null;
+      }
+      A val0 = null;
+      B val1 = null;
+      in.beginObject();
+      while (in.hasNext()) {
+        String name = in.nextName();
+        if (VAL0.equals(name)) {
+          val0 = val0Adapter.read(in);
+        } else if (VAL1.equals(name)) {
+          val1 = val1Adapter.read(in);
+        } else {
+          in.skipValue();
+        }
+      }
+      in.endObject();
+      return Pair.with(val0, val1);
+    }
+  }
+}
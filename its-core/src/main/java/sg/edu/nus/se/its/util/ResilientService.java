@@ -0,0 +1,373 @@
+package sg.edu.nus.se.its.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Resilience layer around the streaming {@link ServiceUtils#post} calls of one service.
+ *
+ * <p>Calls that take longer than the 95th percentile of the recent latencies are hedged, i.e., a
+ * duplicate request is sent and the first successful response is used, so that a single slow
+ * request does not decide the latency. The parser and interpreter services have no side effects,
+ * so duplicates are harmless.
+ *
+ * <p>Failed calls, i.e., connection failures, timeouts, server errors and responses that cannot be
+ * decoded, are counted by a {@link CircuitBreaker}. While the circuit is open, calls fail
+ * immediately with a {@link CircuitOpenException} instead of waiting for the timeout, so that
+ * callers can fall back to a local implementation. Client errors like 404 show that the service
+ * is up and are not counted.
+ *
+ * <p>All requests to a host, including the hedged duplicates, are subject to the
+ * {@link ConcurrencyLimiter} of the host, which is shared by the services of the host.
+ */
+public class ResilientService {
+
+  /**
+   * Percentile of the recent latencies after which a call is hedged.
+   */
+  public static final double HEDGE_PERCENTILE = 0.95;
+
+  /**
+   * Number of latencies recorded before calls are hedged.
+   */
+  public static final int MIN_SAMPLES = 20;
+
+  /**
+   * Lower bound of the delay after which a call is hedged.
+   */
+  public static final Duration MIN_HEDGE_DELAY = Duration.ofMillis(20);
+
+  private static final int SAMPLES = 128;
+  private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+  private static final Map<String, ResilientService> SERVICES = new ConcurrentHashMap<>();
+
+  /**
+   * Signals a call rejected because the circuit of the service is open.
+   */
+  public static class CircuitOpenException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    public CircuitOpenException(String url) {
+      super("Circuit open, service unavailable! URL=" + url);
+    }
+  }
+
+  private final CircuitBreaker breaker;
+  private final LatencyRecorder latencies = new LatencyRecorder(SAMPLES);
+  private volatile boolean hedging = true;
+  private final LongAdder hedged = new LongAdder();
+  private final LongAdder hedgeWins = new LongAdder();
+
+  public ResilientService() {
+    this(new CircuitBreaker());
+  }
+
+  public ResilientService(CircuitBreaker breaker) {
+    this.breaker = breaker;
+  }
+
+  /**
+   * Returns the layer of the service at the given URL, which is shared by all calls of the
+   * service, so that the latencies and failures of all callers are taken into account.
+   *
+   * @param url - the URL of the service
+   * @return the layer of the service
+   */
+  public static ResilientService forUrl(String url) {
+    return SERVICES.computeIfAbsent(url, key -> new ResilientService());
+  }
+
+  /**
+   * Returns the layer of an endpoint of the service at the given URL. An endpoint records its own
+   * latencies, e.g., as batches take longer than single calls and would otherwise delay the
+   * hedging of single calls, but shares the circuit breaker of the service.
+   *
+   * @param url - the URL of the service
+   * @param path - the path of the endpoint relative to the URL of the service
+   * @return the layer of the endpoint
+   */
+  public static ResilientService forEndpoint(String url, String path) {
+    ResilientService service = forUrl(url);
+    // a replaced layer of the service replaces the layers of its endpoints
+    return SERVICES.compute(url + path, (key, endpoint) -> {
+      if (endpoint != null && endpoint.breaker == service.breaker) {
+        return endpoint;
+      }
+      ResilientService result = new ResilientService(service.breaker);
+      result.hedging = service.hedging;
+      return result;
+    });
+  }
+
+  /**
+   * Replaces the layer of the service at the given URL, e.g., to configure the circuit breaker.
+   *
+   * @param url - the URL of the service
+   * @param service - the layer for the following calls of the service
+   */
+  public static void install(String url, ResilientService service) {
+    SERVICES.put(url, service);
+  }
+
+  public void setHedging(boolean hedging) {
+    this.hedging = hedging;
+  }
+
+  public CircuitBreaker getCircuitBreaker() {
+    return breaker;
+  }
+
+  public LatencyRecorder getLatencies() {
+    return latencies;
+  }
+
+  /**
+   * Returns the number of hedged calls.
+   */
+  public long getHedged() {
+    return hedged.sum();
+  }
+
+  /**
+   * Returns the number of hedged calls answered first by the duplicate request.
+   */
+  public long getHedgeWins() {
+    return hedgeWins.sum();
+  }
+
+  /**
+   * Returns whether calls currently reach the service, i.e., the circuit is not open.
+   */
+  public boolean isAvailable() {
+    return breaker.getState() != CircuitBreaker.State.OPEN;
+  }
+
+  /**
+   * Sends a post request, see {@link ServiceUtils#post(String, ServiceUtils.RequestWriter,
+   * ServiceUtils.ResponseReader)}.
+   *
+   * @param url - the URL of the post request
+   * @param body - writes the JSON payload, once per request
+   * @param reader - decodes the response
+   * @param <T> - the type of the decoded response
+   * @return the decoded response
+   * @throws IOException - thrown by the call or the decoder, a CircuitOpenException if the
+   *     circuit is open; exceptions of the decoder count as failures of the call
+   */
+  public <T> T post(String url, ServiceUtils.RequestWriter body,
+      ServiceUtils.ResponseReader<T> reader) throws IOException {
+    ConcurrencyLimiter limiter = ConcurrencyLimiter.forUrl(url);
+    ConcurrencyLimiter.Permit permit;
+    try {
+      permit = limiter.acquire(url);
+    } catch (InterruptedException e) {
+      throw interrupted(e);
+    }
+    if (!breaker.tryAcquire()) {
+      permit.ignore();
+      throw new CircuitOpenException(url);
+    }
+
+    long start = System.nanoTime();
+    Throwable failure = null;
+    CompletableFuture<T> primary = ServiceUtils.postAsync(url, body, null, reader);
+    CompletableFuture<T> hedge = null;
+    ConcurrencyLimiter.Permit hedgePermit = null;
+    try {
+      Duration delay = hedgeDelay();
+      T result;
+      if (delay == null) {
+        result = await(primary);
+      } else {
+        try {
+          result = primary.get(delay.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+          // hedges only within the limit, a saturated host would only get slower
+          hedgePermit = limiter.tryAcquire(url);
+          if (hedgePermit == null) {
+            result = await(primary);
+          } else {
+            hedged.increment();
+            hedge = ServiceUtils.postAsync(url, body, null, reader);
+            result = await(firstSuccessful(primary, hedge));
+          }
+        } catch (ExecutionException e) {
+          throw unwrap(e);
+        } catch (InterruptedException e) {
+          throw interrupted(e);
+        }
+      }
+      latencies.record(System.nanoTime() - start);
+      return result;
+    } catch (IOException | RuntimeException | Error e) {
+      failure = e;
+      throw e;
+    } finally {
+      boolean hedgeWon = hedge != null && hedge.isDone() && !hedge.isCompletedExceptionally()
+          && (!primary.isDone() || primary.isCompletedExceptionally());
+      if (hedgeWon) {
+        hedgeWins.increment();
+      }
+      release(permit, failure, hedgeWon);
+      if (hedgePermit != null) {
+        release(hedgePermit, failure, !hedgeWon);
+      }
+      if (failure != null && isFailure(failure)) {
+        breaker.recordFailure();
+      } else {
+        breaker.recordSuccess();
+      }
+      primary.cancel(true);
+      if (hedge != null) {
+        hedge.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Sends a post request without blocking the calling thread, see
+   * {@link ServiceUtils#postAsync(String, ServiceUtils.RequestWriter, Duration,
+   * ServiceUtils.ResponseReader)}. The request waits for a permit of the
+   * {@link ConcurrencyLimiter} of the host and reports its outcome to the limiter, like the
+   * requests of {@link #post}. Asynchronous calls are neither hedged nor circuit-broken, as their
+   * callers choose the timeouts. Cancelling the returned future cancels the call.
+   *
+   * @param url - the URL of the post request
+   * @param body - writes the JSON payload
+   * @param timeout - the timeout of the service call, or null for the timeouts of the client
+   * @param reader - decodes the response on the thread of the client
+   * @param <T> - the type of the decoded response
+   * @return the future of the decoded response, which fails with the IOException of the call or
+   *     the decoder, a ServiceException for unsuccessful status codes
+   */
+  public static <T> CompletableFuture<T> postAsync(String url, ServiceUtils.RequestWriter body,
+      Duration timeout, ServiceUtils.ResponseReader<T> reader) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    CompletableFuture<ConcurrencyLimiter.Permit> permit =
+        ConcurrencyLimiter.forUrl(url).acquireAsync(url);
+    result.whenComplete((value, e) -> permit.cancel(false));
+    permit.thenAccept(granted -> {
+      CompletableFuture<T> call = ServiceUtils.postAsync(url, body, timeout, reader);
+      result.whenComplete((value, e) -> call.cancel(true));
+      call.whenComplete((value, e) -> {
+        if (result.isCancelled() || (e != null && !(e instanceof IOException))) {
+          granted.ignore();
+        } else {
+          release(granted, (IOException) e, false);
+        }
+        if (e == null) {
+          result.complete(value);
+        } else {
+          result.completeExceptionally(e);
+        }
+      });
+    });
+    return result;
+  }
+
+  /**
+   * Reports the outcome of a request to the limiter.
+   */
+  private static void release(ConcurrencyLimiter.Permit permit, Throwable failure,
+      boolean lost) {
+    if (failure == null) {
+      if (lost) {
+        permit.ignore();
+      } else {
+        permit.success();
+      }
+    } else if (failure instanceof IOException && isOverload((IOException) failure)) {
+      permit.overload();
+    } else {
+      permit.ignore();
+    }
+  }
+
+  private Duration hedgeDelay() {
+    if (!hedging || latencies.getCount() < MIN_SAMPLES) {
+      return null;
+    }
+    Duration delay = latencies.getPercentile(HEDGE_PERCENTILE);
+    return delay.compareTo(MIN_HEDGE_DELAY) < 0 ? MIN_HEDGE_DELAY : delay;
+  }
+
+  /**
+   * Completes with the first successful result, or with the exception of the request that
+   * failed last.
+   */
+  private static <T> CompletableFuture<T> firstSuccessful(CompletableFuture<T> first,
+      CompletableFuture<T> second) {
+    CompletableFuture<T> result = new CompletableFuture<>();
+    first.whenComplete((value, e) -> complete(result, value, e, second));
+    second.whenComplete((value, e) -> complete(result, value, e, first));
+    return result;
+  }
+
+  private static <T> void complete(CompletableFuture<T> result, T value, Throwable e,
+      CompletableFuture<T> other) {
+    if (e == null) {
+      result.complete(value);
+    } else if (other.isCompletedExceptionally()) {
+      result.completeExceptionally(e);
+    }
+  }
+
+  private static <T> T await(CompletableFuture<T> future) throws IOException {
+    try {
+      return future.get();
+    } catch (ExecutionException e) {
+      throw unwrap(e);
+    } catch (InterruptedException e) {
+      throw interrupted(e);
+    }
+  }
+
+  private static IOException unwrap(ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof IOException) {
+      return (IOException) cause;
+    } else if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    } else if (cause instanceof Error) {
+      throw (Error) cause;
+    }
+    return new IOException(cause);
+  }
+
+  private static IOException interrupted(InterruptedException e) {
+    Thread.currentThread().interrupt();
+    InterruptedIOException interrupted = new InterruptedIOException("Service call interrupted");
+    interrupted.initCause(e);
+    return interrupted;
+  }
+
+  private static boolean isOverload(IOException e) {
+    if (e instanceof ServiceUtils.ServiceException) {
+      int code = ((ServiceUtils.ServiceException) e).getCode();
+      return code >= 500 || code == HTTP_TOO_MANY_REQUESTS;
+    }
+    return isFailure(e);
+  }
+
+  private static boolean isFailure(Throwable e) {
+    if (e instanceof ServiceUtils.ServiceException) {
+      return ((ServiceUtils.ServiceException) e).getCode() >= 500;
+    }
+    if (!(e instanceof IOException)) {
+      // the decoder rejected the response
+      return true;
+    }
+    // an interrupted caller says nothing about the service
+    return !Thread.currentThread().isInterrupted();
+  }
+}
@@ -1,19 +1,366 @@
 package sg.edu.nus.se.its.util;
 
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import javax.net.SocketFactory;
+import okhttp3.Call;
+import okhttp3.Callback;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Interceptor;
 import okhttp3.MediaType;
 import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Program;
 
 /**
- * Utility class with helper methods to call the ITS web services.
+ * Utility class with helper methods to call the ITS web services. All calls share one HTTP
+ * client, so that connections to the services are kept alive and reused across calls.
  */
 public class ServiceUtils {
 
   public static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
 
+  // whether pairs are written without their tuple fields, see setLeanTuples
+  private static volatile boolean leanTuples = false;
+
+  /**
+   * Gson configuration for the program models and traces in the payloads of the services. Gson
+   * instances are thread-safe, so all calls share this one. Pairs are written in the lean form
+   * if enabled, see {@link #setLeanTuples(boolean)}; both forms are read.
+   */
+  public static final Gson MODEL_GSON = new GsonBuilder()
+      .registerTypeAdapter(Expression.class, new JsonSerializerWithInheritance<Expression>())
+      .registerTypeAdapterFactory(new PairTypeAdapterFactory(() -> leanTuples))
+      .create();
+
+  /**
+   * Format of the program models serialized with {@link #MODEL_GSON}, with the default form of
+   * the pairs.
+   */
+  public static final String MODEL_FORMAT = "model-json";
+
+  /**
+   * Format of the program models serialized with {@link #MODEL_GSON}, with the lean form of the
+   * pairs.
+   */
+  public static final String LEAN_MODEL_FORMAT = "lean-model-json";
+
+  /**
+   * Default timeout in seconds to establish a connection.
+   */
+  public static final int DEFAULT_CONNECT_TIMEOUT = 10;
+
+  /**
+   * Default timeout in seconds for reading the response and writing the request, which includes
+   * the time the service needs to parse or interpret the program.
+   */
+  public static final int DEFAULT_READ_WRITE_TIMEOUT = 60;
+
+  /**
+   * Default number of idle connections kept in the pool.
+   */
+  public static final int DEFAULT_MAX_IDLE_CONNECTIONS = 8;
+
+  /**
+   * Default time in seconds an idle connection is kept alive.
+   */
+  public static final int DEFAULT_KEEP_ALIVE = 300;
+
+  /**
+   * Default maximum number of requests the dispatcher executes concurrently.
+   */
+  public static final int DEFAULT_MAX_REQUESTS = 64;
+
+  /**
+   * Default maximum number of concurrent requests to one host.
+   */
+  public static final int DEFAULT_MAX_REQUESTS_PER_HOST = 16;
+
+  /**
+   * Status code of a server that does not accept the encoding of the request body.
+   */
+  private static final int HTTP_UNSUPPORTED_MEDIA_TYPE = 415;
+
+  private static OkHttpClient client = null;
+
+  private static volatile boolean compressRequests = false;
+
+  // hosts that rejected compressed request bodies
+  private static final Set<String> UNCOMPRESSED_HOSTS = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Returns the JSON of the program model, which is serialized once while the program is
+   * unchanged, see {@link Program#getSerialized(String, Function)}.
+   *
+   * @param program - the program
+   * @return the JSON of the program model
+   */
+  public static String toJson(Program program) {
+    return program.getSerialized(getModelFormat(),
+        model -> MODEL_GSON.toJson(model, Program.class));
+  }
+
+  /**
+   * Returns the format of the program models currently written with {@link #MODEL_GSON}, so that
+   * the serialized forms of both formats are kept apart.
+   *
+   * @return {@link #LEAN_MODEL_FORMAT} if lean tuples are enabled, otherwise {@link #MODEL_FORMAT}
+   */
+  public static String getModelFormat() {
+    return leanTuples ? LEAN_MODEL_FORMAT : MODEL_FORMAT;
+  }
+
+  /**
+   * Returns a builder for a client with the default configuration of the services, i.e., a
+   * connection pool with keep-alive, HTTP/2 if the server supports it, a bounded dispatcher
+   * with daemon threads and the compression of request bodies, see
+   * {@link #setRequestCompression(boolean)}. Compressed responses are requested and decoded by
+   * the client itself. The builder can be adjusted and installed with
+   * {@link #setClient(OkHttpClient)}.
+   *
+   * @return the client builder
+   */
+  public static OkHttpClient.Builder newClientBuilder() {
+    AtomicInteger threads = new AtomicInteger();
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(0, DEFAULT_MAX_REQUESTS, 60,
+        TimeUnit.SECONDS, new SynchronousQueue<>(), runnable -> {
+          Thread thread = new Thread(runnable, "its-service-" + threads.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+    Dispatcher dispatcher = new Dispatcher(executor);
+    dispatcher.setMaxRequests(DEFAULT_MAX_REQUESTS);
+    dispatcher.setMaxRequestsPerHost(DEFAULT_MAX_REQUESTS_PER_HOST);
+
+    return new OkHttpClient.Builder()
+        .connectionPool(new ConnectionPool(DEFAULT_MAX_IDLE_CONNECTIONS, DEFAULT_KEEP_ALIVE,
+            TimeUnit.SECONDS))
+        .dispatcher(dispatcher)
+        .protocols(List.of(Protocol.HTTP_2, Protocol.HTTP_1_1))
+        .connectTimeout(DEFAULT_CONNECT_TIMEOUT, TimeUnit.SECONDS)
+        .readTimeout(DEFAULT_READ_WRITE_TIMEOUT, TimeUnit.SECONDS)
+        .writeTimeout(DEFAULT_READ_WRITE_TIMEOUT, TimeUnit.SECONDS)
+        .retryOnConnectionFailure(true)
+        .socketFactory(new NoDelaySocketFactory())
+        .addInterceptor(ServiceUtils::compressRequest);
+  }
+
+  /**
+   * Creates sockets without Nagle's algorithm. Streamed and compressed bodies are written in
+   * several segments, and waiting for the acknowledgement of the previous segment, which the
+   * server delays, would add up to 40 ms to every call.
+   */
+  private static final class NoDelaySocketFactory extends SocketFactory {
+    private final SocketFactory factory = SocketFactory.getDefault();
+
+    private static Socket noDelay(Socket socket) throws SocketException {
+      socket.setTcpNoDelay(true);
+      return socket;
+    }
+
+    @Override
+    public Socket createSocket() throws IOException {
+      return noDelay(factory.createSocket());
+    }
+
+    @Override
+    public Socket createSocket(String host, int port) throws IOException {
+      return noDelay(factory.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(String host, int port, InetAddress localHost, int localPort)
+        throws IOException {
+      return noDelay(factory.createSocket(host, port, localHost, localPort));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress host, int port) throws IOException {
+      return noDelay(factory.createSocket(host, port));
+    }
+
+    @Override
+    public Socket createSocket(InetAddress address, int port, InetAddress localAddress,
+        int localPort) throws IOException {
+      return noDelay(factory.createSocket(address, port, localAddress, localPort));
+    }
+  }
+
+  /**
+   * Enables the gzip compression of request bodies. A host that rejects compressed bodies with
+   * 415 Unsupported Media Type is sent the uncompressed body instead, also by later calls.
+   *
+   * @param enabled - whether request bodies are compressed, false by default
+   */
+  public static void setRequestCompression(boolean enabled) {
+    compressRequests = enabled;
+  }
+
+  /**
+   * Enables the lean form of the pairs in the payloads, which omits the redundant
+   * {@code valueArray} and {@code valueList} fields of the tuples, see
+   * {@link PairTypeAdapterFactory}. Disabled by default, as a service that reads the pairs
+   * reflectively would leave these fields unset.
+   *
+   * @param enabled - whether pairs are written in the lean form, false by default
+   */
+  public static void setLeanTuples(boolean enabled) {
+    leanTuples = enabled;
+  }
+
+  private static Response compressRequest(Interceptor.Chain chain) throws IOException {
+    Request request = chain.request();
+    RequestBody body = request.body();
+    String host = request.url().host() + ":" + request.url().port();
+    if (!compressRequests || body == null || request.header("Content-Encoding") != null
+        || UNCOMPRESSED_HOSTS.contains(host)) {
+      return chain.proceed(request);
+    }
+
+    Response response = chain.proceed(request.newBuilder()
+        .header("Content-Encoding", "gzip")
+        .method(request.method(), gzip(body))
+        .build());
+    if (response.code() != HTTP_UNSUPPORTED_MEDIA_TYPE) {
+      return response;
+    }
+    UNCOMPRESSED_HOSTS.add(host);
+    response.close();
+    return chain.proceed(request);
+  }
+
+  private static RequestBody gzip(RequestBody body) {
+    return new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return body.contentType();
+      }
+
+      @Override
+      public long contentLength() {
+        // unknown before compressing
+        return -1;
+      }
+
+      @Override
+      public void writeTo(BufferedSink sink) throws IOException {
+        BufferedSink gzipSink = Okio.buffer(new GzipSink(sink));
+        body.writeTo(gzipSink);
+        gzipSink.close();
+      }
+    };
+  }
+
+  /**
+   * Returns the client shared by the service calls, which is created with the default
+   * configuration on the first use.
+   *
+   * @return the shared client
+   */
+  public static synchronized OkHttpClient getClient() {
+    if (client == null) {
+      client = newClientBuilder().build();
+    }
+    return client;
+  }
+
+  /**
+   * Replaces the shared client. The previous client is shut down.
+   *
+   * @param newClient - the client for the following service calls, or null for the default one
+   */
+  public static synchronized void setClient(OkHttpClient newClient) {
+    if (client != null && client != newClient) {
+      shutdown(client);
+    }
+    client = newClient;
+  }
+
+  /**
+   * Shuts down the shared client, i.e., stops its threads and closes its idle connections. A
+   * later service call creates a new client.
+   */
+  public static synchronized void shutdown() {
+    if (client != null) {
+      shutdown(client);
+      client = null;
+    }
+  }
+
+  private static void shutdown(OkHttpClient oldClient) {
+    oldClient.dispatcher().executorService().shutdown();
+    oldClient.connectionPool().evictAll();
+    if (oldClient.cache() != null) {
+      try {
+        oldClient.cache().close();
+      } catch (IOException e) {
+        // the client is discarded anyway
+      }
+    }
+  }
+
+  /**
+   * Writes the body of a request.
+   */
+  public interface RequestWriter {
+    void writeTo(Writer writer) throws IOException;
+  }
+
+  /**
+   * Reads the body of a successful response.
+   *
+   * @param <T> - the type of the decoded response
+   */
+  public interface ResponseReader<T> {
+    T readFrom(Reader reader) throws IOException;
+  }
+
+  /**
+   * Signals a response with an unsuccessful HTTP status code to a streaming post request.
+   */
+  public static class ServiceException extends IOException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final int code;
+
+    public ServiceException(int code, String url) {
+      super("HTTP " + code + " from URL=" + url);
+      this.code = code;
+    }
+
+    public int getCode() {
+      return code;
+    }
+  }
+
   /**
    * Sends a post request.
    *
@@ -23,20 +370,148 @@ public class ServiceUtils {
    * @throws IOException - thrown
    */
   public static String post(String url, String json) throws IOException {
-    final OkHttpClient client = new OkHttpClient();
-
     RequestBody body = RequestBody.create(JSON, json);
     Request request = new Request.Builder().url(url).post(body).build();
-    Response response = client.newCall(request).execute();
-    final String responseStr = response.body().string();
+    try (Response response = getClient().newCall(request).execute()) {
+      return response.body().string();
+    }
+  }
+
+  /**
+   * Sends a post request whose JSON payload is written directly into the request body and whose
+   * response is decoded from the response body, so that neither is held as a string.
+   *
+   * @param url - the URL of the post request
+   * @param body - writes the JSON payload, possibly several times if the request is retried
+   * @param reader - decodes the response
+   * @param <T> - the type of the decoded response
+   * @return the decoded response
+   * @throws IOException - thrown by the call or the decoder, a ServiceException for unsuccessful
+   *     status codes
+   */
+  public static <T> T post(String url, RequestWriter body, ResponseReader<T> reader)
+      throws IOException {
+    Request request = new Request.Builder().url(url).post(streamingBody(body)).build();
+    try (Response response = getClient().newCall(request).execute()) {
+      return read(url, response, reader);
+    }
+  }
+
+  private static RequestBody streamingBody(RequestWriter body) {
+    return new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return JSON;
+      }
+
+      @Override
+      public void writeTo(BufferedSink sink) throws IOException {
+        // not closed, the sink belongs to the call
+        Writer writer = new BufferedWriter(
+            new OutputStreamWriter(sink.outputStream(), StandardCharsets.UTF_8));
+        body.writeTo(writer);
+        writer.flush();
+      }
+    };
+  }
 
-    client.dispatcher().executorService().shutdown();
-    client.connectionPool().evictAll();
-    if (client.cache() != null) {
-      client.cache().close();
+  private static <T> T read(String url, Response response, ResponseReader<T> reader)
+      throws IOException {
+    if (!response.isSuccessful()) {
+      throw new ServiceException(response.code(), url);
     }
+    return reader.readFrom(response.body().charStream());
+  }
+
+  /**
+   * Sends a post request without blocking the calling thread. Cancelling the returned future
+   * cancels the call.
+   *
+   * @param url - the URL of the post request
+   * @param json - the JSON payload content
+   * @param timeout - the timeout of the complete call, or null for no timeout beyond the ones of
+   *     the client
+   * @return the future of the response, which fails with the IOException of the call
+   */
+  public static CompletableFuture<String> postAsync(String url, String json, Duration timeout) {
+    return postAsync(url, json, timeout, response -> response);
+  }
+
+  /**
+   * Sends a post request without blocking the calling thread and decodes the response on the
+   * thread of the client. Cancelling the returned future cancels the call.
+   *
+   * @param url - the URL of the post request
+   * @param json - the JSON payload content
+   * @param timeout - the timeout of the complete call, or null for no timeout beyond the ones of
+   *     the client
+   * @param decoder - decodes the response
+   * @param <T> - the type of the decoded response
+   * @return the future of the decoded response, which fails with the IOException of the call or
+   *     the exception of the decoder
+   */
+  public static <T> CompletableFuture<T> postAsync(String url, String json, Duration timeout,
+      Function<String, T> decoder) {
+    RequestBody body = RequestBody.create(JSON, json);
+    return enqueue(url, body, timeout, response -> decoder.apply(response.body().string()));
+  }
+
+  /**
+   * Sends a streaming post request without blocking the calling thread, see
+   * {@link #post(String, RequestWriter, ResponseReader)}. Cancelling the returned future cancels
+   * the call.
+   *
+   * @param url - the URL of the post request
+   * @param body - writes the JSON payload
+   * @param timeout - the timeout of the complete call, or null for no timeout beyond the ones of
+   *     the client
+   * @param reader - decodes the response on the thread of the client
+   * @param <T> - the type of the decoded response
+   * @return the future of the decoded response, which fails with the IOException of the call or
+   *     the decoder, a ServiceException for unsuccessful status codes
+   */
+  public static <T> CompletableFuture<T> postAsync(String url, RequestWriter body,
+      Duration timeout, ResponseReader<T> reader) {
+    return enqueue(url, streamingBody(body), timeout, response -> read(url, response, reader));
+  }
+
+  /**
+   * Decodes a response of an asynchronous call.
+   */
+  private interface ResponseHandler<T> {
+    T handle(Response response) throws IOException;
+  }
+
+  private static <T> CompletableFuture<T> enqueue(String url, RequestBody body, Duration timeout,
+      ResponseHandler<T> handler) {
+    Request request = new Request.Builder().url(url).post(body).build();
+    Call call = getClient().newCall(request);
+    if (timeout != null) {
+      call.timeout().timeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    CompletableFuture<T> future = new CompletableFuture<>();
+    future.whenComplete((response, e) -> {
+      if (future.isCancelled()) {
+        call.cancel();
+      }
+    });
+    call.enqueue(new Callback() {
+      @Override
+      public void onFailure(Call failed, IOException e) {
+        future.completeExceptionally(e);
+      }
 
-    return responseStr;
+      @Override
+      public void onResponse(Call succeeded, Response response) {
+        try (response) {
+          future.complete(handler.handle(response));
+        } catch (IOException | RuntimeException e) {
+          future.completeExceptionally(e);
+        }
+      }
+    });
+    return future;
   }
 
 }
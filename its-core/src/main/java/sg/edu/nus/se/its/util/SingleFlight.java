@@ -0,0 +1,101 @@
+package sg.edu.nus.se.its.util;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent identical calls, e.g., to the ITS services. The first caller of a key
+ * makes the call, and callers of the same key that arrive while the call is in flight wait for
+ * it and share its result or exception instead of making the call again. Results are not kept
+ * after the call, see the caching decorators for that.
+ *
+ * @param <K> - the type of the keys identifying identical calls
+ * @param <V> - the type of the results
+ */
+public final class SingleFlight<K, V> {
+
+  /**
+   * A call that may throw a checked exception.
+   *
+   * @param <V> - the type of the result
+   * @param <E> - the type of the exception
+   */
+  public interface Call<V, E extends Exception> {
+    V call() throws E;
+  }
+
+  private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+  private final LongAdder calls = new LongAdder();
+  private final LongAdder deduplicated = new LongAdder();
+
+  /**
+   * Makes the call, unless an identical call is in flight.
+   *
+   * @param key - identifies identical calls
+   * @param call - the call
+   * @param share - derives the result of a waiting caller from the result of the call, e.g., a
+   *     copy of a mutable result, while the result of the caller making the call is returned as
+   *     is
+   * @param <E> - the type of the exception of the call
+   * @return the result of the call
+   * @throws E - the exception of the call
+   */
+  @SuppressWarnings("unchecked")
+  public <E extends Exception> V execute(K key, Call<? extends V, E> call,
+      Function<? super V, ? extends V> share) throws E {
+    CompletableFuture<V> flight = new CompletableFuture<>();
+    CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+    if (existing != null) {
+      deduplicated.increment();
+      try {
+        return share.apply(existing.join());
+      } catch (CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof RuntimeException) {
+          throw (RuntimeException) cause;
+        } else if (cause instanceof Error) {
+          throw (Error) cause;
+        }
+        // only the exceptions of the call are not unchecked
+        throw (E) cause;
+      }
+    }
+
+    calls.increment();
+    try {
+      V result = call.call();
+      flight.complete(result);
+      return result;
+    } catch (Exception | Error e) {
+      flight.completeExceptionally(e);
+      throw e;
+    } finally {
+      inFlight.remove(key, flight);
+    }
+  }
+
+  /**
+   * Returns the number of calls made.
+   */
+  public long getCalls() {
+    return calls.sum();
+  }
+
+  /**
+   * Returns the number of callers that shared the call of another caller.
+   */
+  public long getDeduplicated() {
+    return deduplicated.sum();
+  }
+
+  /**
+   * Returns the number of calls currently in flight.
+   */
+  public int getInFlight() {
+    return inFlight.size();
+  }
+}
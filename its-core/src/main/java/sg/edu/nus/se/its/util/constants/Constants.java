@@ -1,15 +1,15 @@
 package sg.edu.nus.se.its.util.constants;
 
-import static java.util.Map.entry;
-
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import sg.edu.nus.se.its.model.Opcode;
+import sg.edu.nus.se.its.model.Opcode.Category;
 
 /**
  * Constant values used in the intermediate representation of the Intelligent Tutoring System (ITS).
+ * The lists of operation names are derived from the {@link Opcode} registry.
  */
 public class Constants {
 
@@ -43,6 +43,12 @@ public class Constants {
    */
   public static final String VAR_CONTINUE = "$continue";
 
+  /**
+   * Prefix of the temporary variables introduced by optimizations of the model. Values assigned
+   * to them are not converted, as the variables stand for the expressions they replace.
+   */
+  public static final String VAR_TEMP_PREFIX = "$tmp";
+
   /**
    * Undefined value during interpretation.
    */
@@ -58,28 +64,37 @@ public class Constants {
    */
   public static final int DEFAULT_TIMEOUT_INTERPRETATION = 5;
 
+  /**
+   * Constant long to represent the default heap budget in bytes for one interpretation run.
+   */
+  public static final long DEFAULT_HEAP_LIMIT_INTERPRETATION = 256L * 1024 * 1024;
+
   /**
    * Constant String to represent the default entry function to a C program.
    */
   public static final String DEFAULT_ENTRY_FUNCTION_NAME = "main";
 
   /**
-   * Constant ArrayList of computational operators.
+   * Default maximum depth of nested function calls during interpretation, which keeps the
+   * interpreter within thread stacks of 512 KB, half of the default stack size of the JVM.
    */
-  public static final List<String> COMP_OPS =
-      new ArrayList<>(Arrays.asList("<=", "<", ">", ">=", "==", "!="));
+  public static final int DEFAULT_CALL_DEPTH_LIMIT = 256;
 
   /**
-   * Constant ArrayList of arithmetic operators.
+   * Constant List of computational operators.
    */
-  public static final List<String> ARITH_OPS =
-      new ArrayList<>(Arrays.asList("+", "-", "*", "/", "%"));
+  public static final List<String> COMP_OPS = Opcode.names(Category.COMPARISON);
+
+  /**
+   * Constant List of arithmetic operators.
+   */
+  public static final List<String> ARITH_OPS = Opcode.names(Category.ARITHMETIC);
 
 
   /**
-   * Constant ArrayList of logical operators.
+   * Constant List of logical operators.
    */
-  public static final List<String> LOGIC_OPS = new ArrayList<>(Arrays.asList("&&", "||"));
+  public static final List<String> LOGIC_OPS = Opcode.names(Category.LOGIC);
 
   /**
    * Constant ArrayList of specifiers in printf statements.
@@ -88,46 +103,32 @@ public class Constants {
       "%e", "%E", "%.*f", "%g", "%G", "%hi", "%hu", "%i", "%l", "%ld", "%li", "%lf", "%Lf", "%lu",
       "%lli", "%lld", "%llu", "%o", "%p", "%s", "%u", "%x", "%X", "%n", "%%"));
 
-  public static final List<String> FUNCS = new ArrayList<>(
-      Arrays.asList("floor", "ceil", "pow", "abs", "sqrt", "log2", "log10", "log", "exp"));
+  public static final List<String> FUNCS = Opcode.names(Category.MATH_FUNCTION);
+
+  public static final List<String> FUNCS_UNARY_PYTHON = Opcode.names(Category.PYTHON_FUNCTION);
 
-  public static final List<String> FUNCS_UNARY_PYTHON = new ArrayList<>(
-      Arrays.asList("pow", "abs", "len", "float", "int", "str", "input"));
+  public static final List<String> FUNCS_NO_ARGS_PYTHON = Opcode.names(Category.PYTHON_NO_ARGS);
 
-  public static final List<String> FUNCS_NO_ARGS_PYTHON = new ArrayList<>(Arrays.asList("input"));
   public static final Map<String, String> BINARY_OPS_PYTHON =
-      new HashMap<>(Map.ofEntries(entry("And", "and"), entry("Or", "or"), entry("Add", "+"),
-          entry("AssAdd", "+="), entry("Sub", "-"), entry("Mult", "*"), entry("Div", "/"),
-          entry("Mod", "%"), entry("Pow", "**"), entry("LShift", "<<"), entry("RShift", ">>"),
-          entry("BitOr", "|"), entry("BitAnd", "&"), entry("BitXor", "^"), entry("FloorDiv", "//"),
-          entry("Eq", "=="), entry("NotEq", "!="), entry("Lt", "<"), entry("LtE", "<="),
-          entry("Gt", ">"), entry("GtE", ">="), entry("Is", "is"), entry("IsNot", "is not"),
-          entry("In", "in"), entry("NotIn", "not in")));
+      Opcode.symbols(Category.PYTHON_BINARY);
 
-  public static final List<String> SEQ_BINARY_FUNCS_PYTHON = new ArrayList<>(Arrays.asList("append",
-      "extend", "pop", "remove", "insert", "add", "union", "discard", "pop"));
+  public static final List<String> SEQ_BINARY_FUNCS_PYTHON =
+      Opcode.names(Category.SEQUENCE_BINARY);
 
-  public static final List<String> SEQ_BINARY_ASSIGN_FUNCS_PYTHON = new ArrayList<>(Arrays.asList(
-      "get", "isdisjoint", "issubset", "issuperset", "difference", "intersection",
-      "symmetric_difference", "count", "index"));
+  public static final List<String> SEQ_BINARY_ASSIGN_FUNCS_PYTHON =
+      Opcode.names(Category.SEQUENCE_BINARY_ASSIGN);
 
-  public static final List<String> SEQ_TERNARY_FUNCS_PYTHON = new ArrayList<>(Arrays.asList(
-      "insert"));
+  public static final List<String> SEQ_TERNARY_FUNCS_PYTHON =
+      Opcode.names(Category.SEQUENCE_TERNARY);
 
-  public static final List<String> SEQ_UNARY_FUNCS_PYTHON = new ArrayList<>(Arrays.asList("append",
-      "clear", "reverse", "sort", "pop"));
+  public static final List<String> SEQ_UNARY_FUNCS_PYTHON = Opcode.names(Category.SEQUENCE_UNARY);
 
   public static final List<String> SEQ_UNARY_ASSIGN_FUNCS_PYTHON =
-      new ArrayList<>(Arrays.asList("items", "keys", "values", "popitem", "copy"));
+      Opcode.names(Category.SEQUENCE_UNARY_ASSIGN);
 
-  public static final Map<String, String> SEQ_INIT_PYTHON = new HashMap<>(Map.ofEntries(
-      entry("ListInit", "[]"), entry("list", "[]"), entry("SetInit", "{}"),
-      entry("set", "{}"), entry("TupleInit", "()"), entry("tuple", "()"),
-      entry("DictInit", "{}"), entry("dict", "{}")));
+  public static final Map<String, String> SEQ_INIT_PYTHON = Opcode.symbols(Category.SEQUENCE_INIT);
 
-  public static final Map<String, String> UNARY_OPS_PYTHON = new HashMap<>(Map.ofEntries(
-      entry("Invert", "~"), entry("Not", "not"), entry("UAdd", "+"),
-      entry("USub", "-")));
+  public static final Map<String, String> UNARY_OPS_PYTHON = Opcode.symbols(Category.PYTHON_UNARY);
 
   /**
    * Custom label to represent String Append.
@@ -0,0 +1,88 @@
+package sg.edu.nus.se.its.interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.ExpressionInterner;
+import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Tests the parsing of constants through the constant pool of a program.
+ */
+public class ConstantPoolTest {
+
+  /**
+   * Counts the literals it parses.
+   */
+  private static class CountingInterpreter extends TestInterpreter {
+    private int parsed;
+
+    @Override
+    public Object executeConstant(Constant constant, Memory memory) {
+      parsed++;
+      return super.executeConstant(constant, memory);
+    }
+  }
+
+  @Test
+  void testParsesEveryLiteralOnce() {
+    Program program = TestPrograms.counter(5);
+    CountingInterpreter interpreter = new CountingInterpreter();
+
+    Trace first = interpreter.executeProgram(program);
+    Trace second = interpreter.executeProgram(program);
+
+    // the literals 0, 5 and 1, although the loop evaluates them repeatedly
+    assertEquals(3, interpreter.parsed);
+    assertEquals(3, program.getConstantPool(CountingInterpreter.class).size());
+    assertEquals(5, first.getLastEntry().getMem().get(Constants.VAR_RET + "'"));
+    assertEquals(5, second.getLastEntry().getMem().get(Constants.VAR_RET + "'"));
+  }
+
+  @Test
+  void testSharesValuesOfEqualLiterals() {
+    ConstantPool pool = new ConstantPool();
+    TestInterpreter interpreter = new TestInterpreter();
+    Constant first = new Constant("1000", 1);
+    Constant second = new Constant("1000", 2);
+
+    Object value = pool.valueOf(first, null, interpreter);
+
+    assertSame(value, pool.valueOf(second, null, interpreter));
+    assertSame(value, second.getTypedValue(pool));
+    assertEquals(1, pool.size());
+    assertNull(second.getTypedValue(new ConstantPool()));
+  }
+
+  @Test
+  void testLooksUpInternedConstantsInPool() {
+    ConstantPool first = new ConstantPool();
+    ConstantPool second = new ConstantPool();
+    CountingInterpreter interpreter = new CountingInterpreter();
+    Constant constant = (Constant) new ExpressionInterner().intern(new Constant("1000", 1));
+
+    Object value = first.valueOf(constant, null, interpreter);
+    second.valueOf(constant, null, interpreter);
+
+    // the pools do not overwrite each other's value on the shared node
+    assertSame(value, first.valueOf(constant, null, interpreter));
+    assertNull(constant.getTypedValue(first));
+    assertEquals(2, interpreter.parsed);
+  }
+
+  @Test
+  void testKeepsPoolsPerInterpreter() {
+    Program program = new Program();
+
+    assertSame(program.getConstantPool(TestInterpreter.class),
+        program.getConstantPool(TestInterpreter.class));
+    assertNotSame(program.getConstantPool(TestInterpreter.class),
+        program.getConstantPool(CountingInterpreter.class));
+  }
+}
@@ -0,0 +1,116 @@
+package sg.edu.nus.se.its.interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Program;
+
+/**
+ * Tests the block and edge coverage recorded by the abstract interpreter.
+ */
+public class CoverageTest {
+
+  private static Coverage run(Program program) {
+    TestInterpreter interpreter = new TestInterpreter();
+    interpreter.setCoverage(true);
+    return interpreter.executeProgram(program).getCoverage();
+  }
+
+  @Test
+  void testDisabledByDefault() {
+    assertNull(new TestInterpreter().executeProgram(TestPrograms.counter(1)).getCoverage());
+  }
+
+  @Test
+  void testLocationIndexIsDeterministic() {
+    LocationIndex index = LocationIndex.of(TestPrograms.functionCall());
+
+    assertEquals(index, LocationIndex.of(TestPrograms.functionCall()));
+    assertEquals(2, index.size());
+    assertEquals("inc", index.getFunctionName(0));
+    assertEquals(0, index.getId("inc", 1));
+    assertEquals(1, index.getId("main", 1));
+    assertEquals(-1, index.getId("main", 2));
+    assertEquals(-1, index.getId("unknown", 1));
+  }
+
+  @Test
+  void testBlocksAndEdges() {
+    Coverage skipLoop = run(TestPrograms.counter(0));
+
+    assertEquals(Set.of(1, 2, 4), skipLoop.getCoveredLocations("main"));
+    assertFalse(skipLoop.isCovered("main", 3));
+    assertTrue(skipLoop.isCovered("main", 2, false));
+    assertFalse(skipLoop.isCovered("main", 2, true));
+    assertTrue(skipLoop.isCovered("main", 1, true));
+    assertEquals(2, skipLoop.getEdgeCount());
+
+    Coverage enterLoop = run(TestPrograms.counter(3));
+    assertEquals(4, enterLoop.getBlockCount());
+    assertEquals(4, enterLoop.getEdgeCount());
+  }
+
+  @Test
+  void testCalleeCoverage() {
+    TestInterpreter interpreter = new TestInterpreter();
+    interpreter.setCoverage(true);
+    Coverage coverage = interpreter.executeProgram(TestPrograms.functionCall(),
+        new Input(null, new String[] {"1"})).getCoverage();
+
+    assertTrue(coverage.isCovered("main", 1));
+    assertTrue(coverage.isCovered("inc", 1));
+  }
+
+  @Test
+  void testUnionAndIntersection() {
+    Coverage skipLoop = run(TestPrograms.counter(0));
+    Coverage enterLoop = run(TestPrograms.counter(1));
+
+    Coverage union = Coverage.union(List.of(skipLoop, enterLoop));
+    assertEquals(4, union.getBlockCount());
+    assertTrue(union.isCovered("main", 2, true));
+    assertTrue(union.isCovered("main", 2, false));
+
+    Coverage intersection = Coverage.intersection(List.of(skipLoop, enterLoop));
+    assertEquals(Set.of(1, 2, 4), intersection.getCoveredLocations("main"));
+    assertFalse(intersection.isCovered("main", 2, true));
+
+    assertEquals(3, skipLoop.getBlockCount());
+    assertNull(Coverage.union(List.of()));
+  }
+
+  @Test
+  void testCoveragesOfOneProgramShareTheIndex() {
+    Program program = TestPrograms.functionCall();
+    TestInterpreter interpreter = new TestInterpreter();
+    interpreter.setCoverage(true);
+    Coverage first = interpreter.executeProgram(program, new Input(null, new String[] {"1"}))
+        .getCoverage();
+    Coverage second = interpreter.executeProgram(program, new Input(null, new String[] {"2"}))
+        .getCoverage();
+
+    assertSame(first.getIndex(), second.getIndex());
+    assertSame(first.getIndex(), Coverage.union(List.of(first, second)).getIndex());
+
+    program.getfnc("main").addLocation(0, "unreachable");
+    assertNotSame(first.getIndex(), program.getLocationIndex());
+    assertEquals(3, program.getLocationIndex().size());
+  }
+
+  @Test
+  void testDifferentProgramsCannotBeCombined() {
+    Coverage counter = run(TestPrograms.counter(0));
+    Coverage call = new Coverage(LocationIndex.of(TestPrograms.functionCall()));
+
+    assertThrows(IllegalArgumentException.class, () -> Coverage.union(List.of(counter, call)));
+  }
+}
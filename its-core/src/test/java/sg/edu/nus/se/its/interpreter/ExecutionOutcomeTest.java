@@ -0,0 +1,172 @@
+package sg.edu.nus.se.its.interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Tests the status codes and partial traces reported by the abstract interpreter.
+ */
+public class ExecutionOutcomeTest {
+
+  @Test
+  void testOk() {
+    ExecutionOutcome outcome = new TestInterpreter().runProgram(TestPrograms.counter(3), null);
+
+    assertTrue(outcome.isOk());
+    assertNull(outcome.getMessage());
+    assertEquals(3, outcome.getTrace().getLastEntry().getMem().get("$ret'"));
+  }
+
+  @Test
+  void testOkWithFunctionCall() {
+    ExecutionOutcome outcome = new TestInterpreter().runProgram(TestPrograms.functionCall(),
+        new Input(null, new String[] {"41"}));
+
+    assertTrue(outcome.isOk());
+    assertEquals(42, outcome.getTrace().getLastEntry().getMem().get("$ret'"));
+  }
+
+  @Test
+  void testTimeout() {
+    ExecutionOutcome outcome =
+        new TestInterpreter(0, Constants.DEFAULT_ENTRY_FUNCTION_NAME)
+            .runProgram(TestPrograms.infiniteLoop(), null);
+
+    assertEquals(ExecutionStatus.TIMEOUT, outcome.getStatus());
+    assertTrue(outcome.getMessage().startsWith("Timeout"));
+    assertEquals("main", outcome.getFunctionName());
+  }
+
+  @Test
+  void testDiverged() {
+    TestInterpreter interpreter = new TestInterpreter();
+    interpreter.setStepLimit(10);
+    ExecutionOutcome outcome = interpreter.runProgram(TestPrograms.infiniteLoop(), null);
+
+    assertEquals(ExecutionStatus.DIVERGED, outcome.getStatus());
+    assertEquals(10, outcome.getTrace().size());
+    assertEquals(2, outcome.getLocation());
+  }
+
+  @Test
+  void testStepLimitNotReached() {
+    TestInterpreter interpreter = new TestInterpreter();
+    interpreter.setStepLimit(100);
+
+    assertTrue(interpreter.runProgram(TestPrograms.counter(3), null).isOk());
+  }
+
+  @Test
+  void testRuntimeErrorOnEmptyInput() {
+    ExecutionOutcome outcome = new TestInterpreter().runProgram(TestPrograms.readInput(), null);
+
+    assertEquals(ExecutionStatus.RUNTIME_ERROR, outcome.getStatus());
+    assertEquals("ListHead on empty list", outcome.getMessage());
+    assertNotNull(outcome.getTrace());
+    assertEquals(0, outcome.getTrace().size());
+    assertEquals(1, outcome.getLocation());
+  }
+
+  @Test
+  void testRuntimeErrorOnWrongNumberOfArgs() {
+    ExecutionOutcome outcome =
+        new TestInterpreter().runProgram(TestPrograms.functionCall(), new Input());
+
+    assertEquals(ExecutionStatus.RUNTIME_ERROR, outcome.getStatus());
+    assertEquals("Wrong number of args: expected 1, got 0", outcome.getMessage());
+  }
+
+  @Test
+  void testRuntimeErrorOnUnknownFunction() {
+    ExecutionOutcome outcome =
+        new TestInterpreter(5, "missing").runProgram(TestPrograms.counter(1), null);
+
+    assertEquals(ExecutionStatus.RUNTIME_ERROR, outcome.getStatus());
+    assertEquals("Unknown function: 'missing'", outcome.getMessage());
+  }
+
+  @Test
+  void testLimitExceededOnUnboundedRecursion() {
+    ExecutionOutcome outcome =
+        new TestInterpreter().runProgram(TestPrograms.unboundedRecursion(), null);
+
+    assertEquals(ExecutionStatus.LIMIT_EXCEEDED, outcome.getStatus());
+  }
+
+  @Test
+  void testLimitsCallDepthWhateverTheStackSize() throws InterruptedException {
+    AtomicReference<ExecutionOutcome> outcome = new AtomicReference<>();
+    // half of the default stack size of a thread
+    Thread thread = new Thread(null, () -> outcome.set(
+        new TestInterpreter().runProgram(TestPrograms.unboundedRecursion(), null)),
+        "small-stack", 512 * 1024);
+    thread.start();
+    thread.join();
+
+    assertEquals(ExecutionStatus.LIMIT_EXCEEDED, outcome.get().getStatus());
+    assertEquals("Maximum call depth exceeded (" + Constants.DEFAULT_CALL_DEPTH_LIMIT
+        + " calls)", outcome.get().getMessage());
+  }
+
+  @Test
+  void testConfiguresCallDepthLimit() {
+    TestInterpreter interpreter = new TestInterpreter();
+    interpreter.setCallDepthLimit(10);
+
+    ExecutionOutcome outcome = interpreter.runProgram(TestPrograms.unboundedRecursion(), null);
+
+    assertEquals(ExecutionStatus.LIMIT_EXCEEDED, outcome.getStatus());
+    assertEquals("Maximum call depth exceeded (10 calls)", outcome.getMessage());
+  }
+
+  @Test
+  void testPartialTraceKeepsCompletedBlocks() {
+    Program program = TestPrograms.counter(1000000);
+    TestInterpreter interpreter = new TestInterpreter();
+    interpreter.setStepLimit(7);
+    ExecutionOutcome outcome = interpreter.runProgram(program, null);
+
+    assertFalse(outcome.isOk());
+    assertEquals(7, outcome.getTrace().size());
+    assertEquals(1, outcome.getTrace().getEntries().get(0).getLocation());
+  }
+
+  @Test
+  void testExecuteProgramStillThrows() {
+    InterpretationException exception = assertThrows(InterpretationException.class,
+        () -> new TestInterpreter().executeProgram(TestPrograms.readInput()));
+
+    assertEquals(ExecutionStatus.RUNTIME_ERROR, exception.getStatus());
+    assertEquals(0, exception.getStackTrace().length);
+  }
+
+  @Test
+  void testDefaultRunProgramWrapsExceptions() {
+    Interpreter failing = new Interpreter() {
+      @Override
+      public Trace executeProgram(Program program) {
+        return executeProgram(program, null);
+      }
+
+      @Override
+      public Trace executeProgram(Program program, Input input) {
+        throw new RuntimeException("Internal Server Error!");
+      }
+    };
+    ExecutionOutcome outcome = failing.runProgram(new Program(), null);
+
+    assertEquals(ExecutionStatus.RUNTIME_ERROR, outcome.getStatus());
+    assertEquals("Internal Server Error!", outcome.getMessage());
+    assertNull(outcome.getTrace());
+  }
+}
@@ -0,0 +1,68 @@
+package sg.edu.nus.se.its.interpreter;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.model.Program;
+
+/**
+ * Measures the overhead of the heap accounting. Run with {@code mvn test -P benchmark}.
+ */
+@Tag("benchmark")
+public class HeapAccountingBenchmark {
+
+  private static final int WARMUP_ROUNDS = 20;
+  private static final int MEASURED_ROUNDS = 50;
+
+  @Test
+  void benchmarkInterpreterOverhead() {
+    Program program = TestPrograms.counter(500);
+
+    TestInterpreter withAccounting = new TestInterpreter();
+    TestInterpreter withoutAccounting = new TestInterpreter();
+    withoutAccounting.setHeapLimit(null);
+
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      withAccounting.runProgram(program, null);
+      withoutAccounting.runProgram(program, null);
+    }
+
+    long accountingNanos = 0;
+    long baselineNanos = 0;
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      long start = System.nanoTime();
+      withoutAccounting.runProgram(program, null);
+      baselineNanos += System.nanoTime() - start;
+
+      start = System.nanoTime();
+      withAccounting.runProgram(program, null);
+      accountingNanos += System.nanoTime() - start;
+    }
+
+    System.out.printf("heap accounting: baseline %.3f ms/run, accounting %.3f ms/run (%+.1f%%)%n",
+        baselineNanos / 1e6 / MEASURED_ROUNDS, accountingNanos / 1e6 / MEASURED_ROUNDS,
+        100.0 * (accountingNanos - baselineNanos) / baselineNanos);
+  }
+
+  @Test
+  void benchmarkEstimateOfLargeList() {
+    List<Object> list = new ArrayList<>();
+    for (int i = 0; i < 100_000; i++) {
+      list.add("element" + i);
+    }
+
+    long sink = 0;
+    for (int i = 0; i < 10_000; i++) {
+      sink += HeapSizeEstimator.estimate(list);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < 100_000; i++) {
+      sink += HeapSizeEstimator.estimate(list);
+    }
+    long nanos = System.nanoTime() - start;
+
+    System.out.printf("estimate of 100k element list: %.1f ns/op (checksum %d)%n",
+        nanos / 100_000.0, sink);
+  }
+}
@@ -0,0 +1,85 @@
+package sg.edu.nus.se.its.interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Tests the size estimates and the heap budget of the abstract interpreter.
+ */
+public class HeapSizeEstimatorTest {
+
+  @Test
+  void testScalarsAndStrings() {
+    assertEquals(0, HeapSizeEstimator.estimate(null));
+    assertEquals(0, HeapSizeEstimator.estimate(Constants.UNDEFINED));
+    assertEquals(HeapSizeEstimator.OBJECT_HEADER, HeapSizeEstimator.estimate(42));
+    assertEquals(HeapSizeEstimator.OBJECT_HEADER, HeapSizeEstimator.estimate(true));
+    assertEquals(HeapSizeEstimator.estimate("") + 10, HeapSizeEstimator.estimate("0123456789"));
+  }
+
+  @Test
+  void testContainersGrowWithSize() {
+    List<Object> small = new ArrayList<>(Arrays.asList(1, 2, 3));
+    List<Object> large = new ArrayList<>();
+    for (int i = 0; i < 10000; i++) {
+      large.add(i);
+    }
+
+    assertTrue(HeapSizeEstimator.estimate(large) > 1000 * HeapSizeEstimator.estimate(small) / 3);
+    assertTrue(HeapSizeEstimator.estimate(new HashSet<>(large))
+        > HeapSizeEstimator.estimate(large));
+    assertEquals(HeapSizeEstimator.estimate(new String[] {"ab", "cd"}),
+        HeapSizeEstimator.OBJECT_HEADER + 2 * HeapSizeEstimator.REFERENCE
+            + 2 * HeapSizeEstimator.estimate("ab"));
+  }
+
+  @Test
+  void testSampledEstimateIsProportional() {
+    String[] strings = new String[1000];
+    Arrays.fill(strings, "abc");
+
+    assertEquals(HeapSizeEstimator.OBJECT_HEADER
+            + 1000 * (HeapSizeEstimator.REFERENCE + HeapSizeEstimator.estimate("abc")),
+        HeapSizeEstimator.estimate(strings));
+  }
+
+  @Test
+  void testHeapLimitExceeded() {
+    TestInterpreter interpreter = new TestInterpreter();
+    interpreter.setHeapLimit(10_000L);
+    ExecutionOutcome outcome = interpreter.runProgram(TestPrograms.counter(1000), null);
+
+    assertEquals(ExecutionStatus.LIMIT_EXCEEDED, outcome.getStatus());
+    assertTrue(outcome.getMessage().startsWith("Heap limit exceeded"));
+    assertTrue(outcome.getTrace().size() < 1000);
+  }
+
+  @Test
+  void testAllocatedBytesWithinLimit() {
+    TestInterpreter interpreter = new TestInterpreter();
+    Program program = TestPrograms.counter(10);
+    ExecutionOutcome outcome = interpreter.runProgram(program, new Input());
+
+    assertTrue(outcome.isOk());
+    assertTrue(interpreter.getAllocatedBytes() > 0);
+  }
+
+  @Test
+  void testAccountingDisabled() {
+    TestInterpreter interpreter = new TestInterpreter();
+    interpreter.setHeapLimit(null);
+    ExecutionOutcome outcome = interpreter.runProgram(TestPrograms.counter(1000), null);
+
+    assertTrue(outcome.isOk());
+    assertEquals(0, interpreter.getAllocatedBytes());
+  }
+}
@@ -0,0 +1,94 @@
+package sg.edu.nus.se.its.interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.model.Input;
+
+/**
+ * Tests the execution profiles collected by the abstract interpreter.
+ */
+public class ProfileTest {
+
+  @Test
+  void testDisabledByDefault() {
+    Trace trace = new TestInterpreter().executeProgram(TestPrograms.counter(3));
+
+    assertNull(trace.getProfile());
+  }
+
+  @Test
+  void testBlockAndOperationCounts() {
+    TestInterpreter interpreter = new TestInterpreter();
+    interpreter.setProfiling(true);
+    Trace trace = interpreter.executeProgram(TestPrograms.counter(3));
+    Profile profile = trace.getProfile();
+
+    assertNotNull(profile);
+    List<Long> counts = new ArrayList<>(profile.getBlockCounts().get("main").values());
+    Collections.sort(counts);
+    assertEquals(List.of(1L, 1L, 3L, 4L), counts);
+    for (TraceEntry entry : trace) {
+      assertTrue(profile.getBlockCount("main", entry.getLocation()) > 0);
+    }
+    assertEquals(4, profile.getOperationCount("<"));
+    assertEquals(3, profile.getOperationCount("+"));
+    assertEquals(7, profile.getTotalOperationCount());
+    assertEquals(1, profile.getCallCount("main"));
+  }
+
+  @Test
+  void testFunctionCallTimes() {
+    TestInterpreter interpreter = new TestInterpreter();
+    interpreter.setProfiling(true);
+    Profile profile = interpreter.executeProgram(TestPrograms.functionCall(),
+        new Input(null, new String[] {"41"})).getProfile();
+
+    assertEquals(1, profile.getCallCount("main"));
+    assertEquals(1, profile.getCallCount("inc"));
+    assertEquals(1, profile.getBlockCount("inc", 1));
+    assertTrue(profile.getTotalNanos("main") >= profile.getTotalNanos("inc"));
+    assertEquals(profile.getTotalNanos("main"),
+        profile.getSelfNanos("main") + profile.getSelfNanos("inc"));
+
+    String folded = profile.toFoldedStacks();
+    assertTrue(folded.contains("main " + profile.getSelfNanos("main") + "\n"));
+    assertTrue(folded.contains("main;inc " + profile.getSelfNanos("inc") + "\n"));
+  }
+
+  @Test
+  void testPartialProfileOfFailedRun() {
+    TestInterpreter interpreter = new TestInterpreter();
+    interpreter.setProfiling(true);
+    interpreter.setStepLimit(50);
+    ExecutionOutcome outcome = interpreter.runProgram(TestPrograms.infiniteLoop(), null);
+
+    assertEquals(ExecutionStatus.DIVERGED, outcome.getStatus());
+    Profile profile = outcome.getTrace().getProfile();
+    assertEquals(49, profile.getOperationCount("+"));
+    assertEquals(1, profile.getCallCount("main"));
+    assertTrue(profile.toFoldedStacks().startsWith("main "));
+  }
+
+  @Test
+  void testJson() {
+    TestInterpreter interpreter = new TestInterpreter();
+    interpreter.setProfiling(true);
+    Profile profile = interpreter.executeProgram(TestPrograms.counter(2)).getProfile();
+
+    JsonObject json = JsonParser.parseString(profile.toJson()).getAsJsonObject();
+    assertEquals(3, json.getAsJsonObject("operations").get("<").getAsLong());
+    assertEquals(2, json.getAsJsonObject("operations").get("+").getAsLong());
+    assertEquals(4, json.getAsJsonObject("blocks").getAsJsonObject("main").size());
+    assertEquals(1,
+        json.getAsJsonObject("functions").getAsJsonObject("main").get("calls").getAsLong());
+  }
+}
@@ -0,0 +1,107 @@
+package sg.edu.nus.se.its.interpreter;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Opcode;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Minimal interpreter for integer programs, used to test the behavior of the abstract interpreter.
+ */
+public class TestInterpreter extends AbstractInterpreter {
+
+  public TestInterpreter() {
+    super();
+  }
+
+  public TestInterpreter(Integer timeout, String entryFunctionName) {
+    super(timeout, entryFunctionName);
+  }
+
+  @Override
+  public Object convert(Object value, String type) {
+    if (!"int".equals(type) || Constants.UNDEFINED.equals(value)) {
+      return value;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).intValue();
+    }
+    if (value instanceof Boolean) {
+      return (Boolean) value ? 1 : 0;
+    }
+    return Integer.parseInt(value.toString());
+  }
+
+  @Override
+  public Object executeConstant(Constant constant, Memory memory) {
+    try {
+      return Integer.parseInt(constant.getValue());
+    } catch (NumberFormatException e) {
+      return constant.getValue();
+    }
+  }
+
+  @Override
+  public List<String> getSpecialOps() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public List<String> getUnaryOps() {
+    return Arrays.asList("-", "!");
+  }
+
+  @Override
+  public List<String> getBinaryOps() {
+    return Arrays.asList("+", "-", "*", "%", "<", "==");
+  }
+
+  @Override
+  public List<String> getSpecialFunctions() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Object executeSpecialOp(Operation op, Memory mem) {
+    throw new UnsupportedOperationException(op.getName());
+  }
+
+  @Override
+  public Object executeUnaryOp(Opcode opcode, Expression arg, Memory mem) {
+    Object value = execute(arg, mem);
+    if (opcode == Opcode.MINUS) {
+      return -(Integer) value;
+    }
+    return !(Boolean) value;
+  }
+
+  @Override
+  public Object executeBinaryOp(Opcode opcode, Expression arg1, Expression arg2, Memory mem) {
+    int left = (Integer) execute(arg1, mem);
+    int right = (Integer) execute(arg2, mem);
+    switch (opcode) {
+      case PLUS:
+        return left + right;
+      case MINUS:
+        return left - right;
+      case STAR:
+        return left * right;
+      case PERCENT:
+        return left % right;
+      case LESS:
+        return left < right;
+      default:
+        return left == right;
+    }
+  }
+
+  @Override
+  public Object executeSpecialFunction(String fncname, List<Object> args, Memory mem) {
+    throw new UnsupportedOperationException(fncname);
+  }
+}
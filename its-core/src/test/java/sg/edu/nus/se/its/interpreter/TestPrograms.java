@@ -0,0 +1,144 @@
+package sg.edu.nus.se.its.interpreter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.javatuples.Pair;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.model.Variable;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Small hand-built program models for interpreter tests.
+ */
+public class TestPrograms {
+
+  /**
+   * Counts from 0 to n in a loop and returns the final counter.
+   *
+   * <pre>
+   * loc 1: i := 0                       -> 2
+   * loc 2: $cond := i &lt; n              -> true: 3, false: 4
+   * loc 3: i := i + 1                   -> 2
+   * loc 4: $ret := i
+   * </pre>
+   */
+  public static Program counter(int n) {
+    Function main = new Function("main", new ArrayList<>(), "int");
+    main.addType("i", "int");
+    int init = main.addLocation(0, "init");
+    int cond = main.addLocation(0, "condition");
+    int body = main.addLocation(0, "body");
+    int exit = main.addLocation(0, "exit");
+    main.addExpr(init, "i", constant("0"));
+    main.addExpr(cond, Constants.VAR_COND, op("<", var("i"), constant(String.valueOf(n))));
+    main.addExpr(body, "i", op("+", var("i"), constant("1")));
+    main.addExpr(exit, Constants.VAR_RET, var("i"));
+    main.addLocationTrans(init, cond, null);
+    main.addLocationTrans(cond, body, exit);
+    main.addLocationTrans(body, cond, null);
+    main.addLocationTrans(exit, null, null);
+    return program(main);
+  }
+
+  /**
+   * Increments a counter forever.
+   */
+  public static Program infiniteLoop() {
+    Function main = new Function("main", new ArrayList<>(), "int");
+    main.addType("i", "int");
+    int init = main.addLocation(0, "init");
+    int body = main.addLocation(0, "body");
+    main.addExpr(init, "i", constant("0"));
+    main.addExpr(body, "i", op("+", var("i"), constant("1")));
+    main.addLocationTrans(init, body, null);
+    main.addLocationTrans(body, body, null);
+    return program(main);
+  }
+
+  /**
+   * Reads one integer from the input and returns it.
+   */
+  public static Program readInput() {
+    Function main = new Function("main", new ArrayList<>(), "int");
+    main.addType("x", "int");
+    int init = main.addLocation(0, "init");
+    main.addExpr(init, "x", op("ListHead", constant("int"), var(Constants.VAR_IN)));
+    main.addExpr(init, Constants.VAR_IN, op("ListTail", var(Constants.VAR_IN)));
+    main.addExpr(init, Constants.VAR_RET, primed("x"));
+    main.addLocationTrans(init, null, null);
+    return program(main);
+  }
+
+  /**
+   * Calls the function 'inc' with the argument of 'main' and returns the result.
+   */
+  public static Program functionCall() {
+    ArrayList<Pair<String, String>> params = new ArrayList<>();
+    params.add(Pair.with("a", "int"));
+    Function inc = new Function("inc", params, "int");
+    inc.addType("a", "int");
+    int incLoc = inc.addLocation(0, "init");
+    inc.addExpr(incLoc, Constants.VAR_RET, op("+", var("a"), constant("1")));
+    inc.addLocationTrans(incLoc, null, null);
+
+    Function main = new Function("main", new ArrayList<>(params), "int");
+    main.addType("a", "int");
+    main.addType("r", "int");
+    int init = main.addLocation(0, "init");
+    main.addExpr(init, "r", op(Constants.FUNCTION_CALL, var("inc"), var("a")));
+    main.addExpr(init, Constants.VAR_RET, primed("r"));
+    main.addLocationTrans(init, null, null);
+    return program(main, inc);
+  }
+
+  /**
+   * Calls the function 'rec' that calls itself without ever returning.
+   */
+  public static Program unboundedRecursion() {
+    Function rec = new Function("rec", new ArrayList<>(), "int");
+    int recLoc = rec.addLocation(0, "init");
+    rec.addExpr(recLoc, Constants.VAR_RET, op(Constants.FUNCTION_CALL, var("rec")));
+    rec.addLocationTrans(recLoc, null, null);
+
+    Function main = new Function("main", new ArrayList<>(), "int");
+    int init = main.addLocation(0, "init");
+    main.addExpr(init, Constants.VAR_RET, op(Constants.FUNCTION_CALL, var("rec")));
+    main.addLocationTrans(init, null, null);
+    return program(main, rec);
+  }
+
+  public static Program program(Function... functions) {
+    Program program = new Program();
+    for (Function function : functions) {
+      program.addfnc(function);
+    }
+    return program;
+  }
+
+  public static Constant constant(String value) {
+    return new Constant(value, 1);
+  }
+
+  public static Variable var(String name) {
+    return new Variable(name, 1);
+  }
+
+  /**
+   * Creates a primed variable, i.e., a read of the value assigned earlier in the same block.
+   */
+  public static Variable primed(String name) {
+    Variable variable = new Variable(name, 1);
+    variable.setPrimed(true);
+    return variable;
+  }
+
+  public static Operation op(String name, Expression... args) {
+    List<Expression> argList = new ArrayList<>(Arrays.asList(args));
+    return new Operation(name, argList, 1);
+  }
+}
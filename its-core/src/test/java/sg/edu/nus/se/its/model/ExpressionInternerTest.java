@@ -0,0 +1,108 @@
+package sg.edu.nus.se.its.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.util.ServiceUtils;
+
+/**
+ * Tests the table of shared expressions.
+ */
+public class ExpressionInternerTest {
+
+  private final ExpressionInterner interner = new ExpressionInterner();
+
+  private static Operation op(String name, int line, Expression... args) {
+    return new Operation(name, new ArrayList<>(List.of(args)), line);
+  }
+
+  /**
+   * Builds x = y + 1 in main, with fresh expressions on every call.
+   */
+  private static Program program() {
+    Program program = new Program();
+    Function main = new Function("main", new ArrayList<>(), "int");
+    int loc = main.addLocation(0, "entry");
+    main.addExpr(loc, "x", op("+", 2, new Variable("y", 2), new Constant("1", 2)));
+    program.addfnc(main);
+    return program;
+  }
+
+  private static Expression expression(Program program) {
+    Function main = program.getfnc("main");
+    return main.getExprs(main.getInitloc()).get(0).getValue1();
+  }
+
+  @Test
+  void testSharesIdenticalStructures() {
+    Program first = interner.intern(program());
+    Program second = interner.intern(program());
+
+    assertSame(expression(first), expression(second));
+    assertTrue(expression(first).isInterned());
+    assertEquals(3, interner.size());
+    assertEquals(3, interner.getHits());
+  }
+
+  @Test
+  void testDistinguishesLinesAndPrimes() {
+    Expression variable = interner.intern(new Variable("y", 2));
+    Expression primed = new Variable("y", 2);
+    ((Variable) primed).setPrimed(true);
+
+    assertNotSame(variable, interner.intern(new Variable("y", 3)));
+    assertNotSame(variable, interner.intern(primed));
+    assertNotSame(interner.intern(new Constant("1", 2)), interner.intern(new Constant("1", 3)));
+    assertSame(variable, interner.intern(new Variable("y", 2)));
+  }
+
+  @Test
+  void testCopiesOnWrite() {
+    Operation operation = (Operation) interner.intern(op("+", 2, new Variable("y", 2),
+        new Constant("1", 2)));
+    String json = ServiceUtils.MODEL_GSON.toJson(operation, Expression.class);
+
+    Expression primed = operation.prime();
+    Expression replaced = operation.replace("y", new Constant("2", 2));
+
+    assertNotSame(operation, primed);
+    assertFalse(primed.isInterned());
+    assertEquals("+(y', 1)", primed.toString());
+    assertEquals("+(2, 1)", replaced.toString());
+    assertSame(operation, operation.unprime());
+    assertSame(operation, operation.prime(Set.of("z")));
+    assertEquals(json, ServiceUtils.MODEL_GSON.toJson(operation, Expression.class));
+  }
+
+  @Test
+  void testRejectsModifications() {
+    Operation operation = (Operation) interner.intern(op("-", 1, new Variable("a", 1)));
+    Variable variable = (Variable) operation.getArgs().get(0);
+
+    assertThrows(IllegalStateException.class, () -> variable.setPrimed(true));
+    assertThrows(IllegalStateException.class,
+        () -> operation.setOriginalExpression(new Constant("0", 1)));
+    assertThrows(UnsupportedOperationException.class,
+        () -> operation.getArgs().add(new Constant("0", 1)));
+  }
+
+  @Test
+  void testKeepsSerializedForm() {
+    Program program = program();
+    expression(program).setOriginalExpression(new Constant("3", 1));
+    String json = ServiceUtils.MODEL_GSON.toJson(program, Program.class);
+
+    interner.intern(program);
+
+    assertEquals(json, ServiceUtils.MODEL_GSON.toJson(program, Program.class));
+    assertTrue(expression(program).getOriginalExpr().isInterned());
+  }
+}
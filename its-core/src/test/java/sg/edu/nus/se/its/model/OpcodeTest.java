@@ -0,0 +1,81 @@
+package sg.edu.nus.se.its.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.model.Opcode.Category;
+import sg.edu.nus.se.its.model.Opcode.Language;
+import sg.edu.nus.se.its.util.JsonSerializerWithInheritance;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Tests the registry of operations.
+ */
+public class OpcodeTest {
+
+  @Test
+  void testLooksUpNames() {
+    for (Opcode opcode : Opcode.values()) {
+      if (opcode != Opcode.UNKNOWN) {
+        assertSame(opcode, Opcode.of(opcode.getName()));
+      }
+    }
+    assertSame(Opcode.UNKNOWN, Opcode.of("lower"));
+    assertSame(Opcode.UNKNOWN, Opcode.of(null));
+  }
+
+  @Test
+  void testSymmetricOperators() {
+    assertSame(Opcode.GREATER, Opcode.LESS.getSymmetric());
+    assertSame(Opcode.GT_E, Opcode.LT_E.getSymmetric());
+    assertTrue(Opcode.ADD.isCommutative());
+    assertFalse(Opcode.LESS.isCommutative());
+    assertNull(Opcode.MINUS.getSymmetric());
+    for (Opcode opcode : Opcode.values()) {
+      if (opcode.getSymmetric() != null) {
+        assertSame(opcode, opcode.getSymmetric().getSymmetric());
+      }
+    }
+  }
+
+  @Test
+  void testCategoriesMatchConstants() {
+    assertEquals(List.of("+", "-", "*", "/", "%"), Constants.ARITH_OPS);
+    assertTrue(Constants.COMP_OPS.contains("<="));
+    assertTrue(Constants.SEQ_BINARY_FUNCS_PYTHON.contains("insert"));
+    assertEquals("is not", Constants.BINARY_OPS_PYTHON.get("IsNot"));
+    assertEquals("()", Constants.SEQ_INIT_PYTHON.get("TupleInit"));
+    assertEquals("[]", Opcode.LIST.getSymbol());
+    assertTrue(Opcode.POW.is(Category.MATH_FUNCTION) && Opcode.POW.is(Category.PYTHON_FUNCTION));
+  }
+
+  @Test
+  void testArityAndLanguage() {
+    assertTrue(Opcode.MINUS.accepts(1) && Opcode.MINUS.accepts(2));
+    assertFalse(Opcode.ITE.accepts(2));
+    assertTrue(Opcode.LOGICAL_AND.accepts(5));
+    assertTrue(Opcode.ITE.isDefinedFor(Language.C) && Opcode.ITE.isDefinedFor(Language.PYTHON));
+    assertFalse(Opcode.EQ.isDefinedFor(Language.C));
+  }
+
+  @Test
+  void testResolvesOpcodeOfDeserializedOperation() {
+    Operation operation = new Operation("Lt", new ArrayList<>(), 1);
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapter(Expression.class, new JsonSerializerWithInheritance<Expression>())
+        .create();
+
+    Expression copy = gson.fromJson(gson.toJson(operation, Expression.class), Expression.class);
+
+    assertEquals(operation, copy);
+    assertSame(Opcode.LT, ((Operation) copy).getOpcode());
+  }
+}
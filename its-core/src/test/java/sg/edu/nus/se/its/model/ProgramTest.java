@@ -0,0 +1,129 @@
+package sg.edu.nus.se.its.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.javatuples.Pair;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.util.ServiceUtils;
+
+/**
+ * Tests the serialized forms kept with a program.
+ */
+public class ProgramTest {
+
+  private final AtomicInteger serialized = new AtomicInteger();
+
+  private String serialize(Program program) {
+    serialized.incrementAndGet();
+    return ServiceUtils.MODEL_GSON.toJson(program, Program.class);
+  }
+
+  private static Program program() {
+    Program program = new Program();
+    Function main = new Function("main", new ArrayList<>(), "int");
+    int loc = main.addLocation(0, "entry");
+    main.addExpr(loc, "x", new Variable("y", 1));
+    main.addExpr(loc, "z", new Operation("+",
+        new ArrayList<>(List.of(new Variable("y", 2), new Constant("1", 2))), 2));
+    program.addfnc(main);
+    return program;
+  }
+
+  @Test
+  void testSerializesUnchangedProgramOnce() {
+    Program program = program();
+
+    String first = program.getSerialized("json", this::serialize);
+    String second = program.getSerialized("json", this::serialize);
+
+    assertEquals(1, serialized.get());
+    assertEquals(first, second);
+    assertEquals(ServiceUtils.MODEL_GSON.toJson(program, Program.class), second);
+  }
+
+  @Test
+  void testKeepsFormatsApart() {
+    Program program = program();
+
+    program.getSerialized("json", this::serialize);
+    String length = program.getSerialized("length",
+        p -> String.valueOf(p.getSerialized("json", this::serialize).length()));
+
+    assertEquals(1, serialized.get());
+    assertEquals(String.valueOf(ServiceUtils.toJson(program).length()), length);
+  }
+
+  private static Expression operation(Function main) {
+    return main.getExprs(main.getInitloc()).get(1).getValue1();
+  }
+
+  @Test
+  void testInvalidatesOnModification() {
+    Program program = program();
+    Function main = program.getfnc("main");
+    List<Runnable> modifications = List.of(
+        () -> operation(main).prime(),
+        () -> operation(main).unprime(),
+        () -> operation(main).replace("y", new Constant("42", 1)),
+        () -> program.setImportStatements(List.of("#include <stdio.h>")),
+        () -> program.addfnc(new Function("f", new ArrayList<>(), "int")),
+        () -> main.addLocation(0, "exit"),
+        () -> main.addExpr(main.getInitloc(), "z", new Constant("1", 2)),
+        () -> main.addType("x", "int"),
+        () -> main.replaceLocExpressions(main.getInitloc(), new ArrayList<>(
+            List.of(Pair.with("x", (Expression) new Variable("x", 1))))),
+        () -> ((Variable) main.getExprs(main.getInitloc()).get(0).getValue1()).setPrimed(true),
+        () -> main.getExprs(main.getInitloc()).get(0).getValue1()
+            .setOriginalExpression(new Constant("0", 1)));
+
+    String previous = program.getSerialized("json", this::serialize);
+    for (Runnable modification : modifications) {
+      int before = serialized.get();
+      modification.run();
+      String current = program.getSerialized("json", this::serialize);
+
+      assertEquals(before + 1, serialized.get());
+      assertEquals(ServiceUtils.MODEL_GSON.toJson(program, Program.class), current);
+      previous = current;
+    }
+    assertTrue(previous.contains("stdio"));
+  }
+
+  @Test
+  void testInvalidatesOnReplacedFunction() {
+    Program program = program();
+    Function other = new Function("main", new ArrayList<>(), "int");
+    other.addLocation(0, "entry");
+    String previous = program.getSerialized("json", this::serialize);
+
+    // the replaced function was modified more often than the new one
+    program.addfnc(other);
+    String current = program.getSerialized("json", this::serialize);
+
+    assertEquals(2, serialized.get());
+    assertEquals(ServiceUtils.MODEL_GSON.toJson(program, Program.class), current);
+    assertTrue(previous.length() > current.length());
+  }
+
+  @Test
+  void testIgnoresModificationsOfOtherPrograms() {
+    Program program = program();
+    Program other = program();
+    program.getSerialized("json", this::serialize);
+
+    ((Variable) expression(other)).setPrimed(true);
+    operation(other.getfnc("main")).replace("y", new Constant("0", 1));
+    program.getSerialized("json", this::serialize);
+
+    assertEquals(1, serialized.get());
+  }
+
+  private static Expression expression(Program program) {
+    Function main = program.getfnc("main");
+    return main.getExprs(main.getInitloc()).get(0).getValue1();
+  }
+}
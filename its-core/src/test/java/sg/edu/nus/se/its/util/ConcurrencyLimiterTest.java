@@ -0,0 +1,156 @@
+package sg.edu.nus.se.its.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the adaptation of the concurrency limit to the latencies and errors of the calls.
+ */
+public class ConcurrencyLimiterTest {
+
+  private final AtomicLong clock = new AtomicLong();
+
+  /**
+   * Makes a round of as many concurrent calls as the limit permits, each with the latency.
+   */
+  private void round(ConcurrencyLimiter limiter, long latency) throws InterruptedException {
+    round(limiter, "", latency);
+  }
+
+  /**
+   * Makes a round of calls of the endpoint, see {@link #round(ConcurrencyLimiter, long)}.
+   */
+  private void round(ConcurrencyLimiter limiter, String endpoint, long latency)
+      throws InterruptedException {
+    List<ConcurrencyLimiter.Permit> permits = new ArrayList<>();
+    for (int i = limiter.getLimit(); i > 0; i--) {
+      permits.add(limiter.acquire(endpoint));
+    }
+    clock.addAndGet(latency);
+    for (ConcurrencyLimiter.Permit permit : permits) {
+      permit.success();
+    }
+  }
+
+  @Test
+  void testGrowsWhileLatencyIsFlat() throws InterruptedException {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(2, 1, 16, clock::get);
+
+    for (int i = 0; i < 60; i++) {
+      round(limiter, 1000);
+    }
+
+    assertEquals(16, limiter.getLimit());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  void testBacksOffOnRisingLatency() throws InterruptedException {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 1, 16, clock::get);
+    round(limiter, 1000);
+    int limit = limiter.getLimit();
+
+    round(limiter, 5000);
+
+    assertTrue(limiter.getLimit() < limit);
+  }
+
+  @Test
+  void testComparesLatenciesPerEndpoint() throws InterruptedException {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 16, clock::get);
+    ConcurrencyLimiter shared = new ConcurrencyLimiter(4, 1, 16, clock::get);
+
+    for (int i = 0; i < 30; i++) {
+      round(limiter, "/parse", 1000);
+      round(limiter, "/execute/batch", 50000);
+      round(shared, 1000);
+      round(shared, 50000);
+    }
+
+    assertTrue(limiter.getLimit() > 4);
+    assertEquals(1, shared.getLimit());
+  }
+
+  @Test
+  void testHalvesOnOverload() throws InterruptedException {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(8, 2, 16, clock::get);
+
+    limiter.acquire().overload();
+    assertEquals(4, limiter.getLimit());
+    limiter.acquire().overload();
+    limiter.acquire().overload();
+
+    assertEquals(2, limiter.getLimit());
+  }
+
+  @Test
+  void testQueuesCallersBeyondLimit() throws Exception {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+    ConcurrencyLimiter.Permit first = limiter.acquire();
+    assertNull(limiter.tryAcquire());
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      CompletableFuture<ConcurrencyLimiter.Permit> second =
+          CompletableFuture.supplyAsync(() -> {
+            try {
+              return limiter.acquire();
+            } catch (InterruptedException e) {
+              throw new IllegalStateException(e);
+            }
+          }, executor);
+      while (limiter.getWaiting() == 0) {
+        Thread.sleep(1);
+      }
+      Thread.sleep(20);
+
+      first.ignore();
+      first.ignore();
+      second.get(5, TimeUnit.SECONDS).ignore();
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertEquals(0, limiter.getInFlight());
+    assertEquals(2, limiter.getQueueWaits().getCount());
+    assertTrue(limiter.getQueueWaits().getPercentile(1.0).compareTo(Duration.ofMillis(20)) >= 0);
+  }
+
+  @Test
+  void testGrantsAsyncCallersOnRelease() throws Exception {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+    CompletableFuture<ConcurrencyLimiter.Permit> first = limiter.acquireAsync();
+    CompletableFuture<ConcurrencyLimiter.Permit> cancelled = limiter.acquireAsync();
+    CompletableFuture<ConcurrencyLimiter.Permit> second = limiter.acquireAsync();
+
+    assertTrue(first.isDone());
+    assertFalse(second.isDone());
+    assertEquals(2, limiter.getWaiting());
+    cancelled.cancel(false);
+    first.get().ignore();
+
+    assertTrue(second.isDone());
+    assertEquals(1, limiter.getInFlight());
+    assertEquals(0, limiter.getWaiting());
+    second.get().ignore();
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  void testSharesLimiterOfHost() {
+    assertSame(ConcurrencyLimiter.forUrl("https://its.comp.nus.edu.sg/cs3213/parser"),
+        ConcurrencyLimiter.forUrl("https://its.comp.nus.edu.sg/cs3213/interpreter/batch"));
+  }
+}
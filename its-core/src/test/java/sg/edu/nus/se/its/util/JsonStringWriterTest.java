@@ -0,0 +1,43 @@
+package sg.edu.nus.se.its.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.google.gson.JsonParser;
+import java.io.IOException;
+import java.io.StringWriter;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the escaping of strings embedded in JSON payloads.
+ */
+public class JsonStringWriterTest {
+
+  private static String quote(String value) throws IOException {
+    StringWriter out = new StringWriter();
+    JsonStringWriter.writeQuoted(out, value);
+    return out.toString();
+  }
+
+  @Test
+  void testEscapesSpecialCharacters() throws IOException {
+    assertEquals("\"a\\\"b\\\\c\\nd\\te\\u0001\"", quote("a\"b\\c\nd\te\u0001"));
+  }
+
+  @Test
+  void testRoundTripsSourceCode() throws IOException {
+    String source = "#include <stdio.h>\r\nint main() {\n\tprintf(\"%s\\n\", \"äöü\");\b\f}\n";
+
+    assertEquals(source, JsonParser.parseString(quote(source)).getAsString());
+  }
+
+  @Test
+  void testEmbedsJsonDocuments() throws IOException {
+    String document = "{\"value\": \"line\\nbreak\"}";
+
+    String embedded = JsonParser.parseString(quote(document)).getAsString();
+
+    assertEquals(document, embedded);
+    assertEquals("line\nbreak",
+        JsonParser.parseString(embedded).getAsJsonObject().get("value").getAsString());
+  }
+}
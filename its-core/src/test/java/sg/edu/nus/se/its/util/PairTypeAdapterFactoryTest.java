@@ -0,0 +1,83 @@
+package sg.edu.nus.se.its.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.util.ArrayList;
+import org.javatuples.Pair;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.interpreter.TestPrograms;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Program;
+
+/**
+ * Tests the serialization of pairs in the program models, in the default and the lean form.
+ */
+public class PairTypeAdapterFactoryTest {
+
+  @AfterEach
+  void disableLeanTuples() {
+    ServiceUtils.setLeanTuples(false);
+  }
+
+  @Test
+  void testWritesTupleFieldsByDefault() {
+    Program program = TestPrograms.counter(5);
+
+    String json = ServiceUtils.toJson(program);
+
+    assertTrue(json.contains("valueArray"));
+    assertTrue(json.contains("valueList"));
+    assertEquals(ServiceUtils.MODEL_FORMAT, ServiceUtils.getModelFormat());
+  }
+
+  @Test
+  void testWritesOnlyValues() {
+    Program program = TestPrograms.counter(5);
+    String full = ServiceUtils.toJson(program);
+    ServiceUtils.setLeanTuples(true);
+
+    String json = ServiceUtils.toJson(program);
+    JsonObject pair = JsonParser.parseString(json).getAsJsonObject().getAsJsonObject("fncs")
+        .getAsJsonObject("main").getAsJsonObject("locexprs").getAsJsonArray("1").get(0)
+        .getAsJsonObject();
+
+    assertEquals(2, pair.size());
+    assertEquals("i", pair.get("val0").getAsString());
+    assertEquals("Constant", pair.getAsJsonObject("val1").get("tokentype").getAsString());
+    assertFalse(json.contains("valueArray"));
+    assertTrue(json.length() < full.length());
+  }
+
+  @Test
+  void testRoundTripsProgram() {
+    Program program = TestPrograms.counter(5);
+    ServiceUtils.setLeanTuples(true);
+
+    Program copy = ServiceUtils.MODEL_GSON.fromJson(
+        ServiceUtils.MODEL_GSON.toJson(program, Program.class), Program.class);
+
+    Pair<String, Expression> pair = copy.getfnc("main").getExprs(1).get(0);
+    assertEquals("i", pair.getValue(0));
+    assertTrue(pair.getValue(1) instanceof Constant);
+    assertEquals(program.getfnc("main").getExprs(1).get(0), pair);
+  }
+
+  @Test
+  void testReadsOldFormat() {
+    String json = "{\"name\": \"main\", \"rettype\": \"int\", \"params\": [{\"val0\": \"n\", "
+        + "\"val1\": \"int\", \"valueArray\": [\"n\", \"int\"], \"valueList\": [\"n\", \"int\"]}]}";
+
+    Function function = ServiceUtils.MODEL_GSON.fromJson(json, Function.class);
+
+    ArrayList<Pair<String, String>> params = function.getParams();
+    assertEquals(Pair.with("n", "int"), params.get(0));
+    assertEquals(2, params.get(0).toList().size());
+  }
+}
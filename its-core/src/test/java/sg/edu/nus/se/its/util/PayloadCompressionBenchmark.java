@@ -0,0 +1,137 @@
+package sg.edu.nus.se.its.util;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.interpreter.TestPrograms;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Measures the bytes on the wire and the call time of program payloads with the default and the
+ * lean serialization of pairs, with and without compression, against a local server that
+ * answers with the payload. Run with {@code mvn test -P benchmark}.
+ */
+@Tag("benchmark")
+public class PayloadCompressionBenchmark {
+
+  private static final int STATEMENTS = 500;
+  private static final int WARMUP_ROUNDS = 20;
+  private static final int MEASURED_ROUNDS = 50;
+
+  static {
+    // otherwise delayed acknowledgements of the split responses dominate the call time
+    System.setProperty("sun.net.httpserver.nodelay", "true");
+  }
+
+  private final AtomicLong requestBytes = new AtomicLong();
+  private final AtomicLong responseBytes = new AtomicLong();
+
+  private static Program program() {
+    Function main = new Function("main", new ArrayList<>(), "int");
+    int previous = main.addLocation(0, "init");
+    main.addExpr(previous, "x0", TestPrograms.constant("0"));
+    for (int i = 1; i < STATEMENTS; i++) {
+      int loc = main.addLocation(0, "statement " + i);
+      main.addExpr(loc, "x" + i, TestPrograms.op("+", TestPrograms.var("x" + (i - 1)),
+          TestPrograms.op("*", TestPrograms.constant(String.valueOf(i)),
+              TestPrograms.var("x" + (i - 1)))));
+      main.addLocationTrans(previous, loc, null);
+      previous = loc;
+    }
+    main.addExpr(previous, Constants.VAR_RET, TestPrograms.var("x" + (STATEMENTS - 1)));
+    main.addLocationTrans(previous, null, null);
+    return TestPrograms.program(main);
+  }
+
+  private HttpServer startServer() throws IOException {
+    HttpServer server =
+        HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/echo", exchange -> {
+      byte[] request;
+      try (InputStream body = exchange.getRequestBody()) {
+        request = body.readAllBytes();
+      }
+      requestBytes.addAndGet(request.length);
+      if ("gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+        request = new GZIPInputStream(new ByteArrayInputStream(request)).readAllBytes();
+      }
+      byte[] response = request;
+      String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+      if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+          gzip.write(response);
+        }
+        response = bytes.toByteArray();
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+      }
+      responseBytes.addAndGet(response.length);
+      exchange.sendResponseHeaders(200, response.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(response);
+      }
+    });
+    server.start();
+    return server;
+  }
+
+  private void measure(String label, String url, Gson gson, Program program, boolean compress)
+      throws IOException {
+    ServiceUtils.setRequestCompression(compress);
+    ServiceUtils.RequestWriter body = writer -> gson.toJson(program, Program.class, writer);
+    ServiceUtils.ResponseReader<Program> reader = json -> gson.fromJson(json, Program.class);
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      ServiceUtils.post(url, body, reader);
+    }
+    requestBytes.set(0);
+    responseBytes.set(0);
+
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      ServiceUtils.post(url, body, reader);
+    }
+    long nanos = System.nanoTime() - start;
+
+    System.out.printf("%-24s request %8d bytes, response %8d bytes, %7.3f ms per call%n", label,
+        requestBytes.get() / MEASURED_ROUNDS, responseBytes.get() / MEASURED_ROUNDS,
+        nanos / 1e6 / MEASURED_ROUNDS);
+  }
+
+  @Test
+  void benchmarkPayloads() throws IOException {
+    Program program = program();
+    Gson tupleFields = new GsonBuilder()
+        .registerTypeAdapter(Expression.class, new JsonSerializerWithInheritance<Expression>())
+        .create();
+    HttpServer server = startServer();
+    String url = "http://" + server.getAddress().getHostString() + ":"
+        + server.getAddress().getPort() + "/echo";
+    try {
+      measure("tuple fields", url, tupleFields, program, false);
+      ServiceUtils.setLeanTuples(true);
+      measure("lean", url, ServiceUtils.MODEL_GSON, program, false);
+      measure("lean, compressed", url, ServiceUtils.MODEL_GSON, program, true);
+    } finally {
+      ServiceUtils.setLeanTuples(false);
+      ServiceUtils.setRequestCompression(false);
+      ServiceUtils.shutdown();
+      server.stop(0);
+    }
+  }
+}
@@ -0,0 +1,226 @@
+package sg.edu.nus.se.its.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonParser;
+import com.google.gson.JsonSyntaxException;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the hedging and circuit breaking of service calls against a local server that injects
+ * faults.
+ */
+public class ResilientServiceTest {
+
+  private HttpServer server;
+  private ExecutorService executor;
+  private final AtomicInteger requests = new AtomicInteger();
+  private final AtomicBoolean slowNext = new AtomicBoolean();
+  private final AtomicBoolean failing = new AtomicBoolean();
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/service", this::handle);
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.start();
+    ServiceUtils.shutdown();
+  }
+
+  @AfterEach
+  void stopServer() {
+    ServiceUtils.shutdown();
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    int request = requests.incrementAndGet();
+    try (InputStream body = exchange.getRequestBody()) {
+      body.readAllBytes();
+    }
+    if (slowNext.getAndSet(false)) {
+      try {
+        Thread.sleep(3000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    byte[] response = ("{\"request\": " + request + "}").getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(failing.get() ? 500 : 200, response.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(response);
+    }
+  }
+
+  private String url(String path) {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+        + path;
+  }
+
+  private static int call(ResilientService service, String url) throws IOException {
+    return service.post(url, writer -> writer.write("{}"),
+        reader -> JsonParser.parseReader(reader).getAsJsonObject().get("request").getAsInt());
+  }
+
+  @Test
+  void testHedgesSlowCall() throws IOException {
+    ResilientService service = new ResilientService();
+    // keeps room for the hedged request whatever the latencies of the local calls
+    ConcurrencyLimiter.install(url("/service"), new ConcurrencyLimiter(4, 2, 4));
+    for (int i = 0; i < ResilientService.MIN_SAMPLES; i++) {
+      call(service, url("/service"));
+    }
+
+    slowNext.set(true);
+    long start = System.nanoTime();
+    int request = call(service, url("/service"));
+
+    assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(2)) < 0);
+    assertEquals(ResilientService.MIN_SAMPLES + 2, request);
+    assertEquals(1, service.getHedged());
+    assertEquals(1, service.getHedgeWins());
+  }
+
+  @Test
+  void testDoesNotHedgeWithoutLatencies() throws IOException {
+    ResilientService service = new ResilientService();
+
+    call(service, url("/service"));
+
+    assertEquals(0, service.getHedged());
+    assertEquals(1, requests.get());
+  }
+
+  @Test
+  void testOpensCircuitAfterFailures() throws Exception {
+    ResilientService service =
+        new ResilientService(new CircuitBreaker(3, Duration.ofMillis(200)));
+    failing.set(true);
+    for (int i = 0; i < 3; i++) {
+      ServiceUtils.ServiceException e = assertThrows(ServiceUtils.ServiceException.class,
+          () -> call(service, url("/service")));
+      assertEquals(500, e.getCode());
+    }
+
+    assertThrows(ResilientService.CircuitOpenException.class,
+        () -> call(service, url("/service")));
+    assertEquals(3, requests.get());
+    assertEquals(CircuitBreaker.State.OPEN, service.getCircuitBreaker().getState());
+    assertEquals(1, service.getCircuitBreaker().getRejected());
+
+    failing.set(false);
+    Thread.sleep(250);
+    assertEquals(4, call(service, url("/service")));
+    assertEquals(CircuitBreaker.State.CLOSED, service.getCircuitBreaker().getState());
+  }
+
+  @Test
+  void testOpensCircuitForUnreachableService() {
+    ResilientService service = new ResilientService(new CircuitBreaker(2, Duration.ofMinutes(1)));
+    String url = url("/service");
+    server.stop(0);
+
+    assertThrows(IOException.class, () -> call(service, url));
+    assertThrows(IOException.class, () -> call(service, url));
+
+    assertThrows(ResilientService.CircuitOpenException.class, () -> call(service, url));
+    assertFalse(service.isAvailable());
+  }
+
+  @Test
+  void testLimitsAsyncCalls() throws Exception {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(1, 1, 1);
+    ConcurrencyLimiter.install(url("/service"), limiter);
+    slowNext.set(true);
+
+    CompletableFuture<Integer> slow = callAsync(url("/service"));
+    CompletableFuture<Integer> queued = callAsync(url("/service"));
+    CompletableFuture<Integer> cancelled = callAsync(url("/service"));
+    cancelled.cancel(true);
+
+    assertEquals(1, slow.get(5, TimeUnit.SECONDS));
+    assertEquals(2, queued.get(5, TimeUnit.SECONDS));
+    assertEquals(2, requests.get());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  private static CompletableFuture<Integer> callAsync(String url) {
+    return ResilientService.postAsync(url, writer -> writer.write("{}"), null,
+        reader -> JsonParser.parseReader(reader).getAsJsonObject().get("request").getAsInt());
+  }
+
+  @Test
+  void testIgnoresClientErrors() {
+    ResilientService service = new ResilientService(new CircuitBreaker(2, Duration.ofMinutes(1)));
+
+    for (int i = 0; i < 4; i++) {
+      ServiceUtils.ServiceException e = assertThrows(ServiceUtils.ServiceException.class,
+          () -> call(service, url("/missing")));
+      assertEquals(404, e.getCode());
+    }
+
+    assertEquals(CircuitBreaker.State.CLOSED, service.getCircuitBreaker().getState());
+  }
+
+  @Test
+  void testCountsDecoderFailures() {
+    ResilientService service = new ResilientService(new CircuitBreaker(2, Duration.ofMinutes(1)));
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(4, 1, 4);
+    ConcurrencyLimiter.install(url("/service"), limiter);
+
+    for (int i = 0; i < 2; i++) {
+      assertThrows(JsonSyntaxException.class, () -> service.post(url("/service"),
+          writer -> writer.write("{}"), reader -> {
+            throw new JsonSyntaxException("unexpected response");
+          }));
+    }
+
+    assertThrows(ResilientService.CircuitOpenException.class,
+        () -> call(service, url("/service")));
+    assertEquals(CircuitBreaker.State.OPEN, service.getCircuitBreaker().getState());
+    assertEquals(0, limiter.getInFlight());
+  }
+
+  @Test
+  void testEndpointsShareTheCircuitBreaker() throws IOException {
+    String url = url("/service");
+    ResilientService service = ResilientService.forUrl(url);
+    ResilientService batch = ResilientService.forEndpoint(url, "/batch");
+
+    call(batch, url);
+
+    assertSame(service.getCircuitBreaker(), batch.getCircuitBreaker());
+    assertSame(batch, ResilientService.forEndpoint(url, "/batch"));
+    assertEquals(1, batch.getLatencies().getCount());
+    assertEquals(0, service.getLatencies().getCount());
+
+    ResilientService.install(url, new ResilientService());
+    ResilientService replaced = ResilientService.forEndpoint(url, "/batch");
+    assertNotSame(batch, replaced);
+    assertSame(ResilientService.forUrl(url).getCircuitBreaker(), replaced.getCircuitBreaker());
+  }
+}
@@ -0,0 +1,252 @@
+package sg.edu.nus.se.its.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import okhttp3.OkHttpClient;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the calls of the services against a local HTTP server.
+ */
+public class ServiceUtilsTest {
+
+  private HttpServer server;
+  private ExecutorService executor;
+  private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+  private final List<Integer> requestBytes = new CopyOnWriteArrayList<>();
+  private volatile boolean rejectCompression;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/echo", exchange -> {
+      clientPorts.add(exchange.getRemoteAddress().getPort());
+      byte[] response;
+      try (InputStream body = exchange.getRequestBody()) {
+        response = body.readAllBytes();
+      }
+      exchange.sendResponseHeaders(200, response.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(response);
+      }
+    });
+    server.createContext("/slow", exchange -> {
+      try {
+        Thread.sleep(2000);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      exchange.sendResponseHeaders(200, -1);
+      exchange.close();
+    });
+    server.createContext("/gzip", exchange -> {
+      byte[] request;
+      try (InputStream body = exchange.getRequestBody()) {
+        request = body.readAllBytes();
+      }
+      boolean compressed = "gzip".equals(exchange.getRequestHeaders().getFirst("Content-Encoding"));
+      if (compressed && rejectCompression) {
+        exchange.sendResponseHeaders(415, -1);
+        exchange.close();
+        return;
+      }
+      requestBytes.add(request.length);
+      if (compressed) {
+        request = new GZIPInputStream(new ByteArrayInputStream(request)).readAllBytes();
+      }
+      byte[] response = request;
+      String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+      if (acceptEncoding != null && acceptEncoding.contains("gzip")) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(bytes)) {
+          gzip.write(response);
+        }
+        response = bytes.toByteArray();
+        exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+      }
+      exchange.sendResponseHeaders(200, response.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(response);
+      }
+    });
+    executor = Executors.newCachedThreadPool();
+    server.setExecutor(executor);
+    server.start();
+    ServiceUtils.shutdown();
+  }
+
+  @AfterEach
+  void stopServer() {
+    ServiceUtils.setRequestCompression(false);
+    ServiceUtils.shutdown();
+    server.stop(0);
+    executor.shutdownNow();
+  }
+
+  private String url() {
+    return url("/echo");
+  }
+
+  private String url(String path) {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+        + path;
+  }
+
+  @Test
+  void testReusesConnections() throws IOException {
+    for (int i = 0; i < 5; i++) {
+      assertEquals("{\"call\": " + i + "}", ServiceUtils.post(url(), "{\"call\": " + i + "}"));
+    }
+
+    assertEquals(1, clientPorts.size());
+    assertEquals(1, ServiceUtils.getClient().connectionPool().connectionCount());
+  }
+
+  @Test
+  void testSendsUnicodePayloads() throws IOException {
+    String json = "{\"source_code\": \"print('äöü')\"}";
+
+    String response = ServiceUtils.post(url(), json);
+
+    assertEquals(json, response);
+    assertEquals(json.getBytes(StandardCharsets.UTF_8).length,
+        response.getBytes(StandardCharsets.UTF_8).length);
+  }
+
+  @Test
+  void testShutdownCreatesNewClient() throws IOException {
+    OkHttpClient first = ServiceUtils.getClient();
+    ServiceUtils.post(url(), "{}");
+
+    ServiceUtils.shutdown();
+
+    OkHttpClient second = ServiceUtils.getClient();
+    assertNotSame(first, second);
+    assertSame(second, ServiceUtils.getClient());
+    assertEquals(0, first.connectionPool().connectionCount());
+    assertEquals("{}", ServiceUtils.post(url(), "{}"));
+  }
+
+  @Test
+  void testUsesConfiguredClient() throws IOException {
+    OkHttpClient custom = ServiceUtils.newClientBuilder().build();
+
+    ServiceUtils.setClient(custom);
+    ServiceUtils.post(url(), "{}");
+
+    assertSame(custom, ServiceUtils.getClient());
+    assertEquals(1, custom.connectionPool().connectionCount());
+  }
+
+  @Test
+  void testStreamsPayloads() throws IOException {
+    String response = ServiceUtils.post(url(), writer -> {
+      writer.write("{\"source_code\": ");
+      JsonStringWriter.writeQuoted(writer, "print(\"äöü\")\n");
+      writer.write("}");
+    }, reader -> JsonParser.parseReader(reader).getAsJsonObject()
+        .get("source_code").getAsString());
+
+    assertEquals("print(\"äöü\")\n", response);
+  }
+
+  @Test
+  void testSignalsUnsuccessfulStatusCodes() {
+    ServiceUtils.ServiceException e = assertThrows(ServiceUtils.ServiceException.class,
+        () -> ServiceUtils.post(url("/missing"), writer -> writer.write("{}"),
+            reader -> reader.read()));
+
+    assertEquals(404, e.getCode());
+  }
+
+  @Test
+  void testKeepsManyAsyncCallsInFlight() {
+    List<CompletableFuture<Integer>> futures = new ArrayList<>();
+    for (int i = 0; i < 20; i++) {
+      futures.add(ServiceUtils.postAsync(url(), String.valueOf(i), null, Integer::valueOf));
+    }
+
+    for (int i = 0; i < 20; i++) {
+      assertEquals(i, futures.get(i).join());
+    }
+  }
+
+  @Test
+  void testFailsAsyncCallAfterTimeout() {
+    CompletableFuture<String> future =
+        ServiceUtils.postAsync(url("/slow"), "{}", Duration.ofMillis(100));
+
+    ExecutionException e = assertThrows(ExecutionException.class, future::get);
+    assertTrue(e.getCause() instanceof IOException, e.getCause().toString());
+  }
+
+  @Test
+  void testCancelsAsyncCall() throws InterruptedException {
+    CompletableFuture<String> future = ServiceUtils.postAsync(url("/slow"), "{}", null);
+
+    assertTrue(future.cancel(true));
+
+    assertTrue(future.isCancelled());
+    // the cancelled call releases its slot of the dispatcher
+    long deadline = System.currentTimeMillis() + 1000;
+    while (ServiceUtils.getClient().dispatcher().runningCallsCount() > 0
+        && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertEquals(0, ServiceUtils.getClient().dispatcher().runningCallsCount());
+  }
+
+  @Test
+  void testCompressesRequests() throws IOException {
+    String json = "{\"source_code\": \"" + "int a = 0;\\n".repeat(200) + "\"}";
+    ServiceUtils.setRequestCompression(true);
+
+    String response = ServiceUtils.post(url("/gzip"), json);
+    String streamed = ServiceUtils.post(url("/gzip"), writer -> writer.write(json),
+        reader -> new BufferedReader(reader).readLine());
+
+    assertEquals(json, response);
+    assertEquals(json, streamed);
+    assertTrue(requestBytes.get(0) < json.length() / 10, requestBytes.toString());
+  }
+
+  @Test
+  void testSendsUncompressedRequestsToRejectingHost() throws IOException {
+    rejectCompression = true;
+    ServiceUtils.setRequestCompression(true);
+
+    assertEquals("{\"call\": 1}", ServiceUtils.post(url("/gzip"), "{\"call\": 1}"));
+    assertEquals("{\"call\": 2}", ServiceUtils.post(url("/gzip"), "{\"call\": 2}"));
+
+    assertEquals(List.of(11, 11), requestBytes);
+  }
+}
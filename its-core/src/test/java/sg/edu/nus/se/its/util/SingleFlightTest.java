@@ -0,0 +1,124 @@
+package sg.edu.nus.se.its.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the coalescing of concurrent identical calls.
+ */
+public class SingleFlightTest {
+
+  private final ExecutorService executor = Executors.newCachedThreadPool();
+
+  @AfterEach
+  void stopExecutor() {
+    executor.shutdownNow();
+  }
+
+  /**
+   * Starts callers of the same key while the first call is blocked until all have arrived.
+   */
+  private <V> List<Future<V>> callConcurrently(SingleFlight<String, V> flight, int callers,
+      SingleFlight.Call<V, IOException> call) throws InterruptedException {
+    CountDownLatch release = new CountDownLatch(1);
+    List<Future<V>> results = new ArrayList<>();
+    for (int i = 0; i < callers; i++) {
+      results.add(executor.submit(() -> flight.execute("key", () -> {
+        release.await();
+        return call.call();
+      }, Function.identity())));
+    }
+    while (flight.getCalls() + flight.getDeduplicated() < callers) {
+      Thread.sleep(1);
+    }
+    release.countDown();
+    return results;
+  }
+
+  @Test
+  void testSharesOneCall() throws Exception {
+    SingleFlight<String, Object> flight = new SingleFlight<>();
+    AtomicInteger calls = new AtomicInteger();
+
+    List<Future<Object>> results = callConcurrently(flight, 8, () -> {
+      calls.incrementAndGet();
+      return new Object();
+    });
+
+    Object result = results.get(0).get();
+    for (Future<Object> other : results) {
+      assertSame(result, other.get());
+    }
+    assertEquals(1, calls.get());
+    assertEquals(1, flight.getCalls());
+    assertEquals(7, flight.getDeduplicated());
+    assertEquals(0, flight.getInFlight());
+  }
+
+  @Test
+  void testSharesException() throws Exception {
+    SingleFlight<String, Object> flight = new SingleFlight<>();
+
+    List<Future<Object>> results = callConcurrently(flight, 4, () -> {
+      throw new IOException("unreachable");
+    });
+
+    for (Future<Object> result : results) {
+      ExecutionException e = assertThrows(ExecutionException.class, result::get);
+      assertEquals(IOException.class, e.getCause().getClass());
+    }
+    assertEquals(1, flight.getCalls());
+  }
+
+  @Test
+  void testCallsAgainAfterCompletion() throws IOException {
+    SingleFlight<String, Integer> flight = new SingleFlight<>();
+    AtomicInteger calls = new AtomicInteger();
+
+    flight.execute("key", calls::incrementAndGet, Function.identity());
+    int second = flight.execute("key", calls::incrementAndGet, Function.identity());
+
+    assertEquals(2, second);
+    assertEquals(0, flight.getDeduplicated());
+  }
+
+  @Test
+  void testCopiesResultForWaitingCallers() throws Exception {
+    SingleFlight<String, List<String>> flight = new SingleFlight<>();
+    CountDownLatch release = new CountDownLatch(1);
+    List<String> original = new ArrayList<>(List.of("a"));
+
+    Future<List<String>> first = executor.submit(() -> flight.execute("key", () -> {
+      release.await();
+      return original;
+    }, ArrayList::new));
+    while (flight.getInFlight() == 0) {
+      Thread.sleep(1);
+    }
+    Future<List<String>> second = executor.submit(() -> flight.execute("key", () -> original,
+        ArrayList::new));
+    while (flight.getDeduplicated() == 0) {
+      Thread.sleep(1);
+    }
+    release.countDown();
+
+    assertSame(original, first.get());
+    assertEquals(original, second.get());
+    assertNotSame(original, second.get());
+  }
+}
@@ -1,7 +1,5 @@
 package sg.edu.nus.se.its.errorlocalizer.utils;
 
-import static sg.edu.nus.se.its.util.constants.Constants.FUNCTION_CALL;
-
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -10,49 +8,18 @@ import java.util.stream.Stream;
 import sg.edu.nus.se.its.alignment.VariableMapping;
 import sg.edu.nus.se.its.model.Expression;
 import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Opcode;
 import sg.edu.nus.se.its.model.Operation;
 import sg.edu.nus.se.its.model.Program;
 import sg.edu.nus.se.its.model.Variable;
 import sg.edu.nus.se.its.util.constants.Constants;
 
 /**
- * The utils for expressions used by the error localizer.
+ * The utils for expressions used by the error localizer. The symmetric operators are looked up
+ * in the {@link Opcode} registry.
  */
 public class ExpressionUtil {
   private static final String MSG_NOT_BINARY_OPERATION = "Only binary operations can be reversed.";
-  private static Map<String, String> symmetricOperators = new HashMap<>();
-
-  static {
-    // The operators in c programs and pythons programs are parsed differently.
-    // This section includes the operators of the C programs.
-    symmetricOperators.put("+", "+");
-    symmetricOperators.put("*", "*");
-    symmetricOperators.put("&&", "&&");
-    symmetricOperators.put("||", "||");
-    symmetricOperators.put("==", "==");
-    symmetricOperators.put("!=", "!=");
-    symmetricOperators.put("<", ">");
-    symmetricOperators.put(">", "<");
-    symmetricOperators.put(">=", "<=");
-    symmetricOperators.put("<=", ">=");
-
-    // This section includes the operators of the python programs.
-    symmetricOperators.put("And", "And");
-    symmetricOperators.put("Or", "Or");
-    symmetricOperators.put("Add", "Add");
-    symmetricOperators.put("Mult", "Mult");
-    symmetricOperators.put("BitOr", "BitOr");
-    symmetricOperators.put("BitAnd", "BitAnd");
-    symmetricOperators.put("BitXor", "BitXor");
-    symmetricOperators.put("Eq", "Eq");
-    symmetricOperators.put("NotEq", "NotEq");
-    symmetricOperators.put("Lt", "Gt");
-    symmetricOperators.put("LtE", "GtE");
-    symmetricOperators.put("Gt", "Lt");
-    symmetricOperators.put("GtE", "LtE");
-    symmetricOperators.put("Is", "Is");
-    symmetricOperators.put("IsNot", "IsNot");
-  }
 
   /**
    * Returned the non-void function being called
@@ -94,7 +61,7 @@ public class ExpressionUtil {
    * @return if the given operation calls another non-void function
    */
   public static boolean isFuncCall(Operation operation) {
-    return operation.getName().equals(FUNCTION_CALL);
+    return operation.getOpcode() == Opcode.FUNC_CALL;
   }
 
   /**
@@ -104,8 +71,7 @@ public class ExpressionUtil {
    * @return if the order of arguments in the given operation matters
    */
   public static boolean areArgsOrdered(Operation operation) {
-    return getSymmetricBinaryOperationName(operation) == null
-        || !(operation.getName().equals(getSymmetricBinaryOperationName(operation)));
+    return !operation.getOpcode().isCommutative();
   }
 
   /**
@@ -115,7 +81,7 @@ public class ExpressionUtil {
    * @return if the order of arguments in the given operation matters
    */
   public static boolean isCommutative(Operation operation) {
-    return getSymmetricBinaryOperationName(operation) != null;
+    return operation.getOpcode().getSymmetric() != null;
   }
 
 
@@ -128,7 +94,8 @@ public class ExpressionUtil {
    * @return the boolean
    */
   public static String getSymmetricBinaryOperationName(Operation operation) {
-    return symmetricOperators.get(operation.getName());
+    Opcode symmetric = operation.getOpcode().getSymmetric();
+    return symmetric == null ? null : symmetric.getName();
   }
 
   /**
@@ -0,0 +1,324 @@
+package sg.edu.nus.se.its.interpreter;
+
+import com.google.gson.internal.LinkedTreeMap;
+import com.google.gson.stream.JsonReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.util.ContentStore;
+import sg.edu.nus.se.its.util.ServiceUtils;
+
+/**
+ * Interpreter that keeps the traces produced by another interpreter, e.g., of the
+ * {@link InterpreterServiceImpl}, so that reference programs executed for every submission and
+ * unchanged resubmissions are executed once per input. Traces are cached by the hash of the
+ * serialized program, the entry function and the input.
+ *
+ * <p>Recently used traces are kept in memory up to an estimated number of bytes. Optionally,
+ * traces are additionally kept in a {@link ContentStore} on disk as compressed JSON. Only traces
+ * whose values are exactly restored from JSON, e.g., the traces of the interpreter service, are
+ * stored on disk; traces of local interpreters with their own value types are kept in memory
+ * only. Every execution returns a new Trace object, which shares the memory of the trace entries
+ * with the cache, so the memories must not be modified.
+ */
+public class CachingInterpreter implements Interpreter {
+
+  /**
+   * Default limit of the traces in memory in estimated bytes.
+   */
+  public static final long DEFAULT_MAX_MEMORY_BYTES = 64L * 1024 * 1024;
+
+  /**
+   * Default limit of the store on disk in bytes.
+   */
+  public static final long DEFAULT_MAX_STORED_BYTES = 256L * 1024 * 1024;
+
+  // part of the hash, so that a change of the trace model invalidates the stored traces
+  private static final String FORMAT_VERSION = "1";
+  private static final String SUFFIX = ".json.gz";
+
+  private final Interpreter interpreter;
+  private final String entryFunctionName;
+  private final long maxMemoryBytes;
+  private final ContentStore store;
+
+  // traces by hash, in access order
+  private final LinkedHashMap<String, Cached> memory = new LinkedHashMap<>(16, 0.75f, true);
+  private long memoryBytes;
+
+  private long hits;
+  private long memoryHits;
+  private long misses;
+  private long bytesSaved;
+
+  private static final class Cached {
+    private final Trace trace;
+    private final long size;
+
+    private Cached(Trace trace, long size) {
+      this.trace = trace;
+      this.size = size;
+    }
+  }
+
+  /**
+   * Initializes the cache in memory with the default limit.
+   *
+   * @param interpreter - the interpreter for the executions that are not in the cache
+   * @param entryFunctionName - the name of the entry function of the interpreter
+   */
+  public CachingInterpreter(Interpreter interpreter, String entryFunctionName) {
+    this.interpreter = interpreter;
+    this.entryFunctionName = entryFunctionName;
+    this.maxMemoryBytes = DEFAULT_MAX_MEMORY_BYTES;
+    this.store = null;
+  }
+
+  /**
+   * Initializes the cache in memory and on disk. Traces stored in the directory by earlier runs
+   * are reused.
+   *
+   * @param interpreter - the interpreter for the executions that are not in the cache
+   * @param entryFunctionName - the name of the entry function of the interpreter
+   * @param maxMemoryBytes - the limit of the traces in memory in estimated bytes
+   * @param directory - the directory of the store, or null to keep the traces in memory only
+   * @param maxStoredBytes - the limit of the store on disk in bytes
+   * @throws IOException - if the directory cannot be created or read
+   */
+  public CachingInterpreter(Interpreter interpreter, String entryFunctionName,
+      long maxMemoryBytes, Path directory, long maxStoredBytes) throws IOException {
+    this.interpreter = interpreter;
+    this.entryFunctionName = entryFunctionName;
+    this.maxMemoryBytes = maxMemoryBytes;
+    this.store = directory == null ? null : new ContentStore(directory, SUFFIX, maxStoredBytes);
+  }
+
+  @Override
+  public Trace executeProgram(Program program) {
+    return execute(program, null);
+  }
+
+  @Override
+  public Trace executeProgram(Program program, Input input) {
+    return execute(program, input);
+  }
+
+  private Trace execute(Program program, Input input) {
+    String hash = ExecutionHash.of(program, input).update(entryFunctionName)
+        .update(FORMAT_VERSION).toHex();
+
+    Trace cached = lookup(hash);
+    if (cached != null) {
+      return cached.copy();
+    }
+
+    Trace trace = input == null ? interpreter.executeProgram(program)
+        : interpreter.executeProgram(program, input);
+    store(hash, trace.copy());
+    return trace;
+  }
+
+  /**
+   * Returns the cached trace with the given hash, or null if it is not in the cache.
+   */
+  private synchronized Trace lookup(String hash) {
+    Cached cached = memory.get(hash);
+    if (cached != null) {
+      hits++;
+      memoryHits++;
+      bytesSaved += cached.size;
+      if (store != null) {
+        // keeps the stored file from being evicted
+        store.touch(hash);
+      }
+      return cached.trace;
+    }
+
+    Trace trace = null;
+    if (store != null) {
+      try {
+        byte[] stored = store.get(hash);
+        trace = stored == null ? null : decode(stored);
+      } catch (IOException e) {
+        // an unreadable file counts as a miss, the trace is produced again
+        trace = null;
+      }
+    }
+
+    if (trace == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    long size = estimate(trace);
+    bytesSaved += size;
+    remember(hash, trace, size);
+    return trace;
+  }
+
+  private synchronized void store(String hash, Trace trace) {
+    remember(hash, trace, estimate(trace));
+    if (store != null && isRestoredFromJson(trace)) {
+      try {
+        store.put(hash, encode(trace));
+      } catch (IOException e) {
+        // the trace stays in memory, the store is only an additional tier
+      }
+    }
+  }
+
+  private void remember(String hash, Trace trace, long size) {
+    if (size > maxMemoryBytes) {
+      return;
+    }
+    Cached previous = memory.put(hash, new Cached(trace, size));
+    if (previous != null) {
+      memoryBytes -= previous.size;
+    }
+    memoryBytes += size;
+    Iterator<Cached> eldest = memory.values().iterator();
+    while (memoryBytes > maxMemoryBytes) {
+      memoryBytes -= eldest.next().size;
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Returns the estimated heap size of the trace.
+   */
+  static long estimate(Trace trace) {
+    long size = HeapSizeEstimator.OBJECT_HEADER;
+    for (TraceEntry entry : trace) {
+      size += HeapSizeEstimator.TRACE_ENTRY + HeapSizeEstimator.estimate(entry.getMem());
+    }
+    return size;
+  }
+
+  /**
+   * Returns whether the values of the trace are exactly restored from their JSON, i.e., are
+   * strings, finite doubles, booleans, lists and maps of such values as decoded by Gson.
+   */
+  static boolean isRestoredFromJson(Trace trace) {
+    for (TraceEntry entry : trace) {
+      if (entry.getMem() == null || !isRestoredFromJson(entry.getMem().values())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isRestoredFromJson(Iterable<?> values) {
+    for (Object value : values) {
+      if (!isRestoredFromJson(value)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isRestoredFromJson(Object value) {
+    if (value == null || value instanceof String || value instanceof Boolean) {
+      return true;
+    }
+    if (value instanceof Double) {
+      return Double.isFinite((Double) value);
+    }
+    if (value.getClass() == ArrayList.class) {
+      return isRestoredFromJson((List<?>) value);
+    }
+    if (value.getClass() == LinkedTreeMap.class) {
+      for (Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+        if (!(entry.getKey() instanceof String) || !isRestoredFromJson(entry.getValue())) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return false;
+  }
+
+  private static byte[] encode(Trace trace) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(bytes),
+        StandardCharsets.UTF_8)) {
+      ServiceUtils.MODEL_GSON.toJson(trace, Trace.class, writer);
+    }
+    return bytes.toByteArray();
+  }
+
+  private static Trace decode(byte[] bytes) throws IOException {
+    try (Reader reader = new InputStreamReader(
+        new GZIPInputStream(new ByteArrayInputStream(bytes)), StandardCharsets.UTF_8)) {
+      return ServiceUtils.MODEL_GSON.fromJson(new JsonReader(reader), Trace.class);
+    } catch (RuntimeException e) {
+      throw new IOException("Malformed stored trace", e);
+    }
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMemoryHits() {
+    return memoryHits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  /**
+   * Returns the ratio of the executions answered from the cache.
+   */
+  public synchronized double getHitRatio() {
+    long executions = hits + misses;
+    return executions == 0 ? 0 : (double) hits / executions;
+  }
+
+  /**
+   * Returns the estimated bytes of the traces answered from the cache, which the interpreter did
+   * not need to produce or transfer.
+   */
+  public synchronized long getBytesSaved() {
+    return bytesSaved;
+  }
+
+  /**
+   * Returns the estimated bytes of the traces in memory.
+   */
+  public synchronized long getMemoryBytes() {
+    return memoryBytes;
+  }
+
+  public long getStoredBytes() {
+    return store == null ? 0 : store.getStoredBytes();
+  }
+
+  /**
+   * Removes all traces from the cache.
+   *
+   * @throws IOException - if a stored trace cannot be deleted
+   */
+  public synchronized void clear() throws IOException {
+    memory.clear();
+    memoryBytes = 0;
+    if (store != null) {
+      store.clear();
+    }
+  }
+}
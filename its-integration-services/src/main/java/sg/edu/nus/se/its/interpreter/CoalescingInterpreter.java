@@ -0,0 +1,52 @@
+package sg.edu.nus.se.its.interpreter;
+
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.util.SingleFlight;
+
+/**
+ * Interpreter that lets concurrent executions of the same program with the same input share one
+ * call of another interpreter, e.g., of the {@link InterpreterServiceImpl}. Executions are
+ * identical if the serialized programs and the inputs are, so equal programs parsed from
+ * different submissions are coalesced as well. The callers that share a call receive copies of
+ * the trace, see {@link Trace#copy()}, so that each caller checks its own entries.
+ */
+public class CoalescingInterpreter implements Interpreter {
+
+  private final Interpreter interpreter;
+  private final SingleFlight<String, Trace> flights = new SingleFlight<>();
+
+  public CoalescingInterpreter(Interpreter interpreter) {
+    this.interpreter = interpreter;
+  }
+
+  @Override
+  public Trace executeProgram(Program program) {
+    return flights.execute(key(program, null), () -> interpreter.executeProgram(program),
+        Trace::copy);
+  }
+
+  @Override
+  public Trace executeProgram(Program program, Input input) {
+    return flights.execute(key(program, input), () -> interpreter.executeProgram(program, input),
+        Trace::copy);
+  }
+
+  private static String key(Program program, Input input) {
+    return ExecutionHash.of(program, input).toHex();
+  }
+
+  /**
+   * Returns the number of calls of the interpreter.
+   */
+  public long getCalls() {
+    return flights.getCalls();
+  }
+
+  /**
+   * Returns the number of executions that shared the call of a concurrent execution.
+   */
+  public long getDeduplicated() {
+    return flights.getDeduplicated();
+  }
+}
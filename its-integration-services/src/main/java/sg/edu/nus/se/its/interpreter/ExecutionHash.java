@@ -0,0 +1,45 @@
+package sg.edu.nus.se.its.interpreter;
+
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.util.ContentHash;
+import sg.edu.nus.se.its.util.ServiceUtils;
+
+/**
+ * Hash of an execution, i.e., of a program and an input. Programs are hashed in their serialized
+ * form, so equal programs parsed from different submissions have the same hash. The serialized
+ * form is kept with the program, so repeated executions of a program serialize it once.
+ */
+final class ExecutionHash {
+
+  private ExecutionHash() {}
+
+  /**
+   * Returns the hash of the program and the input, to which further parts of a key can be added.
+   *
+   * @param program - the executed program
+   * @param input - the input of the execution, or null
+   * @return the hash
+   */
+  static ContentHash of(Program program, Input input) {
+    ContentHash hash = new ContentHash().update(ServiceUtils.toJson(program));
+    if (input == null) {
+      return hash.update((byte) 0);
+    }
+    hash.update((byte) 1);
+    update(hash, input.getInputs());
+    update(hash, input.getArgs());
+    return hash;
+  }
+
+  private static void update(ContentHash hash, String[] values) {
+    if (values == null) {
+      hash.update((byte) 0);
+      return;
+    }
+    hash.update((byte) 1).update(String.valueOf(values.length));
+    for (String value : values) {
+      hash.update(value);
+    }
+  }
+}
@@ -1,16 +1,31 @@
 package sg.edu.nus.se.its.interpreter;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
 import java.io.IOException;
-import sg.edu.nus.se.its.model.Expression;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import sg.edu.nus.se.its.model.Input;
 import sg.edu.nus.se.its.model.Program;
-import sg.edu.nus.se.its.util.JsonSerializerWithInheritance;
+import sg.edu.nus.se.its.util.JsonStringWriter;
+import sg.edu.nus.se.its.util.ResilientService;
 import sg.edu.nus.se.its.util.ServiceUtils;
 
 /**
- * Helper class to access the current Interpreter implementation via the ITS services.
+ * Helper class to access the current Interpreter implementation via the ITS services. Programs
+ * are executed on several inputs with one request to the batch endpoint of the service, which
+ * receives the program once together with the list of inputs and answers with the list of
+ * traces. Services without a batch endpoint are called once per input; the missing endpoint is
+ * remembered per URL, so that other instances do not send the program to it again. Slow calls
+ * are hedged and an unavailable service is circuit-broken, see {@link ResilientService}.
  */
 public class InterpreterServiceImpl implements Interpreter {
 
@@ -18,12 +33,31 @@ public class InterpreterServiceImpl implements Interpreter {
 
   public static final String URL = "https://its.comp.nus.edu.sg/cs3213/interpreter";
 
-  private static final String ENDPOINT_NOT_FOUND = "{\"detail\":\"Not Found\"}";
-  private static final String INTERNAL_SERVER_ERROR = "Internal Server Error";
+  /**
+   * Path of the batch endpoint, relative to the URL of the interpreter service.
+   */
+  public static final String BATCH_PATH = "/batch";
+
+  /**
+   * Default maximum number of inputs sent with one batch request.
+   */
+  public static final int DEFAULT_BATCH_SIZE = 32;
+
+  private static final int HTTP_NOT_FOUND = 404;
+  private static final int HTTP_INTERNAL_SERVER_ERROR = 500;
+
+  // the program model escaped as JSON string, kept with the program, see Program#getSerialized
+  private static final String ESCAPED_FORMAT_PREFIX = "escaped-";
+
+  // URLs of services without a batch endpoint, shared as instances are created for each use
+  private static final Set<String> URLS_WITHOUT_BATCH = ConcurrentHashMap.newKeySet();
 
 
   String languageIdentifier;
   String entryFunctionName;
+  private final String url;
+  private int batchSize = DEFAULT_BATCH_SIZE;
+  private Interpreter fallback;
 
   /**
    * Initializes the Service implementation for the interpreter.
@@ -32,6 +66,18 @@ public class InterpreterServiceImpl implements Interpreter {
    * @param entryFunctionName - String defining the name of the entry function
    */
   public InterpreterServiceImpl(String fileExtension, String entryFunctionName) {
+    this(fileExtension, entryFunctionName, URL);
+  }
+
+  /**
+   * Initializes the Service implementation for the interpreter at the given URL, e.g., of a
+   * local service.
+   *
+   * @param fileExtension - String defining the language ("c" or "py")
+   * @param entryFunctionName - String defining the name of the entry function
+   * @param url - the URL of the interpreter service
+   */
+  public InterpreterServiceImpl(String fileExtension, String entryFunctionName, String url) {
     if (fileExtension.equals("c")) {
       this.languageIdentifier = "c";
     } else if (fileExtension.equals("py")) {
@@ -41,10 +87,33 @@ public class InterpreterServiceImpl implements Interpreter {
     }
 
     this.entryFunctionName = entryFunctionName;
+    this.url = url;
+  }
+
+  /**
+   * Sets the maximum number of inputs sent with one batch request. Larger batches are split.
+   *
+   * @param batchSize - maximum number of inputs per request
+   */
+  public void setBatchSize(int batchSize) {
+    if (batchSize < 1) {
+      throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+    }
+    this.batchSize = batchSize;
+  }
+
+  /**
+   * Sets the interpreter that executes the programs while the service is unavailable, i.e., the
+   * circuit of the service is open after repeated failures, see {@link ResilientService}.
+   *
+   * @param fallback - a local interpreter, or null to fail while the service is unavailable
+   */
+  public void setFallback(Interpreter fallback) {
+    this.fallback = fallback;
   }
 
   public Trace executeProgram(Program program) {
-    return this.executeProgram(program, null);
+    return this.executeProgram(program, (Input) null);
   }
 
   /**
@@ -55,114 +124,225 @@ public class InterpreterServiceImpl implements Interpreter {
    * @return execution trace
    */
   public Trace executeProgram(Program program, Input input) {
-    String jsonPayload = null;
+    return executeProgram(program, Collections.singletonList(input)).get(0);
+  }
 
+  /**
+   * Executes a program with each of the given inputs and produces the execution traces. The
+   * program is sent once per batch of inputs.
+   *
+   * @param program -- Program object
+   * @param inputs -- program's inputs, an input can be null
+   * @return execution traces, in the order of the inputs
+   */
+  public List<Trace> executeProgram(Program program, List<Input> inputs) {
+    List<Trace> traces = new ArrayList<>();
+    for (int start = 0; start < inputs.size(); start += batchSize) {
+      List<Input> batch = inputs.subList(start, Math.min(inputs.size(), start + batchSize));
+      List<Trace> batchTraces = URLS_WITHOUT_BATCH.contains(url) ? null
+          : executeBatch(program, batch);
+      if (batchTraces == null) {
+        for (Input input : batch) {
+          traces.add(executeSingle(program, input));
+        }
+      } else {
+        traces.addAll(batchTraces);
+      }
+    }
+    return traces;
+  }
+
+  /**
+   * Executes a batch of inputs with one request.
+   *
+   * @return the traces, or null if the service has no batch endpoint
+   */
+  private List<Trace> executeBatch(Program program, List<Input> batch) {
+    List<Trace> traces;
     try {
-      jsonPayload = constructJsonRequest(program, input);
+      traces = ResilientService.forEndpoint(url, BATCH_PATH).post(url + BATCH_PATH,
+          writer -> writeJsonBatchRequest(writer, program, batch), this::fromJsonBatch);
+    } catch (ResilientService.CircuitOpenException e) {
+      return executeFallback(program, batch, e);
+    } catch (ServiceUtils.ServiceException e) {
+      if (e.getCode() == HTTP_NOT_FOUND) {
+        URLS_WITHOUT_BATCH.add(url);
+        return null;
+      }
+      throw serviceError(e, url + BATCH_PATH);
     } catch (IOException e) {
-      throw new RuntimeException("Unexpected exception during json payload construction!", e);
+      throw serviceError(e, url + BATCH_PATH);
+    }
+
+    if (traces.size() != batch.size()) {
+      throw new RuntimeException("Expected " + batch.size() + " traces from URL=" + url
+          + BATCH_PATH);
     }
 
     if (DEBUG) {
-      System.out.println("jsonPayload:");
-      System.out.println(jsonPayload);
+      System.out.println("traces:");
+      System.out.println(traces);
     }
 
-    String response;
+    return traces;
+  }
+
+  private Trace executeSingle(Program program, Input input) {
+    Trace trace;
     try {
-      response = ServiceUtils.post(URL, jsonPayload);
+      trace = ResilientService.forUrl(url).post(url,
+          writer -> writeJsonRequest(writer, program, input), this::fromJson);
+    } catch (ResilientService.CircuitOpenException e) {
+      return executeFallback(program, Collections.singletonList(input), e).get(0);
     } catch (IOException e) {
-      throw new RuntimeException("Unexpected exception during ITS interpreter service call!", e);
+      throw serviceError(e, url);
     }
 
     if (DEBUG) {
-      System.out.println("response:");
-      System.out.println(response);
+      System.out.println("trace:");
+      System.out.println(trace);
     }
 
-    if (response.equals(ENDPOINT_NOT_FOUND)) {
-      throw new RuntimeException("Endpoint not found! URL=" + URL);
+    return trace;
+  }
+
+  private List<Trace> executeFallback(Program program, List<Input> inputs,
+      ResilientService.CircuitOpenException e) {
+    if (fallback == null) {
+      throw serviceError(e, url);
     }
+    List<Trace> traces = new ArrayList<>();
+    for (Input input : inputs) {
+      traces.add(input == null ? fallback.executeProgram(program)
+          : fallback.executeProgram(program, input));
+    }
+    return traces;
+  }
 
-    if (response.equals(INTERNAL_SERVER_ERROR)) {
-      throw new RuntimeException("Internal Server Error! URL=" + URL);
+  private RuntimeException serviceError(IOException e, String endpoint) {
+    if (e instanceof ResilientService.CircuitOpenException) {
+      return new RuntimeException("Service unavailable! URL=" + endpoint, e);
+    }
+    if (e instanceof ServiceUtils.ServiceException) {
+      int code = ((ServiceUtils.ServiceException) e).getCode();
+      if (code == HTTP_NOT_FOUND) {
+        return new RuntimeException("Endpoint not found! URL=" + endpoint);
+      }
+      if (code == HTTP_INTERNAL_SERVER_ERROR) {
+        return new RuntimeException("Internal Server Error! URL=" + endpoint);
+      }
     }
+    return new RuntimeException("Unexpected exception during ITS interpreter service call!", e);
+  }
 
-    Trace trace = fromJson(response);
+  /**
+   * Executes a program with the given input without blocking the calling thread for the service
+   * call. The call waits for a permit of the concurrency limiter of the host, like the blocking
+   * calls, but is neither hedged nor circuit-broken, see
+   * {@link ResilientService#postAsync}. Cancelling the returned future cancels the call.
+   *
+   * @param program -- Program object
+   * @param input -- program's input
+   * @param timeout -- timeout of the service call, or null for the timeouts of the client
+   * @return the future of the execution trace, which fails with the IOException of the service
+   *     call
+   */
+  public CompletableFuture<Trace> executeProgramAsync(Program program, Input input,
+      Duration timeout) {
+    return ResilientService.postAsync(url, writer -> writeJsonRequest(writer, program, input),
+        timeout, this::fromJson);
+  }
 
-    if (DEBUG) {
-      System.out.println("trace:");
-      System.out.println(trace);
+  private void writeJsonRequest(Writer writer, Program program, Input input) throws IOException {
+    writeProgram(writer, program);
+    writeInput(writer, input);
+    writer.write("}");
+  }
+
+  private void writeJsonBatchRequest(Writer writer, Program program, List<Input> batch)
+      throws IOException {
+    writeProgram(writer, program);
+    writer.write("\"batch\": [");
+    for (int i = 0; i < batch.size(); i++) {
+      writer.write("{");
+      writeInput(writer, batch.get(i));
+      writer.write("}");
+      if (i < batch.size() - 1) {
+        writer.write(",");
+      }
     }
+    writer.write("]");
+    writer.write("}");
+  }
 
-    return trace;
+  /**
+   * Writes the opening brace and the language, program and function fields of a request. The
+   * program model is embedded as a string. The escaped model is kept with the program, so that
+   * the executions of a program with several inputs serialize the program once.
+   */
+  private void writeProgram(Writer writer, Program program) throws IOException {
+    writer.write("{");
+
+    writer.write("\"language\": ");
+    JsonStringWriter.writeQuoted(writer, this.languageIdentifier);
+    writer.write(",");
+
+    writer.write("\"program_model\": \"");
+    writer.write(program.getSerialized(ESCAPED_FORMAT_PREFIX + ServiceUtils.getModelFormat(),
+        InterpreterServiceImpl::escape));
+    writer.write("\",");
+
+    writer.write("\"function\": ");
+    JsonStringWriter.writeQuoted(writer, this.entryFunctionName);
+    writer.write(",");
   }
 
-  private String constructJsonRequest(Program program, Input input) throws IOException {
-    StringBuilder sb = new StringBuilder();
-    sb.append("{");
-
-    sb.append("\"language\": \"");
-    sb.append(this.languageIdentifier);
-    sb.append("\",");
-
-    GsonBuilder builder = new GsonBuilder();
-    builder.registerTypeAdapter(Expression.class, new JsonSerializerWithInheritance<Expression>());
-    builder.setPrettyPrinting();
-    Gson gson = builder.create();
-    sb.append("\"program_model\": \"");
-    sb.append(
-        gson.toJson(program).replace("\\\"", "\\\\\"").replace("\"", "\\\"").replace("\n", "\\n"));
-    sb.append("\",");
-
-    sb.append("\"function\": \"");
-    sb.append(this.entryFunctionName);
-    sb.append("\",");
-
-    if (input != null) {
-
-      sb.append("\"inputs\": \"");
-      String[] inputs = input.getInputs();
-      if (inputs != null && inputs.length > 0) {
-        sb.append("[");
-        for (int i = 0; i < inputs.length; i++) {
-          sb.append(inputs[i]);
-          if (i < inputs.length - 1) {
-            sb.append(",");
-          }
-        }
-        sb.append("]");
-      }
-      sb.append("\",");
-
-      sb.append("\"args\": \"");
-      String[] args = input.getArgs();
-      if (args != null && args.length > 0) {
-        sb.append("[");
-        for (int i = 0; i < args.length; i++) {
-          sb.append(args[i]);
-          if (i < args.length - 1) {
-            sb.append(",");
-          }
-        }
-        sb.append("]");
-      }
-      sb.append("\"");
+  /**
+   * Writes the inputs and args fields of a request.
+   */
+  private void writeInput(Writer writer, Input input) throws IOException {
+    writer.write("\"inputs\": ");
+    JsonStringWriter.writeQuoted(writer, input == null ? "" : toList(input.getInputs()));
+    writer.write(",");
 
-    } else {
-      sb.append("\"inputs\": \"\",");
-      sb.append("\"args\": \"\"");
+    writer.write("\"args\": ");
+    JsonStringWriter.writeQuoted(writer, input == null ? "" : toList(input.getArgs()));
+  }
+
+  private static String escape(Program program) {
+    StringWriter escaped = new StringWriter();
+    try {
+      new JsonStringWriter(escaped).write(ServiceUtils.toJson(program));
+    } catch (IOException e) {
+      // not thrown by a StringWriter
+      throw new UncheckedIOException(e);
     }
+    return escaped.toString();
+  }
 
-    sb.append("}");
-    return sb.toString();
+  private static String toList(String[] values) {
+    if (values == null || values.length == 0) {
+      return "";
+    }
+    return "[" + String.join(",", values) + "]";
   }
 
-  private Trace fromJson(String json) {
-    GsonBuilder builder = new GsonBuilder();
-    builder.registerTypeAdapter(Expression.class, new JsonSerializerWithInheritance<Expression>());
-    Gson gson = builder.create();
-    return gson.fromJson(json, Trace.class);
+  private Trace fromJson(Reader json) {
+    return ServiceUtils.MODEL_GSON.fromJson(new JsonReader(json), Trace.class);
+  }
+
+  /**
+   * Decodes the list of traces one trace at a time.
+   */
+  private List<Trace> fromJsonBatch(Reader json) throws IOException {
+    List<Trace> traces = new ArrayList<>();
+    JsonReader reader = new JsonReader(json);
+    reader.beginArray();
+    while (reader.hasNext()) {
+      traces.add(ServiceUtils.MODEL_GSON.fromJson(reader, Trace.class));
+    }
+    reader.endArray();
+    return traces;
   }
 
 }
@@ -0,0 +1,198 @@
+package sg.edu.nus.se.its.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import org.apache.commons.io.FilenameUtils;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.util.ContentHash;
+import sg.edu.nus.se.its.util.ContentStore;
+import sg.edu.nus.se.its.util.ServiceUtils;
+
+/**
+ * Parser that keeps the programs parsed by another parser, e.g., the {@link ParserServiceImpl},
+ * in a content-addressed store on disk. The programs are stored by the hash of the language and
+ * the normalized source code, so unchanged resubmissions and reference solutions are parsed once
+ * even if they are stored in different files. Recently used programs are additionally kept in
+ * memory. Every parse returns a new Program object, as callers may modify the program.
+ */
+public class CachingParser implements Parser {
+
+  /**
+   * Default limit of the store on disk in bytes.
+   */
+  public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+  /**
+   * Default number of programs kept in memory.
+   */
+  public static final int DEFAULT_MAX_MEMORY_ENTRIES = 256;
+
+  // part of the hash, so that a change of the program model invalidates the stored programs
+  private static final String FORMAT_VERSION = "1";
+  private static final String SUFFIX = ".json";
+
+  private final Parser parser;
+  private final ContentStore store;
+  private final int maxMemoryEntries;
+
+  // serialized programs by hash, in access order
+  private final LinkedHashMap<String, String> memory = new LinkedHashMap<>(16, 0.75f, true);
+
+  private long hits;
+  private long memoryHits;
+  private long misses;
+
+  /**
+   * Initializes the cache with the default limits.
+   *
+   * @param parser - the parser for the programs that are not in the cache
+   * @param directory - the directory of the store, which is created if needed
+   * @throws IOException - if the directory cannot be created or read
+   */
+  public CachingParser(Parser parser, Path directory) throws IOException {
+    this(parser, directory, DEFAULT_MAX_BYTES, DEFAULT_MAX_MEMORY_ENTRIES);
+  }
+
+  /**
+   * Initializes the cache. Programs stored in the directory by earlier runs are reused, the least
+   * recently used first evicted.
+   *
+   * @param parser - the parser for the programs that are not in the cache
+   * @param directory - the directory of the store, which is created if needed
+   * @param maxBytes - the limit of the store on disk in bytes
+   * @param maxMemoryEntries - the number of programs kept in memory
+   * @throws IOException - if the directory cannot be created or read
+   */
+  public CachingParser(Parser parser, Path directory, long maxBytes, int maxMemoryEntries)
+      throws IOException {
+    this.parser = parser;
+    this.store = new ContentStore(directory, SUFFIX, maxBytes);
+    this.maxMemoryEntries = maxMemoryEntries;
+  }
+
+  @Override
+  public Program parse(File filePath) throws IOException {
+    String hash = hash(FilenameUtils.getExtension(filePath.getName()),
+        Files.readAllBytes(filePath.toPath()));
+
+    String json = lookup(hash);
+    if (json != null) {
+      return fromJson(json);
+    }
+
+    Program program = parser.parse(filePath);
+    store(hash, toJson(program));
+    return program;
+  }
+
+  /**
+   * Returns the serialized program with the given hash, or null if it is not in the cache.
+   */
+  private synchronized String lookup(String hash) throws IOException {
+    String json = memory.get(hash);
+    if (json != null) {
+      hits++;
+      memoryHits++;
+      // keeps the stored file from being evicted
+      store.touch(hash);
+      return json;
+    }
+
+    byte[] stored = store.get(hash);
+    if (stored == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    json = new String(stored, StandardCharsets.UTF_8);
+    remember(hash, json);
+    return json;
+  }
+
+  private synchronized void store(String hash, String json) throws IOException {
+    remember(hash, json);
+    store.put(hash, json.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private void remember(String hash, String json) {
+    memory.put(hash, json);
+    Iterator<String> eldest = memory.keySet().iterator();
+    while (memory.size() > maxMemoryEntries) {
+      eldest.next();
+      eldest.remove();
+    }
+  }
+
+  /**
+   * Returns the hash of the language and the source code, ignoring a byte order mark and the
+   * kind of line breaks. Other whitespace is significant, e.g., in Python, and the line numbers
+   * are part of the program model.
+   *
+   * @param language - the file extension of the source file
+   * @param source - the source code
+   * @return the hash as hexadecimal string
+   */
+  static String hash(String language, byte[] source) {
+    ContentHash hash = new ContentHash().update(FORMAT_VERSION).update(language);
+
+    int start = 0;
+    if (source.length >= 3 && source[0] == (byte) 0xEF && source[1] == (byte) 0xBB
+        && source[2] == (byte) 0xBF) {
+      start = 3;
+    }
+    for (int i = start; i < source.length; i++) {
+      if (source[i] == '\r') {
+        hash.update((byte) '\n');
+        if (i + 1 < source.length && source[i + 1] == '\n') {
+          i++;
+        }
+      } else {
+        hash.update(source[i]);
+      }
+    }
+    return hash.toHex();
+  }
+
+  private static String toJson(Program program) {
+    return ServiceUtils.toJson(program);
+  }
+
+  private static Program fromJson(String json) {
+    return ServiceUtils.MODEL_GSON.fromJson(json, Program.class);
+  }
+
+  public synchronized long getHits() {
+    return hits;
+  }
+
+  public synchronized long getMemoryHits() {
+    return memoryHits;
+  }
+
+  public synchronized long getMisses() {
+    return misses;
+  }
+
+  public long getStoredBytes() {
+    return store.getStoredBytes();
+  }
+
+  public int getStoredPrograms() {
+    return store.size();
+  }
+
+  /**
+   * Removes all programs from the cache.
+   *
+   * @throws IOException - if a stored program cannot be deleted
+   */
+  public synchronized void clear() throws IOException {
+    memory.clear();
+    store.clear();
+  }
+}
@@ -0,0 +1,68 @@
+package sg.edu.nus.se.its.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import org.apache.commons.io.FilenameUtils;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.util.ServiceUtils;
+import sg.edu.nus.se.its.util.SingleFlight;
+
+/**
+ * Parser that lets concurrent parses of the same source code share one call of another parser,
+ * e.g., of the {@link ParserServiceImpl}. Parses are identical if the language and the source
+ * code are, see {@link CachingParser}, so copies of a file are coalesced as well. Every caller
+ * receives its own Program object, as callers may modify the program.
+ */
+public class CoalescingParser implements Parser {
+
+  /**
+   * Result of a call, with the serialized program for the callers that share the call.
+   */
+  private static final class Parsed {
+    private final Program program;
+    private final String json;
+
+    private Parsed(Program program) {
+      this.program = program;
+      this.json = ServiceUtils.toJson(program);
+    }
+
+    private Parsed(Program program, String json) {
+      this.program = program;
+      this.json = json;
+    }
+
+    private Parsed copy() {
+      return new Parsed(ServiceUtils.MODEL_GSON.fromJson(json, Program.class), json);
+    }
+  }
+
+  private final Parser parser;
+  private final SingleFlight<String, Parsed> flights = new SingleFlight<>();
+
+  public CoalescingParser(Parser parser) {
+    this.parser = parser;
+  }
+
+  @Override
+  public Program parse(File filePath) throws IOException {
+    String hash = CachingParser.hash(FilenameUtils.getExtension(filePath.getName()),
+        Files.readAllBytes(filePath.toPath()));
+    return flights.execute(hash, () -> new Parsed(parser.parse(filePath)), Parsed::copy).program;
+  }
+
+  /**
+   * Returns the number of calls of the parser.
+   */
+  public long getCalls() {
+    return flights.getCalls();
+  }
+
+  /**
+   * Returns the number of parses that shared the call of a concurrent parse.
+   */
+  public long getDeduplicated() {
+    return flights.getDeduplicated();
+  }
+}
@@ -0,0 +1,34 @@
+package sg.edu.nus.se.its.parser;
+
+import java.io.File;
+import java.io.IOException;
+import sg.edu.nus.se.its.model.ExpressionInterner;
+import sg.edu.nus.se.its.model.Program;
+
+/**
+ * Parser that lets the programs parsed by another parser, e.g., the {@link CachingParser}, share
+ * their structurally identical expressions, see {@link ExpressionInterner}. Meant for pipelines
+ * that keep the programs of many submissions in memory. The expressions of the returned programs
+ * are immutable; programs are still modified by replacing expressions, e.g., with
+ * {@link sg.edu.nus.se.its.model.Function#replaceLocExpressions}, or copied before they are
+ * modified in place.
+ */
+public class InterningParser implements Parser {
+
+  private final Parser parser;
+  private final ExpressionInterner interner;
+
+  public InterningParser(Parser parser) {
+    this(parser, ExpressionInterner.getShared());
+  }
+
+  public InterningParser(Parser parser, ExpressionInterner interner) {
+    this.parser = parser;
+    this.interner = interner;
+  }
+
+  @Override
+  public Program parse(File filePath) throws IOException {
+    return interner.intern(parser.parse(filePath));
+  }
+}
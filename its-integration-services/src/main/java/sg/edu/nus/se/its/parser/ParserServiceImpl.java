@@ -1,19 +1,22 @@
 package sg.edu.nus.se.its.parser;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.stream.JsonReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
 import java.nio.file.Files;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
 import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.text.StringEscapeUtils;
-import sg.edu.nus.se.its.model.Expression;
 import sg.edu.nus.se.its.model.Program;
-import sg.edu.nus.se.its.util.JsonSerializerWithInheritance;
+import sg.edu.nus.se.its.util.JsonStringWriter;
+import sg.edu.nus.se.its.util.ResilientService;
 import sg.edu.nus.se.its.util.ServiceUtils;
 
 /**
- * Helper class to access the current Parser implementation via the ITS services.
+ * Helper class to access the current Parser implementation via the ITS services. Slow calls are
+ * hedged and an unavailable service is circuit-broken, see {@link ResilientService}.
  */
 public class ParserServiceImpl implements Parser {
 
@@ -21,29 +24,41 @@ public class ParserServiceImpl implements Parser {
 
   public static final String URL = "https://its.comp.nus.edu.sg/cs3213/parser";
   
-  private static final String ENDPOINT_NOT_FOUND = "{\"detail\":\"Not Found\"}";
+  private static final int HTTP_NOT_FOUND = 404;
 
-  @Override
-  public Program parse(File filePath) throws IOException {
-    String jsonPayload = constructJsonRequest(filePath);
+  private final String url;
 
-    if (DEBUG) {
-      System.out.println("jsonPayload:");
-      System.out.println(jsonPayload);
-    }
+  /**
+   * Initializes the Service implementation for the parser.
+   */
+  public ParserServiceImpl() {
+    this(URL);
+  }
 
-    String response = ServiceUtils.post(URL, jsonPayload);
+  /**
+   * Initializes the Service implementation for the parser at the given URL, e.g., of a local
+   * service.
+   *
+   * @param url - the URL of the parser service
+   */
+  public ParserServiceImpl(String url) {
+    this.url = url;
+  }
 
-    if (DEBUG) {
-      System.out.println("response:");
-      System.out.println(response);
-    }
-    
-    if (response.equals(ENDPOINT_NOT_FOUND)) {
-      throw new RuntimeException("Endpoint not found! URL=" + URL);
-    }
+  @Override
+  public Program parse(File filePath) throws IOException {
+    String languageIdentifier = getLanguageIdentifier(filePath);
 
-    Program program = fromJson(response);
+    Program program;
+    try {
+      program = ResilientService.forUrl(url).post(url, writer -> writeJsonRequest(writer,
+          filePath, languageIdentifier), this::fromJson);
+    } catch (ServiceUtils.ServiceException e) {
+      if (e.getCode() == HTTP_NOT_FOUND) {
+        throw new RuntimeException("Endpoint not found! URL=" + url);
+      }
+      throw e;
+    }
 
     if (DEBUG) {
       System.out.println("program:");
@@ -53,38 +68,58 @@ public class ParserServiceImpl implements Parser {
     return program;
   }
 
-  private String constructJsonRequest(File filePath) throws IOException {
+  /**
+   * Parses the program source code without blocking the calling thread for the service call.
+   * The call waits for a permit of the concurrency limiter of the host, like the blocking calls,
+   * but is neither hedged nor circuit-broken, see {@link ResilientService#postAsync}. Cancelling
+   * the returned future cancels the call.
+   *
+   * @param filePath - the path to the program text file.
+   * @param timeout - the timeout of the service call, or null for the timeouts of the client
+   * @return the future of the internal representation of the program source code, which fails
+   *     with the IOException of reading the file or of the service call.
+   */
+  public CompletableFuture<Program> parseAsync(File filePath, Duration timeout) {
+    String languageIdentifier = getLanguageIdentifier(filePath);
+
+    return ResilientService.postAsync(url, writer -> writeJsonRequest(writer, filePath,
+        languageIdentifier), timeout, this::fromJson);
+  }
+
+  private String getLanguageIdentifier(File filePath) {
     String fileExtension = FilenameUtils.getExtension(filePath.getName());
     
-    String languageIdentifier;
     if (fileExtension.equals("c")) {
-      languageIdentifier = "c";
+      return "c";
     } else if (fileExtension.equals("py")) {
-      languageIdentifier = "py";
+      return "py";
     } else {
       throw new RuntimeException("Unsupported source file language: " + filePath.getAbsolutePath());
     }
-    
-    StringBuilder sb = new StringBuilder();
-    sb.append("{");
-    
-    sb.append("\"language\": \"");
-    sb.append(languageIdentifier);
-    sb.append("\",");
-    
-    sb.append("\"source_code\": \"");
-    sb.append(StringEscapeUtils.escapeJava(Files.readString(filePath.toPath())));
-    sb.append("\"");
+  }
+
+  /**
+   * Writes the request, streaming the source code from the file into the request body.
+   */
+  private void writeJsonRequest(Writer writer, File filePath, String languageIdentifier)
+      throws IOException {
+    writer.write("{");
+
+    writer.write("\"language\": ");
+    JsonStringWriter.writeQuoted(writer, languageIdentifier);
+    writer.write(",");
+
+    writer.write("\"source_code\": \"");
+    try (Reader source = Files.newBufferedReader(filePath.toPath())) {
+      source.transferTo(new JsonStringWriter(writer));
+    }
+    writer.write("\"");
 
-    sb.append("}");
-    return sb.toString();
+    writer.write("}");
   }
   
-  private Program fromJson(String json) {
-    GsonBuilder builder = new GsonBuilder();
-    builder.registerTypeAdapter(Expression.class, new JsonSerializerWithInheritance<Expression>());
-    Gson gson = builder.create();
-    return gson.fromJson(json, Program.class);
+  private Program fromJson(Reader json) {
+    return ServiceUtils.MODEL_GSON.fromJson(new JsonReader(json), Program.class);
   }
 
 }
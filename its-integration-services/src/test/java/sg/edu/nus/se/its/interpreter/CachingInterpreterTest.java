@@ -0,0 +1,160 @@
+package sg.edu.nus.se.its.interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Program;
+
+/**
+ * Tests the cache of execution traces.
+ */
+public class CachingInterpreterTest {
+
+  @TempDir
+  Path temp;
+
+  /**
+   * Interpreter whose traces hold the inputs, as string or, like local interpreters, as int.
+   */
+  private static class CountingInterpreter implements Interpreter {
+    private final boolean localValues;
+    private int executed;
+
+    private CountingInterpreter(boolean localValues) {
+      this.localValues = localValues;
+    }
+
+    @Override
+    public Trace executeProgram(Program program) {
+      return executeProgram(program, new Input());
+    }
+
+    @Override
+    public Trace executeProgram(Program program, Input input) {
+      executed++;
+      Memory memory = new Memory();
+      memory.put("inputs", Arrays.toString(input.getInputs()));
+      memory.put("x", localValues ? (Object) Integer.valueOf(1) : (Object) Double.valueOf(1));
+      Trace trace = new Trace();
+      trace.add("main", 1, memory);
+      trace.add("main", 2, memory);
+      return trace;
+    }
+  }
+
+  private static Program program(String function) {
+    Program program = new Program();
+    program.addfnc(new Function(function, new ArrayList<>(), "int"));
+    return program;
+  }
+
+  private static Input input(String value) {
+    return new Input(new String[] {value}, null);
+  }
+
+  @Test
+  void testExecutesEqualProgramsWithEqualInputsOnce() {
+    CountingInterpreter interpreter = new CountingInterpreter(true);
+    CachingInterpreter cache = new CachingInterpreter(interpreter, "main");
+
+    Trace first = cache.executeProgram(program("main"), input("1"));
+    first.getUnique(1);
+    Trace second = cache.executeProgram(program("main"), input("1"));
+    Trace third = cache.executeProgram(program("main"), input("1"));
+
+    assertEquals(1, interpreter.executed);
+    assertEquals(2, cache.getHits());
+    assertEquals(2, cache.getMemoryHits());
+    assertEquals(1, cache.getMisses());
+    assertNotSame(second, third);
+    // checking the entries of one trace does not affect the others
+    assertEquals(second.getUnique(1), second.getEntries().get(0));
+    assertEquals(third.getUnique(1), third.getEntries().get(0));
+    assertEquals("[1]", third.getLastEntry().getMem().get("inputs"));
+  }
+
+  @Test
+  void testDistinguishesProgramsInputsAndEntryFunctions() {
+    CountingInterpreter interpreter = new CountingInterpreter(true);
+    CachingInterpreter cache = new CachingInterpreter(interpreter, "main");
+
+    cache.executeProgram(program("main"), input("1"));
+    cache.executeProgram(program("main"), input("2"));
+    cache.executeProgram(program("f"), input("1"));
+    cache.executeProgram(program("main"));
+    new CachingInterpreter(interpreter, "f").executeProgram(program("main"), input("1"));
+
+    assertEquals(5, interpreter.executed);
+    assertEquals(0, cache.getHits());
+  }
+
+  @Test
+  void testEvictsLeastRecentlyUsedTracesBySize() throws IOException {
+    CountingInterpreter interpreter = new CountingInterpreter(true);
+    long size = CachingInterpreter.estimate(
+        interpreter.executeProgram(program("main"), input("0")));
+    interpreter.executed = 0;
+
+    CachingInterpreter cache = new CachingInterpreter(interpreter, "main", 2 * size, null, 0);
+    cache.executeProgram(program("main"), input("0"));
+    cache.executeProgram(program("main"), input("1"));
+    cache.executeProgram(program("main"), input("0"));
+    cache.executeProgram(program("main"), input("2"));
+    interpreter.executed = 0;
+
+    cache.executeProgram(program("main"), input("0"));
+    cache.executeProgram(program("main"), input("1"));
+
+    assertEquals(1, interpreter.executed);
+    assertTrue(cache.getMemoryBytes() <= 2 * size);
+  }
+
+  @Test
+  void testReusesStoreOfEarlierRuns() throws IOException {
+    Path directory = temp.resolve("cache");
+    CountingInterpreter interpreter = new CountingInterpreter(false);
+    new CachingInterpreter(interpreter, "main", 0, directory, 1 << 20)
+        .executeProgram(program("main"), input("1"));
+
+    CachingInterpreter cache = new CachingInterpreter(interpreter, "main",
+        CachingInterpreter.DEFAULT_MAX_MEMORY_BYTES, directory, 1 << 20);
+    Trace trace = cache.executeProgram(program("main"), input("1"));
+    cache.executeProgram(program("main"), input("1"));
+
+    assertEquals(1, interpreter.executed);
+    assertEquals(2, cache.getHits());
+    assertEquals(1, cache.getMemoryHits());
+    assertEquals(1.0, cache.getHitRatio());
+    assertEquals(2 * CachingInterpreter.estimate(trace), cache.getBytesSaved());
+    assertEquals(2, trace.size());
+    assertEquals(1.0, trace.getLastEntry().getMem().get("x"));
+    assertTrue(cache.getStoredBytes() > 0);
+  }
+
+  @Test
+  void testKeepsLocalValuesInMemoryOnly() throws IOException {
+    Path directory = temp.resolve("cache");
+    CountingInterpreter interpreter = new CountingInterpreter(true);
+    CachingInterpreter cache = new CachingInterpreter(interpreter, "main",
+        CachingInterpreter.DEFAULT_MAX_MEMORY_BYTES, directory, 1 << 20);
+
+    Trace trace = cache.executeProgram(program("main"), input("1"));
+    Trace cached = cache.executeProgram(program("main"), input("1"));
+
+    assertFalse(CachingInterpreter.isRestoredFromJson(trace));
+    assertEquals(0, cache.getStoredBytes());
+    assertEquals(Integer.valueOf(1), cached.getLastEntry().getMem().get("x"));
+    assertEquals(0.5, cache.getHitRatio());
+  }
+}
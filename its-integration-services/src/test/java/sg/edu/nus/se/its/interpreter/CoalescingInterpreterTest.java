@@ -0,0 +1,76 @@
+package sg.edu.nus.se.its.interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Program;
+
+/**
+ * Tests the coalescing of concurrent executions of the same program.
+ */
+public class CoalescingInterpreterTest {
+
+  /**
+   * Blocks the executions until released.
+   */
+  private static class BlockingInterpreter implements Interpreter {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger executed = new AtomicInteger();
+
+    @Override
+    public Trace executeProgram(Program program) {
+      return executeProgram(program, null);
+    }
+
+    @Override
+    public Trace executeProgram(Program program, Input input) {
+      executed.incrementAndGet();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      Trace trace = new Trace();
+      trace.add("main", 1, new Memory());
+      return trace;
+    }
+  }
+
+  @Test
+  void testSharedExecutionsCheckTheirOwnEntries() throws Exception {
+    BlockingInterpreter blocking = new BlockingInterpreter();
+    CoalescingInterpreter interpreter = new CoalescingInterpreter(blocking);
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      List<Future<Trace>> traces = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        Program program = new Program();
+        program.addfnc(new Function("main", new ArrayList<>(), "int"));
+        traces.add(executor.submit(() -> interpreter.executeProgram(program)));
+      }
+      while (interpreter.getCalls() + interpreter.getDeduplicated() < 4) {
+        Thread.sleep(1);
+      }
+      blocking.release.countDown();
+
+      for (Future<Trace> trace : traces) {
+        assertNotNull(trace.get().getUnique(1));
+      }
+      assertEquals(1, blocking.executed.get());
+      assertEquals(3, interpreter.getDeduplicated());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,156 @@
+package sg.edu.nus.se.its.interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.util.CircuitBreaker;
+import sg.edu.nus.se.its.util.ResilientService;
+
+/**
+ * Tests the interpreter service client against a local stand-in server.
+ */
+public class InterpreterServiceImplTest {
+
+  private static List<Input> inputs(int n) {
+    List<Input> inputs = new ArrayList<>();
+    for (int i = 0; i < n; i++) {
+      inputs.add(new Input(new String[] {String.valueOf(i)}, new String[] {"a" + i}));
+    }
+    return inputs;
+  }
+
+  private static void assertTracesOfInputs(List<Input> inputs, List<Trace> traces) {
+    assertEquals(inputs.size(), traces.size());
+    for (int i = 0; i < inputs.size(); i++) {
+      assertEquals("[" + i + "]", traces.get(i).getLastEntry().getMem().get("inputs"));
+      assertEquals("[a" + i + "]", traces.get(i).getLastEntry().getMem().get("args"));
+    }
+  }
+
+  @Test
+  void testSendsProgramOncePerBatch() throws IOException {
+    try (StandInInterpreterServer server = new StandInInterpreterServer(true)) {
+      InterpreterServiceImpl interpreter =
+          new InterpreterServiceImpl("c", "main", server.getUrl());
+      interpreter.setBatchSize(40);
+      List<Input> inputs = inputs(100);
+
+      List<Trace> traces = interpreter.executeProgram(new Program(), inputs);
+
+      assertTracesOfInputs(inputs, traces);
+      assertEquals(3, server.getBatchRequests());
+      assertEquals(3, server.getProgramsReceived());
+      assertEquals(0, server.getSingleRequests());
+    }
+  }
+
+  @Test
+  void testRecordsBatchLatenciesPerEndpoint() throws IOException {
+    try (StandInInterpreterServer server = new StandInInterpreterServer(true)) {
+      InterpreterServiceImpl interpreter =
+          new InterpreterServiceImpl("c", "main", server.getUrl());
+      interpreter.setBatchSize(2);
+
+      interpreter.executeProgram(new Program(), inputs(4));
+
+      ResilientService service = ResilientService.forUrl(server.getUrl());
+      ResilientService batch =
+          ResilientService.forEndpoint(server.getUrl(), InterpreterServiceImpl.BATCH_PATH);
+      assertEquals(2, batch.getLatencies().getCount());
+      assertEquals(0, service.getLatencies().getCount());
+      assertSame(service.getCircuitBreaker(), batch.getCircuitBreaker());
+    }
+  }
+
+  @Test
+  void testDelegatesSingleInputToBatch() throws IOException {
+    try (StandInInterpreterServer server = new StandInInterpreterServer(true)) {
+      InterpreterServiceImpl interpreter =
+          new InterpreterServiceImpl("c", "main", server.getUrl());
+
+      Trace trace = interpreter.executeProgram(new Program(), inputs(1).get(0));
+      Trace withoutInput = interpreter.executeProgram(new Program());
+
+      assertEquals("[0]", trace.getLastEntry().getMem().get("inputs"));
+      assertEquals("", withoutInput.getLastEntry().getMem().get("inputs"));
+      assertEquals("main", withoutInput.getLastEntry().getFunctionName());
+      assertEquals(2, server.getBatchRequests());
+    }
+  }
+
+  @Test
+  void testFallsBackToSingleRequests() throws IOException {
+    try (StandInInterpreterServer server = new StandInInterpreterServer(false)) {
+      InterpreterServiceImpl interpreter =
+          new InterpreterServiceImpl("py", "main", server.getUrl());
+      List<Input> inputs = inputs(5);
+
+      List<Trace> traces = interpreter.executeProgram(new Program(), inputs);
+      interpreter.executeProgram(new Program(), inputs);
+
+      assertTracesOfInputs(inputs, traces);
+      // the batch endpoint is only tried once
+      assertEquals(10, server.getSingleRequests());
+      assertEquals(11, server.getProgramsReceived());
+    }
+  }
+
+  @Test
+  void testRemembersMissingBatchEndpointPerUrl() throws IOException {
+    try (StandInInterpreterServer server = new StandInInterpreterServer(false)) {
+      List<Input> inputs = inputs(2);
+
+      new InterpreterServiceImpl("py", "main", server.getUrl()).executeProgram(new Program(),
+          inputs);
+      new InterpreterServiceImpl("py", "main", server.getUrl()).executeProgram(new Program(),
+          inputs);
+
+      assertEquals(4, server.getSingleRequests());
+      assertEquals(5, server.getProgramsReceived());
+    }
+  }
+
+  @Test
+  void testUsesFallbackWhileServiceUnavailable() throws IOException {
+    String url;
+    try (StandInInterpreterServer server = new StandInInterpreterServer(true)) {
+      url = server.getUrl();
+    }
+    ResilientService.install(url,
+        new ResilientService(new CircuitBreaker(2, Duration.ofMinutes(1))));
+    InterpreterServiceImpl interpreter = new InterpreterServiceImpl("c", "main", url);
+    interpreter.setFallback(new Interpreter() {
+      @Override
+      public Trace executeProgram(Program program) {
+        return executeProgram(program, null);
+      }
+
+      @Override
+      public Trace executeProgram(Program program, Input input) {
+        Memory memory = new Memory();
+        memory.put("inputs", input == null ? "" : input.getInputs()[0]);
+        Trace trace = new Trace();
+        trace.add("fallback", 1, memory);
+        return trace;
+      }
+    });
+    List<Input> inputs = inputs(3);
+
+    assertThrows(RuntimeException.class, () -> interpreter.executeProgram(new Program(), inputs));
+    assertThrows(RuntimeException.class, () -> interpreter.executeProgram(new Program(), inputs));
+    List<Trace> traces = interpreter.executeProgram(new Program(), inputs);
+
+    assertEquals(3, traces.size());
+    assertEquals("fallback", traces.get(2).getLastEntry().getFunctionName());
+    assertEquals("2", traces.get(2).getLastEntry().getMem().get("inputs"));
+  }
+}
@@ -0,0 +1,118 @@
+package sg.edu.nus.se.its.interpreter;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import sg.edu.nus.se.its.model.Memory;
+
+/**
+ * Local stand-in for the interpreter service that speaks the single and the batch protocol. The
+ * trace of an input has one entry whose memory holds the inputs and args of the request, so that
+ * tests can match traces to inputs.
+ */
+public class StandInInterpreterServer implements AutoCloseable {
+
+  private static final String NOT_FOUND = "{\"detail\":\"Not Found\"}";
+
+  private final HttpServer server;
+  private final boolean batchSupported;
+  private final AtomicInteger singleRequests = new AtomicInteger();
+  private final AtomicInteger batchRequests = new AtomicInteger();
+  private final AtomicInteger programsReceived = new AtomicInteger();
+
+  /**
+   * Starts the server on a free local port.
+   *
+   * @param batchSupported -- whether the server has a batch endpoint
+   */
+  public StandInInterpreterServer(boolean batchSupported) throws IOException {
+    this.batchSupported = batchSupported;
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+    server.createContext("/interpreter", this::handle);
+    server.start();
+  }
+
+  public String getUrl() {
+    return "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort()
+        + "/interpreter";
+  }
+
+  public int getSingleRequests() {
+    return singleRequests.get();
+  }
+
+  public int getBatchRequests() {
+    return batchRequests.get();
+  }
+
+  public int getProgramsReceived() {
+    return programsReceived.get();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    JsonObject request;
+    try (InputStream body = exchange.getRequestBody()) {
+      request = JsonParser.parseString(new String(body.readAllBytes(), StandardCharsets.UTF_8))
+          .getAsJsonObject();
+    }
+    String function = request.get("function").getAsString();
+    // the program is embedded as a string, as in the requests of the service
+    JsonParser.parseString(request.get("program_model").getAsString());
+    programsReceived.incrementAndGet();
+
+    String response;
+    if (exchange.getRequestURI().getPath().endsWith(InterpreterServiceImpl.BATCH_PATH)) {
+      if (!batchSupported) {
+        respond(exchange, 404, NOT_FOUND);
+        return;
+      }
+      batchRequests.incrementAndGet();
+      List<Trace> traces = new ArrayList<>();
+      JsonArray batch = request.getAsJsonArray("batch");
+      for (JsonElement input : batch) {
+        traces.add(trace(function, input.getAsJsonObject()));
+      }
+      response = new Gson().toJson(traces);
+    } else {
+      singleRequests.incrementAndGet();
+      response = new Gson().toJson(trace(function, request));
+    }
+    respond(exchange, 200, response);
+  }
+
+  private static Trace trace(String function, JsonObject input) {
+    Memory memory = new Memory();
+    memory.put("inputs", input.get("inputs").getAsString());
+    memory.put("args", input.get("args").getAsString());
+    Trace trace = new Trace();
+    trace.add(function, 1, memory);
+    return trace;
+  }
+
+  private static void respond(HttpExchange exchange, int code, String response)
+      throws IOException {
+    byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+    exchange.sendResponseHeaders(code, bytes.length);
+    try (OutputStream out = exchange.getResponseBody()) {
+      out.write(bytes);
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+  }
+}
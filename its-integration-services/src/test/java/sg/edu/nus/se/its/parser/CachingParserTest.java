@@ -0,0 +1,121 @@
+package sg.edu.nus.se.its.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Program;
+
+/**
+ * Tests the content-addressed cache of parsed programs.
+ */
+public class CachingParserTest {
+
+  @TempDir
+  Path temp;
+
+  /**
+   * Parses a program with one function named after the first line of the source.
+   */
+  private static class CountingParser implements Parser {
+    private int parsed;
+
+    @Override
+    public Program parse(File filePath) throws IOException {
+      parsed++;
+      Program program = new Program();
+      String name = Files.readAllLines(filePath.toPath()).get(0);
+      program.addfnc(new Function(name, new ArrayList<>(), "int"));
+      return program;
+    }
+  }
+
+  private File source(String name, String content) throws IOException {
+    return Files.write(temp.resolve(name), content.getBytes(StandardCharsets.UTF_8)).toFile();
+  }
+
+  @Test
+  void testParsesEqualSourcesOnce() throws IOException {
+    CountingParser parser = new CountingParser();
+    CachingParser cache = new CachingParser(parser, temp.resolve("cache"));
+
+    Program first = cache.parse(source("a.c", "main\nreturn 0;\n"));
+    Program second = cache.parse(source("b.c", "main\r\nreturn 0;\r\n"));
+    Program third = cache.parse(source("a.c", "main\nreturn 0;\n"));
+
+    assertEquals(1, parser.parsed);
+    assertEquals(2, cache.getHits());
+    assertEquals(2, cache.getMemoryHits());
+    assertEquals(1, cache.getMisses());
+    assertNotSame(second, third);
+    assertEquals(first.getFncs().keySet(), third.getFncs().keySet());
+  }
+
+  @Test
+  void testDistinguishesLanguages() throws IOException {
+    CountingParser parser = new CountingParser();
+    CachingParser cache = new CachingParser(parser, temp.resolve("cache"));
+
+    cache.parse(source("a.c", "main\n"));
+    cache.parse(source("a.py", "main\n"));
+
+    assertEquals(2, parser.parsed);
+    assertNotEquals(CachingParser.hash("c", new byte[0]), CachingParser.hash("py", new byte[0]));
+  }
+
+  @Test
+  void testReusesStoreOfEarlierRuns() throws IOException {
+    Path directory = temp.resolve("cache");
+    CountingParser parser = new CountingParser();
+    new CachingParser(parser, directory).parse(source("a.c", "main\n"));
+
+    CachingParser cache = new CachingParser(parser, directory);
+    Program program = cache.parse(source("a.c", "main\n"));
+
+    assertEquals(1, parser.parsed);
+    assertEquals(1, cache.getHits());
+    assertEquals(0, cache.getMemoryHits());
+    assertTrue(program.getFncs().containsKey("main"));
+  }
+
+  @Test
+  void testEvictsLeastRecentlyUsedPrograms() throws IOException {
+    Path directory = temp.resolve("cache");
+    CountingParser parser = new CountingParser();
+    CachingParser probe = new CachingParser(parser, temp.resolve("probe"));
+    probe.parse(source("f0.c", "f0\n"));
+    long size = probe.getStoredBytes();
+
+    CachingParser cache = new CachingParser(parser, directory, 2 * size, 1);
+    List<File> files = new ArrayList<>();
+    for (int i = 0; i < 3; i++) {
+      files.add(source("f" + i + ".c", "f" + i + "\n"));
+    }
+    cache.parse(files.get(0));
+    cache.parse(files.get(1));
+    cache.parse(files.get(0));
+    cache.parse(files.get(2));
+    parser.parsed = 0;
+
+    cache.parse(files.get(0));
+    cache.parse(files.get(1));
+
+    assertEquals(1, parser.parsed);
+    assertTrue(cache.getStoredBytes() <= 2 * size);
+    try (Stream<Path> stored = Files.list(directory)) {
+      assertEquals(2, stored.count());
+    }
+  }
+}
@@ -0,0 +1,85 @@
+package sg.edu.nus.se.its.parser;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Program;
+
+/**
+ * Tests the coalescing of concurrent parses of the same source code.
+ */
+public class CoalescingParserTest {
+
+  @TempDir
+  Path temp;
+
+  /**
+   * Blocks the parses until released.
+   */
+  private static class BlockingParser implements Parser {
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger parsed = new AtomicInteger();
+
+    @Override
+    public Program parse(File filePath) throws IOException {
+      parsed.incrementAndGet();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        throw new IOException(e);
+      }
+      Program program = new Program();
+      program.addfnc(new Function("main", new ArrayList<>(), "int"));
+      return program;
+    }
+  }
+
+  @Test
+  void testSharesParseOfCopies() throws Exception {
+    BlockingParser blocking = new BlockingParser();
+    CoalescingParser parser = new CoalescingParser(blocking);
+    ExecutorService executor = Executors.newCachedThreadPool();
+    try {
+      List<Future<Program>> programs = new ArrayList<>();
+      for (int i = 0; i < 6; i++) {
+        File file = Files.write(temp.resolve("submission" + i + ".c"),
+            "int main() {}\n".getBytes(StandardCharsets.UTF_8)).toFile();
+        programs.add(executor.submit(() -> parser.parse(file)));
+      }
+      while (parser.getCalls() + parser.getDeduplicated() < 6) {
+        Thread.sleep(1);
+      }
+      blocking.release.countDown();
+
+      Set<Program> distinct = new HashSet<>();
+      for (Future<Program> program : programs) {
+        assertTrue(program.get().getFncs().containsKey("main"));
+        distinct.add(program.get());
+      }
+      assertEquals(6, distinct.size());
+      assertEquals(1, blocking.parsed.get());
+      assertEquals(5, parser.getDeduplicated());
+      assertNotSame(programs.get(0).get().getfnc("main"), programs.get(1).get().getfnc("main"));
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,880 @@
+package sg.edu.nus.se.its.interpreter;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Opcode;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.model.Variable;
+import sg.edu.nus.se.its.util.UtilFunctions;
+import sg.edu.nus.se.its.util.constants.ClangConstants;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Concrete interpreter for program models of C programs, which runs in-process.
+ *
+ * <p>Values are represented as follows: integer types (including char) as Integer, unsigned int
+ * as Long in [0, 2^32), long types as Long, floating point types as Double, arrays as Object[],
+ * strings as String, pointers as {@link Pointer} and the results of comparisons as Boolean.
+ */
+public class CInterpreter extends AbstractInterpreter {
+
+  private static final List<String> UNARY_OPS = Arrays.asList("-", "+", "!", "~", "&",
+      ClangConstants.ADDRESS_OF, "*");
+
+  private static final List<String> BINARY_OPS = Arrays.asList("+", "-", "*", "/", "%", "<",
+      "<=", ">", ">=", "==", "!=", "&", "|", "^", "<<", ">>");
+
+  private static final List<String> SPECIAL_OPS = Arrays.asList("&&", "||",
+      Constants.STRING_APPEND, Constants.STRING_FORMAT, Constants.ARRAY_CREATE,
+      Constants.ARRAY_DECLARATION, Constants.ARRAY_ASSIGN, "[]", ClangConstants.CAST);
+
+  private static final long UNSIGNED_INT_MASK = 0xFFFFFFFFL;
+
+  // ranks of the integer types in the usual arithmetic conversions, narrower types rank as int
+  private static final int INT = 0;
+  private static final int UNSIGNED_INT = 1;
+  private static final int LONG = 2;
+  private static final int UNSIGNED_LONG = 3;
+
+  private static final Pattern INTEGER_PREFIX = Pattern.compile("[+-]?\\d+");
+
+  private static final Pattern FLOAT_PREFIX =
+      Pattern.compile("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?");
+
+  public CInterpreter() {
+    super();
+  }
+
+  public CInterpreter(Integer timeout, String entryFunctionName) {
+    super(timeout, entryFunctionName);
+  }
+
+  @Override
+  public Object convert(Object value, String type) {
+    if (type == null || UtilFunctions.isUndefined(value)) {
+      return value;
+    }
+    if (type.endsWith("[]")) {
+      if (!(value instanceof Object[])) {
+        return value;
+      }
+      String elementType = type.substring(0, type.length() - 2);
+      Object[] array = (Object[]) value;
+      Object[] result = new Object[array.length];
+      for (int i = 0; i < array.length; i++) {
+        result[i] = convert(array[i], elementType);
+      }
+      return result;
+    }
+
+    String baseType = type.replace("const ", "").trim();
+    if (baseType.startsWith("signed ")) {
+      baseType = baseType.substring("signed ".length());
+    }
+    if (value instanceof String) {
+      if (isCharType(baseType)) {
+        String s = (String) value;
+        return s.isEmpty() ? 0 : (int) s.charAt(0);
+      }
+      if (isIntegerType(baseType) || isFloatType(baseType)) {
+        value = parseNumber((String) value, baseType);
+      }
+    }
+    if (value instanceof Boolean) {
+      value = (Boolean) value ? 1 : 0;
+    }
+    if (!(value instanceof Number)) {
+      return value;
+    }
+
+    Number number = (Number) value;
+    if (isCharType(baseType)) {
+      return baseType.startsWith("unsigned") ? number.intValue() & 0xFF : (int) number.byteValue();
+    }
+    if (baseType.startsWith("unsigned short") || baseType.equals("short")
+        || baseType.equals("short int")) {
+      return baseType.startsWith("unsigned") ? number.intValue() & 0xFFFF
+          : (int) number.shortValue();
+    }
+    if (baseType.startsWith("long long") || baseType.startsWith("unsigned long")
+        || baseType.equals("long") || baseType.equals("long int")) {
+      return number.longValue();
+    }
+    if (isIntegerType(baseType) || baseType.equals("_Bool") || baseType.equals("bool")) {
+      if (baseType.equals("_Bool") || baseType.equals("bool")) {
+        return number.doubleValue() != 0 ? 1 : 0;
+      }
+      if (baseType.startsWith("unsigned")) {
+        return number.longValue() & UNSIGNED_INT_MASK;
+      }
+      return number.intValue();
+    }
+    if (baseType.equals("float")) {
+      return (double) number.floatValue();
+    }
+    if (isFloatType(baseType)) {
+      return number.doubleValue();
+    }
+    return value;
+  }
+
+  private static boolean isCharType(String type) {
+    return type.equals("char") || type.equals("unsigned char");
+  }
+
+  private static boolean isIntegerType(String type) {
+    return type.equals("int") || type.equals("unsigned") || type.equals("signed")
+        || type.startsWith("short") || type.startsWith("long") && !type.equals("long double")
+        || type.startsWith("unsigned ") || isCharType(type);
+  }
+
+  /**
+   * Returns 32 or 64 for the unsigned integer types of that width and 0 for all other types.
+   * Unsigned char and short are promoted to int in operations, so they are not unsigned here.
+   */
+  private static int unsignedWidth(String type) {
+    if (type == null) {
+      return 0;
+    }
+    String baseType = type.replace("const ", "").trim();
+    if (!baseType.startsWith("unsigned") || isCharType(baseType)
+        || baseType.startsWith("unsigned short")) {
+      return 0;
+    }
+    return baseType.startsWith("unsigned long") ? 64 : 32;
+  }
+
+  /**
+   * Returns the width of the unsigned type of an expression, which is the declared type of a
+   * variable, the type of a cast, the suffix of a literal or the widest type of the operands of an
+   * arithmetic operation.
+   */
+  private int unsignedWidth(Expression expr) {
+    if (expr instanceof Variable) {
+      return unsignedWidth(getVariableType(((Variable) expr).getName()));
+    }
+    if (expr instanceof Constant) {
+      // floating point suffixes and hexadecimal digits contain no u
+      String value = ((Constant) expr).getValue();
+      if (value.isEmpty() || !Character.isDigit(value.charAt(0))) {
+        return 0;
+      }
+      boolean unsigned = false;
+      boolean isLong = false;
+      for (int i = value.length() - 1; i > 0; i--) {
+        char c = Character.toLowerCase(value.charAt(i));
+        if (c == 'u') {
+          unsigned = true;
+        } else if (c == 'l') {
+          isLong = true;
+        } else {
+          break;
+        }
+      }
+      return unsigned ? (isLong ? 64 : 32) : 0;
+    }
+    if (!(expr instanceof Operation)) {
+      return 0;
+    }
+    List<Expression> args = ((Operation) expr).getArgs();
+    switch (((Operation) expr).getOpcode()) {
+      case CAST:
+        return args.get(0) instanceof Constant
+            ? unsignedWidth(((Constant) args.get(0)).getValue()) : 0;
+      case SUBSCRIPT:
+        return args.get(0) instanceof Variable
+            ? unsignedWidth(elementType(getVariableType(((Variable) args.get(0)).getName()))) : 0;
+      case SHIFT_LEFT:
+      case SHIFT_RIGHT:
+      case BITWISE_NOT:
+        return unsignedWidth(args.get(0));
+      case PLUS:
+      case MINUS:
+      case STAR:
+      case SLASH:
+      case PERCENT:
+      case AMPERSAND:
+      case BITWISE_OR:
+      case BITWISE_XOR: {
+        int width = 0;
+        for (Expression arg : args) {
+          width = Math.max(width, unsignedWidth(arg));
+        }
+        return width;
+      }
+      default:
+        return 0;
+    }
+  }
+
+  private static String elementType(String type) {
+    return type == null ? null : type.replace("[]", "");
+  }
+
+  /**
+   * Returns the rank of the type of an integer operand, from its static type if that is unsigned
+   * and from its value otherwise.
+   */
+  private int rank(Expression expr, Object value) {
+    int width = unsignedWidth(expr);
+    if (width == 64) {
+      return UNSIGNED_LONG;
+    }
+    if (width == 32) {
+      return UNSIGNED_INT;
+    }
+    return value instanceof Long ? LONG : INT;
+  }
+
+  private static boolean isFloatType(String type) {
+    return type.equals("float") || type.equals("double") || type.equals("long double");
+  }
+
+  /**
+   * Parses the longest numeric prefix of an input like scanf does, e.g., "1.0" read as int is 1.
+   */
+  private static Object parseNumber(String text, String type) {
+    Matcher matcher = (isFloatType(type) ? FLOAT_PREFIX : INTEGER_PREFIX).matcher(text.trim());
+    if (!matcher.lookingAt()) {
+      throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+          "Cannot convert '%s' to %s", text, type);
+    }
+    String number = matcher.group();
+    if (isFloatType(type)) {
+      return Double.parseDouble(number);
+    }
+    return Long.parseLong(number.startsWith("+") ? number.substring(1) : number);
+  }
+
+  @Override
+  public Object executeConstant(Constant constant, Memory memory) {
+    String value = constant.getValue();
+    if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+      return unescape(value.substring(1, value.length() - 1));
+    }
+    if (value.length() >= 3 && value.startsWith("'") && value.endsWith("'")) {
+      String c = unescape(value.substring(1, value.length() - 1));
+      return c.isEmpty() ? 0 : (int) c.charAt(0);
+    }
+    Object number = parseLiteral(value);
+    return number == null ? value : number;
+  }
+
+  /**
+   * Returns the literal of a number or string. Booleans, arrays and pointers have no literal.
+   */
+  @Override
+  public String toLiteral(Object value) {
+    if (value instanceof Integer) {
+      return value.toString();
+    }
+    if (value instanceof Long) {
+      return value + "L";
+    }
+    if (value instanceof Double) {
+      double d = (Double) value;
+      return Double.isNaN(d) || Double.isInfinite(d) ? null : Double.toString(d);
+    }
+    if (!(value instanceof String) || UtilFunctions.isUndefined(value)) {
+      return null;
+    }
+    StringBuilder sb = new StringBuilder("\"");
+    for (char c : ((String) value).toCharArray()) {
+      if (c == '"' || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c == '\n') {
+        sb.append("\\n");
+      } else if (c == '\t') {
+        sb.append("\\t");
+      } else if (c < ' ' || c == 0x7f) {
+        // octal escapes end after three digits, unlike hexadecimal ones
+        sb.append(String.format("\\%03o", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append('"').toString();
+  }
+
+  /**
+   * Parses an integer or floating point literal including C suffixes, e.g., 10u, 0x1F or 1.5f.
+   */
+  private static Object parseLiteral(String value) {
+    if (value.isEmpty() || !(Character.isDigit(value.charAt(0)) || value.charAt(0) == '.'
+        || value.charAt(0) == '-' && value.length() > 1)) {
+      return null;
+    }
+    String lower = value.toLowerCase();
+    boolean hex = lower.startsWith("0x") || lower.startsWith("-0x");
+    try {
+      if (!hex && (lower.contains(".") || lower.contains("e"))) {
+        return Double.parseDouble(lower.replaceAll("[fl]+$", ""));
+      }
+      String digits = lower.replaceAll("[ul]+$", "");
+      long number;
+      if (hex) {
+        number = Long.parseLong(digits.replace("0x", ""), 16);
+      } else if (digits.length() > 1 && digits.startsWith("0")) {
+        number = Long.parseLong(digits, 8);
+      } else {
+        number = Long.parseLong(digits);
+      }
+      if (lower.contains("l") || number > Integer.MAX_VALUE || number < Integer.MIN_VALUE) {
+        return number;
+      }
+      return (int) number;
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  private static String unescape(String s) {
+    if (s.indexOf('\\') < 0) {
+      return s;
+    }
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c != '\\' || i + 1 >= s.length()) {
+        sb.append(c);
+        continue;
+      }
+      char next = s.charAt(++i);
+      switch (next) {
+        case 'n':
+          sb.append('\n');
+          break;
+        case 't':
+          sb.append('\t');
+          break;
+        case 'r':
+          sb.append('\r');
+          break;
+        case 'a':
+          sb.append('\u0007');
+          break;
+        case 'b':
+          sb.append('\b');
+          break;
+        case 'f':
+          sb.append('\f');
+          break;
+        case 'v':
+          sb.append('\u000B');
+          break;
+        case 'x': {
+          int end = i + 1;
+          while (end < s.length() && Character.digit(s.charAt(end), 16) >= 0) {
+            end++;
+          }
+          sb.append((char) Integer.parseInt(s.substring(i + 1, end), 16));
+          i = end - 1;
+          break;
+        }
+        default:
+          if (next >= '0' && next <= '7') {
+            int end = i;
+            while (end < s.length() && end < i + 3 && s.charAt(end) >= '0'
+                && s.charAt(end) <= '7') {
+              end++;
+            }
+            sb.append((char) Integer.parseInt(s.substring(i, end), 8));
+            i = end - 1;
+          } else {
+            sb.append(next);
+          }
+      }
+    }
+    return sb.toString();
+  }
+
+  @Override
+  public List<String> getSpecialOps() {
+    return SPECIAL_OPS;
+  }
+
+  @Override
+  public List<String> getUnaryOps() {
+    return UNARY_OPS;
+  }
+
+  @Override
+  public List<String> getBinaryOps() {
+    return BINARY_OPS;
+  }
+
+  @Override
+  public List<String> getSpecialFunctions() {
+    return Constants.FUNCS;
+  }
+
+  @Override
+  public boolean isTrue(Object cond) {
+    if (cond instanceof Boolean) {
+      return (Boolean) cond;
+    }
+    if (cond instanceof Number) {
+      return ((Number) cond).doubleValue() != 0;
+    }
+    if (cond instanceof Pointer) {
+      return true;
+    }
+    throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+        "Cannot use '%s' as condition", cond);
+  }
+
+  @Override
+  public Object executeSpecialOp(Operation op, Memory mem) {
+    List<Expression> args = op.getArgs();
+    switch (op.getOpcode()) {
+      case LOGICAL_AND:
+        for (Expression arg : args) {
+          if (!isTrue(execute(arg, mem))) {
+            return false;
+          }
+        }
+        return true;
+      case LOGICAL_OR:
+        for (Expression arg : args) {
+          if (isTrue(execute(arg, mem))) {
+            return true;
+          }
+        }
+        return false;
+      case STRING_APPEND: {
+        Object target = execute(args.get(0), mem);
+        Object suffix = execute(args.get(1), mem);
+        String prefix = UtilFunctions.isUndefined(target) ? "" : String.valueOf(target);
+        return prefix + suffix;
+      }
+      case STRING_FORMAT: {
+        Object format = execute(args.get(0), mem);
+        List<Object> values = new ArrayList<>();
+        for (int i = 1; i < args.size(); i++) {
+          values.add(execute(args.get(i), mem));
+        }
+        return PrintfFormatter.format(String.valueOf(format), values);
+      }
+      case ARRAY_CREATE: {
+        int[] dimensions = new int[args.size()];
+        for (int i = 0; i < args.size(); i++) {
+          dimensions[i] = (int) toLong(execute(args.get(i), mem), op.getName());
+        }
+        return createArray(dimensions, 0);
+      }
+      case ARRAY_DECLARATION:
+        return executeArrayDeclaration(op, mem);
+      case ARRAY_ASSIGN:
+        return executeArrayAssign(op, mem);
+      case SUBSCRIPT: {
+        Object value = execute(args.get(0), mem);
+        for (int i = 1; i < args.size(); i++) {
+          Object[] array = asArray(value);
+          value = array[index(array, execute(args.get(i), mem))];
+        }
+        return value;
+      }
+      case CAST: {
+        Object type = args.get(0) instanceof Constant ? ((Constant) args.get(0)).getValue()
+            : execute(args.get(0), mem);
+        return convert(execute(args.get(1), mem), String.valueOf(type));
+      }
+      default:
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Unknown operator: '%s'", op.getName());
+    }
+  }
+
+  private static Object[] createArray(int[] dimensions, int depth) {
+    Object[] array = new Object[dimensions[depth]];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = depth + 1 < dimensions.length ? createArray(dimensions, depth + 1)
+          : Constants.UNDEFINED;
+    }
+    return array;
+  }
+
+  /**
+   * Executes ArrayDeclaration(array, type, elements...), which initializes the created array with
+   * the given elements and zero-fills the remaining elements.
+   */
+  private Object executeArrayDeclaration(Operation op, Memory mem) {
+    List<Expression> args = op.getArgs();
+    Object[] array = asArray(execute(args.get(0), mem)).clone();
+    String type = args.get(1) instanceof Constant ? ((Constant) args.get(1)).getValue()
+        : String.valueOf(execute(args.get(1), mem));
+    if (args.size() - 2 > array.length) {
+      throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+          "Too many initializers for array of size %d", array.length);
+    }
+    for (int i = 0; i < array.length; i++) {
+      Object element = i + 2 < args.size() ? execute(args.get(i + 2), mem) : 0;
+      array[i] = convert(element, type);
+    }
+    return array;
+  }
+
+  /**
+   * Executes ArrayAssign(array, indices..., value), which returns a copy of the array with the
+   * element at the given indices replaced.
+   */
+  private Object executeArrayAssign(Operation op, Memory mem) {
+    List<Expression> args = op.getArgs();
+    Object[] array = asArray(execute(args.get(0), mem));
+    List<Object> indices = new ArrayList<>();
+    for (int i = 1; i < args.size() - 1; i++) {
+      indices.add(execute(args.get(i), mem));
+    }
+    Object value = execute(args.get(args.size() - 1), mem);
+    return assign(array, indices, 0, value);
+  }
+
+  private Object[] assign(Object[] array, List<Object> indices, int depth, Object value) {
+    Object[] copy = array.clone();
+    int i = index(array, indices.get(depth));
+    copy[i] = depth + 1 < indices.size() ? assign(asArray(array[i]), indices, depth + 1, value)
+        : value;
+    return copy;
+  }
+
+  private static Object[] asArray(Object value) {
+    if (!(value instanceof Object[])) {
+      throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+          "Expected an array, got '%s'", value);
+    }
+    return (Object[]) value;
+  }
+
+  private static int index(Object[] array, Object index) {
+    long i = toLong(index, "[]");
+    if (i < 0 || i >= array.length) {
+      throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+          "Array index out of bounds: %d (size %d)", i, array.length);
+    }
+    return (int) i;
+  }
+
+  @Override
+  public Object executeUnaryOp(Opcode opcode, Expression arg, Memory mem) {
+    if (opcode == Opcode.AMPERSAND || opcode == Opcode.ADDRESS_OF) {
+      if (!(arg instanceof Variable)) {
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Cannot take the address of '%s'", arg);
+      }
+      return new Pointer(((Variable) arg).getName());
+    }
+
+    Object value = execute(arg, mem);
+    switch (opcode) {
+      case STAR: {
+        if (!(value instanceof Pointer)) {
+          throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+              "Cannot dereference '%s'", value);
+        }
+        String name = ((Pointer) value).getVariable();
+        String primed = Variable.asPrimedVariableName(name);
+        return mem.containsKey(primed) ? mem.get(primed) : mem.getOrDefault(name,
+            Constants.UNDEFINED);
+      }
+      case LOGICAL_NOT:
+        return !isTrue(value);
+      case MINUS: {
+        Object number = toNumber(value, opcode.getName());
+        if (number instanceof Double) {
+          return -(Double) number;
+        }
+        return wrap(arg, number instanceof Long ? (Object) (-(Long) number)
+            : (Object) (-(Integer) number));
+      }
+      case PLUS:
+        return toNumber(value, opcode.getName());
+      case BITWISE_NOT: {
+        Object number = toNumber(value, opcode.getName());
+        if (number instanceof Long) {
+          return wrap(arg, ~(Long) number);
+        }
+        if (number instanceof Integer) {
+          return wrap(arg, ~(Integer) number);
+        }
+        throw unsupported(opcode.getName(), value, null);
+      }
+      default:
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Unknown operator: '%s'", opcode.getName());
+    }
+  }
+
+  /**
+   * Wraps the result of a unary operation on an unsigned int around at 2^32.
+   */
+  private Object wrap(Expression arg, Object result) {
+    if (unsignedWidth(arg) != 32) {
+      return result;
+    }
+    return ((Number) result).longValue() & UNSIGNED_INT_MASK;
+  }
+
+  @Override
+  public Object executeBinaryOp(Opcode opcode, Expression arg1, Expression arg2, Memory mem) {
+    Object left = execute(arg1, mem);
+    Object right = execute(arg2, mem);
+
+    if ((opcode == Opcode.EQUAL || opcode == Opcode.NOT_EQUAL)
+        && (!isNumeric(left) || !isNumeric(right))) {
+      if (UtilFunctions.isUndefined(left) || UtilFunctions.isUndefined(right)) {
+        throw unsupported(opcode.getName(), left, right);
+      }
+      return (opcode == Opcode.EQUAL) == Objects.equals(left, right);
+    }
+
+    Object a = toNumber(left, opcode.getName());
+    Object b = toNumber(right, opcode.getName());
+    if (a instanceof Double || b instanceof Double) {
+      return doubleOp(opcode, ((Number) a).doubleValue(), ((Number) b).doubleValue(), left, right);
+    }
+    // the type of a shift is the type of its left operand
+    int rank = rank(arg1, a);
+    if (opcode != Opcode.SHIFT_LEFT && opcode != Opcode.SHIFT_RIGHT) {
+      rank = Math.max(rank, rank(arg2, b));
+    }
+    if (rank == UNSIGNED_INT) {
+      Object result = longOp(opcode, ((Number) a).longValue() & UNSIGNED_INT_MASK,
+          ((Number) b).longValue() & UNSIGNED_INT_MASK);
+      return result instanceof Long ? (Object) ((Long) result & UNSIGNED_INT_MASK) : result;
+    }
+    if (rank == UNSIGNED_LONG) {
+      return unsignedLongOp(opcode, ((Number) a).longValue(), ((Number) b).longValue());
+    }
+    if (a instanceof Long || b instanceof Long) {
+      return longOp(opcode, ((Number) a).longValue(), ((Number) b).longValue());
+    }
+    Object result = longOp(opcode, (Integer) a, (Integer) b);
+    if (result instanceof Long) {
+      return ((Long) result).intValue();
+    }
+    return result;
+  }
+
+  private Object doubleOp(Opcode opcode, double a, double b, Object left, Object right) {
+    switch (opcode) {
+      case PLUS:
+        return a + b;
+      case MINUS:
+        return a - b;
+      case STAR:
+        return a * b;
+      case SLASH:
+        return a / b;
+      case LESS:
+        return a < b;
+      case LESS_EQUAL:
+        return a <= b;
+      case GREATER:
+        return a > b;
+      case GREATER_EQUAL:
+        return a >= b;
+      case EQUAL:
+        return a == b;
+      case NOT_EQUAL:
+        return a != b;
+      default:
+        throw unsupported(opcode.getName(), left, right);
+    }
+  }
+
+  /**
+   * Executes integer operations in long arithmetic. Results of int operations are narrowed by the
+   * caller, which gives the wrap-around behavior of 32-bit integers.
+   */
+  private static Object longOp(Opcode opcode, long a, long b) {
+    switch (opcode) {
+      case PLUS:
+        return a + b;
+      case MINUS:
+        return a - b;
+      case STAR:
+        return a * b;
+      case SLASH:
+        checkDivisor(b);
+        return a / b;
+      case PERCENT:
+        checkDivisor(b);
+        return a % b;
+      case LESS:
+        return a < b;
+      case LESS_EQUAL:
+        return a <= b;
+      case GREATER:
+        return a > b;
+      case GREATER_EQUAL:
+        return a >= b;
+      case EQUAL:
+        return a == b;
+      case NOT_EQUAL:
+        return a != b;
+      case AMPERSAND:
+        return a & b;
+      case BITWISE_OR:
+        return a | b;
+      case BITWISE_XOR:
+        return a ^ b;
+      case SHIFT_LEFT:
+        return a << b;
+      case SHIFT_RIGHT:
+        return a >> b;
+      default:
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Unknown operator: '%s'", opcode.getName());
+    }
+  }
+
+  /**
+   * Executes operations on unsigned long values, which differ from the signed operations in
+   * comparisons, divisions and right shifts.
+   */
+  private static Object unsignedLongOp(Opcode opcode, long a, long b) {
+    switch (opcode) {
+      case SLASH:
+        checkDivisor(b);
+        return Long.divideUnsigned(a, b);
+      case PERCENT:
+        checkDivisor(b);
+        return Long.remainderUnsigned(a, b);
+      case LESS:
+        return Long.compareUnsigned(a, b) < 0;
+      case LESS_EQUAL:
+        return Long.compareUnsigned(a, b) <= 0;
+      case GREATER:
+        return Long.compareUnsigned(a, b) > 0;
+      case GREATER_EQUAL:
+        return Long.compareUnsigned(a, b) >= 0;
+      case SHIFT_RIGHT:
+        return a >>> b;
+      default:
+        return longOp(opcode, a, b);
+    }
+  }
+
+  private static void checkDivisor(long divisor) {
+    if (divisor == 0) {
+      throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR, "Division by zero");
+    }
+  }
+
+  private static boolean isNumeric(Object value) {
+    return value instanceof Number || value instanceof Boolean;
+  }
+
+  /**
+   * Applies the usual arithmetic conversions to an operand, i.e., Booleans become int values.
+   */
+  private static Object toNumber(Object value, String opname) {
+    if (value instanceof Boolean) {
+      return (Boolean) value ? 1 : 0;
+    }
+    if (value instanceof Integer || value instanceof Long || value instanceof Double) {
+      return value;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    throw unsupported(opname, value, null);
+  }
+
+  private static long toLong(Object value, String opname) {
+    Object number = toNumber(value, opname);
+    if (number instanceof Double) {
+      throw unsupported(opname, value, null);
+    }
+    return ((Number) number).longValue();
+  }
+
+  private static InterpretationException unsupported(String opname, Object left, Object right) {
+    if (right == null) {
+      return new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+          "Unsupported operand for '%s': %s", opname, left);
+    }
+    return new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+        "Unsupported operands for '%s': %s and %s", opname, left, right);
+  }
+
+  @Override
+  public Object executeSpecialFunction(String fncname, List<Object> args, Memory mem) {
+    int arity = fncname.equals("pow") ? 2 : 1;
+    if (args.size() != arity) {
+      throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+          "Wrong number of args: expected %s, got %s", arity, args.size());
+    }
+    double x = ((Number) toNumber(args.get(0), fncname)).doubleValue();
+    switch (fncname) {
+      case "floor":
+        return Math.floor(x);
+      case "ceil":
+        return Math.ceil(x);
+      case "pow":
+        return Math.pow(x, ((Number) toNumber(args.get(1), fncname)).doubleValue());
+      case "abs": {
+        Object number = toNumber(args.get(0), fncname);
+        return number instanceof Long ? (Object) Math.abs((Long) number)
+            : (Object) (int) Math.abs(((Number) number).longValue());
+      }
+      case "sqrt":
+        return Math.sqrt(x);
+      case "log2":
+        return Math.log(x) / Math.log(2);
+      case "log10":
+        return Math.log10(x);
+      case "log":
+        return Math.log(x);
+      case "exp":
+        return Math.exp(x);
+      default:
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Unknown function: '%s'", fncname);
+    }
+  }
+
+  /**
+   * Value of a pointer to a variable, as created by the address-of operator.
+   */
+  public static final class Pointer implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String variable;
+
+    public Pointer(String variable) {
+      this.variable = variable;
+    }
+
+    public String getVariable() {
+      return variable;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      return o instanceof Pointer && ((Pointer) o).variable.equals(variable);
+    }
+
+    @Override
+    public int hashCode() {
+      return variable.hashCode();
+    }
+
+    /**
+     * Returns a stable pseudo address of the variable, which is how %p prints pointers.
+     */
+    @Override
+    public String toString() {
+      return String.format("0x7ffc%08x", variable.hashCode());
+    }
+  }
+}
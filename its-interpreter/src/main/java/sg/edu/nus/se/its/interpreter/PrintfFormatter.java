@@ -0,0 +1,282 @@
+package sg.edu.nus.se.its.interpreter;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Function;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Formats values like the printf function of the C standard library. Java's Formatter differs from
+ * C in several details, e.g., length modifiers, %i, %u, %g and the representation of non-finite
+ * numbers, which are handled here.
+ */
+public final class PrintfFormatter {
+
+  private PrintfFormatter() {}
+
+  /**
+   * Formats the arguments according to the C format string.
+   *
+   * @param format -- printf format string
+   * @param args -- values of the arguments
+   * @return formatted string
+   */
+  public static String format(String format, List<Object> args) {
+    return format(format, args, String::valueOf);
+  }
+
+  /**
+   * Formats the arguments according to the printf format string, where %s formats the values with
+   * the given function.
+   *
+   * @param format -- printf format string
+   * @param args -- values of the arguments
+   * @param toText -- string representation of values, e.g., str() in Python
+   * @return formatted string
+   */
+  public static String format(String format, List<Object> args, Function<Object, String> toText) {
+    StringBuilder sb = new StringBuilder();
+    int argIndex = 0;
+    int i = 0;
+    while (i < format.length()) {
+      char c = format.charAt(i++);
+      if (c != '%') {
+        sb.append(c);
+        continue;
+      }
+      if (i < format.length() && format.charAt(i) == '%') {
+        sb.append('%');
+        i++;
+        continue;
+      }
+
+      StringBuilder flags = new StringBuilder();
+      while (i < format.length() && "-+ #0".indexOf(format.charAt(i)) >= 0) {
+        flags.append(format.charAt(i++));
+      }
+      Integer width = null;
+      if (i < format.length() && format.charAt(i) == '*') {
+        width = toInt(argument(args, argIndex++));
+        i++;
+      } else {
+        int start = i;
+        while (i < format.length() && Character.isDigit(format.charAt(i))) {
+          i++;
+        }
+        width = start == i ? null : Integer.parseInt(format.substring(start, i));
+      }
+      Integer precision = null;
+      if (i < format.length() && format.charAt(i) == '.') {
+        i++;
+        if (i < format.length() && format.charAt(i) == '*') {
+          precision = toInt(argument(args, argIndex++));
+          i++;
+        } else {
+          int start = i;
+          while (i < format.length() && Character.isDigit(format.charAt(i))) {
+            i++;
+          }
+          precision = start == i ? 0 : Integer.parseInt(format.substring(start, i));
+        }
+      }
+      while (i < format.length() && "hlLqjzt".indexOf(format.charAt(i)) >= 0) {
+        i++;
+      }
+      if (i >= format.length()) {
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Incomplete format specifier in '%s'", format);
+      }
+      char conversion = format.charAt(i++);
+      if (conversion == 'n') {
+        argIndex++;
+        continue;
+      }
+
+      Object value = argument(args, argIndex++);
+      String text = conversion == 's' ? truncate(toText.apply(value), precision)
+          : convert(conversion, flags.toString(), precision, value, format);
+      sb.append(pad(text, flags.toString(), width, conversion));
+    }
+    return sb.toString();
+  }
+
+  private static Object argument(List<Object> args, int index) {
+    if (index >= args.size()) {
+      throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+          "Too few arguments for format string");
+    }
+    Object value = args.get(index);
+    if (Constants.UNDEFINED.equals(value)) {
+      throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+          "Undefined value passed to format string");
+    }
+    return value;
+  }
+
+  private static String convert(char conversion, String flags, Integer precision, Object value,
+      String format) {
+    String javaFlags = flags.replace("0", "").replace("-", "");
+    switch (conversion) {
+      case 'd':
+      case 'i': {
+        String digits = Long.toString(Math.abs(toLong(value)));
+        if (precision != null) {
+          digits = zeros(precision - digits.length()) + digits;
+        }
+        return sign(toLong(value) < 0, flags) + digits;
+      }
+      case 'u':
+        return Long.toUnsignedString(toLong(value) & 0xFFFFFFFFL);
+      case 'o':
+      case 'x':
+      case 'X': {
+        long bits = value instanceof Long ? (Long) value : toLong(value) & 0xFFFFFFFFL;
+        String digits = conversion == 'o' ? Long.toOctalString(bits) : Long.toHexString(bits);
+        if (precision != null) {
+          digits = zeros(precision - digits.length()) + digits;
+        }
+        if (flags.indexOf('#') >= 0 && bits != 0) {
+          digits = (conversion == 'o' ? "0" : "0x") + digits;
+        }
+        return conversion == 'X' ? digits.toUpperCase(Locale.ROOT) : digits;
+      }
+      case 'f':
+      case 'F':
+      case 'e':
+      case 'E': {
+        double d = toDouble(value);
+        if (!Double.isFinite(d)) {
+          return nonFinite(d, flags, Character.isUpperCase(conversion));
+        }
+        int p = precision == null ? 6 : precision;
+        String pattern = "%" + javaFlags + "." + p + Character.toLowerCase(conversion);
+        String text = String.format(Locale.ROOT, pattern, d);
+        return Character.isUpperCase(conversion) ? text.toUpperCase(Locale.ROOT) : text;
+      }
+      case 'g':
+      case 'G':
+        return formatGeneral(toDouble(value), flags, precision, Character.isUpperCase(conversion));
+      case 'c':
+        return String.valueOf((char) (toLong(value) & 0xFF));
+      case 'p':
+        if (value instanceof Number) {
+          long address = ((Number) value).longValue();
+          return address == 0 ? "(nil)" : "0x" + Long.toHexString(address);
+        }
+        return String.valueOf(value);
+      default:
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Unsupported format specifier '%%%c' in '%s'", conversion, format);
+    }
+  }
+
+  private static String truncate(String s, Integer precision) {
+    return precision != null && precision < s.length() ? s.substring(0, precision) : s;
+  }
+
+  /**
+   * Implements %g, which uses the shorter of %e and %f and removes trailing zeros.
+   */
+  private static String formatGeneral(double d, String flags, Integer precision,
+      boolean upperCase) {
+    if (!Double.isFinite(d)) {
+      return nonFinite(d, flags, upperCase);
+    }
+    int p = precision == null ? 6 : Math.max(precision, 1);
+    String javaFlags = flags.replace("0", "").replace("-", "").replace("#", "");
+    String exponential = String.format(Locale.ROOT, "%" + javaFlags + "." + (p - 1) + "e", d);
+    int exponent = Integer.parseInt(exponential.substring(exponential.indexOf('e') + 1));
+    String text;
+    if (exponent < p && exponent >= -4) {
+      text = String.format(Locale.ROOT, "%" + javaFlags + "." + (p - 1 - exponent) + "f", d);
+      if (flags.indexOf('#') < 0) {
+        text = stripZeros(text);
+      }
+    } else {
+      text = exponential;
+      if (flags.indexOf('#') < 0) {
+        int e = text.indexOf('e');
+        text = stripZeros(text.substring(0, e)) + text.substring(e);
+      }
+    }
+    return upperCase ? text.toUpperCase(Locale.ROOT) : text;
+  }
+
+  private static String stripZeros(String text) {
+    if (text.indexOf('.') < 0) {
+      return text;
+    }
+    int end = text.length();
+    while (text.charAt(end - 1) == '0') {
+      end--;
+    }
+    if (text.charAt(end - 1) == '.') {
+      end--;
+    }
+    return text.substring(0, end);
+  }
+
+  private static String nonFinite(double d, String flags, boolean upperCase) {
+    String text = Double.isNaN(d) ? "nan" : sign(d < 0, flags) + "inf";
+    return upperCase ? text.toUpperCase(Locale.ROOT) : text;
+  }
+
+  private static String sign(boolean negative, String flags) {
+    if (negative) {
+      return "-";
+    }
+    if (flags.indexOf('+') >= 0) {
+      return "+";
+    }
+    return flags.indexOf(' ') >= 0 ? " " : "";
+  }
+
+  private static String pad(String text, String flags, Integer width, char conversion) {
+    if (width == null || text.length() >= width) {
+      return text;
+    }
+    int missing = width - text.length();
+    if (flags.indexOf('-') >= 0) {
+      return text + " ".repeat(missing);
+    }
+    if (flags.indexOf('0') >= 0 && "diuoxXfFeEgG".indexOf(conversion) >= 0
+        && Character.isDigit(text.charAt(text.length() - 1))) {
+      int signLength = text.startsWith("-") || text.startsWith("+") || text.startsWith(" ") ? 1 : 0;
+      if (text.startsWith("0x", signLength) || text.startsWith("0X", signLength)) {
+        signLength += 2;
+      }
+      return text.substring(0, signLength) + zeros(missing) + text.substring(signLength);
+    }
+    return " ".repeat(missing) + text;
+  }
+
+  private static String zeros(int count) {
+    return count > 0 ? "0".repeat(count) : "";
+  }
+
+  private static long toLong(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).longValue();
+    }
+    if (value instanceof Boolean) {
+      return (Boolean) value ? 1 : 0;
+    }
+    if (value instanceof Character) {
+      return (Character) value;
+    }
+    throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+        "Expected an integer for format string, got '%s'", value);
+  }
+
+  private static int toInt(Object value) {
+    return (int) toLong(value);
+  }
+
+  private static double toDouble(Object value) {
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue();
+    }
+    throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+        "Expected a floating point number for format string, got '%s'", value);
+  }
+}
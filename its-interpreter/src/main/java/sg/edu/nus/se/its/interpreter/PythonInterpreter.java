@@ -0,0 +1,1120 @@
+package sg.edu.nus.se.its.interpreter;
+
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.compare;
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.elements;
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.equal;
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.error;
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.isIntegral;
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.isNumber;
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.isTruthy;
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.normalize;
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.repr;
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.str;
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.toBigInteger;
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.toDouble;
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.toLong;
+import static sg.edu.nus.se.its.interpreter.python.PythonValues.typeName;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import sg.edu.nus.se.its.interpreter.python.PythonDict;
+import sg.edu.nus.se.its.interpreter.python.PythonList;
+import sg.edu.nus.se.its.interpreter.python.PythonNone;
+import sg.edu.nus.se.its.interpreter.python.PythonSet;
+import sg.edu.nus.se.its.interpreter.python.PythonTuple;
+import sg.edu.nus.se.its.interpreter.python.PythonValues;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Opcode;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.util.UtilFunctions;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Concrete interpreter for program models of Python programs, which runs in-process. The
+ * representation of Python values is described in {@link PythonValues}.
+ *
+ * <p>Methods of sequences are modeled as functions whose first argument is the receiver, e.g.,
+ * {@code append(list, x)}. Methods that modify the receiver return the modified copy, all other
+ * methods return their result. {@code Slice(seq, lower, upper[, step])} slices a sequence, where
+ * omitted bounds are None, and {@code StrFormat(format, args...)} implements the printf-style
+ * formatting of the % operator.
+ */
+public class PythonInterpreter extends AbstractInterpreter {
+
+  private static final List<String> UNARY_OPS =
+      new ArrayList<>(Constants.UNARY_OPS_PYTHON.keySet());
+
+  private static final List<String> BINARY_OPS = Constants.BINARY_OPS_PYTHON.keySet().stream()
+      .filter(op -> !op.equals("And") && !op.equals("Or")).collect(Collectors.toList());
+
+  private static final List<String> SPECIAL_OPS = Arrays.asList("And", "Or", "print");
+
+  private static final Set<Opcode> BITWISE_OPS =
+      EnumSet.of(Opcode.BIT_AND, Opcode.BIT_OR, Opcode.BIT_XOR);
+
+  private static final List<String> BUILTINS = Arrays.asList("bool", "range", "min", "max",
+      "sum", "sorted", "round", "GetElement", "AssignElement", "Slice",
+      Constants.STRING_FORMAT, Constants.STRING_APPEND);
+
+  private static final List<String> SPECIAL_FUNCTIONS = Stream.of(
+      Constants.FUNCS_UNARY_PYTHON, BUILTINS, Constants.SEQ_BINARY_FUNCS_PYTHON,
+      Constants.SEQ_BINARY_ASSIGN_FUNCS_PYTHON, Constants.SEQ_TERNARY_FUNCS_PYTHON,
+      Constants.SEQ_UNARY_FUNCS_PYTHON, Constants.SEQ_UNARY_ASSIGN_FUNCS_PYTHON,
+      new ArrayList<>(Constants.SEQ_INIT_PYTHON.keySet()))
+      .flatMap(List::stream).distinct().collect(Collectors.toList());
+
+  public PythonInterpreter() {
+    super();
+  }
+
+  public PythonInterpreter(Integer timeout, String entryFunctionName) {
+    super(timeout, entryFunctionName);
+  }
+
+  /**
+   * Python is dynamically typed, so values are never converted. The types in the models of Python
+   * programs are merely hints, e.g., the iterator of a loop over a list is typed int.
+   */
+  @Override
+  public Object convert(Object value, String type) {
+    return value;
+  }
+
+  /**
+   * Arguments of the entry function are Python literals, e.g., "10" or "[1, 2]". Other arguments
+   * are passed as strings.
+   */
+  @Override
+  protected Object convertArgument(String arg, String type) {
+    Object value = PythonValues.parseLiteral(arg);
+    return value == null ? arg : value;
+  }
+
+  @Override
+  public Object executeConstant(Constant constant, Memory memory) {
+    String value = constant.getValue();
+    switch (value) {
+      case "True":
+        return true;
+      case "False":
+        return false;
+      case "None":
+        return PythonNone.NONE;
+      default:
+        break;
+    }
+    if (value.length() >= 2 && (value.charAt(0) == '\'' || value.charAt(0) == '"')
+        && value.charAt(value.length() - 1) == value.charAt(0)) {
+      return PythonValues.unescape(value.substring(1, value.length() - 1));
+    }
+    Object number = PythonValues.parseInt(value);
+    if (number == null && !value.matches("[+-]?[a-zA-Z]+")) {
+      number = PythonValues.parseFloat(value);
+    }
+    // anything else, e.g., the name of a called function, is a string
+    return number == null ? value : number;
+  }
+
+  /**
+   * Returns the repr of a number, bool, string or None. Containers have no literal.
+   */
+  @Override
+  public String toLiteral(Object value) {
+    if (value instanceof Double && !Double.isFinite((Double) value)) {
+      return null;
+    }
+    if (isNumber(value) || value instanceof PythonNone
+        || value instanceof String && !UtilFunctions.isUndefined(value)) {
+      return repr(value);
+    }
+    return null;
+  }
+
+  @Override
+  public List<String> getSpecialOps() {
+    return SPECIAL_OPS;
+  }
+
+  @Override
+  public List<String> getUnaryOps() {
+    return UNARY_OPS;
+  }
+
+  @Override
+  public List<String> getBinaryOps() {
+    return BINARY_OPS;
+  }
+
+  @Override
+  public List<String> getSpecialFunctions() {
+    return SPECIAL_FUNCTIONS;
+  }
+
+  @Override
+  public boolean isTrue(Object cond) {
+    return isTruthy(cond);
+  }
+
+  /**
+   * Python functions without a return statement return None.
+   */
+  @Override
+  protected Object executeFuncCall(Operation op, Memory mem) {
+    Object result = super.executeFuncCall(op, mem);
+    return UtilFunctions.isUndefined(result) ? PythonNone.NONE : result;
+  }
+
+  @Override
+  public Object executeSpecialOp(Operation op, Memory mem) {
+    List<Expression> args = op.getArgs();
+    switch (op.getOpcode()) {
+      case AND:
+      case OR: {
+        // both operators short-circuit and return the value of the operand that decided
+        boolean isAnd = op.getOpcode() == Opcode.AND;
+        Object value = null;
+        for (Expression arg : args) {
+          value = defined(execute(arg, mem));
+          if (isTruthy(value) != isAnd) {
+            return value;
+          }
+        }
+        return value;
+      }
+      case PRINT: {
+        Object out = mem.get(Constants.VAR_OUT);
+        StringBuilder sb = new StringBuilder(UtilFunctions.isUndefined(out) ? "" : (String) out);
+        for (int i = 0; i < args.size(); i++) {
+          sb.append(i == 0 ? "" : " ").append(str(defined(execute(args.get(i), mem))));
+        }
+        return sb.append('\n').toString();
+      }
+      default:
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Unknown operator: '%s'", op.getName());
+    }
+  }
+
+  @Override
+  public Object executeUnaryOp(Opcode opcode, Expression arg, Memory mem) {
+    Object value = defined(execute(arg, mem));
+    if (opcode == Opcode.NOT) {
+      return !isTruthy(value);
+    }
+    if (!isNumber(value)) {
+      throw error("TypeError", "bad operand type for unary %s: '%s'",
+          opcode.getSymbol(), typeName(value));
+    }
+    switch (opcode) {
+      case UADD:
+        return value instanceof Boolean ? normalize(toLong(value)) : value;
+      case USUB:
+        return value instanceof Double ? -(Double) value
+            : normalize(toBigInteger(value).negate());
+      case INVERT:
+        if (value instanceof Double) {
+          throw error("TypeError", "bad operand type for unary ~: 'float'");
+        }
+        return normalize(toBigInteger(value).not());
+      default:
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Unknown unary operator: '%s'", opcode.getName());
+    }
+  }
+
+  @Override
+  public Object executeBinaryOp(Opcode opcode, Expression arg1, Expression arg2, Memory mem) {
+    return binaryOp(opcode, defined(execute(arg1, mem)), defined(execute(arg2, mem)));
+  }
+
+  private Object binaryOp(Opcode opcode, Object a, Object b) {
+    switch (opcode) {
+      case EQ:
+        return equal(a, b);
+      case NOT_EQ:
+        return !equal(a, b);
+      case LT:
+        return compare(a, b, "<") < 0;
+      case LT_E:
+        return compare(a, b, "<=") <= 0;
+      case GT:
+        return compare(a, b, ">") > 0;
+      case GT_E:
+        return compare(a, b, ">=") >= 0;
+      case IS:
+        return PythonValues.identical(a, b);
+      case IS_NOT:
+        return !PythonValues.identical(a, b);
+      case IN:
+        return PythonValues.contains(b, a);
+      case NOT_IN:
+        return !PythonValues.contains(b, a);
+      default:
+        break;
+    }
+    if (isNumber(a) && isNumber(b)) {
+      if (a instanceof Double || b instanceof Double) {
+        return floatOp(opcode, a, b);
+      }
+      if (a instanceof Boolean && b instanceof Boolean && BITWISE_OPS.contains(opcode)) {
+        return intOp(opcode, a, b).equals(1);
+      }
+      return intOp(opcode, a, b);
+    }
+    return sequenceOp(opcode, a, b);
+  }
+
+  private static Object intOp(Opcode opcode, Object a, Object b) {
+    if (!(a instanceof BigInteger) && !(b instanceof BigInteger)) {
+      long x = toLong(a);
+      long y = toLong(b);
+      try {
+        switch (opcode) {
+          case ADD:
+          case AUG_ADD:
+            return normalize(Math.addExact(x, y));
+          case SUB:
+            return normalize(Math.subtractExact(x, y));
+          case MULT:
+            return normalize(Math.multiplyExact(x, y));
+          default:
+            break;
+        }
+      } catch (ArithmeticException e) {
+        // overflow, fall back to arbitrary precision
+      }
+    }
+    BigInteger x = toBigInteger(a);
+    BigInteger y = toBigInteger(b);
+    switch (opcode) {
+      case ADD:
+      case AUG_ADD:
+        return normalize(x.add(y));
+      case SUB:
+        return normalize(x.subtract(y));
+      case MULT:
+        return normalize(x.multiply(y));
+      case DIV:
+        if (y.signum() == 0) {
+          throw error("ZeroDivisionError", "division by zero");
+        }
+        return toDouble(x) / toDouble(y);
+      case FLOOR_DIV:
+      case MOD: {
+        if (y.signum() == 0) {
+          throw error("ZeroDivisionError", opcode == Opcode.MOD ? "integer modulo by zero"
+              : "integer division or modulo by zero");
+        }
+        BigInteger[] qr = x.divideAndRemainder(y);
+        if (qr[1].signum() != 0 && qr[1].signum() != y.signum()) {
+          // Python rounds towards negative infinity
+          qr[0] = qr[0].subtract(BigInteger.ONE);
+          qr[1] = qr[1].add(y);
+        }
+        return normalize(opcode == Opcode.MOD ? qr[1] : qr[0]);
+      }
+      case POWER:
+        if (y.signum() < 0) {
+          return floatOp(opcode, x, y);
+        }
+        if (y.bitLength() >= Integer.SIZE) {
+          throw error("OverflowError", "exponent too large");
+        }
+        return normalize(x.pow(y.intValue()));
+      case LSHIFT:
+      case RSHIFT:
+        if (y.signum() < 0) {
+          throw error("ValueError", "negative shift count");
+        }
+        if (y.bitLength() >= Integer.SIZE) {
+          throw error("OverflowError", "shift count too large");
+        }
+        return normalize(opcode == Opcode.LSHIFT ? x.shiftLeft(y.intValue())
+            : x.shiftRight(y.intValue()));
+      case BIT_AND:
+        return normalize(x.and(y));
+      case BIT_OR:
+        return normalize(x.or(y));
+      case BIT_XOR:
+        return normalize(x.xor(y));
+      default:
+        throw unsupported(opcode, a, b);
+    }
+  }
+
+  private static Object floatOp(Opcode opcode, Object a, Object b) {
+    double x = toDouble(a);
+    double y = toDouble(b);
+    switch (opcode) {
+      case ADD:
+      case AUG_ADD:
+        return x + y;
+      case SUB:
+        return x - y;
+      case MULT:
+        return x * y;
+      case DIV:
+        if (y == 0) {
+          throw error("ZeroDivisionError", "float division by zero");
+        }
+        return x / y;
+      case FLOOR_DIV:
+        if (y == 0) {
+          throw error("ZeroDivisionError", "float floor division by zero");
+        }
+        return Math.floor(x / y);
+      case MOD: {
+        if (y == 0) {
+          throw error("ZeroDivisionError", "float modulo");
+        }
+        double r = x % y;
+        if (r != 0 && (r < 0) != (y < 0)) {
+          r += y;
+        }
+        return r == 0 ? Math.copySign(0.0, y) : r;
+      }
+      case POWER: {
+        if (x == 0 && y < 0) {
+          throw error("ZeroDivisionError", "0.0 cannot be raised to a negative power");
+        }
+        if (x < 0 && y != Math.rint(y)) {
+          throw error("ValueError", "complex results are not supported");
+        }
+        double result = Math.pow(x, y);
+        if (Double.isInfinite(result) && Double.isFinite(x) && Double.isFinite(y)) {
+          throw error("OverflowError", "(34, 'Numerical result out of range')");
+        }
+        return result;
+      }
+      default:
+        throw unsupported(opcode, a, b);
+    }
+  }
+
+  private Object sequenceOp(Opcode opcode, Object a, Object b) {
+    switch (opcode) {
+      case ADD:
+        if (a instanceof String && b instanceof String) {
+          return (String) a + b;
+        }
+        if (a instanceof PythonList && b instanceof PythonList) {
+          PythonList result = new PythonList((PythonList) a);
+          result.addAll((PythonList) b);
+          return result;
+        }
+        if (a instanceof PythonTuple && b instanceof PythonTuple) {
+          PythonTuple result = new PythonTuple((PythonTuple) a);
+          result.addAll((PythonTuple) b);
+          return result;
+        }
+        break;
+      case AUG_ADD:
+        if (a instanceof PythonList) {
+          // += extends a list with any iterable
+          PythonList result = new PythonList((PythonList) a);
+          result.addAll(elements(b));
+          return result;
+        }
+        return sequenceOp(Opcode.ADD, a, b);
+      case MULT:
+        if (isIntegral(a) && !isIntegral(b)) {
+          return sequenceOp(opcode, b, a);
+        }
+        if (isIntegral(b)) {
+          int times = (int) Math.max(0, Math.min(toLong(b), Integer.MAX_VALUE));
+          if (a instanceof String) {
+            reserve((long) times * ((String) a).length(), 1);
+            return ((String) a).repeat(times);
+          }
+          if (a instanceof PythonList || a instanceof PythonTuple) {
+            reserve((long) times * ((Collection<?>) a).size(), HeapSizeEstimator.REFERENCE);
+            List<Object> result = new ArrayList<>();
+            for (int i = 0; i < times; i++) {
+              result.addAll((Collection<?>) a);
+            }
+            return a instanceof PythonList ? new PythonList(result) : new PythonTuple(result);
+          }
+        }
+        break;
+      case MOD:
+        if (a instanceof String) {
+          List<Object> args = b instanceof PythonTuple ? (PythonTuple) b : List.of(b);
+          return PrintfFormatter.format((String) a, new ArrayList<>(args), PythonValues::str);
+        }
+        break;
+      case SUB:
+      case BIT_AND:
+      case BIT_OR:
+      case BIT_XOR:
+        if (a instanceof PythonSet && b instanceof PythonSet) {
+          return setOp(opcode, (PythonSet) a, (PythonSet) b);
+        }
+        break;
+      default:
+        break;
+    }
+    throw unsupported(opcode, a, b);
+  }
+
+  private static PythonSet setOp(Opcode opcode, PythonSet a, Collection<?> b) {
+    PythonSet result = new PythonSet();
+    switch (opcode) {
+      case SUB:
+        a.stream().filter(e -> !PythonValues.contains(b, e)).forEach(result::add);
+        break;
+      case BIT_AND:
+        a.stream().filter(e -> PythonValues.contains(b, e)).forEach(result::add);
+        break;
+      case BIT_OR:
+        result.addAll(a);
+        b.forEach(e -> addToSet(result, e));
+        break;
+      default:
+        a.stream().filter(e -> !PythonValues.contains(b, e)).forEach(result::add);
+        b.stream().filter(e -> !PythonValues.contains(a, e)).forEach(result::add);
+        break;
+    }
+    return result;
+  }
+
+  private static void addToSet(PythonSet set, Object value) {
+    if (!PythonValues.contains(set, value)) {
+      set.add(value);
+    }
+  }
+
+  private static InterpretationException unsupported(Opcode opcode, Object a, Object b) {
+    return error("TypeError", "unsupported operand type(s) for %s: '%s' and '%s'",
+        opcode.getSymbol(), typeName(a), typeName(b));
+  }
+
+  /**
+   * Guards against using a variable before it is assigned.
+   */
+  private static Object defined(Object value) {
+    if (UtilFunctions.isUndefined(value)) {
+      throw error("UnboundLocalError", "variable referenced before assignment");
+    }
+    return value;
+  }
+
+  @Override
+  public Object executeSpecialFunction(String fncname, List<Object> args, Memory mem) {
+    for (Object arg : args) {
+      defined(arg);
+    }
+    switch (fncname) {
+      case "ListInit":
+        return new PythonList(args);
+      case "TupleInit":
+        return new PythonTuple(args);
+      case "SetInit":
+        return toSet(args);
+      case "DictInit":
+        return toDict(args, fncname);
+      case "list":
+        checkArgs(fncname, args, 0, 1);
+        return args.isEmpty() ? new PythonList() : new PythonList(elements(args.get(0)));
+      case "tuple":
+        checkArgs(fncname, args, 0, 1);
+        return args.isEmpty() ? new PythonTuple() : new PythonTuple(elements(args.get(0)));
+      case "set":
+        checkArgs(fncname, args, 0, 1);
+        return args.isEmpty() ? new PythonSet() : toSet(elements(args.get(0)));
+      case "dict":
+        checkArgs(fncname, args, 0, 1);
+        if (args.isEmpty()) {
+          return new PythonDict();
+        }
+        return args.get(0) instanceof PythonDict ? new PythonDict((PythonDict) args.get(0))
+            : toDict(Collections.singletonList(new PythonList(elements(args.get(0)))), fncname);
+      case "GetElement":
+        checkArgs(fncname, args, 2, 2);
+        return getElement(args.get(0), args.get(1));
+      case "AssignElement":
+        checkArgs(fncname, args, 3, 3);
+        return assignElement(args.get(0), args.get(1), args.get(2));
+      case "Slice":
+        checkArgs(fncname, args, 3, 4);
+        return slice(args.get(0), args.get(1), args.get(2),
+            args.size() > 3 ? args.get(3) : PythonNone.NONE);
+      case Constants.STRING_FORMAT: {
+        checkArgs(fncname, args, 1, Integer.MAX_VALUE);
+        List<Object> values = args.subList(1, args.size());
+        if (values.size() == 1 && values.get(0) instanceof PythonTuple) {
+          values = (PythonTuple) values.get(0);
+        }
+        return PrintfFormatter.format(str(args.get(0)), new ArrayList<>(values),
+            PythonValues::str);
+      }
+      case Constants.STRING_APPEND:
+        return args.stream().map(PythonValues::str).collect(Collectors.joining());
+      case "input": {
+        Object in = mem.get(Constants.VAR_IN);
+        if (!(in instanceof String[]) || ((String[]) in).length == 0) {
+          throw error("EOFError", "EOF when reading a line");
+        }
+        return ((String[]) in)[0];
+      }
+      default:
+        return Constants.FUNCS_UNARY_PYTHON.contains(fncname) || BUILTINS.contains(fncname)
+            ? executeBuiltin(fncname, args) : executeMethod(fncname, args);
+    }
+  }
+
+  private Object executeBuiltin(String fncname, List<Object> args) {
+    switch (fncname) {
+      case "len": {
+        checkArgs(fncname, args, 1, 1);
+        Object value = args.get(0);
+        if (value instanceof String) {
+          return ((String) value).codePointCount(0, ((String) value).length());
+        }
+        if (value instanceof Collection) {
+          return ((Collection<?>) value).size();
+        }
+        if (value instanceof Map) {
+          return ((Map<?, ?>) value).size();
+        }
+        throw error("TypeError", "object of type '%s' has no len()", typeName(value));
+      }
+      case "int":
+        checkArgs(fncname, args, 0, 2);
+        return args.isEmpty() ? 0 : toInt(args.get(0), args.size() > 1 ? args.get(1) : null);
+      case "float":
+        checkArgs(fncname, args, 0, 1);
+        return args.isEmpty() ? 0.0 : toFloat(args.get(0));
+      case "str":
+        checkArgs(fncname, args, 0, 1);
+        return args.isEmpty() ? "" : str(args.get(0));
+      case "bool":
+        checkArgs(fncname, args, 0, 1);
+        return !args.isEmpty() && isTruthy(args.get(0));
+      case "abs": {
+        checkArgs(fncname, args, 1, 1);
+        Object value = args.get(0);
+        if (value instanceof Double) {
+          return Math.abs((Double) value);
+        }
+        if (isIntegral(value)) {
+          return normalize(toBigInteger(value).abs());
+        }
+        throw error("TypeError", "bad operand type for abs(): '%s'", typeName(value));
+      }
+      case "pow":
+        checkArgs(fncname, args, 2, 2);
+        return binaryOp(Opcode.POWER, args.get(0), args.get(1));
+      case "round":
+        checkArgs(fncname, args, 1, 2);
+        return round(args.get(0), args.size() > 1 ? args.get(1) : PythonNone.NONE);
+      case "range": {
+        checkArgs(fncname, args, 1, 3);
+        long start = args.size() > 1 ? toIndex(args.get(0)) : 0;
+        long stop = toIndex(args.get(args.size() > 1 ? 1 : 0));
+        long step = args.size() > 2 ? toIndex(args.get(2)) : 1;
+        if (step == 0) {
+          throw error("ValueError", "range() arg 3 must not be zero");
+        }
+        // in double, as the difference of the bounds may overflow
+        reserve((long) Math.max(0, Math.ceil(((double) stop - start) / step)),
+            HeapSizeEstimator.REFERENCE + HeapSizeEstimator.OBJECT_HEADER);
+        PythonList result = new PythonList();
+        for (long i = start; step > 0 ? i < stop : i > stop; i += step) {
+          result.add(normalize(i));
+        }
+        return result;
+      }
+      case "min":
+      case "max": {
+        checkArgs(fncname, args, 1, Integer.MAX_VALUE);
+        List<Object> values = args.size() == 1 ? elements(args.get(0)) : args;
+        if (values.isEmpty()) {
+          throw error("ValueError", "%s() arg is an empty sequence", fncname);
+        }
+        Object result = values.get(0);
+        for (Object value : values) {
+          int cmp = compare(value, result, fncname.equals("min") ? "<" : ">");
+          if (fncname.equals("min") ? cmp < 0 : cmp > 0) {
+            result = value;
+          }
+        }
+        return result;
+      }
+      case "sum": {
+        checkArgs(fncname, args, 1, 2);
+        Object result = args.size() > 1 ? args.get(1) : 0;
+        for (Object value : elements(args.get(0))) {
+          result = binaryOp(Opcode.ADD, result, value);
+        }
+        return result;
+      }
+      case "sorted": {
+        checkArgs(fncname, args, 1, 2);
+        PythonList result = new PythonList(elements(args.get(0)));
+        sort(result, args.size() > 1 && isTruthy(args.get(1)));
+        return result;
+      }
+      default:
+        throw new InterpretationException(ExecutionStatus.RUNTIME_ERROR,
+            "Unknown function: '%s'", fncname);
+    }
+  }
+
+  /**
+   * Executes a method of a sequence, set or dict. Methods that modify their receiver return a
+   * modified copy of it.
+   */
+  private Object executeMethod(String fncname, List<Object> args) {
+    checkArgs(fncname, args, 1, Integer.MAX_VALUE);
+    Object receiver = args.get(0);
+    List<Object> rest = args.subList(1, args.size());
+    if (receiver instanceof PythonList) {
+      return listMethod(fncname, new PythonList((PythonList) receiver), rest);
+    }
+    if (receiver instanceof PythonSet) {
+      return setMethod(fncname, new PythonSet((PythonSet) receiver), rest);
+    }
+    if (receiver instanceof PythonDict) {
+      return dictMethod(fncname, new PythonDict((PythonDict) receiver), rest);
+    }
+    if (receiver instanceof PythonTuple || receiver instanceof String) {
+      return sequenceMethod(fncname, receiver, rest);
+    }
+    throw noAttribute(receiver, fncname);
+  }
+
+  private Object listMethod(String fncname, PythonList list, List<Object> args) {
+    switch (fncname) {
+      case "append":
+        checkArgs(fncname, args, 1, 1);
+        list.add(args.get(0));
+        return list;
+      case "extend":
+        checkArgs(fncname, args, 1, 1);
+        list.addAll(elements(args.get(0)));
+        return list;
+      case "insert": {
+        checkArgs(fncname, args, 2, 2);
+        long index = toIndex(args.get(0));
+        index = index < 0 ? Math.max(0, index + list.size()) : Math.min(index, list.size());
+        list.add((int) index, args.get(1));
+        return list;
+      }
+      case "remove":
+        checkArgs(fncname, args, 1, 1);
+        for (int i = 0; i < list.size(); i++) {
+          if (equal(list.get(i), args.get(0))) {
+            list.remove(i);
+            return list;
+          }
+        }
+        throw error("ValueError", "list.remove(x): x not in list");
+      case "pop":
+        checkArgs(fncname, args, 0, 1);
+        if (list.isEmpty()) {
+          throw error("IndexError", "pop from empty list");
+        }
+        list.remove(index(args.isEmpty() ? -1 : args.get(0), list.size(), "pop"));
+        return list;
+      case "clear":
+        checkArgs(fncname, args, 0, 0);
+        list.clear();
+        return list;
+      case "reverse":
+        checkArgs(fncname, args, 0, 0);
+        Collections.reverse(list);
+        return list;
+      case "sort":
+        checkArgs(fncname, args, 0, 1);
+        sort(list, !args.isEmpty() && isTruthy(args.get(0)));
+        return list;
+      case "copy":
+        checkArgs(fncname, args, 0, 0);
+        return list;
+      default:
+        return sequenceMethod(fncname, list, args);
+    }
+  }
+
+  private Object sequenceMethod(String fncname, Object sequence, List<Object> args) {
+    switch (fncname) {
+      case "count":
+        checkArgs(fncname, args, 1, 1);
+        if (sequence instanceof String) {
+          String s = (String) sequence;
+          String sub = str(args.get(0));
+          return sub.isEmpty() ? s.length() + 1 : (s.length() - s.replace(sub, "").length())
+              / sub.length();
+        }
+        return (int) ((List<?>) sequence).stream().filter(e -> equal(e, args.get(0))).count();
+      case "index":
+        checkArgs(fncname, args, 1, 1);
+        if (sequence instanceof String) {
+          int index = ((String) sequence).indexOf(str(args.get(0)));
+          if (index < 0) {
+            throw error("ValueError", "substring not found");
+          }
+          return index;
+        }
+        List<?> list = (List<?>) sequence;
+        for (int i = 0; i < list.size(); i++) {
+          if (equal(list.get(i), args.get(0))) {
+            return i;
+          }
+        }
+        throw error("ValueError", "%s is not in %s", repr(args.get(0)), typeName(sequence));
+      default:
+        throw noAttribute(sequence, fncname);
+    }
+  }
+
+  private Object setMethod(String fncname, PythonSet set, List<Object> args) {
+    switch (fncname) {
+      case "add":
+        checkArgs(fncname, args, 1, 1);
+        addToSet(set, args.get(0));
+        return set;
+      case "remove":
+      case "discard": {
+        checkArgs(fncname, args, 1, 1);
+        boolean removed = set.removeIf(e -> equal(e, args.get(0)));
+        if (!removed && fncname.equals("remove")) {
+          throw error("KeyError", "%s", repr(args.get(0)));
+        }
+        return set;
+      }
+      case "pop":
+        checkArgs(fncname, args, 0, 0);
+        if (set.isEmpty()) {
+          throw error("KeyError", "'pop from an empty set'");
+        }
+        set.remove(set.iterator().next());
+        return set;
+      case "clear":
+        checkArgs(fncname, args, 0, 0);
+        set.clear();
+        return set;
+      case "copy":
+        checkArgs(fncname, args, 0, 0);
+        return set;
+      case "union":
+      case "intersection":
+      case "difference":
+      case "symmetric_difference": {
+        Opcode opcode = fncname.equals("union") ? Opcode.BIT_OR
+            : fncname.equals("intersection") ? Opcode.BIT_AND
+            : fncname.equals("difference") ? Opcode.SUB : Opcode.BIT_XOR;
+        PythonSet result = set;
+        for (Object other : args) {
+          result = setOp(opcode, result, elements(other));
+        }
+        return result;
+      }
+      case "isdisjoint":
+        checkArgs(fncname, args, 1, 1);
+        return elements(args.get(0)).stream().noneMatch(e -> PythonValues.contains(set, e));
+      case "issubset": {
+        checkArgs(fncname, args, 1, 1);
+        List<Object> other = elements(args.get(0));
+        return set.stream().allMatch(e -> PythonValues.contains(other, e));
+      }
+      case "issuperset":
+        checkArgs(fncname, args, 1, 1);
+        return elements(args.get(0)).stream().allMatch(e -> PythonValues.contains(set, e));
+      default:
+        throw noAttribute(set, fncname);
+    }
+  }
+
+  private Object dictMethod(String fncname, PythonDict dict, List<Object> args) {
+    switch (fncname) {
+      case "get": {
+        checkArgs(fncname, args, 1, 2);
+        Object key = PythonValues.findKey(dict, args.get(0));
+        return key != null ? dict.get(key) : args.size() > 1 ? args.get(1) : PythonNone.NONE;
+      }
+      case "pop": {
+        checkArgs(fncname, args, 1, 2);
+        Object key = PythonValues.findKey(dict, args.get(0));
+        if (key == null && args.size() == 1) {
+          throw error("KeyError", "%s", repr(args.get(0)));
+        }
+        dict.remove(key);
+        return dict;
+      }
+      case "popitem": {
+        checkArgs(fncname, args, 0, 0);
+        if (dict.isEmpty()) {
+          throw error("KeyError", "'popitem(): dictionary is empty'");
+        }
+        Map.Entry<Object, Object> last = null;
+        for (Map.Entry<Object, Object> entry : dict.entrySet()) {
+          last = entry;
+        }
+        return new PythonTuple(Arrays.asList(last.getKey(), last.getValue()));
+      }
+      case "keys":
+        checkArgs(fncname, args, 0, 0);
+        return new PythonList(dict.keySet());
+      case "values":
+        checkArgs(fncname, args, 0, 0);
+        return new PythonList(dict.values());
+      case "items": {
+        checkArgs(fncname, args, 0, 0);
+        PythonList items = new PythonList();
+        dict.forEach((key, value) -> items.add(new PythonTuple(Arrays.asList(key, value))));
+        return items;
+      }
+      case "clear":
+        checkArgs(fncname, args, 0, 0);
+        dict.clear();
+        return dict;
+      case "copy":
+        checkArgs(fncname, args, 0, 0);
+        return dict;
+      default:
+        throw noAttribute(dict, fncname);
+    }
+  }
+
+  private static InterpretationException noAttribute(Object receiver, String name) {
+    return error("AttributeError", "'%s' object has no attribute '%s'", typeName(receiver),
+        name);
+  }
+
+  private static void checkArgs(String fncname, List<Object> args, int min, int max) {
+    if (args.size() < min || args.size() > max) {
+      throw error("TypeError", "%s() takes %s arguments (%d given)", fncname,
+          min == max ? String.valueOf(min) : max == Integer.MAX_VALUE ? "at least " + min
+              : min + " to " + max, args.size());
+    }
+  }
+
+  private static PythonSet toSet(List<Object> values) {
+    PythonSet set = new PythonSet();
+    values.forEach(value -> addToSet(set, value));
+    return set;
+  }
+
+  /**
+   * Creates a dict from key-value pairs, or from alternating keys and values.
+   */
+  private static PythonDict toDict(List<Object> args, String fncname) {
+    PythonDict dict = new PythonDict();
+    List<Object> pairs = args.size() == 1 && args.get(0) instanceof PythonList
+        ? (PythonList) args.get(0) : args;
+    boolean isPairs = pairs.stream().allMatch(
+        pair -> (pair instanceof PythonTuple || pair instanceof PythonList)
+            && ((List<?>) pair).size() == 2);
+    if (!isPairs && pairs.size() % 2 != 0) {
+      throw error("TypeError", "%s() expects key-value pairs", fncname);
+    }
+    for (int i = 0; i < pairs.size(); i += isPairs ? 1 : 2) {
+      Object key = isPairs ? ((List<?>) pairs.get(i)).get(0) : pairs.get(i);
+      Object value = isPairs ? ((List<?>) pairs.get(i)).get(1) : pairs.get(i + 1);
+      Object existing = PythonValues.findKey(dict, key);
+      dict.put(existing != null ? existing : key, value);
+    }
+    return dict;
+  }
+
+  private static Object getElement(Object sequence, Object index) {
+    if (sequence instanceof PythonDict) {
+      PythonDict dict = (PythonDict) sequence;
+      Object key = PythonValues.findKey(dict, index);
+      if (key == null) {
+        throw error("KeyError", "%s", repr(index));
+      }
+      return dict.get(key);
+    }
+    if (sequence instanceof String) {
+      String s = (String) sequence;
+      int i = index(index, s.length(), "string");
+      return s.substring(i, i + 1);
+    }
+    if (sequence instanceof PythonList || sequence instanceof PythonTuple) {
+      List<?> list = (List<?>) sequence;
+      return list.get(index(index, list.size(), typeName(sequence)));
+    }
+    throw error("TypeError", "'%s' object is not subscriptable", typeName(sequence));
+  }
+
+  private static Object assignElement(Object sequence, Object index, Object value) {
+    if (sequence instanceof PythonDict) {
+      PythonDict dict = new PythonDict((PythonDict) sequence);
+      Object key = PythonValues.findKey(dict, index);
+      dict.put(key != null ? key : index, value);
+      return dict;
+    }
+    if (sequence instanceof PythonList) {
+      PythonList list = new PythonList((PythonList) sequence);
+      list.set(index(index, list.size(), "list assignment"), value);
+      return list;
+    }
+    throw error("TypeError", "'%s' object does not support item assignment",
+        typeName(sequence));
+  }
+
+  /**
+   * Implements slicing like seq[lower:upper:step].
+   */
+  private static Object slice(Object sequence, Object lower, Object upper, Object step) {
+    List<Object> elements;
+    if (sequence instanceof String || sequence instanceof PythonList
+        || sequence instanceof PythonTuple) {
+      elements = elements(sequence);
+    } else {
+      throw error("TypeError", "'%s' object is not subscriptable", typeName(sequence));
+    }
+    int size = elements.size();
+    long stride = step instanceof PythonNone ? 1 : toIndex(step);
+    if (stride == 0) {
+      throw error("ValueError", "slice step cannot be zero");
+    }
+    long start = sliceBound(lower, size, stride, stride > 0 ? 0 : size - 1);
+    long stop = sliceBound(upper, size, stride, stride > 0 ? size : -1);
+    List<Object> result = new ArrayList<>();
+    for (long i = start; stride > 0 ? i < stop : i > stop; i += stride) {
+      result.add(elements.get((int) i));
+    }
+    if (sequence instanceof String) {
+      return result.stream().map(String.class::cast).collect(Collectors.joining());
+    }
+    return sequence instanceof PythonList ? new PythonList(result) : new PythonTuple(result);
+  }
+
+  private static long sliceBound(Object bound, int size, long stride, long defaultValue) {
+    if (bound instanceof PythonNone) {
+      return defaultValue;
+    }
+    long value = toIndex(bound);
+    if (value < 0) {
+      value += size;
+      if (value < 0) {
+        return stride > 0 ? 0 : -1;
+      }
+    }
+    if (value >= size) {
+      return stride > 0 ? size : size - 1;
+    }
+    return value;
+  }
+
+  private static long toIndex(Object value) {
+    if (!isIntegral(value)) {
+      throw error("TypeError", "'%s' object cannot be interpreted as an integer",
+          typeName(value));
+    }
+    return toLong(value);
+  }
+
+  /**
+   * Resolves a possibly negative index into a sequence of the given size.
+   */
+  private static int index(Object index, int size, String kind) {
+    if (!isIntegral(index)) {
+      throw error("TypeError", "%s indices must be integers, not %s", kind, typeName(index));
+    }
+    long i = toLong(index);
+    if (i < 0) {
+      i += size;
+    }
+    if (i < 0 || i >= size) {
+      throw error("IndexError", "%s index out of range", kind);
+    }
+    return (int) i;
+  }
+
+  private static void sort(List<Object> list, boolean reverse) {
+    Comparator<Object> comparator = (a, b) -> compare(a, b, "<");
+    // the sort is stable, also in reverse
+    list.sort(reverse ? comparator.reversed() : comparator);
+  }
+
+  private static Object toInt(Object value, Object base) {
+    if (value instanceof String) {
+      String s = ((String) value).trim();
+      Object result = null;
+      if (base == null) {
+        result = s.matches("[+-]?[0-9_]+") ? PythonValues.parseInt(s) : null;
+      } else {
+        try {
+          String digits = s.replace("_", "");
+          result = normalize(new BigInteger(digits, (int) toIndex(base)));
+        } catch (NumberFormatException e) {
+          result = null;
+        }
+      }
+      if (result == null) {
+        throw error("ValueError", "invalid literal for int() with base %s: %s",
+            base == null ? 10 : base, repr(value));
+      }
+      return result;
+    }
+    if (value instanceof Double) {
+      double d = (Double) value;
+      if (Double.isNaN(d)) {
+        throw error("ValueError", "cannot convert float NaN to integer");
+      }
+      if (Double.isInfinite(d)) {
+        throw error("OverflowError", "cannot convert float infinity to integer");
+      }
+      return normalize(new BigDecimal(d).toBigInteger());
+    }
+    if (isIntegral(value)) {
+      return normalize(toBigInteger(value));
+    }
+    throw error("TypeError", "int() argument must be a string or a number, not '%s'",
+        typeName(value));
+  }
+
+  private static Object toFloat(Object value) {
+    if (value instanceof String) {
+      Double result = PythonValues.parseFloat((String) value);
+      if (result == null) {
+        throw error("ValueError", "could not convert string to float: %s", repr(value));
+      }
+      return result;
+    }
+    if (isNumber(value)) {
+      return toDouble(value);
+    }
+    throw error("TypeError", "float() argument must be a string or a number, not '%s'",
+        typeName(value));
+  }
+
+  /**
+   * Implements round, which rounds half to even based on the exact value of a float.
+   */
+  private static Object round(Object value, Object digits) {
+    if (isIntegral(value)) {
+      return normalize(toBigInteger(value));
+    }
+    if (!(value instanceof Double)) {
+      throw error("TypeError", "type %s doesn't define __round__ method", typeName(value));
+    }
+    double d = (Double) value;
+    if (digits instanceof PythonNone) {
+      return toInt(Math.rint(d), null);
+    }
+    if (!Double.isFinite(d)) {
+      return d;
+    }
+    return new BigDecimal(d).setScale((int) toIndex(digits), RoundingMode.HALF_EVEN)
+        .doubleValue();
+  }
+}
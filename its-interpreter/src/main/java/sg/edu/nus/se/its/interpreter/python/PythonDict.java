@@ -0,0 +1,25 @@
+package sg.edu.nus.se.its.interpreter.python;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The Python type dict, which keeps the insertion order of its keys.
+ */
+public class PythonDict extends LinkedHashMap<Object, Object> {
+
+  private static final long serialVersionUID = 1L;
+
+  public PythonDict() {
+    super();
+  }
+
+  public PythonDict(Map<?, ?> entries) {
+    super(entries);
+  }
+
+  @Override
+  public String toString() {
+    return PythonValues.repr(this);
+  }
+}
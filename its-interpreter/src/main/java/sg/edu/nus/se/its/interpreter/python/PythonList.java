@@ -0,0 +1,25 @@
+package sg.edu.nus.se.its.interpreter.python;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * The Python type list.
+ */
+public class PythonList extends ArrayList<Object> {
+
+  private static final long serialVersionUID = 1L;
+
+  public PythonList() {
+    super();
+  }
+
+  public PythonList(Collection<?> elements) {
+    super(elements);
+  }
+
+  @Override
+  public String toString() {
+    return PythonValues.repr(this);
+  }
+}
@@ -0,0 +1,27 @@
+package sg.edu.nus.se.its.interpreter.python;
+
+import java.io.Serializable;
+
+/**
+ * The Python value None.
+ */
+public final class PythonNone implements Serializable {
+
+  public static final PythonNone NONE = new PythonNone();
+
+  private static final long serialVersionUID = 1L;
+
+  private PythonNone() {}
+
+  /**
+   * Keeps None a singleton when memory objects are deep-copied via serialization.
+   */
+  private Object readResolve() {
+    return NONE;
+  }
+
+  @Override
+  public String toString() {
+    return "None";
+  }
+}
@@ -0,0 +1,25 @@
+package sg.edu.nus.se.its.interpreter.python;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+
+/**
+ * The Python type set.
+ */
+public class PythonSet extends LinkedHashSet<Object> {
+
+  private static final long serialVersionUID = 1L;
+
+  public PythonSet() {
+    super();
+  }
+
+  public PythonSet(Collection<?> elements) {
+    super(elements);
+  }
+
+  @Override
+  public String toString() {
+    return PythonValues.repr(this);
+  }
+}
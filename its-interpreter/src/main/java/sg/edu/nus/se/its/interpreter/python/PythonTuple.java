@@ -0,0 +1,25 @@
+package sg.edu.nus.se.its.interpreter.python;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * The Python type tuple. Tuples are never modified after their creation.
+ */
+public class PythonTuple extends ArrayList<Object> {
+
+  private static final long serialVersionUID = 1L;
+
+  public PythonTuple() {
+    super();
+  }
+
+  public PythonTuple(Collection<?> elements) {
+    super(elements);
+  }
+
+  @Override
+  public String toString() {
+    return PythonValues.repr(this);
+  }
+}
@@ -0,0 +1,695 @@
+package sg.edu.nus.se.its.interpreter.python;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import sg.edu.nus.se.its.interpreter.ExecutionStatus;
+import sg.edu.nus.se.its.interpreter.InterpretationException;
+import sg.edu.nus.se.its.util.UtilFunctions;
+
+/**
+ * Helper functions that implement the semantics of Python values.
+ *
+ * <p>Python values are represented as follows: int as Integer, Long or BigInteger (always the
+ * smallest that fits), float as Double, bool as Boolean, str as String, None as
+ * {@link PythonNone#NONE}, and list, tuple, dict and set as {@link PythonList},
+ * {@link PythonTuple}, {@link PythonDict} and {@link PythonSet}.
+ */
+public final class PythonValues {
+
+  private static final BigInteger INT_MIN = BigInteger.valueOf(Integer.MIN_VALUE);
+  private static final BigInteger INT_MAX = BigInteger.valueOf(Integer.MAX_VALUE);
+  private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+  private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+  private PythonValues() {}
+
+  /**
+   * Creates an exception for a Python error, e.g., a TypeError.
+   */
+  public static InterpretationException error(String type, String format, Object... args) {
+    return new InterpretationException(ExecutionStatus.RUNTIME_ERROR, "%s: %s", type,
+        String.format(format, args));
+  }
+
+  /**
+   * Returns the name of the Python type of the value as used in error messages.
+   */
+  public static String typeName(Object value) {
+    if (value instanceof Boolean) {
+      return "bool";
+    }
+    if (isInt(value)) {
+      return "int";
+    }
+    if (value instanceof Double) {
+      return "float";
+    }
+    if (value instanceof String) {
+      return UtilFunctions.isUndefined(value) ? "undefined" : "str";
+    }
+    if (value instanceof PythonList) {
+      return "list";
+    }
+    if (value instanceof PythonTuple) {
+      return "tuple";
+    }
+    if (value instanceof PythonDict) {
+      return "dict";
+    }
+    if (value instanceof PythonSet) {
+      return "set";
+    }
+    if (value instanceof PythonNone) {
+      return "NoneType";
+    }
+    return value == null ? "null" : value.getClass().getSimpleName();
+  }
+
+  /**
+   * Checks whether the value is an int, which excludes bool.
+   */
+  public static boolean isInt(Object value) {
+    return value instanceof Integer || value instanceof Long || value instanceof BigInteger;
+  }
+
+  /**
+   * Checks whether the value can be used as an int, which includes bool.
+   */
+  public static boolean isIntegral(Object value) {
+    return isInt(value) || value instanceof Boolean;
+  }
+
+  /**
+   * Checks whether the value is an int, float or bool.
+   */
+  public static boolean isNumber(Object value) {
+    return isIntegral(value) || value instanceof Double;
+  }
+
+  public static BigInteger toBigInteger(Object value) {
+    if (value instanceof BigInteger) {
+      return (BigInteger) value;
+    }
+    if (value instanceof Boolean) {
+      return (Boolean) value ? BigInteger.ONE : BigInteger.ZERO;
+    }
+    return BigInteger.valueOf(((Number) value).longValue());
+  }
+
+  public static double toDouble(Object value) {
+    if (value instanceof Boolean) {
+      return (Boolean) value ? 1 : 0;
+    }
+    double d = ((Number) value).doubleValue();
+    if (value instanceof BigInteger && Double.isInfinite(d)) {
+      throw error("OverflowError", "int too large to convert to float");
+    }
+    return d;
+  }
+
+  /**
+   * Returns the int value as long, or throws an OverflowError if it does not fit.
+   */
+  public static long toLong(Object value) {
+    if (value instanceof BigInteger) {
+      BigInteger big = (BigInteger) value;
+      if (big.bitLength() >= Long.SIZE) {
+        throw error("OverflowError", "Python int too large to convert to C long");
+      }
+      return big.longValue();
+    }
+    if (value instanceof Boolean) {
+      return (Boolean) value ? 1 : 0;
+    }
+    return ((Number) value).longValue();
+  }
+
+  /**
+   * Represents an int with the smallest fitting type.
+   */
+  public static Object normalize(BigInteger value) {
+    if (value.compareTo(INT_MIN) >= 0 && value.compareTo(INT_MAX) <= 0) {
+      return value.intValue();
+    }
+    if (value.compareTo(LONG_MIN) >= 0 && value.compareTo(LONG_MAX) <= 0) {
+      return value.longValue();
+    }
+    return value;
+  }
+
+  /**
+   * Represents an int with the smallest fitting type.
+   */
+  public static Object normalize(long value) {
+    return value == (int) value ? (Object) (int) value : (Object) value;
+  }
+
+  /**
+   * Implements the truth value testing of Python.
+   */
+  public static boolean isTruthy(Object value) {
+    if (value instanceof Boolean) {
+      return (Boolean) value;
+    }
+    if (value instanceof PythonNone) {
+      return false;
+    }
+    if (value instanceof BigInteger) {
+      return ((BigInteger) value).signum() != 0;
+    }
+    if (value instanceof Number) {
+      return ((Number) value).doubleValue() != 0;
+    }
+    if (UtilFunctions.isUndefined(value)) {
+      throw error("NameError", "value is undefined");
+    }
+    if (value instanceof String) {
+      return !((String) value).isEmpty();
+    }
+    if (value instanceof Collection) {
+      return !((Collection<?>) value).isEmpty();
+    }
+    if (value instanceof Map) {
+      return !((Map<?, ?>) value).isEmpty();
+    }
+    return true;
+  }
+
+  /**
+   * Implements the == operator of Python, e.g., 1 == 1.0 == True and [1] == [1.0].
+   */
+  public static boolean equal(Object a, Object b) {
+    if (isNumber(a) && isNumber(b)) {
+      if (a instanceof Double || b instanceof Double) {
+        return toDouble(a) == toDouble(b);
+      }
+      return toBigInteger(a).equals(toBigInteger(b));
+    }
+    if (a instanceof PythonList && b instanceof PythonList
+        || a instanceof PythonTuple && b instanceof PythonTuple) {
+      List<?> l1 = (List<?>) a;
+      List<?> l2 = (List<?>) b;
+      if (l1.size() != l2.size()) {
+        return false;
+      }
+      for (int i = 0; i < l1.size(); i++) {
+        if (!equal(l1.get(i), l2.get(i))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    if (a instanceof PythonSet && b instanceof PythonSet) {
+      PythonSet s1 = (PythonSet) a;
+      PythonSet s2 = (PythonSet) b;
+      return s1.size() == s2.size() && s1.stream().allMatch(e -> contains(s2, e));
+    }
+    if (a instanceof PythonDict && b instanceof PythonDict) {
+      PythonDict d1 = (PythonDict) a;
+      PythonDict d2 = (PythonDict) b;
+      if (d1.size() != d2.size()) {
+        return false;
+      }
+      for (Map.Entry<Object, Object> entry : d1.entrySet()) {
+        Object key = findKey(d2, entry.getKey());
+        if (key == null || !equal(entry.getValue(), d2.get(key))) {
+          return false;
+        }
+      }
+      return true;
+    }
+    return a.getClass().equals(b.getClass()) && a.equals(b);
+  }
+
+  /**
+   * Implements the is operator of Python. Immutable values are compared by value.
+   */
+  public static boolean identical(Object a, Object b) {
+    if (a instanceof Collection || a instanceof Map) {
+      return a == b;
+    }
+    return a.getClass().equals(b.getClass()) && a.equals(b);
+  }
+
+  /**
+   * Implements the in operator of Python.
+   */
+  public static boolean contains(Object container, Object item) {
+    if (container instanceof String) {
+      if (!(item instanceof String)) {
+        throw error("TypeError", "'in <string>' requires string as left operand, not %s",
+            typeName(item));
+      }
+      return ((String) container).contains((String) item);
+    }
+    if (container instanceof PythonDict) {
+      return findKey((PythonDict) container, item) != null;
+    }
+    if (container instanceof Collection) {
+      for (Object element : (Collection<?>) container) {
+        if (equal(element, item)) {
+          return true;
+        }
+      }
+      return false;
+    }
+    throw error("TypeError", "argument of type '%s' is not iterable", typeName(container));
+  }
+
+  /**
+   * Looks up the key of a dict that is equal to the given key, e.g., 1.0 for the key 1.
+   *
+   * @return the key in the dict, or null if there is none
+   */
+  public static Object findKey(PythonDict dict, Object key) {
+    if (dict.containsKey(key)) {
+      return key;
+    }
+    for (Object candidate : dict.keySet()) {
+      if (equal(candidate, key)) {
+        return candidate;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Implements the ordering of Python values, i.e., the operators &lt;, &lt;=, &gt; and &gt;=.
+   *
+   * @param op -- the operator, used in error messages
+   * @return a negative integer, zero, or a positive integer as a is less than, equal to, or
+   *         greater than b
+   */
+  public static int compare(Object a, Object b, String op) {
+    if (isNumber(a) && isNumber(b)) {
+      if (a instanceof Double || b instanceof Double) {
+        return Double.compare(toDouble(a), toDouble(b));
+      }
+      return toBigInteger(a).compareTo(toBigInteger(b));
+    }
+    if (a instanceof String && b instanceof String) {
+      return ((String) a).compareTo((String) b);
+    }
+    if (a instanceof PythonList && b instanceof PythonList
+        || a instanceof PythonTuple && b instanceof PythonTuple) {
+      List<?> l1 = (List<?>) a;
+      List<?> l2 = (List<?>) b;
+      for (int i = 0; i < Math.min(l1.size(), l2.size()); i++) {
+        if (!equal(l1.get(i), l2.get(i))) {
+          return compare(l1.get(i), l2.get(i), op);
+        }
+      }
+      return Integer.compare(l1.size(), l2.size());
+    }
+    throw error("TypeError", "'%s' not supported between instances of '%s' and '%s'", op,
+        typeName(a), typeName(b));
+  }
+
+  /**
+   * Returns the elements of an iterable value, e.g., the characters of a string.
+   */
+  public static List<Object> elements(Object value) {
+    if (value instanceof String && !UtilFunctions.isUndefined(value)) {
+      List<Object> result = new ArrayList<>();
+      ((String) value).codePoints().forEach(c -> result.add(new String(Character.toChars(c))));
+      return result;
+    }
+    if (value instanceof Map) {
+      return new ArrayList<>(((Map<?, ?>) value).keySet());
+    }
+    if (value instanceof Collection) {
+      return new ArrayList<>((Collection<?>) value);
+    }
+    throw error("TypeError", "'%s' object is not iterable", typeName(value));
+  }
+
+  /**
+   * Implements the str function of Python.
+   */
+  public static String str(Object value) {
+    if (value instanceof String) {
+      return (String) value;
+    }
+    return repr(value);
+  }
+
+  /**
+   * Implements the repr function of Python.
+   */
+  public static String repr(Object value) {
+    if (value instanceof Boolean) {
+      return (Boolean) value ? "True" : "False";
+    }
+    if (value instanceof Double) {
+      return reprFloat((Double) value);
+    }
+    if (value instanceof String) {
+      return UtilFunctions.isUndefined(value) ? (String) value : reprString((String) value);
+    }
+    if (value instanceof PythonList) {
+      return join("[", (PythonList) value, "]");
+    }
+    if (value instanceof PythonTuple) {
+      PythonTuple tuple = (PythonTuple) value;
+      return tuple.size() == 1 ? "(" + repr(tuple.get(0)) + ",)" : join("(", tuple, ")");
+    }
+    if (value instanceof PythonSet) {
+      PythonSet set = (PythonSet) value;
+      return set.isEmpty() ? "set()" : join("{", set, "}");
+    }
+    if (value instanceof PythonDict) {
+      StringJoiner joiner = new StringJoiner(", ", "{", "}");
+      for (Map.Entry<Object, Object> entry : ((PythonDict) value).entrySet()) {
+        joiner.add(repr(entry.getKey()) + ": " + repr(entry.getValue()));
+      }
+      return joiner.toString();
+    }
+    return String.valueOf(value);
+  }
+
+  private static String join(String prefix, Collection<?> elements, String suffix) {
+    StringJoiner joiner = new StringJoiner(", ", prefix, suffix);
+    Iterator<?> it = elements.iterator();
+    while (it.hasNext()) {
+      joiner.add(repr(it.next()));
+    }
+    return joiner.toString();
+  }
+
+  private static String reprString(String s) {
+    char quote = s.indexOf('\'') >= 0 && s.indexOf('"') < 0 ? '"' : '\'';
+    StringBuilder sb = new StringBuilder().append(quote);
+    for (char c : s.toCharArray()) {
+      if (c == quote || c == '\\') {
+        sb.append('\\').append(c);
+      } else if (c == '\n') {
+        sb.append("\\n");
+      } else if (c == '\t') {
+        sb.append("\\t");
+      } else if (c == '\r') {
+        sb.append("\\r");
+      } else if (c < ' ' || c == 0x7f) {
+        sb.append(String.format("\\x%02x", (int) c));
+      } else {
+        sb.append(c);
+      }
+    }
+    return sb.append(quote).toString();
+  }
+
+  /**
+   * Formats a float like Python, which uses the shortest representation that is read back as the
+   * same value and switches to scientific notation for exponents below -4 or from 16 on.
+   */
+  public static String reprFloat(double d) {
+    if (Double.isNaN(d)) {
+      return "nan";
+    }
+    if (Double.isInfinite(d)) {
+      return d > 0 ? "inf" : "-inf";
+    }
+    if (d == 0) {
+      return 1 / d < 0 ? "-0.0" : "0.0";
+    }
+    BigDecimal decimal = new BigDecimal(Double.toString(Math.abs(d))).stripTrailingZeros();
+    String digits = decimal.unscaledValue().toString();
+    int exponent = digits.length() - decimal.scale() - 1;
+    String sign = d < 0 ? "-" : "";
+    if (exponent < -4 || exponent >= 16) {
+      String mantissa = digits.length() == 1 ? digits
+          : digits.charAt(0) + "." + digits.substring(1);
+      return String.format("%s%se%s%02d", sign, mantissa, exponent < 0 ? "-" : "+",
+          Math.abs(exponent));
+    }
+    if (exponent < 0) {
+      return sign + "0." + "0".repeat(-exponent - 1) + digits;
+    }
+    if (digits.length() <= exponent + 1) {
+      return sign + digits + "0".repeat(exponent + 1 - digits.length()) + ".0";
+    }
+    return sign + digits.substring(0, exponent + 1) + "." + digits.substring(exponent + 1);
+  }
+
+  /**
+   * Parses a Python literal, e.g., an argument like "[1, 2.5, 'a']".
+   *
+   * @param text -- the literal
+   * @return the value, or null if the text is not a literal
+   */
+  public static Object parseLiteral(String text) {
+    LiteralParser parser = new LiteralParser(text);
+    try {
+      Object value = parser.parseValue();
+      parser.skipWhitespace();
+      return parser.atEnd() ? value : null;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Parses a Python int literal, e.g., "-12", "0x1f" or "1_000".
+   *
+   * @return the value, or null if the text is not an int literal
+   */
+  public static Object parseInt(String text) {
+    String s = text.trim().replace("_", "");
+    boolean negative = s.startsWith("-");
+    if (negative || s.startsWith("+")) {
+      s = s.substring(1);
+    }
+    int radix = 10;
+    if (s.length() > 2 && s.charAt(0) == '0' && "xXoObB".indexOf(s.charAt(1)) >= 0) {
+      radix = "xX".indexOf(s.charAt(1)) >= 0 ? 16 : "oO".indexOf(s.charAt(1)) >= 0 ? 8 : 2;
+      s = s.substring(2);
+    }
+    if (s.isEmpty() || !s.chars().allMatch(c -> Character.digit(c, 16) >= 0)) {
+      return null;
+    }
+    try {
+      BigInteger value = new BigInteger(s, radix);
+      return normalize(negative ? value.negate() : value);
+    } catch (NumberFormatException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Parses a Python float literal, including "inf" and "nan".
+   *
+   * @return the value, or null if the text is not a float literal
+   */
+  public static Double parseFloat(String text) {
+    String s = text.trim().replace("_", "");
+    String lower = s.toLowerCase();
+    String unsigned = lower.startsWith("-") || lower.startsWith("+") ? lower.substring(1) : lower;
+    if (unsigned.equals("inf") || unsigned.equals("infinity")) {
+      return lower.startsWith("-") ? Double.NEGATIVE_INFINITY : Double.POSITIVE_INFINITY;
+    }
+    if (unsigned.equals("nan")) {
+      return Double.NaN;
+    }
+    if (!s.matches("[+-]?(\\d+\\.?\\d*|\\.\\d+)([eE][+-]?\\d+)?")) {
+      return null;
+    }
+    return Double.parseDouble(s);
+  }
+
+  /**
+   * Resolves the escape sequences of the content of a Python string literal.
+   */
+  public static String unescape(String s) {
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < s.length(); i++) {
+      char c = s.charAt(i);
+      if (c != '\\' || i + 1 == s.length()) {
+        sb.append(c);
+        continue;
+      }
+      char next = s.charAt(++i);
+      switch (next) {
+        case 'n':
+          sb.append('\n');
+          break;
+        case 't':
+          sb.append('\t');
+          break;
+        case 'r':
+          sb.append('\r');
+          break;
+        case '0':
+          sb.append('\0');
+          break;
+        case 'x':
+          sb.append((char) Integer.parseInt(s.substring(i + 1, i + 3), 16));
+          i += 2;
+          break;
+        case 'u':
+          sb.append((char) Integer.parseInt(s.substring(i + 1, i + 5), 16));
+          i += 4;
+          break;
+        case '\\':
+        case '\'':
+        case '"':
+          sb.append(next);
+          break;
+        default:
+          sb.append(c).append(next);
+      }
+    }
+    return sb.toString();
+  }
+
+  /**
+   * Recursive descent parser for Python literals.
+   */
+  private static final class LiteralParser {
+
+    private final String text;
+    private int pos;
+
+    LiteralParser(String text) {
+      this.text = text;
+    }
+
+    boolean atEnd() {
+      return pos >= text.length();
+    }
+
+    void skipWhitespace() {
+      while (!atEnd() && Character.isWhitespace(text.charAt(pos))) {
+        pos++;
+      }
+    }
+
+    private boolean accept(char c) {
+      skipWhitespace();
+      if (!atEnd() && text.charAt(pos) == c) {
+        pos++;
+        return true;
+      }
+      return false;
+    }
+
+    private void expect(char c) {
+      if (!accept(c)) {
+        throw new IllegalArgumentException("Expected '" + c + "' at " + pos);
+      }
+    }
+
+    Object parseValue() {
+      skipWhitespace();
+      if (atEnd()) {
+        throw new IllegalArgumentException("Unexpected end of literal");
+      }
+      char c = text.charAt(pos);
+      if (c == '[') {
+        pos++;
+        return new PythonList(parseElements(']'));
+      }
+      if (c == '(') {
+        pos++;
+        if (accept(')')) {
+          return new PythonTuple();
+        }
+        Object first = parseValue();
+        if (accept(')')) {
+          // parenthesized expression
+          return first;
+        }
+        expect(',');
+        PythonTuple tuple = new PythonTuple();
+        tuple.add(first);
+        tuple.addAll(parseElements(')'));
+        return tuple;
+      }
+      if (c == '{') {
+        return parseDictOrSet();
+      }
+      if (c == '\'' || c == '"') {
+        return parseString(c);
+      }
+      int start = pos;
+      while (!atEnd() && ",:)]} \t".indexOf(text.charAt(pos)) < 0) {
+        pos++;
+      }
+      String token = text.substring(start, pos);
+      switch (token) {
+        case "True":
+          return true;
+        case "False":
+          return false;
+        case "None":
+          return PythonNone.NONE;
+        default:
+          Object value = parseInt(token);
+          if (value == null) {
+            value = parseFloat(token);
+          }
+          if (value == null || token.matches("[+-]?[a-zA-Z]+")) {
+            throw new IllegalArgumentException("Not a literal: " + token);
+          }
+          return value;
+      }
+    }
+
+    private List<Object> parseElements(char end) {
+      List<Object> elements = new ArrayList<>();
+      while (!accept(end)) {
+        elements.add(parseValue());
+        if (!accept(',')) {
+          expect(end);
+          break;
+        }
+      }
+      return elements;
+    }
+
+    private Object parseDictOrSet() {
+      pos++;
+      if (accept('}')) {
+        return new PythonDict();
+      }
+      Object first = parseValue();
+      if (accept(':')) {
+        PythonDict dict = new PythonDict();
+        dict.put(first, parseValue());
+        while (!accept('}')) {
+          expect(',');
+          if (accept('}')) {
+            break;
+          }
+          Object key = parseValue();
+          expect(':');
+          dict.put(key, parseValue());
+        }
+        return dict;
+      }
+      PythonSet set = new PythonSet();
+      set.add(first);
+      if (accept(',')) {
+        set.addAll(parseElements('}'));
+      } else {
+        expect('}');
+      }
+      return set;
+    }
+
+    private String parseString(char quote) {
+      int start = ++pos;
+      while (!atEnd() && text.charAt(pos) != quote) {
+        pos += text.charAt(pos) == '\\' ? 2 : 1;
+      }
+      if (atEnd()) {
+        throw new IllegalArgumentException("Unterminated string");
+      }
+      return unescape(text.substring(start, pos++));
+    }
+  }
+}
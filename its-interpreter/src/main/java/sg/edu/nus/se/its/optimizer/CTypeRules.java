@@ -0,0 +1,211 @@
+package sg.edu.nus.se.its.optimizer;
+
+import java.util.List;
+import java.util.Set;
+import sg.edu.nus.se.its.interpreter.CInterpreter;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Opcode.Category;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.util.UtilFunctions;
+import sg.edu.nus.se.its.util.constants.ClangConstants;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Typing rules of the {@link CInterpreter}. The types are "int" (Integer), "long" (Long), "double"
+ * (Double), "bool" (Boolean), "string" (String), "pointer" and arrays such as "int[]" (Object[]).
+ */
+public class CTypeRules implements TypeRules {
+
+  public static final String INT = "int";
+  public static final String LONG = "long";
+  public static final String DOUBLE = "double";
+  public static final String BOOL = "bool";
+  public static final String STRING = "string";
+  public static final String POINTER = "pointer";
+
+  private static final Set<String> VALUE_TYPES = Set.of(INT, LONG, DOUBLE, BOOL, STRING, POINTER);
+
+  private final CInterpreter interpreter = new CInterpreter();
+
+  @Override
+  public String valueType(Object value) {
+    if (value instanceof Integer) {
+      return INT;
+    }
+    if (value instanceof Long) {
+      return LONG;
+    }
+    if (value instanceof Double) {
+      return DOUBLE;
+    }
+    if (value instanceof Boolean) {
+      return BOOL;
+    }
+    if (value instanceof String && !UtilFunctions.isUndefined(value)) {
+      return STRING;
+    }
+    if (value instanceof CInterpreter.Pointer) {
+      return POINTER;
+    }
+    if (value instanceof Object[]) {
+      String elementType = null;
+      for (Object element : (Object[]) value) {
+        if (!UtilFunctions.isUndefined(element)) {
+          elementType = TypeRules.join(elementType, valueType(element));
+        }
+      }
+      return (elementType == null ? TOP : elementType) + "[]";
+    }
+    return value == null || UtilFunctions.isUndefined(value) ? null : TOP;
+  }
+
+  @Override
+  public String constantType(Constant constant) {
+    return valueType(interpreter.executeConstant(constant, null));
+  }
+
+  /**
+   * Maps a C type to the type of the values the interpreter converts to it, or returns null if the
+   * interpreter does not convert values of the type.
+   */
+  static String normalize(String type) {
+    if (type == null) {
+      return null;
+    }
+    String t = type.replace("const ", "").trim();
+    if (t.startsWith("signed ")) {
+      t = t.substring("signed ".length());
+    }
+    if (t.endsWith("[]")) {
+      String elementType = normalize(t.substring(0, t.length() - 2));
+      return (elementType == null ? TOP : elementType) + "[]";
+    }
+    if (t.startsWith("long long") || t.startsWith("unsigned long") || t.equals("long")
+        || t.equals("long int")) {
+      return LONG;
+    }
+    if (t.equals("float") || t.equals("double") || t.equals("long double")) {
+      return DOUBLE;
+    }
+    if (t.equals("int") || t.equals("unsigned") || t.equals("signed") || t.equals("char")
+        || t.startsWith("short") || t.startsWith("long") || t.startsWith("unsigned ")
+        || t.equals("_Bool") || t.equals("bool")) {
+      return INT;
+    }
+    return null;
+  }
+
+  @Override
+  public String assignedType(String declaredType, String valueType) {
+    if (declaredType == null) {
+      return valueType;
+    }
+    String type = normalize(declaredType);
+    if (type == null && BOOL.equals(valueType)) {
+      // Booleans are stored as int values unless the type is unknown
+      return INT;
+    }
+    if (type == null || POINTER.equals(valueType)
+        || valueType != null && valueType.endsWith("[]") != type.endsWith("[]")) {
+      // the interpreter keeps values it cannot convert
+      return valueType;
+    }
+    return type;
+  }
+
+  /**
+   * Arrays are compared by identity.
+   */
+  @Override
+  public boolean isValueType(String type) {
+    return VALUE_TYPES.contains(type);
+  }
+
+  /**
+   * Applies the usual arithmetic conversions, where Booleans become int values.
+   */
+  private static String promote(String type) {
+    if (BOOL.equals(type)) {
+      return INT;
+    }
+    return INT.equals(type) || LONG.equals(type) || DOUBLE.equals(type) ? type : TOP;
+  }
+
+  private static String arithmetic(String a, String b) {
+    a = promote(a);
+    b = promote(b);
+    if (a.equals(TOP) || b.equals(TOP)) {
+      return TOP;
+    }
+    if (a.equals(DOUBLE) || b.equals(DOUBLE)) {
+      return DOUBLE;
+    }
+    return a.equals(LONG) || b.equals(LONG) ? LONG : INT;
+  }
+
+  @Override
+  public String operationType(Operation operation, List<String> argTypes) {
+    String name = operation.getName();
+    int arity = argTypes.size();
+    switch (name) {
+      case "!":
+      case "&&":
+      case "||":
+      case "<":
+      case "<=":
+      case ">":
+      case ">=":
+      case "==":
+      case "!=":
+        return BOOL;
+      case "&":
+      case ClangConstants.ADDRESS_OF:
+        return arity == 1 ? POINTER : arithmetic(argTypes.get(0), argTypes.get(1));
+      case "*":
+        return arity == 1 ? TOP : arithmetic(argTypes.get(0), argTypes.get(1));
+      case "-":
+      case "+":
+      case "~":
+        return arity == 1 ? promote(argTypes.get(0))
+            : arithmetic(argTypes.get(0), argTypes.get(1));
+      case "/":
+      case "%":
+      case "|":
+      case "^":
+      case "<<":
+      case ">>":
+        return arithmetic(argTypes.get(0), argTypes.get(1));
+      case Constants.STRING_APPEND:
+      case Constants.STRING_FORMAT:
+        return STRING;
+      case Constants.ARRAY_CREATE:
+        return TOP + "[]";
+      case Constants.ARRAY_DECLARATION: {
+        String elementType = normalize(constantValue(operation, 1));
+        return (elementType == null ? TOP : elementType) + "[]";
+      }
+      case Constants.ARRAY_ASSIGN:
+        return argTypes.get(0);
+      case "[]": {
+        String type = argTypes.get(0);
+        for (int i = 1; i < arity && type != null && !type.equals(TOP); i++) {
+          type = type.endsWith("[]") ? type.substring(0, type.length() - 2) : TOP;
+        }
+        return type;
+      }
+      case ClangConstants.CAST:
+        return assignedType(constantValue(operation, 0), argTypes.get(1));
+      case "ListHead":
+        return assignedType(constantValue(operation, 0), STRING);
+      case "abs":
+        return LONG.equals(promote(argTypes.get(0))) ? LONG : INT;
+      default:
+        return operation.getOpcode().is(Category.MATH_FUNCTION) ? DOUBLE : TOP;
+    }
+  }
+
+  private static String constantValue(Operation operation, int index) {
+    return operation.getArgs().size() > index && operation.getArgs().get(index) instanceof Constant
+        ? ((Constant) operation.getArgs().get(index)).getValue() : null;
+  }
+}
@@ -0,0 +1,459 @@
+package sg.edu.nus.se.its.optimizer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.javatuples.Pair;
+import sg.edu.nus.se.its.interpreter.AbstractInterpreter;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.model.Variable;
+import sg.edu.nus.se.its.util.UtilFunctions;
+import sg.edu.nus.se.its.util.constants.ClangConstants;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Simplifies the control flow graphs of the functions of a program, which reduces the number of
+ * blocks executed and thus the size of the traces.
+ *
+ * <p>The simplification removes the branches of blocks with a constant condition, removes
+ * locations that cannot be reached, and merges each block with its successor if it is the only
+ * predecessor of the successor. Optionally, calls of small functions are inlined, i.e., replaced
+ * with the expression the function returns. This applies to functions with a single block without
+ * calls or input and output that only reads its parameters.
+ *
+ * <p>The simplified program computes the same results as the original one. Its traces have fewer
+ * entries, which are mapped to the original locations by the {@link LocationMapping}.
+ */
+public class CfgSimplifier {
+
+  private static final Set<String> NOT_INLINED = Set.of("FuncCall", "print", "input");
+
+  private final AbstractInterpreter interpreter;
+  private int inlineLimit;
+
+  /**
+   * Creates a simplifier that does not inline calls.
+   *
+   * @param interpreter -- the interpreter of the language of the programs, which is used to
+   *        evaluate constant conditions and must not be running
+   */
+  public CfgSimplifier(AbstractInterpreter interpreter) {
+    this.interpreter = interpreter;
+  }
+
+  /**
+   * Sets the maximum size of the expression of an inlined call, counted as in the number of
+   * constants, variables and operations. Inlined values are converted to the declared types with
+   * the cast operation if the interpreter supports it; otherwise, the interpreter must not convert
+   * values.
+   *
+   * @param inlineLimit -- the maximum size, or 0 to not inline calls
+   */
+  public void setInlineLimit(int inlineLimit) {
+    this.inlineLimit = inlineLimit;
+  }
+
+  /**
+   * Simplifies a program. The given program is not modified.
+   *
+   * @param program -- the program
+   * @return the simplified copy of the program and the mapping of its locations
+   */
+  public SimplifiedProgram simplify(Program program) {
+    Program result = UtilFunctions.deepCopyProgram(program);
+    LocationMapping mapping = new LocationMapping();
+    for (Function function : result.getFncs().values()) {
+      mapping.put(function.getName(), simplify(function));
+    }
+    if (inlineLimit > 0) {
+      inline(result, mapping);
+    }
+    return new SimplifiedProgram(result, mapping);
+  }
+
+  /**
+   * Simplifies the control flow graph of a function in place.
+   *
+   * @param function -- the function
+   * @return the original locations of the locations of the simplified function
+   */
+  public Map<Integer, List<Integer>> simplify(Function function) {
+    Map<Integer, List<Integer>> origins = new TreeMap<>();
+    for (int loc : function.getLocations()) {
+      origins.put(loc, new ArrayList<>(List.of(loc)));
+    }
+    if (!function.locExist(function.getInitloc())) {
+      return origins;
+    }
+    removeConstantBranches(function);
+    removeUnreachableLocations(function, origins);
+    mergeBlocks(function, origins);
+    return origins;
+  }
+
+  /**
+   * Replaces the transitions of blocks whose last assignment to the condition is a constant with
+   * the transition that is taken. A block with a single transition follows its true branch.
+   */
+  private void removeConstantBranches(Function function) {
+    for (int loc : function.getLocations()) {
+      if (function.getTransCount(loc) != 2) {
+        continue;
+      }
+      Expression cond = null;
+      for (Pair<String, Expression> assignment : function.getExprs(loc)) {
+        if (assignment.getValue0().equals(Constants.VAR_COND)) {
+          cond = assignment.getValue1();
+        }
+      }
+      Boolean taken = cond instanceof Constant ? condition(function, (Constant) cond) : null;
+      if (taken != null) {
+        function.addLocationTrans(loc, function.getTrans(loc, taken), null);
+      }
+    }
+  }
+
+  private Boolean condition(Function function, Constant cond) {
+    try {
+      Object value = interpreter.convert(interpreter.execute(cond, new Memory()),
+          function.getTypes().getOrDefault(Constants.VAR_COND, TypeRules.TOP));
+      return interpreter.isTrue(value);
+    } catch (RuntimeException | AssertionError e) {
+      return null;
+    }
+  }
+
+  private static List<Integer> successors(Function function, int loc) {
+    List<Integer> successors = new ArrayList<>();
+    for (Integer successor : function.getLoctrans().getOrDefault(loc, new HashMap<>())
+        .values()) {
+      if (successor != null && function.locExist(successor)) {
+        successors.add(successor);
+      }
+    }
+    return successors;
+  }
+
+  private static void removeUnreachableLocations(Function function,
+      Map<Integer, List<Integer>> origins) {
+    Set<Integer> reachable = new HashSet<>();
+    Deque<Integer> worklist = new ArrayDeque<>();
+    worklist.add(function.getInitloc());
+    while (!worklist.isEmpty()) {
+      int loc = worklist.poll();
+      if (reachable.add(loc)) {
+        worklist.addAll(successors(function, loc));
+      }
+    }
+    for (int loc : new ArrayList<>(function.getLocations())) {
+      if (!reachable.contains(loc)) {
+        function.removeLocation(loc);
+        origins.remove(loc);
+      }
+    }
+  }
+
+  private static void mergeBlocks(Function function, Map<Integer, List<Integer>> origins) {
+    boolean merged = true;
+    while (merged) {
+      merged = false;
+      Map<Integer, Integer> predecessors = new HashMap<>();
+      for (int loc : function.getLocations()) {
+        for (int successor : successors(function, loc)) {
+          predecessors.merge(successor, 1, Integer::sum);
+        }
+      }
+      for (int loc : new ArrayList<>(function.getLocations())) {
+        Integer successor = function.getTransCount(loc) == 1 ? function.getTrans(loc, true) : null;
+        if (successor == null || successor == loc || successor == function.getInitloc()
+            || !function.locExist(successor) || predecessors.get(successor) != 1) {
+          continue;
+        }
+        ArrayList<Pair<String, Expression>> block =
+            merge(function.getExprs(loc), function.getExprs(successor));
+        if (block == null) {
+          continue;
+        }
+        Map<Boolean, Integer> transitions = function.getLoctrans().get(successor);
+        function.replaceLocExpressions(loc, block);
+        function.addLocationTrans(loc, transitions.get(true), transitions.get(false));
+        function.removeLocation(successor);
+        origins.get(loc).addAll(origins.remove(successor));
+        merged = true;
+        break;
+      }
+    }
+  }
+
+  /**
+   * Appends the assignments of the second block to the first one. In the second block, unprimed
+   * variables assigned by the first block become primed.
+   *
+   * @return the merged block, or null if the blocks cannot be merged as the second block reads a
+   *         value of the first block after overwriting it or a primed variable before assigning it
+   */
+  private static ArrayList<Pair<String, Expression>> merge(List<Pair<String, Expression>> first,
+      List<Pair<String, Expression>> second) {
+    Set<String> assignedByFirst = new HashSet<>();
+    for (Pair<String, Expression> assignment : first) {
+      assignedByFirst.add(assignment.getValue0());
+    }
+    ArrayList<Pair<String, Expression>> block = new ArrayList<>(first);
+    Set<String> assigned = new HashSet<>();
+    for (Pair<String, Expression> assignment : second) {
+      Expression expression = rebase(assignment.getValue1(), assignedByFirst, assigned);
+      if (expression == null) {
+        return null;
+      }
+      block.add(new Pair<>(assignment.getValue0(), expression));
+      assigned.add(assignment.getValue0());
+    }
+    return block;
+  }
+
+  private static Expression rebase(Expression expression, Set<String> assignedByFirst,
+      Set<String> assigned) {
+    if (expression instanceof Variable) {
+      Variable variable = (Variable) expression;
+      String name = variable.getUnprimedName();
+      if (!assignedByFirst.contains(name)) {
+        return expression;
+      }
+      if (variable.isPrimed()) {
+        // an undefined value would become the value of the first block
+        return assigned.contains(name) ? expression : null;
+      }
+      // the value before the second block is no longer available once it is overwritten
+      return assigned.contains(name) ? null : Expressions.variable(variable, true);
+    }
+    if (!(expression instanceof Operation) || Expressions.isAddressOf((Operation) expression)) {
+      return expression;
+    }
+    Operation operation = (Operation) expression;
+    List<Expression> args = new ArrayList<>();
+    for (Expression arg : operation.getArgs()) {
+      Expression rebased = rebase(arg, assignedByFirst, assigned);
+      if (rebased == null) {
+        return null;
+      }
+      args.add(rebased);
+    }
+    return Expressions.rebuild(operation, args);
+  }
+
+  /**
+   * Inlines calls until no more calls can be inlined. Inlined expressions do not contain calls, so
+   * the number of calls decreases with every inlined call.
+   */
+  private void inline(Program program, LocationMapping mapping) {
+    boolean inlined = true;
+    while (inlined) {
+      inlined = false;
+      Map<String, Expression> bodies = new HashMap<>();
+      for (Function function : program.getFncs().values()) {
+        Expression body = inlineBody(function);
+        if (body != null) {
+          bodies.put(function.getName(), body);
+        }
+      }
+      for (Function function : program.getFncs().values()) {
+        for (int loc : function.getLocations()) {
+          ArrayList<Pair<String, Expression>> block = new ArrayList<>();
+          Set<String> callees = new HashSet<>();
+          for (Pair<String, Expression> assignment : function.getExprs(loc)) {
+            block.add(new Pair<>(assignment.getValue0(),
+                inlineCalls(program, bodies, assignment.getValue1(), callees)));
+          }
+          if (!callees.isEmpty()) {
+            function.replaceLocExpressions(loc, block);
+            for (String callee : callees) {
+              mapping.addInlinedFunction(function.getName(), loc, callee);
+            }
+            inlined = true;
+          }
+        }
+      }
+    }
+  }
+
+  private Expression inlineCalls(Program program, Map<String, Expression> bodies,
+      Expression expression, Set<String> callees) {
+    if (!(expression instanceof Operation)) {
+      return expression;
+    }
+    Operation operation = (Operation) expression;
+    List<Expression> args = new ArrayList<>();
+    for (Expression arg : operation.getArgs()) {
+      args.add(inlineCalls(program, bodies, arg, callees));
+    }
+    if (!operation.getName().equals("FuncCall") || args.isEmpty()) {
+      return Expressions.rebuild(operation, args);
+    }
+
+    Expression name = args.get(0);
+    String functionName = name instanceof Constant ? ((Constant) name).getValue()
+        : name instanceof Variable ? ((Variable) name).getName() : null;
+    Function callee = functionName == null ? null : program.getFunctionForName(functionName);
+    Expression body = callee == null ? null : bodies.get(functionName);
+    if (body == null || callee.getParams().size() != args.size() - 1) {
+      return Expressions.rebuild(operation, args);
+    }
+    Map<String, Pair<Expression, String>> params = new HashMap<>();
+    for (int i = 1; i < args.size(); i++) {
+      if (!Expressions.isAtomic(args.get(i))) {
+        // arguments can be evaluated several times or not at all
+        return Expressions.rebuild(operation, args);
+      }
+      Pair<String, String> param = callee.getParams().get(i - 1);
+      params.put(param.getValue0(), new Pair<>(args.get(i), param.getValue1()));
+    }
+    callees.add(functionName);
+    return Expressions.original(substitute(body, params), operation);
+  }
+
+  /**
+   * Replaces the parameters with the converted arguments.
+   */
+  private Expression substitute(Expression expression,
+      Map<String, Pair<Expression, String>> params) {
+    if (expression instanceof Variable) {
+      Pair<Expression, String> param = params.get(((Variable) expression).getUnprimedName());
+      Expression arg = param.getValue0();
+      if (arg instanceof Variable) {
+        arg = Expressions.variable((Variable) arg, ((Variable) arg).isPrimed());
+      }
+      return convert(arg, param.getValue1());
+    }
+    if (!(expression instanceof Operation)) {
+      return expression;
+    }
+    Operation operation = (Operation) expression;
+    List<Expression> args = new ArrayList<>();
+    for (Expression arg : operation.getArgs()) {
+      args.add(substitute(arg, params));
+    }
+    return new Operation(operation.getName(), args, operation.getLineNumber());
+  }
+
+  /**
+   * Returns the expression a function returns, where the unprimed variables are its parameters,
+   * or null if the function cannot be inlined.
+   */
+  private Expression inlineBody(Function function) {
+    if (function.getLocations().size() != 1 || !function.locExist(function.getInitloc())
+        || function.getTransCount(function.getInitloc()) != 0) {
+      return null;
+    }
+    List<Pair<String, Expression>> block = function.getExprs(function.getInitloc());
+    if (block.isEmpty() || !block.get(block.size() - 1).getValue0().equals(Constants.VAR_RET)) {
+      return null;
+    }
+    Set<String> params = new HashSet<>();
+    for (Pair<String, String> param : function.getParams()) {
+      params.add(param.getValue0());
+    }
+
+    // the converted values of the assigned variables
+    Map<String, Expression> values = new HashMap<>();
+    for (int i = 0; i < block.size(); i++) {
+      String variable = block.get(i).getValue0();
+      if (variable.equals(Constants.VAR_RET) && i < block.size() - 1) {
+        return null;
+      }
+      Expression value = expand(block.get(i).getValue1(), params, values);
+      if (value == null) {
+        return null;
+      }
+      String type = variable.equals(Constants.VAR_RET) ? function.getRettype()
+          : function.getTypes().getOrDefault(variable, TypeRules.TOP);
+      values.put(variable, convert(value, type));
+    }
+    Expression body = values.get(Constants.VAR_RET);
+    if (Expressions.size(body) > inlineLimit) {
+      return null;
+    }
+
+    // every assignment must still be evaluated unless it cannot fail
+    Set<Expression> evaluated = Collections.newSetFromMap(new IdentityHashMap<>());
+    collectEvaluated(body, evaluated);
+    for (int i = 0; i < block.size() - 1; i++) {
+      if (!Expressions.isAtomic(block.get(i).getValue1())
+          && !evaluated.contains(values.get(block.get(i).getValue0()))) {
+        return null;
+      }
+    }
+    return body;
+  }
+
+  /**
+   * Replaces the primed variables with their values. Unprimed variables must be parameters and
+   * primed variables must be assigned before.
+   */
+  private static Expression expand(Expression expression, Set<String> params,
+      Map<String, Expression> values) {
+    if (expression instanceof Variable) {
+      Variable variable = (Variable) expression;
+      if (variable.isPrimed()) {
+        return values.get(variable.getUnprimedName());
+      }
+      return params.contains(variable.getName()) ? expression : null;
+    }
+    if (!(expression instanceof Operation)) {
+      return expression;
+    }
+    Operation operation = (Operation) expression;
+    if (NOT_INLINED.contains(operation.getName()) || Expressions.isAddressOf(operation)
+        || Expressions.isDereference(operation)) {
+      // pointers refer to the variables of the called function, which also has its own input
+      // and output
+      return null;
+    }
+    List<Expression> args = new ArrayList<>();
+    for (Expression arg : operation.getArgs()) {
+      Expression expanded = expand(arg, params, values);
+      if (expanded == null) {
+        return null;
+      }
+      args.add(expanded);
+    }
+    return new Operation(operation.getName(), args, operation.getLineNumber());
+  }
+
+  private static void collectEvaluated(Expression expression, Set<Expression> evaluated) {
+    evaluated.add(expression);
+    if (expression instanceof Operation) {
+      Operation operation = (Operation) expression;
+      for (int i = 0; i < operation.getArgs().size(); i++) {
+        if (!Expressions.isLazyArgument(operation, i)) {
+          collectEvaluated(operation.getArgs().get(i), evaluated);
+        }
+      }
+    }
+  }
+
+  /**
+   * Converts a value to a type like an assignment does.
+   */
+  private Expression convert(Expression value, String type) {
+    if (type == null || !interpreter.getSpecialOps().contains(ClangConstants.CAST)) {
+      return value;
+    }
+    List<Expression> args = new ArrayList<>();
+    args.add(new Constant(type, value.getLineNumber()));
+    args.add(value);
+    return new Operation(ClangConstants.CAST, args, value.getLineNumber());
+  }
+}
@@ -0,0 +1,418 @@
+package sg.edu.nus.se.its.optimizer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import org.javatuples.Pair;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.model.Variable;
+import sg.edu.nus.se.its.util.UtilFunctions;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Eliminates common subexpressions of a program model. An operation that is evaluated again while
+ * its value is still available is computed once into a temporary variable, which replaces the
+ * other evaluations.
+ *
+ * <p>Values are available within a block after the assignment that evaluates them, until a
+ * variable they read as primed variable is assigned. They remain available along straight-line
+ * paths, i.e., in the successors whose only predecessor is the block. Temporaries are named with
+ * the prefix {@link Constants#VAR_TEMP_PREFIX} and appear in the traces of the optimized program.
+ *
+ * <p>Only operations without side effects or pointer accesses are reused, and only if their values
+ * are immutable according to the {@link TypeInference}. Operands that are evaluated conditionally,
+ * e.g., the branches of an ite, can reuse values but do not make them available. The optimized
+ * program computes the same values, but can report a different error if an assignment evaluates
+ * several failing operations.
+ */
+public class CommonSubexpressionEliminator {
+
+  private static final Set<String> IMPURE = Set.of("FuncCall", "print", "input");
+
+  private final TypeInference inference;
+
+  /**
+   * Creates an eliminator.
+   *
+   * @param inference -- the type inference of the language of the programs
+   */
+  public CommonSubexpressionEliminator(TypeInference inference) {
+    this.inference = inference;
+  }
+
+  /**
+   * Eliminates the common subexpressions of the functions of a program. The given program is not
+   * modified.
+   *
+   * @param program -- the program
+   * @return the optimized copy of the program
+   */
+  public Program optimize(Program program) {
+    Program result = UtilFunctions.deepCopyProgram(program);
+    for (Function function : result.getFncs().values()) {
+      optimize(result, function);
+    }
+    return result;
+  }
+
+  /**
+   * Eliminates the common subexpressions of a function in place.
+   *
+   * @param program -- the program of the function, can be null
+   * @param function -- the function
+   * @return the number of evaluations that were replaced with temporaries
+   */
+  public int optimize(Program program, Function function) {
+    if (!function.locExist(function.getInitloc())) {
+      return 0;
+    }
+    FunctionTypes types = inference.infer(program, function);
+    Rewriter rewriter = new Rewriter(function, types, inference.getRules());
+    rewriter.rewrite();
+    return rewriter.finish();
+  }
+
+  /**
+   * A value that is available, i.e., computed into a temporary on every path to the current
+   * assignment.
+   */
+  private static final class Value {
+
+    final Object key;
+    final String temporary;
+    final boolean primed;
+    final Set<String> primedReads;
+    final Set<String> unprimedReads;
+
+    Value(Object key, String temporary, boolean primed, Set<String> primedReads,
+        Set<String> unprimedReads) {
+      this.key = key;
+      this.temporary = temporary;
+      this.primed = primed;
+      this.primedReads = primedReads;
+      this.unprimedReads = unprimedReads;
+    }
+
+    /**
+     * Returns the value in the memory of a successor of the block, or null if it is no longer
+     * available as the block assigned a variable it reads.
+     */
+    Value successor(Set<String> assigned) {
+      if (!assigned.containsAll(primedReads)
+          || unprimedReads.stream().anyMatch(assigned::contains)) {
+        return null;
+      }
+      Set<String> reads = new HashSet<>(unprimedReads);
+      reads.addAll(primedReads);
+      return new Value(unprime(key), temporary, false, Set.of(), reads);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Object unprime(Object key) {
+      List<Object> list = (List<Object>) key;
+      if (list.get(0).equals("v")) {
+        return List.of("v", list.get(1), false);
+      }
+      List<Object> result = new ArrayList<>();
+      for (Object element : list) {
+        result.add(element instanceof List ? unprime(element) : element);
+      }
+      return result;
+    }
+  }
+
+  /**
+   * Rewrites the blocks of a function, where every operation that can be reused is first computed
+   * into its own temporary. Temporaries that are used only once are inlined again at the end.
+   */
+  private static final class Rewriter {
+
+    private final Function function;
+    private final FunctionTypes types;
+    private final TypeRules rules;
+    private final Set<String> names = new HashSet<>();
+    private final Map<String, Expression> definitions = new HashMap<>();
+    private final Map<String, Integer> uses = new HashMap<>();
+    private final Map<String, String> renamed = new HashMap<>();
+    private final Map<Integer, ArrayList<Pair<String, Expression>>> blocks = new TreeMap<>();
+    private int next;
+
+    Rewriter(Function function, FunctionTypes types, TypeRules rules) {
+      this.function = function;
+      this.types = types;
+      this.rules = rules;
+      for (int loc : function.getLocations()) {
+        for (Pair<String, Expression> assignment : function.getExprs(loc)) {
+          names.add(assignment.getValue0());
+          collectNames(assignment.getValue1());
+        }
+      }
+    }
+
+    private void collectNames(Expression expression) {
+      if (expression instanceof Variable) {
+        names.add(((Variable) expression).getUnprimedName());
+      } else if (expression instanceof Operation) {
+        for (Expression arg : ((Operation) expression).getArgs()) {
+          collectNames(arg);
+        }
+      }
+    }
+
+    /**
+     * Rewrites the blocks in the order of the trees of straight-line paths, whose roots are the
+     * locations with several predecessors.
+     */
+    void rewrite() {
+      Map<Integer, Integer> predecessors = new HashMap<>();
+      for (int loc : function.getLocations()) {
+        for (int successor : successors(loc)) {
+          predecessors.merge(successor, 1, Integer::sum);
+        }
+      }
+      Deque<Pair<Integer, List<Value>>> worklist = new ArrayDeque<>();
+      for (int loc : function.getLocations()) {
+        if (loc == function.getInitloc() || predecessors.getOrDefault(loc, 0) != 1) {
+          worklist.push(new Pair<>(loc, new ArrayList<>()));
+        }
+      }
+      while (!worklist.isEmpty()) {
+        Pair<Integer, List<Value>> item = worklist.pop();
+        int loc = item.getValue0();
+        List<Value> available = item.getValue1();
+        Set<String> assigned = rewriteBlock(loc, available);
+        for (int successor : successors(loc)) {
+          if (successor == function.getInitloc() || predecessors.get(successor) != 1) {
+            continue;
+          }
+          List<Value> inherited = new ArrayList<>();
+          for (Value value : available) {
+            Value successorValue = value.successor(assigned);
+            if (successorValue != null) {
+              inherited.add(successorValue);
+            }
+          }
+          worklist.push(new Pair<>(successor, inherited));
+        }
+      }
+    }
+
+    private List<Integer> successors(int loc) {
+      List<Integer> successors = new ArrayList<>();
+      for (Integer successor : function.getLoctrans().getOrDefault(loc, new HashMap<>())
+          .values()) {
+        if (successor != null && function.locExist(successor)) {
+          successors.add(successor);
+        }
+      }
+      return successors;
+    }
+
+    /**
+     * Rewrites a block, given the values available at its entry.
+     *
+     * @return the variables assigned by the block
+     */
+    private Set<String> rewriteBlock(int loc, List<Value> available) {
+      ArrayList<Pair<String, Expression>> block = new ArrayList<>();
+      Set<String> assigned = new HashSet<>();
+      for (Pair<String, Expression> assignment : function.getExprs(loc)) {
+        List<Pair<String, Expression>> temporaries = new ArrayList<>();
+        Expression expression = rewrite(assignment.getValue1(), true, available, temporaries);
+        block.addAll(temporaries);
+        block.add(new Pair<>(assignment.getValue0(), expression));
+
+        String variable = assignment.getValue0();
+        assigned.add(variable);
+        available.removeIf(value -> value.primedReads.contains(variable));
+      }
+      blocks.put(loc, block);
+      return assigned;
+    }
+
+    private Expression rewrite(Expression expression, boolean eager, List<Value> available,
+        List<Pair<String, Expression>> temporaries) {
+      if (!(expression instanceof Operation)
+          || Expressions.isAddressOf((Operation) expression)) {
+        return expression;
+      }
+      Operation operation = (Operation) expression;
+      Object key = key(operation);
+      for (Value value : available) {
+        if (value.key.equals(key)) {
+          return reference(value.temporary, value.primed, operation);
+        }
+      }
+
+      List<Expression> args = new ArrayList<>();
+      for (int i = 0; i < operation.getArgs().size(); i++) {
+        args.add(rewrite(operation.getArgs().get(i),
+            eager && !Expressions.isLazyArgument(operation, i), available, temporaries));
+      }
+      Operation rewritten = Expressions.rebuild(operation, args);
+      if (!eager || !isReusable(operation)) {
+        return rewritten;
+      }
+
+      String temporary = temporary();
+      temporaries.add(new Pair<>(temporary, rewritten));
+      definitions.put(temporary, rewritten);
+      Set<String> primedReads = new HashSet<>();
+      Set<String> unprimedReads = new HashSet<>();
+      collectReads(operation, primedReads, unprimedReads);
+      available.add(new Value(key, temporary, true, primedReads, unprimedReads));
+      return reference(temporary, true, operation);
+    }
+
+    private String temporary() {
+      String name;
+      do {
+        name = Constants.VAR_TEMP_PREFIX + next++;
+      } while (names.contains(name));
+      return name;
+    }
+
+    private Expression reference(String temporary, boolean primed, Operation operation) {
+      uses.merge(temporary, 1, Integer::sum);
+      Variable variable = new Variable(temporary, operation.getLineNumber());
+      variable.setPrimed(primed);
+      return Expressions.original(variable, operation);
+    }
+
+    /**
+     * Checks whether the value of an operation can be reused, i.e., it has no side effects, does
+     * not read variables through pointers and its values are immutable.
+     */
+    private boolean isReusable(Operation operation) {
+      return isPure(operation) && rules.isValueType(types.getType(operation));
+    }
+
+    private static boolean isPure(Expression expression) {
+      if (!(expression instanceof Operation)) {
+        return true;
+      }
+      Operation operation = (Operation) expression;
+      if (IMPURE.contains(operation.getName()) || Expressions.isAddressOf(operation)
+          || Expressions.isDereference(operation)) {
+        return false;
+      }
+      for (Expression arg : operation.getArgs()) {
+        if (!isPure(arg)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    /**
+     * Inlines the temporaries that are used once and replaces the blocks of the function.
+     *
+     * @return the number of uses of the remaining temporaries beyond the first one
+     */
+    int finish() {
+      int reused = 0;
+      for (int count : uses.values()) {
+        reused += count - 1;
+      }
+      if (reused == 0) {
+        return 0;
+      }
+      // the remaining temporaries are numbered consecutively
+      next = 0;
+      for (List<Pair<String, Expression>> block : blocks.values()) {
+        for (Pair<String, Expression> assignment : block) {
+          String variable = assignment.getValue0();
+          if (definitions.containsKey(variable) && !isInlined(variable)) {
+            renamed.put(variable, temporary());
+          }
+        }
+      }
+      for (Map.Entry<Integer, ArrayList<Pair<String, Expression>>> entry : blocks.entrySet()) {
+        ArrayList<Pair<String, Expression>> block = new ArrayList<>();
+        for (Pair<String, Expression> assignment : entry.getValue()) {
+          String variable = assignment.getValue0();
+          if (!isInlined(variable)) {
+            block.add(new Pair<>(renamed.getOrDefault(variable, variable),
+                inline(assignment.getValue1())));
+          }
+        }
+        function.replaceLocExpressions(entry.getKey(), block);
+      }
+      return reused;
+    }
+
+    private boolean isInlined(String variable) {
+      return definitions.containsKey(variable) && uses.get(variable) == 1;
+    }
+
+    private Expression inline(Expression expression) {
+      if (expression instanceof Variable) {
+        Variable variable = (Variable) expression;
+        String name = variable.getUnprimedName();
+        if (isInlined(name)) {
+          return inline(definitions.get(name));
+        }
+        if (!renamed.containsKey(name)) {
+          return expression;
+        }
+        Variable result = new Variable(renamed.get(name), variable.getLineNumber());
+        result.setPrimed(variable.isPrimed());
+        result.setOriginalExpression(variable.getOriginalExpr());
+        return result;
+      }
+      if (!(expression instanceof Operation)) {
+        return expression;
+      }
+      Operation operation = (Operation) expression;
+      List<Expression> args = new ArrayList<>();
+      for (Expression arg : operation.getArgs()) {
+        args.add(inline(arg));
+      }
+      return Expressions.rebuild(operation, args);
+    }
+  }
+
+  /**
+   * Returns a key that is equal for structurally equal expressions. Unlike the equality of
+   * expressions, it distinguishes primed and unprimed variables.
+   */
+  private static Object key(Expression expression) {
+    if (expression instanceof Variable) {
+      Variable variable = (Variable) expression;
+      return List.of("v", variable.getUnprimedName(), variable.isPrimed());
+    }
+    if (expression instanceof Constant) {
+      return List.of("c", ((Constant) expression).getValue());
+    }
+    Operation operation = (Operation) expression;
+    List<Object> key = new ArrayList<>();
+    key.add("o");
+    key.add(operation.getName());
+    for (Expression arg : operation.getArgs()) {
+      key.add(key(arg));
+    }
+    return key;
+  }
+
+  private static void collectReads(Expression expression, Set<String> primedReads,
+      Set<String> unprimedReads) {
+    if (expression instanceof Variable) {
+      Variable variable = (Variable) expression;
+      (variable.isPrimed() ? primedReads : unprimedReads).add(variable.getUnprimedName());
+    } else if (expression instanceof Operation) {
+      for (Expression arg : ((Operation) expression).getArgs()) {
+        collectReads(arg, primedReads, unprimedReads);
+      }
+    }
+  }
+}
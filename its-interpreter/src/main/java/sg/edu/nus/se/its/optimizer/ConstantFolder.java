@@ -0,0 +1,329 @@
+package sg.edu.nus.se.its.optimizer;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.javatuples.Pair;
+import sg.edu.nus.se.its.interpreter.AbstractInterpreter;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Opcode;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.model.Variable;
+import sg.edu.nus.se.its.util.UtilFunctions;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Constant folding and propagation over the locations of the functions of a program.
+ *
+ * <p>Operations whose arguments are constants are evaluated with the interpreter of the language
+ * and replaced with the constant of their value, and ite operations with a known condition are
+ * replaced with the taken branch. The values of variables are propagated along the transitions of
+ * a function, where branches with a known condition are only followed into the taken successor.
+ *
+ * <p>The optimized program has the same locations, transitions and assignments as the original
+ * one, so it produces the same trace for any input. Replaced expressions keep their line number
+ * and record the expression they replace as original expression.
+ */
+public class ConstantFolder {
+
+  /**
+   * Operations that are never evaluated, as they read the memory or call functions.
+   */
+  private static final Set<Opcode> NOT_FOLDED = EnumSet.of(Opcode.FUNC_CALL, Opcode.LIST_HEAD,
+      Opcode.LIST_TAIL, Opcode.PRINT, Opcode.INPUT);
+
+  private final AbstractInterpreter interpreter;
+
+  /**
+   * Creates a constant folder.
+   *
+   * @param interpreter -- the interpreter of the language of the programs, which is used to
+   *        evaluate operations and must not be running
+   */
+  public ConstantFolder(AbstractInterpreter interpreter) {
+    this.interpreter = interpreter;
+  }
+
+  /**
+   * Optimizes a program. The given program is not modified.
+   *
+   * @param program -- the program
+   * @return the optimized copy of the program
+   */
+  public Program optimize(Program program) {
+    Program result = UtilFunctions.deepCopyProgram(program);
+    for (Function function : result.getFncs().values()) {
+      optimize(function);
+    }
+    return result;
+  }
+
+  /**
+   * Optimizes the expressions of a function in place.
+   *
+   * @param function -- the function
+   */
+  public void optimize(Function function) {
+    Map<Integer, Map<String, Object>> entryValues = analyze(function);
+    for (Map.Entry<Integer, Map<String, Object>> entry : entryValues.entrySet()) {
+      ArrayList<Pair<String, Expression>> block = new ArrayList<>();
+      transfer(function, entry.getKey(), entry.getValue(), block);
+      function.replaceLocExpressions(entry.getKey(), block);
+    }
+  }
+
+  /**
+   * Computes the known values of the variables before each reachable location.
+   */
+  private Map<Integer, Map<String, Object>> analyze(Function function) {
+    Map<Integer, Map<String, Object>> entryValues = new HashMap<>();
+    entryValues.put(function.getInitloc(), new HashMap<>());
+    Deque<Integer> worklist = new ArrayDeque<>();
+    worklist.add(function.getInitloc());
+    while (!worklist.isEmpty()) {
+      int loc = worklist.poll();
+      Map<String, Object> exit = transfer(function, loc, entryValues.get(loc), null);
+      for (Integer successor : successors(function, loc, exit)) {
+        if (successor == null || !function.locExist(successor)) {
+          continue;
+        }
+        Map<String, Object> before = entryValues.get(successor);
+        Map<String, Object> after = before == null ? new HashMap<>(exit) : meet(before, exit);
+        if (before == null || !after.keySet().equals(before.keySet())) {
+          entryValues.put(successor, after);
+          if (!worklist.contains(successor)) {
+            worklist.add(successor);
+          }
+        }
+      }
+    }
+    return entryValues;
+  }
+
+  /**
+   * Returns the successors of a location that can be taken with the given values after the block.
+   */
+  private List<Integer> successors(Function function, int loc, Map<String, Object> exit) {
+    List<Integer> successors = new ArrayList<>();
+    if (exit == null) {
+      // the block always returns
+      return successors;
+    }
+    int transitions = function.getTransCount(loc);
+    if (transitions == 1) {
+      successors.add(function.getTrans(loc, true));
+    } else if (transitions == 2) {
+      Object cond = exit.get(Constants.VAR_COND);
+      Boolean taken = cond == null ? null : condition(cond);
+      for (boolean branch : new boolean[] {true, false}) {
+        if (taken == null || taken == branch) {
+          successors.add(function.getTrans(loc, branch));
+        }
+      }
+    }
+    return successors;
+  }
+
+  /**
+   * Keeps the values that are the same in both maps. As only known values are kept, a smaller map
+   * is lower in the lattice, so the fixpoint is reached once the key sets no longer change.
+   */
+  private static Map<String, Object> meet(Map<String, Object> a, Map<String, Object> b) {
+    Map<String, Object> result = new HashMap<>();
+    for (Map.Entry<String, Object> entry : a.entrySet()) {
+      if (isSameValue(entry.getValue(), b.get(entry.getKey()))) {
+        result.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return result;
+  }
+
+  private static boolean isSameValue(Object a, Object b) {
+    return a != null && b != null && a.getClass() == b.getClass() && Objects.equals(a, b);
+  }
+
+  /**
+   * Folds the assignments of a block, given the known values before the block.
+   *
+   * @param block -- receives the folded assignments if not null
+   * @return the known values after the block, or null if the block always returns
+   */
+  private Map<String, Object> transfer(Function function, int loc, Map<String, Object> entry,
+      List<Pair<String, Expression>> block) {
+    Map<String, Object> exit = new HashMap<>(entry);
+    Map<String, Object> assigned = new HashMap<>();
+    List<Pair<String, Expression>> assignments = function.getExprs(loc);
+    for (int i = 0; i < assignments.size(); i++) {
+      String variable = assignments.get(i).getValue0();
+      Expression expression = assignments.get(i).getValue1();
+      Expression folded = fold(expression, entry, assigned);
+      Object value = valueOf(folded);
+      if (value != null && UtilFunctions.isUndefined(value)) {
+        value = null;
+      }
+
+      String declaredType = Objects.equals(variable, Constants.VAR_RET) ? function.getRettype()
+          : function.getTypes().getOrDefault(variable, TypeRules.TOP);
+      Object converted = value == null ? null : convert(value, declaredType);
+      Constant literal = converted == null ? null : literal(converted, declaredType, folded);
+      if (literal != null && !(folded instanceof Constant)) {
+        // the value is stored as the converted value of the literal
+        folded = literal;
+      }
+      if (block != null) {
+        block.add(new Pair<>(variable, folded));
+      }
+      if (literal != null) {
+        assigned.put(variable, converted);
+        exit.put(variable, converted);
+      } else {
+        assigned.remove(variable);
+        exit.remove(variable);
+      }
+
+      if (Objects.equals(variable, Constants.VAR_RET) && value != null) {
+        // the remaining assignments are never executed
+        if (block != null) {
+          block.addAll(assignments.subList(i + 1, assignments.size()));
+        }
+        return null;
+      }
+    }
+    return exit;
+  }
+
+  private Object convert(Object value, String type) {
+    try {
+      return interpreter.convert(value, type);
+    } catch (RuntimeException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Folds an expression, where unprimed variables have the known values before the block and
+   * primed variables the known values assigned in the block so far.
+   */
+  private Expression fold(Expression expression, Map<String, Object> entry,
+      Map<String, Object> assigned) {
+    if (expression instanceof Variable) {
+      Variable variable = (Variable) expression;
+      Object value = (variable.isPrimed() ? assigned : entry).get(variable.getUnprimedName());
+      if (value == null) {
+        return expression;
+      }
+      Constant literal = literal(value, null, expression);
+      return literal == null ? expression : literal;
+    }
+    if (!(expression instanceof Operation)) {
+      return expression;
+    }
+
+    Operation operation = (Operation) expression;
+    if (Expressions.isAddressOf(operation)) {
+      // the operand is a variable rather than its value
+      return expression;
+    }
+    if (NOT_FOLDED.contains(operation.getOpcode())) {
+      // the name of a called function is not a value
+      int first = operation.getOpcode() == Opcode.FUNC_CALL ? 1 : 0;
+      List<Expression> args = new ArrayList<>(operation.getArgs());
+      for (int i = first; i < args.size(); i++) {
+        args.set(i, fold(args.get(i), entry, assigned));
+      }
+      return Expressions.rebuild(operation, args);
+    }
+
+    if (operation.getOpcode() == Opcode.ITE && operation.getArgs().size() == 3) {
+      Expression cond = fold(operation.getArgs().get(0), entry, assigned);
+      Object value = valueOf(cond);
+      Boolean taken = value == null ? null : condition(value);
+      if (taken != null) {
+        Expression branch = fold(operation.getArgs().get(taken ? 1 : 2), entry, assigned);
+        return Expressions.original(branch, operation);
+      }
+    }
+
+    List<Expression> args = new ArrayList<>();
+    boolean isConstant = true;
+    for (Expression arg : operation.getArgs()) {
+      Expression folded = fold(arg, entry, assigned);
+      isConstant &= folded instanceof Constant;
+      args.add(folded);
+    }
+    Operation folded = Expressions.rebuild(operation, args);
+    if (isConstant) {
+      Object value = evaluate(folded);
+      Constant literal = value == null ? null : literal(value, null, operation);
+      if (literal != null) {
+        return literal;
+      }
+    }
+    return folded;
+  }
+
+  /**
+   * Returns the value of a folded expression, or null if it is not known.
+   */
+  private Object valueOf(Expression expression) {
+    if (expression instanceof Constant) {
+      return evaluate(expression);
+    }
+    if (expression instanceof Operation
+        && !NOT_FOLDED.contains(((Operation) expression).getOpcode())) {
+      for (Expression arg : ((Operation) expression).getArgs()) {
+        if (!(arg instanceof Constant)) {
+          return null;
+        }
+      }
+      return evaluate(expression);
+    }
+    return null;
+  }
+
+  private Object evaluate(Expression expression) {
+    try {
+      return interpreter.execute(expression, new Memory());
+    } catch (RuntimeException | AssertionError e) {
+      // errors are left to happen at runtime
+      return null;
+    }
+  }
+
+  private Boolean condition(Object value) {
+    try {
+      return interpreter.isTrue(value);
+    } catch (RuntimeException | AssertionError e) {
+      return null;
+    }
+  }
+
+  /**
+   * Creates the constant of a value, provided that it is executed to the same value, after the
+   * conversion to the declared type if given.
+   *
+   * @return the constant, or null if the value has no such literal
+   */
+  private Constant literal(Object value, String declaredType, Expression replaced) {
+    String text = interpreter.toLiteral(value);
+    if (text == null) {
+      return null;
+    }
+    Constant constant = new Constant(text, replaced.getLineNumber());
+    Object actual = evaluate(constant);
+    if (declaredType != null && actual != null) {
+      actual = convert(actual, declaredType);
+    }
+    return isSameValue(value, actual) ? (Constant) Expressions.original(constant, replaced) : null;
+  }
+}
@@ -0,0 +1,127 @@
+package sg.edu.nus.se.its.optimizer;
+
+import java.util.List;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Opcode;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.model.Variable;
+
+/**
+ * Helpers for rewriting expressions. Rewrites create new expressions rather than modifying the
+ * given ones, as expressions can be shared.
+ */
+final class Expressions {
+
+  private Expressions() {}
+
+  /**
+   * Records the replaced expression as original expression of its replacement, unless the replaced
+   * expression already has an original expression.
+   *
+   * @return the replacement
+   */
+  static Expression original(Expression replacement, Expression replaced) {
+    if (replacement != replaced) {
+      replacement.setOriginalExpression(replaced.getOriginalExpr() != null
+          ? replaced.getOriginalExpr() : replaced);
+    }
+    return replacement;
+  }
+
+  /**
+   * Returns an operation with the given arguments, which is the operation itself if the arguments
+   * did not change.
+   */
+  static Operation rebuild(Operation operation, List<Expression> args) {
+    for (int i = 0; i < args.size(); i++) {
+      if (args.get(i) != operation.getArgs().get(i)) {
+        Operation result = new Operation(operation.getName(), args, operation.getLineNumber());
+        return (Operation) original(result, operation);
+      }
+    }
+    return operation;
+  }
+
+  /**
+   * Returns a variable with the given prime status.
+   */
+  static Variable variable(Variable variable, boolean primed) {
+    Variable result = new Variable(variable.getUnprimedName(), variable.getLineNumber());
+    result.setPrimed(primed);
+    return (Variable) original(result, variable);
+  }
+
+  /**
+   * Returns whether the operation takes the address of its operand, which is a variable rather
+   * than its value.
+   */
+  static boolean isAddressOf(Operation operation) {
+    return operation.getArgs().size() == 1 && (operation.getOpcode() == Opcode.AMPERSAND
+        || operation.getOpcode() == Opcode.ADDRESS_OF);
+  }
+
+  /**
+   * Returns whether the operation reads the memory through a pointer.
+   */
+  static boolean isDereference(Operation operation) {
+    return operation.getArgs().size() == 1 && operation.getOpcode() == Opcode.STAR;
+  }
+
+  /**
+   * Returns whether the argument at the given index is only evaluated depending on the other
+   * arguments, i.e., the branches of an ite and the operands of short-circuit operators after the
+   * first one.
+   */
+  static boolean isLazyArgument(Operation operation, int index) {
+    switch (operation.getOpcode()) {
+      case ITE:
+      case LOGICAL_AND:
+      case LOGICAL_OR:
+      case AND:
+      case OR:
+        return index > 0;
+      default:
+        return false;
+    }
+  }
+
+  /**
+   * Returns whether the expression calls a function.
+   */
+  static boolean containsCall(Expression expression) {
+    if (!(expression instanceof Operation)) {
+      return false;
+    }
+    Operation operation = (Operation) expression;
+    if (operation.getOpcode() == Opcode.FUNC_CALL) {
+      return true;
+    }
+    for (Expression arg : operation.getArgs()) {
+      if (containsCall(arg)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the number of constants, variables and operations of the expression.
+   */
+  static int size(Expression expression) {
+    int size = 1;
+    if (expression instanceof Operation) {
+      for (Expression arg : ((Operation) expression).getArgs()) {
+        size += size(arg);
+      }
+    }
+    return size;
+  }
+
+  /**
+   * Returns whether evaluating the expression cannot fail, i.e., it is a constant or a variable.
+   */
+  static boolean isAtomic(Expression expression) {
+    return expression instanceof Constant || expression instanceof Variable;
+  }
+}
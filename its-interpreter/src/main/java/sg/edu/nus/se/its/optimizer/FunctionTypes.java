@@ -0,0 +1,76 @@
+package sg.edu.nus.se.its.optimizer;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import sg.edu.nus.se.its.model.Expression;
+
+/**
+ * Result of the type inference for a function. Types describe the defined values only, i.e., any
+ * variable or expression may still be undefined at runtime.
+ */
+public class FunctionTypes {
+
+  private final Map<Integer, Map<String, String>> entryTypes;
+  private final Map<Integer, Map<String, String>> exitTypes;
+  private final Map<Expression, String> expressionTypes;
+
+  FunctionTypes(Map<Integer, Map<String, String>> entryTypes,
+      Map<Integer, Map<String, String>> exitTypes, Map<Expression, String> expressionTypes) {
+    this.entryTypes = entryTypes;
+    this.exitTypes = exitTypes;
+    this.expressionTypes = expressionTypes;
+  }
+
+  /**
+   * Returns the type of a variable before the block at the given location is executed.
+   *
+   * @param loc -- the location
+   * @param variable -- the unprimed name of the variable
+   * @return the type, or null if the variable is undefined or the location is unreachable
+   */
+  public String getEntryType(int loc, String variable) {
+    return entryTypes.getOrDefault(loc, Collections.emptyMap()).get(variable);
+  }
+
+  /**
+   * Returns the type of a variable after the block at the given location is executed, i.e., the
+   * type of the primed variable.
+   *
+   * @param loc -- the location
+   * @param variable -- the unprimed name of the variable
+   * @return the type, or null if the variable is undefined or the location is unreachable
+   */
+  public String getExitType(int loc, String variable) {
+    return exitTypes.getOrDefault(loc, Collections.emptyMap()).get(variable);
+  }
+
+  /**
+   * Returns the type of an expression of the function. Expressions are identified by identity, so
+   * equal expressions at different locations can have different types.
+   *
+   * @param expression -- an expression or subexpression of the function
+   * @return the type, or {@link TypeRules#TOP} if the expression is unknown or never evaluated
+   */
+  public String getType(Expression expression) {
+    String type = expressionTypes.get(expression);
+    return type == null ? TypeRules.TOP : type;
+  }
+
+  /**
+   * Checks whether all defined values of the expression have the same type, so that the operation
+   * can be specialized to that type.
+   */
+  public boolean isMonomorphic(Expression expression) {
+    return !getType(expression).equals(TypeRules.TOP);
+  }
+
+  public Set<Integer> getReachableLocations() {
+    return Collections.unmodifiableSet(entryTypes.keySet());
+  }
+
+  @Override
+  public String toString() {
+    return String.format("FunctionTypes [entry=%s, exit=%s]", entryTypes, exitTypes);
+  }
+}
@@ -0,0 +1,76 @@
+package sg.edu.nus.se.its.optimizer;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * Maps the locations of a simplified program to the locations of the original program, so that
+ * results of the simplified program can be reported against the original control flow graph.
+ */
+public class LocationMapping {
+
+  private final Map<String, Map<Integer, List<Integer>>> originalLocations = new HashMap<>();
+  private final Map<String, Map<Integer, Integer>> locations = new HashMap<>();
+  private final Map<String, Map<Integer, Set<String>>> inlinedFunctions = new HashMap<>();
+
+  /**
+   * Sets the original locations of the locations of a function.
+   */
+  void put(String function, Map<Integer, List<Integer>> origins) {
+    originalLocations.put(function, origins);
+    Map<Integer, Integer> functionLocations = new HashMap<>();
+    for (Map.Entry<Integer, List<Integer>> entry : origins.entrySet()) {
+      for (Integer original : entry.getValue()) {
+        functionLocations.put(original, entry.getKey());
+      }
+    }
+    locations.put(function, functionLocations);
+  }
+
+  void addInlinedFunction(String function, int loc, String callee) {
+    inlinedFunctions.computeIfAbsent(function, f -> new HashMap<>())
+        .computeIfAbsent(loc, l -> new TreeSet<>()).add(callee);
+  }
+
+  /**
+   * Returns the original locations whose blocks were merged into the block at a location, in the
+   * order of execution.
+   *
+   * @param function -- the name of the function
+   * @param loc -- the location in the simplified program
+   * @return the original locations, or an empty list if the location does not exist
+   */
+  public List<Integer> getOriginalLocations(String function, int loc) {
+    return Collections.unmodifiableList(originalLocations.getOrDefault(function,
+        Collections.emptyMap()).getOrDefault(loc, Collections.emptyList()));
+  }
+
+  /**
+   * Returns the location that contains the block of an original location.
+   *
+   * @param function -- the name of the function
+   * @param originalLoc -- the location in the original program
+   * @return the location in the simplified program, or null if the location was removed as it is
+   *         unreachable
+   */
+  public Integer getLocation(String function, int originalLoc) {
+    return locations.getOrDefault(function, Collections.emptyMap()).get(originalLoc);
+  }
+
+  /**
+   * Returns the functions whose calls were inlined into the block at a location. The blocks of
+   * these functions do not appear in the traces of the simplified program.
+   *
+   * @param function -- the name of the function
+   * @param loc -- the location in the simplified program
+   * @return the names of the inlined functions
+   */
+  public Set<String> getInlinedFunctions(String function, int loc) {
+    return Collections.unmodifiableSet(inlinedFunctions.getOrDefault(function,
+        Collections.emptyMap()).getOrDefault(loc, Collections.emptySet()));
+  }
+}
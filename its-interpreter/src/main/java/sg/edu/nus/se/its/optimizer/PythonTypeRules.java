@@ -0,0 +1,188 @@
+package sg.edu.nus.se.its.optimizer;
+
+import java.util.List;
+import java.util.Set;
+import sg.edu.nus.se.its.interpreter.PythonInterpreter;
+import sg.edu.nus.se.its.interpreter.python.PythonValues;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.util.UtilFunctions;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Typing rules of the {@link PythonInterpreter}. The types are the names of the Python types, e.g.,
+ * "int", "float", "str" or "list". Declared types are ignored, as Python is dynamically typed.
+ */
+public class PythonTypeRules implements TypeRules {
+
+  public static final String INT = "int";
+  public static final String FLOAT = "float";
+  public static final String BOOL = "bool";
+  public static final String STR = "str";
+  public static final String LIST = "list";
+  public static final String TUPLE = "tuple";
+  public static final String SET = "set";
+  public static final String DICT = "dict";
+  public static final String NONE = "NoneType";
+
+  private static final Set<String> VALUE_TYPES = Set.of(INT, FLOAT, BOOL, STR, NONE);
+
+  private static final Set<String> BOOL_RESULTS = Set.of("Not", "Eq", "NotEq", "Lt", "LtE", "Gt",
+      "GtE", "Is", "IsNot", "In", "NotIn", "bool", "isdisjoint", "issubset", "issuperset");
+
+  private static final Set<String> STR_RESULTS = Set.of("print", "str", "input", "ListHead",
+      Constants.STRING_FORMAT, Constants.STRING_APPEND);
+
+  private static final Set<String> LIST_RESULTS = Set.of("ListInit", "list", "range", "sorted",
+      "keys", "values", "items");
+
+  private static final Set<String> SET_RESULTS = Set.of("SetInit", "set", "union", "intersection",
+      "difference", "symmetric_difference");
+
+  /**
+   * Methods that return their modified receiver.
+   */
+  private static final Set<String> RECEIVER_RESULTS = Set.of("append", "extend", "insert",
+      "remove", "pop", "clear", "reverse", "sort", "add", "discard", "copy", "AssignElement");
+
+  private final PythonInterpreter interpreter = new PythonInterpreter();
+
+  @Override
+  public String valueType(Object value) {
+    return value == null || UtilFunctions.isUndefined(value) ? null
+        : PythonValues.typeName(value);
+  }
+
+  @Override
+  public String constantType(Constant constant) {
+    return valueType(interpreter.executeConstant(constant, null));
+  }
+
+  @Override
+  public String assignedType(String declaredType, String valueType) {
+    return valueType;
+  }
+
+  /**
+   * Collections, including tuples, are compared by identity with the is operator.
+   */
+  @Override
+  public boolean isValueType(String type) {
+    return VALUE_TYPES.contains(type);
+  }
+
+  private static String numeric(String type) {
+    if (BOOL.equals(type)) {
+      return INT;
+    }
+    return INT.equals(type) || FLOAT.equals(type) ? type : TOP;
+  }
+
+  private static String arithmetic(String a, String b) {
+    a = numeric(a);
+    b = numeric(b);
+    if (a.equals(TOP) || b.equals(TOP)) {
+      return TOP;
+    }
+    return a.equals(FLOAT) || b.equals(FLOAT) ? FLOAT : INT;
+  }
+
+  private static boolean isSequence(String type) {
+    return STR.equals(type) || LIST.equals(type) || TUPLE.equals(type);
+  }
+
+  @Override
+  public String operationType(Operation operation, List<String> argTypes) {
+    String name = operation.getName();
+    if (BOOL_RESULTS.contains(name)) {
+      return BOOL;
+    }
+    if (STR_RESULTS.contains(name)) {
+      return STR;
+    }
+    if (LIST_RESULTS.contains(name)) {
+      return LIST;
+    }
+    if (SET_RESULTS.contains(name)) {
+      return SET;
+    }
+    String first = argTypes.isEmpty() ? null : argTypes.get(0);
+    String second = argTypes.size() < 2 ? null : argTypes.get(1);
+    switch (name) {
+      case "And":
+      case "Or": {
+        String type = null;
+        for (String argType : argTypes) {
+          type = TypeRules.join(type, argType);
+        }
+        return type == null ? TOP : type;
+      }
+      case "USub":
+      case "UAdd":
+      case "Invert":
+      case "abs":
+        return numeric(first);
+      case "Add":
+      case "AssAdd":
+        if (isSequence(first) && first.equals(second)) {
+          return first;
+        }
+        return name.equals("AssAdd") && LIST.equals(first) ? LIST : arithmetic(first, second);
+      case "Sub":
+        return SET.equals(first) && SET.equals(second) ? SET : arithmetic(first, second);
+      case "Mult":
+        if (isSequence(first) && INT.equals(numeric(second))) {
+          return first;
+        }
+        if (isSequence(second) && INT.equals(numeric(first))) {
+          return second;
+        }
+        return arithmetic(first, second);
+      case "Div":
+        return arithmetic(first, second).equals(TOP) ? TOP : FLOAT;
+      case "FloorDiv":
+        return arithmetic(first, second);
+      case "Mod":
+        return STR.equals(first) ? STR : arithmetic(first, second);
+      case "Pow":
+      case "pow":
+        // an int raised to a negative power is a float
+        return FLOAT.equals(arithmetic(first, second)) ? FLOAT : TOP;
+      case "LShift":
+      case "RShift":
+        return INT.equals(arithmetic(first, second)) ? INT : TOP;
+      case "BitAnd":
+      case "BitOr":
+      case "BitXor":
+        if (BOOL.equals(first) && BOOL.equals(second)) {
+          return BOOL;
+        }
+        if (SET.equals(first) && SET.equals(second)) {
+          return SET;
+        }
+        return INT.equals(arithmetic(first, second)) ? INT : TOP;
+      case "len":
+      case "int":
+      case "count":
+      case "index":
+        return INT;
+      case "float":
+        return FLOAT;
+      case "round":
+        return argTypes.size() == 1 ? INT : numeric(first);
+      case "TupleInit":
+      case "tuple":
+      case "popitem":
+        return TUPLE;
+      case "DictInit":
+      case "dict":
+        return DICT;
+      case "GetElement":
+        return STR.equals(first) ? STR : TOP;
+      case "Slice":
+        return isSequence(first) ? first : TOP;
+      default:
+        return RECEIVER_RESULTS.contains(name) && first != null ? first : TOP;
+    }
+  }
+}
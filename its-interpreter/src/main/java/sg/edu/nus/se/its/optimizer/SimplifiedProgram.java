@@ -0,0 +1,26 @@
+package sg.edu.nus.se.its.optimizer;
+
+import sg.edu.nus.se.its.model.Program;
+
+/**
+ * Result of the {@link CfgSimplifier}, i.e., the simplified program and the mapping of its
+ * locations to the locations of the original program.
+ */
+public class SimplifiedProgram {
+
+  private final Program program;
+  private final LocationMapping mapping;
+
+  SimplifiedProgram(Program program, LocationMapping mapping) {
+    this.program = program;
+    this.mapping = mapping;
+  }
+
+  public Program getProgram() {
+    return program;
+  }
+
+  public LocationMapping getMapping() {
+    return mapping;
+  }
+}
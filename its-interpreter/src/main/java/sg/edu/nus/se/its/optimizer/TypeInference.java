@@ -0,0 +1,214 @@
+package sg.edu.nus.se.its.optimizer;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.WeakHashMap;
+import org.javatuples.Pair;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.model.Variable;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Flow-sensitive type inference over the locations of a function. The types of the variables are
+ * propagated along the transitions until a fixpoint is reached, where the types of different paths
+ * are joined. Declared types are only used where the interpreter converts assigned values to them.
+ *
+ * <p>Results are cached per function object together with the program and the state of the
+ * function, and recomputed when the function is inferred with another program or was modified
+ * through the methods of the model. Other modifications require to invalidate the function.
+ */
+public class TypeInference {
+
+  /**
+   * Inferred types and what they were inferred from. The program is weakly referenced, as it
+   * references the function that is the key of the entry.
+   */
+  private static final class Entry {
+    private final WeakReference<Program> program;
+    private final int modCount;
+    private final long expressionStamp;
+    private final FunctionTypes types;
+
+    private Entry(Program program, int modCount, long expressionStamp, FunctionTypes types) {
+      this.program = new WeakReference<>(program);
+      this.modCount = modCount;
+      this.expressionStamp = expressionStamp;
+      this.types = types;
+    }
+  }
+
+  private final TypeRules rules;
+  private final Map<Function, Entry> cache = Collections.synchronizedMap(new WeakHashMap<>());
+
+  public TypeInference(TypeRules rules) {
+    this.rules = rules;
+  }
+
+  public TypeRules getRules() {
+    return rules;
+  }
+
+  /**
+   * Infers the types of the variables and expressions of a function.
+   *
+   * @param program -- the program of the function, used for the return types of called functions,
+   *        can be null
+   * @param function -- the function
+   * @return the inferred types
+   */
+  public FunctionTypes infer(Program program, Function function) {
+    int modCount = function.getModCount();
+    long expressionStamp = function.getExpressionStamp();
+    Entry entry = cache.get(function);
+    if (entry != null && entry.program.get() == program && entry.modCount == modCount
+        && entry.expressionStamp == expressionStamp) {
+      return entry.types;
+    }
+    FunctionTypes types = analyze(program, function);
+    cache.put(function, new Entry(program, modCount, expressionStamp, types));
+    return types;
+  }
+
+  /**
+   * Removes the cached types of a function that was modified other than through the methods of
+   * the model.
+   */
+  public void invalidate(Function function) {
+    cache.remove(function);
+  }
+
+  private FunctionTypes analyze(Program program, Function function) {
+    Map<String, String> initial = new HashMap<>();
+    initial.put(Constants.VAR_IN, TypeRules.TOP);
+    initial.put(Constants.VAR_OUT, rules.valueType(""));
+    for (Pair<String, String> param : function.getParams()) {
+      put(initial, param.getValue0(), rules.assignedType(param.getValue1(), TypeRules.TOP));
+    }
+
+    Map<Integer, Map<String, String>> entryTypes = new TreeMap<>();
+    entryTypes.put(function.getInitloc(), initial);
+    Deque<Integer> worklist = new ArrayDeque<>();
+    worklist.add(function.getInitloc());
+    while (!worklist.isEmpty()) {
+      int loc = worklist.poll();
+      Map<String, String> exit = transfer(program, function, loc, entryTypes.get(loc), null);
+      for (Integer successor : function.getLoctrans().getOrDefault(loc, new HashMap<>())
+          .values()) {
+        if (successor == null || !function.locExist(successor)) {
+          continue;
+        }
+        Map<String, String> before = entryTypes.get(successor);
+        Map<String, String> after = before == null ? new HashMap<>(exit) : join(before, exit);
+        if (!after.equals(before)) {
+          entryTypes.put(successor, after);
+          if (!worklist.contains(successor)) {
+            worklist.add(successor);
+          }
+        }
+      }
+    }
+
+    Map<Integer, Map<String, String>> exitTypes = new TreeMap<>();
+    Map<Expression, String> expressionTypes = new IdentityHashMap<>();
+    for (Map.Entry<Integer, Map<String, String>> entry : entryTypes.entrySet()) {
+      exitTypes.put(entry.getKey(),
+          transfer(program, function, entry.getKey(), entry.getValue(), expressionTypes));
+    }
+    return new FunctionTypes(entryTypes, exitTypes, expressionTypes);
+  }
+
+  private static Map<String, String> join(Map<String, String> a, Map<String, String> b) {
+    Map<String, String> result = new HashMap<>(a);
+    for (Map.Entry<String, String> entry : b.entrySet()) {
+      result.put(entry.getKey(), TypeRules.join(a.get(entry.getKey()), entry.getValue()));
+    }
+    return result;
+  }
+
+  private static void put(Map<String, String> types, String variable, String type) {
+    if (type == null) {
+      types.remove(variable);
+    } else {
+      types.put(variable, type);
+    }
+  }
+
+  /**
+   * Computes the types after executing the block at the given location.
+   */
+  private Map<String, String> transfer(Program program, Function function, int loc,
+      Map<String, String> entry, Map<Expression, String> expressionTypes) {
+    Map<String, String> exit = new HashMap<>(entry);
+    Map<String, String> assigned = new HashMap<>();
+    for (Pair<String, Expression> assignment : function.getExprs(loc)) {
+      String variable = assignment.getValue0();
+      String valueType = typeOf(program, assignment.getValue1(), entry, assigned,
+          expressionTypes);
+      // temporaries are not converted
+      String declaredType = Objects.equals(variable, Constants.VAR_RET) ? function.getRettype()
+          : variable.startsWith(Constants.VAR_TEMP_PREFIX) ? null
+          : function.getTypes().getOrDefault(variable, TypeRules.TOP);
+      String type = rules.assignedType(declaredType, valueType);
+      put(assigned, variable, type);
+      put(exit, variable, type);
+    }
+    return exit;
+  }
+
+  private String typeOf(Program program, Expression expression, Map<String, String> entry,
+      Map<String, String> assigned, Map<Expression, String> expressionTypes) {
+    String type;
+    if (expression instanceof Variable) {
+      Variable variable = (Variable) expression;
+      // primed variables that were not assigned yet in the block are undefined
+      type = (variable.isPrimed() ? assigned : entry).get(variable.getUnprimedName());
+    } else if (expression instanceof Constant) {
+      type = rules.constantType((Constant) expression);
+    } else if (expression instanceof Operation) {
+      Operation operation = (Operation) expression;
+      List<String> argTypes = new ArrayList<>();
+      for (Expression arg : operation.getArgs()) {
+        argTypes.add(typeOf(program, arg, entry, assigned, expressionTypes));
+      }
+      type = operationType(program, operation, argTypes);
+    } else {
+      type = TypeRules.TOP;
+    }
+    if (expressionTypes != null) {
+      // shared subexpressions get the join of the types at all their occurrences
+      expressionTypes.merge(expression, type == null ? TypeRules.TOP : type, TypeRules::join);
+    }
+    return type;
+  }
+
+  private String operationType(Program program, Operation operation, List<String> argTypes) {
+    switch (operation.getName()) {
+      case "ite":
+        return TypeRules.join(argTypes.get(1), argTypes.get(2));
+      case "FuncCall": {
+        Expression name = operation.getArgs().get(0);
+        String functionName = name instanceof Constant ? ((Constant) name).getValue()
+            : name instanceof Variable ? ((Variable) name).getName() : null;
+        Function callee = program == null || functionName == null ? null
+            : program.getFunctionForName(functionName);
+        return callee == null ? TypeRules.TOP
+            : rules.assignedType(callee.getRettype(), TypeRules.TOP);
+      }
+      default:
+        return rules.operationType(operation, argTypes);
+    }
+  }
+}
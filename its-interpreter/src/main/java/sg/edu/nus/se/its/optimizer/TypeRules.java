@@ -0,0 +1,62 @@
+package sg.edu.nus.se.its.optimizer;
+
+import java.util.List;
+import java.util.Objects;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Operation;
+
+/**
+ * Language-specific typing rules used by {@link TypeInference}. Types are the names of the runtime
+ * representations of values, e.g., "int" or "double" for C. The type {@link #TOP} stands for
+ * values of different or unknown types, and null for the absence of a defined value.
+ */
+public interface TypeRules {
+
+  String TOP = "*";
+
+  /**
+   * Returns the type of a value at runtime.
+   */
+  String valueType(Object value);
+
+  String constantType(Constant constant);
+
+  /**
+   * Returns the result type of an operation, given the types of its arguments. Calls of functions
+   * of the program and ite are typed by the inference itself.
+   *
+   * @param operation -- the operation
+   * @param argTypes -- types of the arguments, where null stands for an undefined argument
+   * @return the type of the result
+   */
+  String operationType(Operation operation, List<String> argTypes);
+
+  /**
+   * Returns the type of a variable after a value was assigned to it, i.e., after the conversion to
+   * the declared type of the variable.
+   *
+   * @param declaredType -- type of the variable in the model, can be null
+   * @param valueType -- type of the assigned value
+   * @return the type of the variable
+   */
+  String assignedType(String declaredType, String valueType);
+
+  /**
+   * Checks whether the values of a type are immutable and compared by value, so that a single value
+   * can be used in place of several equal ones.
+   */
+  boolean isValueType(String type);
+
+  /**
+   * Joins the types of two control flow paths.
+   */
+  static String join(String a, String b) {
+    if (a == null) {
+      return b;
+    }
+    if (b == null || Objects.equals(a, b)) {
+      return a;
+    }
+    return TOP;
+  }
+}
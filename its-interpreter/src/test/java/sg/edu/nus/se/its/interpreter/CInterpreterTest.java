@@ -0,0 +1,265 @@
+package sg.edu.nus.se.its.interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static sg.edu.nus.se.its.interpreter.TestModels.RESOURCES;
+import static sg.edu.nus.se.its.interpreter.TestModels.inputFile;
+import static sg.edu.nus.se.its.interpreter.TestModels.lastValue;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadInputs;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadProgram;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.ExpressionInterner;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.model.Variable;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Tests the local C interpreter. The bundled program models are checked against the output of the
+ * corresponding C programs compiled with gcc.
+ */
+public class CInterpreterTest {
+
+  /**
+   * Models of programs that print uninitialized variables, whose output is undefined in C.
+   */
+  private static final Set<String> UNDEFINED_BEHAVIOR = Set.of("test3_b.c.json");
+
+  static Stream<String> cModels() {
+    return TestModels.models(".c.json");
+  }
+
+  private static boolean isGccAvailable() {
+    try {
+      return new ProcessBuilder("gcc", "--version").start().waitFor(10, TimeUnit.SECONDS);
+    } catch (IOException | InterruptedException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Compiles the given C file with gcc, or returns null if it does not compile.
+   */
+  private static Path compile(File source) throws IOException, InterruptedException {
+    Path binary = Files.createTempFile("its-c-interpreter", ".out");
+    binary.toFile().deleteOnExit();
+    Process gcc = new ProcessBuilder("gcc", "-w", source.getPath(), "-o", binary.toString(), "-lm")
+        .redirectErrorStream(true).start();
+    gcc.getInputStream().readAllBytes();
+    return gcc.waitFor() == 0 ? binary : null;
+  }
+
+  /**
+   * Runs the binary with the given input, or returns null if it does not terminate in time.
+   */
+  private static String run(Path binary, Input input) throws IOException, InterruptedException {
+    Process process = new ProcessBuilder(binary.toString()).start();
+    process.getOutputStream().write(String.join(" ", input.getInputs()).getBytes());
+    process.getOutputStream().close();
+    if (!process.waitFor(2, TimeUnit.SECONDS)) {
+      process.destroyForcibly();
+      return null;
+    }
+    return new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+  }
+
+  @ParameterizedTest
+  @MethodSource("cModels")
+  void testMatchesGcc(String model) throws Exception {
+    assumeTrue(isGccAvailable(), "gcc is not available");
+    File source = new File(RESOURCES + "source/" + model.replace(".json", ""));
+    assumeTrue(source.exists());
+    assumeTrue(!UNDEFINED_BEHAVIOR.contains(model), "program with undefined behavior");
+    String modelJson = Files.readString(Path.of(RESOURCES, "model", model));
+    assumeTrue(Files.exists(inputFile(model)) || !modelJson.contains("ListHead"),
+        "program that reads input without an input file");
+    Path binary = compile(source);
+    assumeTrue(binary != null, "model of a program that does not compile");
+
+    Program program = loadProgram(model);
+    for (Input input : loadInputs(model)) {
+      String expected = run(binary, input);
+      CInterpreter interpreter = new CInterpreter();
+      interpreter.setStepLimit(100_000);
+      ExecutionOutcome outcome = interpreter.runProgram(program, input);
+      if (expected == null) {
+        assertEquals(ExecutionStatus.DIVERGED, outcome.getStatus(), model + " " + input);
+      } else {
+        assertTrue(outcome.isOk(), model + " " + input + ": " + outcome.getMessage());
+        String actual = (String) lastValue(outcome.getTrace(), "$out");
+        if (Files.readString(source.toPath()).contains("%p")) {
+          // addresses of variables differ between runs
+          expected = expected.replaceAll("0x7[0-9a-f]+", "0x?");
+          actual = actual.replaceAll("0x7[0-9a-f]+", "0x?");
+        }
+        assertEquals(expected, actual, model + " " + input);
+      }
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("cModels")
+  void testInternedProgram(String model) throws IOException {
+    Program program = loadProgram(model);
+    Program interned = new ExpressionInterner().intern(loadProgram(model));
+
+    for (Input input : loadInputs(model)) {
+      CInterpreter interpreter = new CInterpreter();
+      interpreter.setStepLimit(10_000);
+      ExecutionOutcome expected = interpreter.runProgram(program, input);
+      ExecutionOutcome actual = interpreter.runProgram(interned, input);
+
+      assertEquals(expected.getStatus(), actual.getStatus(), model + " " + input);
+      assertEquals(expected.getMessage(), actual.getMessage(), model + " " + input);
+      if (expected.isOk()) {
+        assertEquals(String.valueOf(lastValue(expected.getTrace(), "$out")),
+            String.valueOf(lastValue(actual.getTrace(), "$out")), model + " " + input);
+      }
+    }
+  }
+
+  @Test
+  void testArithmetic() throws IOException {
+    Program program = loadProgram("operatorsInC_c.c.json");
+    Trace trace = new CInterpreter().executeProgram(program);
+
+    assertEquals(7, lastValue(trace, "i11"));
+    assertEquals(-1, lastValue(trace, "i21"));
+    assertEquals(0, lastValue(trace, "i41"));
+    assertEquals(3, lastValue(trace, "i51"));
+    assertEquals(7.0, lastValue(trace, "d11"));
+    assertEquals(0, lastValue(trace, "b11"));
+    assertEquals(1, lastValue(trace, "b41"));
+    assertArrayEquals(new Object[] {3, 4, 8}, (Object[]) lastValue(trace, "op11"));
+    assertEquals(0, lastValue(trace, "op21"));
+  }
+
+  @Test
+  void testFloatInput() throws IOException {
+    Program program = loadProgram("test5_c.c.json");
+    Trace trace = new CInterpreter().executeProgram(program,
+        new Input(new String[] {"3", "-4.5"}, null));
+
+    assertEquals(-4.5, lastValue(trace, "b"));
+    assertEquals("The area of (3.0000,-4.5000), (3.0000,0) and (0,-4.5000) is 6.7500.\n",
+        lastValue(trace, "$out"));
+  }
+
+  @Test
+  void testConversions() {
+    CInterpreter interpreter = new CInterpreter();
+
+    assertEquals(2, interpreter.convert(2.9, "int"));
+    assertEquals(1, interpreter.convert(true, "int"));
+    assertEquals(97, interpreter.convert("a", "char"));
+    assertEquals(-56, interpreter.convert(200, "char"));
+    assertEquals(200, interpreter.convert(200, "unsigned char"));
+    assertEquals(5L, interpreter.convert(5, "long long"));
+    assertEquals(0.1f, ((Double) interpreter.convert(0.1, "float")).floatValue());
+    assertEquals(-12, interpreter.convert("-12", "int"));
+  }
+
+  @Test
+  void testPrintf() {
+    assertEquals("  42|-7  |0042|2a|3.14|1e+06|0.0001|x|%",
+        PrintfFormatter.format("%4d|%-4d|%04d|%x|%.2f|%g|%g|%c|%%",
+            Arrays.asList(42, -7, 42, 42, 3.14159, 1e6, 1e-4, 120)));
+    assertEquals("4294967295 +5 3.000000e+00 nan",
+        PrintfFormatter.format("%u %+d %e %f", Arrays.asList(-1, 5, 3.0, Double.NaN)));
+  }
+
+  @Test
+  void testDivisionByZero() {
+    Function main = new Function("main", new ArrayList<>(), "int");
+    int loc = main.addLocation(0, "init");
+    main.addExpr(loc, Constants.VAR_RET,
+        new Operation("/", new ArrayList<>(List.of(new Constant("1", 1), new Constant("0", 1))),
+            1));
+    main.addLocationTrans(loc, null, null);
+    Program program = new Program();
+    program.addfnc(main);
+    ExecutionOutcome outcome = new CInterpreter().runProgram(program, null);
+
+    assertEquals(ExecutionStatus.RUNTIME_ERROR, outcome.getStatus());
+    assertEquals("Division by zero", outcome.getMessage());
+  }
+
+  private static Operation op(String name, Expression... args) {
+    return new Operation(name, new ArrayList<>(List.of(args)), 1);
+  }
+
+  @Test
+  void testUnsignedArithmetic() {
+    Function main = new Function("main", new ArrayList<>(), "int");
+    main.addType("u", "unsigned int");
+    main.addType("ul", "unsigned long");
+    main.addType("i", "int");
+    int init = main.addLocation(0, "init");
+    int exit = main.addLocation(0, "exit");
+    main.addExpr(init, "u", op("-", new Constant("0", 1), new Constant("1", 1)));
+    main.addExpr(init, "ul", op("-", new Constant("0", 1), new Constant("1", 1)));
+    main.addExpr(exit, "quotient", op("/", new Variable("u"), new Constant("2", 1)));
+    main.addExpr(exit, "remainder", op("%", new Variable("u"), new Constant("10", 1)));
+    main.addExpr(exit, "shifted", op(">>", new Variable("u"), new Constant("1", 1)));
+    main.addExpr(exit, "wrapped", op("+", new Variable("u"), new Constant("1", 1)));
+    main.addExpr(exit, "negated", op("-", new Constant("1u", 1)));
+    main.addExpr(exit, "greater", op(">", new Variable("u"), new Constant("1", 1)));
+    main.addExpr(exit, "converted", op("<", new Constant("-1", 1), new Constant("1u", 1)));
+    main.addExpr(exit, "signed", op("<", new Constant("-1", 1), new Constant("1", 1)));
+    main.addExpr(exit, "longQuotient", op("/", new Variable("ul"), new Constant("2", 1)));
+    main.addExpr(exit, "longGreater", op(">", new Variable("ul"), new Constant("1", 1)));
+    main.addExpr(exit, "longShifted", op(">>", new Variable("ul"), new Constant("63", 1)));
+    main.addExpr(exit, "i", op("/", new Variable("u"), new Constant("-1", 1)));
+    main.addLocationTrans(init, exit, null);
+    main.addLocationTrans(exit, null, null);
+    Program program = new Program();
+    program.addfnc(main);
+    Trace trace = new CInterpreter().executeProgram(program);
+
+    assertEquals(4294967295L, lastValue(trace, "u"));
+    assertEquals(-1L, lastValue(trace, "ul"));
+    assertEquals(2147483647L, lastValue(trace, "quotient"));
+    assertEquals(5L, lastValue(trace, "remainder"));
+    assertEquals(2147483647L, lastValue(trace, "shifted"));
+    assertEquals(0L, lastValue(trace, "wrapped"));
+    assertEquals(4294967295L, lastValue(trace, "negated"));
+    assertEquals(1, lastValue(trace, "greater"));
+    assertEquals(0, lastValue(trace, "converted"));
+    assertEquals(1, lastValue(trace, "signed"));
+    assertEquals(Long.MAX_VALUE, lastValue(trace, "longQuotient"));
+    assertEquals(1, lastValue(trace, "longGreater"));
+    assertEquals(1L, lastValue(trace, "longShifted"));
+    assertEquals(1, lastValue(trace, "i"));
+  }
+
+  @Test
+  void testUnsignedConversions() {
+    CInterpreter interpreter = new CInterpreter();
+
+    assertEquals(4294967295L, interpreter.convert(-1, "unsigned int"));
+    assertEquals(4294967295L, interpreter.convert("-1", "unsigned"));
+    assertEquals(0L, interpreter.convert(4294967296L, "const unsigned int"));
+    assertEquals(-1L, interpreter.convert(-1, "unsigned long"));
+    assertEquals(65535, interpreter.convert(-1, "unsigned short"));
+  }
+}
@@ -0,0 +1,91 @@
+package sg.edu.nus.se.its.interpreter;
+
+import static sg.edu.nus.se.its.interpreter.TestModels.entryFunction;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadArgs;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadProgram;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.javatuples.Triplet;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import sg.edu.nus.se.its.host.ServiceHost;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Program;
+
+/**
+ * Compares the local execution of the bundled Python models with their execution by the
+ * interpreter service, which is served by a {@link ServiceHost} on the loopback interface, so that
+ * the difference is the cost of the requests rather than of the network. Run with
+ * {@code mvn test -P benchmark}.
+ */
+@Tag("benchmark")
+public class LocalExecutionBenchmark {
+
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int MEASURED_ROUNDS = 20;
+
+  /**
+   * Returns the executions of the bundled models, i.e., model, entry function and input, which
+   * terminate successfully.
+   */
+  private static List<Triplet<Program, String, Input>> executions() throws Exception {
+    List<Triplet<Program, String, Input>> executions = new ArrayList<>();
+    for (String model : TestModels.models(".py.json").collect(Collectors.toList())) {
+      Program program = loadProgram(model);
+      String entry = entryFunction(program);
+      for (String[] args : loadArgs(model)) {
+        Input input = new Input(null, args);
+        PythonInterpreter interpreter = new PythonInterpreter(null, entry);
+        if (interpreter.runProgram(program, input).getStatus() == ExecutionStatus.OK) {
+          executions.add(Triplet.with(program, entry, input));
+        }
+      }
+    }
+    return executions;
+  }
+
+  private static long local(List<Triplet<Program, String, Input>> executions) {
+    long start = System.nanoTime();
+    for (Triplet<Program, String, Input> execution : executions) {
+      new PythonInterpreter(null, execution.getValue1())
+          .executeProgram(execution.getValue0(), execution.getValue2());
+    }
+    return System.nanoTime() - start;
+  }
+
+  private static long remote(List<Triplet<Program, String, Input>> executions, String url) {
+    long start = System.nanoTime();
+    for (Triplet<Program, String, Input> execution : executions) {
+      new InterpreterServiceImpl("py", execution.getValue1(), url)
+          .executeProgram(execution.getValue0(), execution.getValue2());
+    }
+    return System.nanoTime() - start;
+  }
+
+  @Test
+  void benchmarkLocalAgainstService() throws Exception {
+    List<Triplet<Program, String, Input>> executions = executions();
+    try (ServiceHost host = new ServiceHost(null,
+        (language, entry) -> new PythonInterpreter(null, entry)).start()) {
+      String url = host.getUrl() + ServiceHost.INTERPRETER_PATH;
+      for (int i = 0; i < WARMUP_ROUNDS; i++) {
+        local(executions);
+        remote(executions, url);
+      }
+
+      long localNanos = 0;
+      long remoteNanos = 0;
+      for (int i = 0; i < MEASURED_ROUNDS; i++) {
+        localNanos += local(executions);
+        remoteNanos += remote(executions, url);
+      }
+
+      int runs = MEASURED_ROUNDS * executions.size();
+      System.out.printf("%d executions of the Python models: local %.3f ms/run, "
+          + "service %.3f ms/run (%.1fx)%n", executions.size(), localNanos / 1e6 / runs,
+          remoteNanos / 1e6 / runs, (double) remoteNanos / localNanos);
+    }
+  }
+}
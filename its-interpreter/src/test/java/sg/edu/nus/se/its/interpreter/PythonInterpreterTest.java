@@ -0,0 +1,204 @@
+package sg.edu.nus.se.its.interpreter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static sg.edu.nus.se.its.interpreter.TestModels.RESOURCES;
+import static sg.edu.nus.se.its.interpreter.TestModels.entryFunction;
+import static sg.edu.nus.se.its.interpreter.TestModels.lastValue;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadArgs;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadProgram;
+
+import java.io.File;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import sg.edu.nus.se.its.interpreter.python.PythonList;
+import sg.edu.nus.se.its.interpreter.python.PythonValues;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.util.UtilFunctions;
+
+/**
+ * Tests the local Python interpreter. The bundled program models are checked against the output
+ * of the corresponding Python programs run with python3.
+ */
+public class PythonInterpreterTest {
+
+  static Stream<String> pythonModels() {
+    return TestModels.models(".py.json");
+  }
+
+  private static boolean isPythonAvailable() {
+    try {
+      return new ProcessBuilder("python3", "--version").start().waitFor(10, TimeUnit.SECONDS);
+    } catch (IOException | InterruptedException e) {
+      return false;
+    }
+  }
+
+  /**
+   * Runs the program with python3, printing the result of the entry function like repr().
+   */
+  private static String run(File source, String entry, String[] args)
+      throws IOException, InterruptedException {
+    Path script = Files.createTempFile("its-python-interpreter", ".py");
+    script.toFile().deleteOnExit();
+    Files.writeString(script, Files.readString(source.toPath()) + "\n\nprint(repr(" + entry + "("
+        + String.join(", ", args) + ")))\n");
+    Process process = new ProcessBuilder("python3", script.toString()).start();
+    if (!process.waitFor(10, TimeUnit.SECONDS)) {
+      process.destroyForcibly();
+      return null;
+    }
+    return new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+  }
+
+  @ParameterizedTest
+  @MethodSource("pythonModels")
+  void testMatchesPython(String model) throws Exception {
+    assumeTrue(isPythonAvailable(), "python3 is not available");
+    File source = new File(RESOURCES + "source/" + model.replace(".json", ""));
+    assumeTrue(source.exists());
+
+    Program program = loadProgram(model);
+    String entry = entryFunction(program);
+    for (String[] args : loadArgs(model)) {
+      String expected = run(source, entry, args);
+      PythonInterpreter interpreter = new PythonInterpreter(null, entry);
+      interpreter.setStepLimit(100_000);
+      ExecutionOutcome outcome = interpreter.runProgram(program, new Input(null, args));
+      assertTrue(outcome.isOk(), model + ": " + outcome.getMessage());
+      Object ret = lastValue(outcome.getTrace(), "$ret");
+      String actual = lastValue(outcome.getTrace(), "$out")
+          + (UtilFunctions.isUndefined(ret) ? "None" : PythonValues.repr(ret)) + "\n";
+      assertEquals(expected, actual, model + " " + Arrays.toString(args));
+    }
+  }
+
+  @Test
+  void testOperators() throws IOException {
+    Program program = loadProgram("operatorsInPython_c.py.json");
+    Trace trace = new PythonInterpreter().executeProgram(program);
+
+    assertEquals(0.75, lastValue(trace, "i41"));
+    assertEquals(0.375, lastValue(trace, "i43"));
+    assertEquals(3, lastValue(trace, "i51"));
+    assertEquals(7, lastValue(trace, "d12"));
+    assertEquals(0, lastValue(trace, "b31"));
+    assertEquals(1, lastValue(trace, "b41"));
+    assertEquals(true, lastValue(trace, "b61"));
+    assertEquals("[1, 4, 2, 3]", lastValue(trace, "l11").toString());
+    assertEquals(true, lastValue(trace, "i55"));
+    assertEquals(false, lastValue(trace, "i58"));
+    assertEquals(64, lastValue(trace, "r11"));
+    assertEquals(1, lastValue(trace, "bit13"));
+    assertEquals(true, lastValue(trace, "a11"));
+  }
+
+  private static Constant c(String value) {
+    return new Constant(value, 1);
+  }
+
+  private static Operation op(String name, Expression... args) {
+    return new Operation(name, new ArrayList<>(Arrays.asList(args)), 1);
+  }
+
+  private static Object eval(Expression expression) {
+    return new PythonInterpreter().execute(expression, new Memory());
+  }
+
+  private static Operation list(String... values) {
+    return op("ListInit", Arrays.stream(values).map(PythonInterpreterTest::c)
+        .toArray(Expression[]::new));
+  }
+
+  @Test
+  void testNumbers() {
+    assertEquals(3.5, eval(op("Div", c("7"), c("2"))));
+    assertEquals(-4, eval(op("FloorDiv", c("-7"), c("2"))));
+    assertEquals(1, eval(op("Mod", c("-7"), c("2"))));
+    assertEquals(-0.5, eval(op("Mod", c("7.5"), c("-2"))));
+    assertEquals(BigInteger.TWO.pow(100), eval(op("Pow", c("2"), c("100"))));
+    assertEquals(0.5, eval(op("Pow", c("2"), op("USub", c("1")))));
+    assertEquals(2, eval(op("Add", c("True"), c("True"))));
+    assertEquals(true, eval(op("Eq", c("1"), c("1.0"))));
+    assertEquals(2, eval(op("round", c("2.5"))));
+    assertEquals("0.30000000000000004", eval(op("str", op("Add", c("0.1"), c("0.2")))));
+    assertEquals("1e+16 1e-05 100.0", eval(op("StrAppend", op("str", c("1e16")), c("' '"),
+        op("str", c("0.00001")), c("' '"), op("str", c("100.0")))));
+  }
+
+  @Test
+  void testSequences() {
+    assertEquals("[3, 2, 1]", eval(op("sort", list("1", "3", "2"), c("True"))).toString());
+    assertEquals("[1, 2]", eval(op("append", list("1"), c("2"))).toString());
+    assertEquals(3, eval(op("GetElement", list("1", "2", "3"), op("USub", c("1")))));
+    assertEquals("[3, 1]", eval(op("Slice", list("1", "2", "3"), c("None"), c("None"),
+        op("USub", c("2")))).toString());
+    assertEquals("ell", eval(op("Slice", c("'hello'"), c("1"), c("4"))));
+    assertEquals("(1,)", eval(op("TupleInit", c("1"))).toString());
+    assertEquals("{1: 'a'}", eval(op("DictInit", op("TupleInit", c("1"), c("'a'")))).toString());
+    assertEquals(true, eval(op("In", c("2"), list("1", "2"))));
+    assertEquals("['a', 'b']", eval(op("list", c("'ab'"))).toString());
+  }
+
+  @Test
+  void testShortCircuit() {
+    assertEquals(0, eval(op("And", c("1"), c("0"), op("Div", c("1"), c("0")))));
+    assertEquals("a", eval(op("Or", c("''"), c("'a'"))));
+    assertEquals(PythonList.class, eval(op("Or", list(), list("1"))).getClass());
+  }
+
+  @Test
+  void testFormatting() {
+    assertEquals("x=  3, y=True, z=[1]",
+        eval(op("Mod", c("'x=%3d, y=%s, z=%s'"), op("TupleInit", c("3"), c("True"), list("1")))));
+    assertEquals("1.50", eval(op("StrFormat", c("'%.2f'"), c("1.5"))));
+  }
+
+  @Test
+  void testErrors() {
+    InterpretationException e = assertThrows(InterpretationException.class,
+        () -> eval(op("GetElement", list("1"), c("1"))));
+    assertEquals("IndexError: list index out of range", e.getMessage());
+    e = assertThrows(InterpretationException.class, () -> eval(op("Add", c("1"), c("'a'"))));
+    assertEquals("TypeError: unsupported operand type(s) for +: 'int' and 'str'", e.getMessage());
+    e = assertThrows(InterpretationException.class, () -> eval(op("Mod", c("1"), c("0"))));
+    assertEquals(ExecutionStatus.RUNTIME_ERROR, e.getStatus());
+  }
+
+  @Test
+  void testHugeValuesExceedHeapLimit() {
+    Expression billion = op("Pow", c("10"), c("9"));
+    for (Expression huge : List.of(op("range", billion), op("Mult", c("'a'"), billion),
+        op("Mult", list("0"), billion), op("range", op("USub", billion), billion, c("2")))) {
+      InterpretationException e = assertThrows(InterpretationException.class, () -> eval(huge));
+      assertEquals(ExecutionStatus.LIMIT_EXCEEDED, e.getStatus(), huge.toString());
+    }
+    assertEquals("[0, 1, 2]", eval(op("range", c("3"))).toString());
+    assertEquals("abab", eval(op("Mult", c("'ab'"), c("2"))));
+  }
+
+  @Test
+  void testArgumentLiterals() {
+    assertEquals("[1, (2.5, 'a'), {'k': None}]",
+        PythonValues.repr(PythonValues.parseLiteral("[1, (2.5, 'a'), {'k': None}]")));
+    assertEquals(-2, PythonValues.parseLiteral("-2"));
+  }
+}
@@ -0,0 +1,101 @@
+package sg.edu.nus.se.its.interpreter;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Stream;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.util.JsonSerializerWithInheritance;
+
+/**
+ * Access to the program models and inputs bundled with the error localizer tests.
+ */
+public final class TestModels {
+
+  public static final String RESOURCES = "../its-errorlocalizer/src/test/resources/";
+
+  private TestModels() {}
+
+  /**
+   * Returns the names of the bundled models with the given extension, e.g., ".c.json".
+   */
+  public static Stream<String> models(String extension) {
+    return Arrays.stream(new File(RESOURCES + "model").list())
+        .filter(name -> name.endsWith(extension)).sorted();
+  }
+
+  /**
+   * Loads a bundled program model. The models are UTF-8 encoded regardless of the platform.
+   */
+  public static Program loadProgram(String model) throws IOException {
+    Gson gson = new GsonBuilder()
+        .registerTypeAdapter(Expression.class, new JsonSerializerWithInheritance<Expression>())
+        .create();
+    return gson.fromJson(Files.readString(Path.of(RESOURCES, "model", model)), Program.class);
+  }
+
+  /**
+   * Returns the input file of a model, e.g., "test1.c.in" for the model "test1_b.c.json".
+   */
+  public static Path inputFile(String model) {
+    String name = model.substring(0, model.indexOf('.')).replaceAll("_[bc](_.*)?$", "");
+    String extension = model.substring(model.indexOf('.'), model.lastIndexOf('.'));
+    return Path.of(RESOURCES, "input", name + extension + ".in");
+  }
+
+  /**
+   * Loads the inputs of a C model, where each line of the input file is read by one execution.
+   */
+  public static List<Input> loadInputs(String model) throws IOException {
+    Path inputFile = inputFile(model);
+    List<Input> inputs = new ArrayList<>();
+    if (Files.exists(inputFile)) {
+      for (String line : Files.readAllLines(inputFile)) {
+        inputs.add(new Input(line.split(" "), null));
+      }
+    }
+    if (inputs.isEmpty()) {
+      inputs.add(new Input());
+    }
+    return inputs;
+  }
+
+  /**
+   * Loads the arguments of a Python model, where each line of the input file holds the argument of
+   * the entry function for one execution.
+   */
+  public static List<String[]> loadArgs(String model) throws IOException {
+    List<String[]> args = new ArrayList<>();
+    if (Files.exists(inputFile(model))) {
+      for (String line : Files.readAllLines(inputFile(model))) {
+        args.add(new String[] {line.trim()});
+      }
+    }
+    if (args.isEmpty()) {
+      args.add(new String[0]);
+    }
+    return args;
+  }
+
+  /**
+   * Returns the entry function of a Python model, which is main or the only function.
+   */
+  public static String entryFunction(Program program) {
+    return program.getFncs().containsKey("main") ? "main"
+        : program.getFncs().keySet().iterator().next();
+  }
+
+  public static Object lastValue(Trace trace, String variable) {
+    Memory memory = trace.getLastEntry().getMem();
+    return memory.get(variable + "'");
+  }
+}
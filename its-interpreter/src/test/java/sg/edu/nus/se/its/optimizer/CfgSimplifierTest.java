@@ -0,0 +1,276 @@
+package sg.edu.nus.se.its.optimizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static sg.edu.nus.se.its.interpreter.TestModels.entryFunction;
+import static sg.edu.nus.se.its.interpreter.TestModels.lastValue;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadArgs;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadInputs;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadProgram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import sg.edu.nus.se.its.interpreter.AbstractInterpreter;
+import sg.edu.nus.se.its.interpreter.CInterpreter;
+import sg.edu.nus.se.its.interpreter.ExecutionOutcome;
+import sg.edu.nus.se.its.interpreter.ExecutionStatus;
+import sg.edu.nus.se.its.interpreter.PythonInterpreter;
+import sg.edu.nus.se.its.interpreter.TestModels;
+import sg.edu.nus.se.its.interpreter.TraceEntry;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.model.Variable;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Tests the simplification of control flow graphs. The simplified bundled models must compute the
+ * same results as the original ones.
+ */
+public class CfgSimplifierTest {
+
+  static Stream<String> cModels() {
+    return TestModels.models(".c.json");
+  }
+
+  static Stream<String> pythonModels() {
+    return TestModels.models(".py.json");
+  }
+
+  /**
+   * Compares the values of the variables after the blocks, i.e., the primed variables. The
+   * unprimed variables of a merged block hold the values before its first original block.
+   */
+  private static void assertSameMemory(Memory expected, Memory actual, String message) {
+    Set<String> names = new TreeSet<>();
+    for (String name : expected.keySet()) {
+      if (Variable.isPrimedName(name)) {
+        names.add(name);
+      }
+    }
+    for (String name : actual.keySet()) {
+      if (Variable.isPrimedName(name)) {
+        assertTrue(names.contains(name), message + ": " + name);
+      }
+    }
+    for (String name : names) {
+      assertTrue(Objects.deepEquals(expected.get(name), actual.get(name)), message + ": " + name);
+    }
+  }
+
+  /**
+   * Runs both programs and checks that they end in the same state. Without calls, every entry of
+   * the simplified trace must also end in the state of the last original entry it merges.
+   */
+  private static void assertSameResult(AbstractInterpreter interpreter, Program program,
+      SimplifiedProgram simplified, Input input, String model) {
+    interpreter.setStepLimit(10_000);
+    ExecutionOutcome expected = interpreter.runProgram(program, input);
+    ExecutionOutcome actual = interpreter.runProgram(simplified.getProgram(), input);
+
+    assertEquals(expected.getStatus(), actual.getStatus(), model);
+    List<TraceEntry> expectedEntries = expected.getTrace().getEntries();
+    List<TraceEntry> actualEntries = actual.getTrace().getEntries();
+    assertTrue(actualEntries.size() <= expectedEntries.size(), model);
+    if (expected.getStatus() != ExecutionStatus.OK) {
+      return;
+    }
+    assertSameMemory(expected.getTrace().getLastEntry().getMem(),
+        actual.getTrace().getLastEntry().getMem(), model);
+    if (program.toString().contains("FuncCall")) {
+      return;
+    }
+
+    int next = 0;
+    for (TraceEntry entry : actualEntries) {
+      String message = model + " at " + entry.getLocation();
+      TraceEntry last = null;
+      for (int loc : simplified.getMapping().getOriginalLocations(entry.getFunctionName(),
+          entry.getLocation())) {
+        // the merged block can return before its last original block
+        if (next < expectedEntries.size() && expectedEntries.get(next).getLocation() == loc) {
+          last = expectedEntries.get(next++);
+        }
+      }
+      assertTrue(last != null, message);
+      assertSameMemory(last.getMem(), entry.getMem(), message);
+    }
+    assertEquals(expectedEntries.size(), next, model);
+  }
+
+  @ParameterizedTest
+  @MethodSource("cModels")
+  void testSameResultsForC(String model) throws IOException {
+    Program program = loadProgram(model);
+    CfgSimplifier simplifier = new CfgSimplifier(new CInterpreter());
+    simplifier.setInlineLimit(50);
+    SimplifiedProgram simplified = simplifier.simplify(program);
+    for (Input input : loadInputs(model)) {
+      assertSameResult(new CInterpreter(), program, simplified, input, model);
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("pythonModels")
+  void testSameResultsForPython(String model) throws IOException {
+    Program program = loadProgram(model);
+    CfgSimplifier simplifier = new CfgSimplifier(new PythonInterpreter());
+    simplifier.setInlineLimit(50);
+    SimplifiedProgram simplified = simplifier.simplify(program);
+    for (String[] args : loadArgs(model)) {
+      assertSameResult(new PythonInterpreter(null, entryFunction(program)), program, simplified,
+          new Input(null, args), model);
+    }
+  }
+
+  private static Constant c(String value) {
+    return new Constant(value, 1);
+  }
+
+  private static Operation op(String name, Expression... args) {
+    return new Operation(name, new ArrayList<>(List.of(args)), 1);
+  }
+
+  private static Expression primed(String name) {
+    return new Variable(name).prime();
+  }
+
+  @Test
+  void testMergesChains() {
+    // x = 1; y = x + 1; z = y * x;
+    Function main = new Function("main", new ArrayList<>(), "int");
+    int first = main.addLocation(0, "first");
+    int second = main.addLocation(0, "second");
+    int third = main.addLocation(0, "third");
+    main.addExpr(first, "x", c("1"));
+    main.addExpr(second, "y", op("+", new Variable("x"), c("1")));
+    main.addExpr(second, "x", op("-", new Variable("x"), primed("y")));
+    main.addExpr(third, "z", op("*", new Variable("y"), new Variable("x")));
+    main.addLocationTrans(first, second, null);
+    main.addLocationTrans(second, third, null);
+    main.addLocationTrans(third, null, null);
+
+    Map<Integer, List<Integer>> origins = new CfgSimplifier(new CInterpreter()).simplify(main);
+
+    assertEquals(Set.of(first), main.getLocations());
+    assertEquals(List.of(first, second, third), origins.get(first));
+    assertEquals(op("+", primed("x"), c("1")), main.getExprs(first).get(1).getValue1());
+    assertEquals(op("-", primed("x"), primed("y")), main.getExprs(first).get(2).getValue1());
+    assertEquals(op("*", primed("y"), primed("x")), main.getExprs(first).get(3).getValue1());
+  }
+
+  @Test
+  void testKeepsBlocksReadingOverwrittenValues() {
+    // x = 1; x = 2; y = x;
+    Function main = new Function("main", new ArrayList<>(), "int");
+    int first = main.addLocation(0, "first");
+    int second = main.addLocation(0, "second");
+    main.addExpr(first, "x", c("1"));
+    main.addExpr(second, "x", c("2"));
+    main.addExpr(second, "y", new Variable("x"));
+    main.addLocationTrans(first, second, null);
+    main.addLocationTrans(second, null, null);
+
+    new CfgSimplifier(new CInterpreter()).simplify(main);
+
+    assertEquals(Set.of(first, second), main.getLocations());
+  }
+
+  @Test
+  void testRemovesConstantBranches() {
+    // if (1) { x = 1; } else { x = 2; } while (x) { x = x - 1; }
+    Function main = new Function("main", new ArrayList<>(), "int");
+    int cond = main.addLocation(0, "condition");
+    int then = main.addLocation(0, "then");
+    int other = main.addLocation(0, "else");
+    int loop = main.addLocation(0, "loop");
+    int body = main.addLocation(0, "body");
+    int end = main.addLocation(0, "exit");
+    main.addExpr(cond, Constants.VAR_COND, c("1"));
+    main.addExpr(then, "x", c("1"));
+    main.addExpr(other, "x", c("2"));
+    main.addExpr(loop, Constants.VAR_COND, new Variable("x"));
+    main.addExpr(body, "x", op("-", new Variable("x"), c("1")));
+    main.addExpr(end, Constants.VAR_RET, new Variable("x"));
+    main.addLocationTrans(cond, then, other);
+    main.addLocationTrans(then, loop, null);
+    main.addLocationTrans(other, loop, null);
+    main.addLocationTrans(loop, body, end);
+    main.addLocationTrans(body, loop, null);
+    main.addLocationTrans(end, null, null);
+    Program program = new Program();
+    program.addfnc(main);
+
+    SimplifiedProgram simplified = new CfgSimplifier(new CInterpreter()).simplify(program);
+
+    Function function = simplified.getProgram().getfnc("main");
+    LocationMapping mapping = simplified.getMapping();
+    assertEquals(Set.of(cond, loop, body, end), function.getLocations());
+    assertEquals(List.of(cond, then), mapping.getOriginalLocations("main", cond));
+    assertEquals(cond, mapping.getLocation("main", then));
+    assertNull(mapping.getLocation("main", other));
+    assertEquals(loop, function.getTrans(cond, true));
+    // the original program is left unchanged
+    assertEquals(6, program.getfnc("main").getLocations().size());
+
+    ExecutionOutcome outcome = new CInterpreter().runProgram(simplified.getProgram(), null);
+    assertEquals(0, lastValue(outcome.getTrace(), Constants.VAR_RET));
+    // condition, loop, body, loop, exit
+    assertEquals(5, outcome.getTrace().size());
+  }
+
+  @Test
+  void testInlinesCalls() throws IOException {
+    Program program = loadProgram("returnType_c.c.json");
+    CfgSimplifier simplifier = new CfgSimplifier(new CInterpreter());
+    simplifier.setInlineLimit(50);
+    SimplifiedProgram simplified = simplifier.simplify(program);
+
+    Expression ret = simplified.getProgram().getfnc("main").getExprs(1).get(1).getValue1();
+    assertFalse(ret.toString().contains("FuncCall"), ret.toString());
+    assertEquals("FuncCall", ((Operation) ret.getOriginalExpr()).getName());
+    assertEquals(Set.of("add"), simplified.getMapping().getInlinedFunctions("main", 1));
+
+    ExecutionOutcome expected = new CInterpreter().runProgram(program, null);
+    ExecutionOutcome actual = new CInterpreter().runProgram(simplified.getProgram(), null);
+    assertEquals(lastValue(expected.getTrace(), Constants.VAR_RET),
+        lastValue(actual.getTrace(), Constants.VAR_RET));
+    assertEquals(1, actual.getTrace().size());
+  }
+
+  @Test
+  void testInlinesNestedCalls() throws IOException {
+    Program program = loadProgram("pythonFunctionCall_c.py.json");
+    CfgSimplifier simplifier = new CfgSimplifier(new PythonInterpreter());
+    simplifier.setInlineLimit(50);
+    Program simplified = simplifier.simplify(program).getProgram();
+
+    assertEquals("print(Eq(2, 3))",
+        simplified.getfnc("main").getExprs(1).get(0).getValue1().toString());
+  }
+
+  @Test
+  void testDoesNotInlineRecursiveCalls() throws IOException {
+    Program program = loadProgram("infiniteLoop_c.c.json");
+    CfgSimplifier simplifier = new CfgSimplifier(new CInterpreter());
+    simplifier.setInlineLimit(50);
+    SimplifiedProgram simplified = simplifier.simplify(program);
+
+    assertTrue(simplified.getMapping().getInlinedFunctions("main", 1).isEmpty());
+  }
+}
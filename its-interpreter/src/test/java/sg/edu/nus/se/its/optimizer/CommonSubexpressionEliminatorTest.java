@@ -0,0 +1,289 @@
+package sg.edu.nus.se.its.optimizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static sg.edu.nus.se.its.interpreter.TestModels.entryFunction;
+import static sg.edu.nus.se.its.interpreter.TestModels.lastValue;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadArgs;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadInputs;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadProgram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.javatuples.Pair;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import sg.edu.nus.se.its.interpreter.AbstractInterpreter;
+import sg.edu.nus.se.its.interpreter.CInterpreter;
+import sg.edu.nus.se.its.interpreter.ExecutionOutcome;
+import sg.edu.nus.se.its.interpreter.PythonInterpreter;
+import sg.edu.nus.se.its.interpreter.TestModels;
+import sg.edu.nus.se.its.interpreter.TraceEntry;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.model.Variable;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Tests the elimination of common subexpressions. The optimized bundled models must produce the
+ * same traces as the original ones, apart from the temporaries.
+ */
+public class CommonSubexpressionEliminatorTest {
+
+  static Stream<String> cModels() {
+    return TestModels.models(".c.json");
+  }
+
+  static Stream<String> pythonModels() {
+    return TestModels.models(".py.json");
+  }
+
+  private static Map<String, Object> withoutTemporaries(Map<String, Object> memory) {
+    return memory.entrySet().stream()
+        .filter(entry -> !entry.getKey().startsWith(Constants.VAR_TEMP_PREFIX))
+        .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue));
+  }
+
+  /**
+   * Runs both programs and checks that the outcomes and traces are the same.
+   *
+   * @return the number of operations evaluated by the original and the optimized program
+   */
+  private static long[] assertSameExecution(AbstractInterpreter interpreter, Program program,
+      Program optimized, Input input, String model) {
+    interpreter.setStepLimit(10_000);
+    interpreter.setProfiling(true);
+    ExecutionOutcome expected = interpreter.runProgram(program, input);
+    ExecutionOutcome actual = interpreter.runProgram(optimized, input);
+
+    assertEquals(expected.getStatus(), actual.getStatus(), model);
+    List<TraceEntry> expectedEntries = expected.getTrace().getEntries();
+    List<TraceEntry> actualEntries = actual.getTrace().getEntries();
+    assertEquals(expectedEntries.size(), actualEntries.size(), model);
+    for (int i = 0; i < expectedEntries.size(); i++) {
+      TraceEntry entry = expectedEntries.get(i);
+      String message = model + " at " + entry.getFunctionName() + ":" + entry.getLocation();
+      assertEquals(entry.getLocation(), actualEntries.get(i).getLocation(), message);
+      Map<String, Object> memory = withoutTemporaries(actualEntries.get(i).getMem());
+      assertEquals(entry.getMem().keySet(), memory.keySet(), message);
+      for (Map.Entry<String, Object> value : entry.getMem().entrySet()) {
+        assertTrue(Objects.deepEquals(value.getValue(), memory.get(value.getKey())),
+            message + ": " + value.getKey());
+      }
+    }
+    long before = expected.getTrace().getProfile().getTotalOperationCount();
+    long after = actual.getTrace().getProfile().getTotalOperationCount();
+    assertTrue(after <= before, model);
+    return new long[] {before, after};
+  }
+
+  private static long[] runC(String model) throws IOException {
+    Program program = loadProgram(model);
+    Program optimized = new CommonSubexpressionEliminator(new TypeInference(new CTypeRules()))
+        .optimize(program);
+    long[] counts = new long[2];
+    for (Input input : loadInputs(model)) {
+      long[] run = assertSameExecution(new CInterpreter(), program, optimized, input, model);
+      counts[0] += run[0];
+      counts[1] += run[1];
+    }
+    return counts;
+  }
+
+  private static long[] runPython(String model) throws IOException {
+    Program program = loadProgram(model);
+    Program optimized =
+        new CommonSubexpressionEliminator(new TypeInference(new PythonTypeRules()))
+            .optimize(program);
+    long[] counts = new long[2];
+    for (String[] args : loadArgs(model)) {
+      long[] run = assertSameExecution(new PythonInterpreter(null, entryFunction(program)),
+          program, optimized, new Input(null, args), model);
+      counts[0] += run[0];
+      counts[1] += run[1];
+    }
+    return counts;
+  }
+
+  @ParameterizedTest
+  @MethodSource("cModels")
+  void testSameTracesForC(String model) throws IOException {
+    runC(model);
+  }
+
+  @ParameterizedTest
+  @MethodSource("pythonModels")
+  void testSameTracesForPython(String model) throws IOException {
+    runPython(model);
+  }
+
+  @Test
+  void testReducesOperationsOfBundledModels() throws IOException {
+    long before = 0;
+    long after = 0;
+    for (String model : cModels().collect(Collectors.toList())) {
+      long[] counts = runC(model);
+      before += counts[0];
+      after += counts[1];
+    }
+    for (String model : pythonModels().collect(Collectors.toList())) {
+      long[] counts = runPython(model);
+      before += counts[0];
+      after += counts[1];
+    }
+    assertTrue(after < before, after + " of " + before + " operations");
+  }
+
+  private static Constant c(String value) {
+    return new Constant(value, 3);
+  }
+
+  private static Operation op(String name, Expression... args) {
+    return new Operation(name, new ArrayList<>(List.of(args)), 3);
+  }
+
+  private static Variable v(String name) {
+    return new Variable(name, 3);
+  }
+
+  private static Variable primed(String name) {
+    Variable variable = v(name);
+    variable.setPrimed(true);
+    return variable;
+  }
+
+  private static Expression assigned(Function function, int loc, int index) {
+    return function.getExprs(loc).get(index).getValue1();
+  }
+
+  private static Function function() {
+    ArrayList<Pair<String, String>> params = new ArrayList<>();
+    params.add(new Pair<>("a", "int"));
+    params.add(new Pair<>("b", "int"));
+    Function main = new Function("main", params, "int");
+    for (String variable : List.of("a", "b", "x", "y")) {
+      main.addType(variable, "int");
+    }
+    return main;
+  }
+
+  private static int optimize(Function function) {
+    return new CommonSubexpressionEliminator(new TypeInference(new CTypeRules()))
+        .optimize(null, function);
+  }
+
+  @Test
+  void testReusesValuesWithinBlock() {
+    Function main = function();
+    int loc = main.addLocation(0, "body");
+    Operation less = op("<", v("a"), v("b"));
+    main.addExpr(loc, "x", op("ite", less, op("+", v("a"), c("1")), v("b")));
+    main.addExpr(loc, Constants.VAR_COND, op("<", v("a"), v("b")));
+    main.addExpr(loc, "y", op("*", op("+", v("a"), c("1")), c("2")));
+    main.addLocationTrans(loc, null, null);
+
+    assertEquals(1, optimize(main));
+
+    String temporary = Constants.VAR_TEMP_PREFIX + "0";
+    assertEquals(temporary, main.getExprs(loc).get(0).getValue0());
+    assertSame(less, assigned(main, loc, 0));
+    Expression reference = assigned(main, loc, 2);
+    assertEquals(temporary + "'", reference.toString());
+    assertEquals(less, reference.getOriginalExpr());
+    // the sum is only evaluated if the condition holds
+    assertEquals("*(+(a, 1), 2)", assigned(main, loc, 3).toString());
+  }
+
+  @Test
+  void testInvalidatesValuesOfAssignedVariables() {
+    Function main = function();
+    int loc = main.addLocation(0, "body");
+    main.addExpr(loc, "x", op("+", v("a"), c("1")));
+    main.addExpr(loc, "y", op("*", primed("x"), primed("x")));
+    main.addExpr(loc, "x", op("+", v("a"), c("1")));
+    main.addExpr(loc, "y", op("*", primed("x"), primed("x")));
+    main.addExpr(loc, Constants.VAR_RET, op("+", primed("y"), op("+", v("a"), c("1"))));
+    main.addLocationTrans(loc, null, null);
+
+    assertEquals(2, optimize(main));
+
+    // the unprimed parameter is reused, the product of the reassigned variable is not
+    assertEquals("[[$tmp0, +(a, 1)], [x, $tmp0'], [y, *(x', x')], [x, $tmp0'], [y, *(x', x')], "
+        + "[$ret, +(y', $tmp0')]]", main.getExprs(loc).toString());
+  }
+
+  @Test
+  void testReusesValuesAlongStraightLinePaths() {
+    // if (a < b) { x = a + b; } else { x = a - b; } y = a + b;
+    Function main = function();
+    int cond = main.addLocation(0, "condition");
+    int then = main.addLocation(0, "then");
+    int other = main.addLocation(0, "else");
+    int end = main.addLocation(0, "end");
+    main.addExpr(cond, "x", op("+", v("a"), v("b")));
+    main.addExpr(cond, Constants.VAR_COND, op("<", v("a"), v("b")));
+    main.addExpr(then, "y", op("+", v("a"), v("b")));
+    main.addExpr(other, "y", op("-", v("a"), v("b")));
+    main.addExpr(end, Constants.VAR_RET, op("+", v("a"), v("b")));
+    main.addLocationTrans(cond, then, other);
+    main.addLocationTrans(then, end, null);
+    main.addLocationTrans(other, end, null);
+    main.addLocationTrans(end, null, null);
+
+    assertEquals(1, optimize(main));
+
+    assertEquals("$tmp0", assigned(main, then, 0).toString());
+    assertEquals("-(a, b)", assigned(main, other, 0).toString());
+    // the end has two predecessors
+    assertEquals("+(a, b)", assigned(main, end, 0).toString());
+
+    Program program = new Program();
+    program.addfnc(main);
+    ExecutionOutcome outcome = new CInterpreter().runProgram(program, new Input(null,
+        new String[] {"1", "2"}));
+    assertEquals(3, lastValue(outcome.getTrace(), "y"));
+  }
+
+  @Test
+  void testKeepsBooleanValues() throws IOException {
+    Function main = function();
+    int loc = main.addLocation(0, "body");
+    main.addExpr(loc, "s", op(Constants.STRING_APPEND, c("\"\""), op("<", v("a"), v("b"))));
+    main.addExpr(loc, "t", op(Constants.STRING_APPEND, c("\"\""), op("<", v("a"), v("b"))));
+    main.addLocationTrans(loc, null, null);
+    Program program = new Program();
+    program.addfnc(main);
+    Program optimized = new CommonSubexpressionEliminator(new TypeInference(new CTypeRules()))
+        .optimize(program);
+
+    ExecutionOutcome outcome = new CInterpreter().runProgram(optimized, new Input(null,
+        new String[] {"1", "2"}));
+
+    assertEquals("$tmp0", optimized.getfnc("main").getExprs(loc).get(0).getValue0());
+    assertEquals("true", lastValue(outcome.getTrace(), "t"));
+  }
+
+  @Test
+  void testDoesNotShareArrays() {
+    Function main = function();
+    int loc = main.addLocation(0, "body");
+    main.addType("p", "int[]");
+    main.addType("q", "int[]");
+    main.addExpr(loc, "p", op(Constants.ARRAY_CREATE, c("2")));
+    main.addExpr(loc, "q", op(Constants.ARRAY_CREATE, c("2")));
+    main.addLocationTrans(loc, null, null);
+
+    assertEquals(0, optimize(main));
+  }
+}
@@ -0,0 +1,231 @@
+package sg.edu.nus.se.its.optimizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static sg.edu.nus.se.its.interpreter.TestModels.entryFunction;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadArgs;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadInputs;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadProgram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import sg.edu.nus.se.its.interpreter.AbstractInterpreter;
+import sg.edu.nus.se.its.interpreter.CInterpreter;
+import sg.edu.nus.se.its.interpreter.ExecutionOutcome;
+import sg.edu.nus.se.its.interpreter.PythonInterpreter;
+import sg.edu.nus.se.its.interpreter.TestModels;
+import sg.edu.nus.se.its.interpreter.TraceEntry;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.model.Variable;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Tests the constant folding. The optimized bundled models must produce the same traces as the
+ * original ones.
+ */
+public class ConstantFolderTest {
+
+  static Stream<String> cModels() {
+    return TestModels.models(".c.json");
+  }
+
+  static Stream<String> pythonModels() {
+    return TestModels.models(".py.json");
+  }
+
+  /**
+   * Runs both programs and checks that the outcomes and traces are the same, and that the
+   * optimized program does not evaluate more operations.
+   */
+  static void assertSameExecution(AbstractInterpreter interpreter, Program program,
+      Program optimized, Input input, String model) {
+    interpreter.setStepLimit(10_000);
+    interpreter.setProfiling(true);
+    ExecutionOutcome expected = interpreter.runProgram(program, input);
+    ExecutionOutcome actual = interpreter.runProgram(optimized, input);
+
+    assertEquals(expected.getStatus(), actual.getStatus(), model);
+    assertEquals(expected.getMessage(), actual.getMessage(), model);
+    List<TraceEntry> expectedEntries = expected.getTrace().getEntries();
+    List<TraceEntry> actualEntries = actual.getTrace().getEntries();
+    assertEquals(expectedEntries.size(), actualEntries.size(), model);
+    for (int i = 0; i < expectedEntries.size(); i++) {
+      TraceEntry entry = expectedEntries.get(i);
+      String message = model + " at " + entry.getFunctionName() + ":" + entry.getLocation();
+      assertEquals(entry.getFunctionName(), actualEntries.get(i).getFunctionName(), message);
+      assertEquals(entry.getLocation(), actualEntries.get(i).getLocation(), message);
+      Map<String, Object> memory = actualEntries.get(i).getMem();
+      assertEquals(entry.getMem().keySet(), memory.keySet(), message);
+      for (Map.Entry<String, Object> value : entry.getMem().entrySet()) {
+        assertTrue(Objects.deepEquals(value.getValue(), memory.get(value.getKey())),
+            message + ": " + value.getKey());
+      }
+    }
+    assertTrue(actual.getTrace().getProfile().getTotalOperationCount()
+        <= expected.getTrace().getProfile().getTotalOperationCount(), model);
+  }
+
+  @ParameterizedTest
+  @MethodSource("cModels")
+  void testSameTracesForC(String model) throws IOException {
+    Program program = loadProgram(model);
+    Program optimized = new ConstantFolder(new CInterpreter()).optimize(program);
+    for (Input input : loadInputs(model)) {
+      assertSameExecution(new CInterpreter(), program, optimized, input, model);
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("pythonModels")
+  void testSameTracesForPython(String model) throws IOException {
+    Program program = loadProgram(model);
+    Program optimized = new ConstantFolder(new PythonInterpreter()).optimize(program);
+    for (String[] args : loadArgs(model)) {
+      assertSameExecution(new PythonInterpreter(null, entryFunction(program)), program,
+          optimized, new Input(null, args), model);
+    }
+  }
+
+  private static Constant c(String value) {
+    return new Constant(value, 7);
+  }
+
+  private static Operation op(String name, Expression... args) {
+    return new Operation(name, new ArrayList<>(List.of(args)), 7);
+  }
+
+  private static Expression assigned(Function function, int loc, int index) {
+    return function.getExprs(loc).get(index).getValue1();
+  }
+
+  @Test
+  void testFoldsOperations() {
+    Function main = new Function("main", new ArrayList<>(), "int");
+    int loc = main.addLocation(0, "body");
+    Operation product = op("*", c("2"), c("3"));
+    main.addExpr(loc, "x", op("+", product, new Variable("y")));
+    main.addExpr(loc, "s", op(Constants.STRING_FORMAT, c("\"%d\\n\""), product));
+    main.addExpr(loc, "z", op("/", c("1"), c("0")));
+    main.addLocationTrans(loc, null, null);
+
+    new ConstantFolder(new CInterpreter()).optimize(main);
+
+    Operation sum = (Operation) assigned(main, loc, 0);
+    assertEquals(c("6"), sum.getArgs().get(0));
+    assertEquals(7, sum.getArgs().get(0).getLineNumber());
+    assertSame(product, sum.getArgs().get(0).getOriginalExpr());
+    assertEquals(c("\"6\\n\""), assigned(main, loc, 1));
+    // errors are left to happen at runtime
+    assertEquals(op("/", c("1"), c("0")), assigned(main, loc, 2));
+  }
+
+  @Test
+  void testSimplifiesIte() {
+    Function main = new Function("main", new ArrayList<>(), "int");
+    int loc = main.addLocation(0, "body");
+    main.addExpr(loc, "x", op("ite", op("<", c("1"), c("2")), new Variable("a"), c("0")));
+    main.addLocationTrans(loc, null, null);
+
+    new ConstantFolder(new CInterpreter()).optimize(main);
+
+    assertEquals(new Variable("a"), assigned(main, loc, 0));
+  }
+
+  @Test
+  void testPropagatesAlongTransitions() {
+    // n = 3; if (n > 5) { n = n * 2; } else { m = n + 1; } r = n;
+    Function main = new Function("main", new ArrayList<>(), "int");
+    main.addType("n", "int");
+    int init = main.addLocation(0, "init");
+    int cond = main.addLocation(0, "condition");
+    int then = main.addLocation(0, "then");
+    int other = main.addLocation(0, "else");
+    int end = main.addLocation(0, "exit");
+    main.addExpr(init, "n", c("3.7"));
+    main.addExpr(cond, Constants.VAR_COND, op(">", new Variable("n"), c("5")));
+    main.addExpr(then, "n", op("*", new Variable("n"), c("2")));
+    main.addExpr(other, "m", op("+", new Variable("n"), c("1")));
+    main.addExpr(other, "k", op("*", new Variable("m").prime(), c("2")));
+    main.addExpr(end, "r", new Variable("n"));
+    main.addLocationTrans(init, cond, null);
+    main.addLocationTrans(cond, then, other);
+    main.addLocationTrans(then, end, null);
+    main.addLocationTrans(other, end, null);
+    main.addLocationTrans(end, null, null);
+
+    new ConstantFolder(new CInterpreter()).optimize(main);
+
+    // the declared type converts the assigned value to 3
+    assertEquals(c("3.7"), assigned(main, init, 0));
+    assertEquals(c("0"), assigned(main, cond, 0));
+    assertEquals(c("4"), assigned(main, other, 0));
+    assertEquals(c("8"), assigned(main, other, 1));
+    // the then branch is never taken, so n is known after both branches
+    assertEquals(op("*", new Variable("n"), c("2")), assigned(main, then, 0));
+    assertEquals(c("3"), assigned(main, end, 0));
+  }
+
+  @Test
+  void testJoinsValuesOfLoops() {
+    // i = 0; while (i < 3) i = i + 1; r = i;
+    Function main = new Function("main", new ArrayList<>(), "int");
+    int init = main.addLocation(0, "init");
+    int cond = main.addLocation(0, "condition");
+    int body = main.addLocation(0, "body");
+    int end = main.addLocation(0, "exit");
+    main.addExpr(init, "i", c("0"));
+    main.addExpr(cond, Constants.VAR_COND, op("<", new Variable("i"), c("3")));
+    main.addExpr(body, "i", op("+", new Variable("i"), c("1")));
+    main.addExpr(end, "r", new Variable("i"));
+    main.addLocationTrans(init, cond, null);
+    main.addLocationTrans(cond, body, end);
+    main.addLocationTrans(body, cond, null);
+    main.addLocationTrans(end, null, null);
+
+    new ConstantFolder(new CInterpreter()).optimize(main);
+
+    assertEquals(op("<", new Variable("i"), c("3")), assigned(main, cond, 0));
+    assertEquals(new Variable("i"), assigned(main, end, 0));
+  }
+
+  @Test
+  void testPython() {
+    Function main = new Function("main", new ArrayList<>(), null);
+    int loc = main.addLocation(0, "body");
+    main.addExpr(loc, "s", op("Mult", c("'ab'"), op("Add", c("1"), c("True"))));
+    main.addExpr(loc, "l", op("ListInit", c("1"), new Variable("s").prime()));
+    main.addExpr(loc, "b", op("And", c("0"), new Variable("x")));
+    main.addLocationTrans(loc, null, null);
+
+    new ConstantFolder(new PythonInterpreter()).optimize(main);
+
+    assertEquals(c("'abab'"), assigned(main, loc, 0));
+    // lists are mutable and have no literal
+    assertEquals(op("ListInit", c("1"), c("'abab'")), assigned(main, loc, 1));
+    assertEquals(op("And", c("0"), new Variable("x")), assigned(main, loc, 2));
+  }
+
+  @Test
+  void testCopiesProgram() throws IOException {
+    Program program = loadProgram("operatorsInPython_c.py.json");
+    String before = program.toString();
+    Program optimized = new ConstantFolder(new PythonInterpreter()).optimize(program);
+
+    assertEquals(before, program.toString());
+    assertNotSame(program.getfnc("main"), optimized.getfnc("main"));
+  }
+}
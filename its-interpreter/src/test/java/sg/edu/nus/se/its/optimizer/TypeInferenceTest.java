@@ -0,0 +1,205 @@
+package sg.edu.nus.se.its.optimizer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static sg.edu.nus.se.its.interpreter.TestModels.entryFunction;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadArgs;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadInputs;
+import static sg.edu.nus.se.its.interpreter.TestModels.loadProgram;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import sg.edu.nus.se.its.interpreter.AbstractInterpreter;
+import sg.edu.nus.se.its.interpreter.CInterpreter;
+import sg.edu.nus.se.its.interpreter.PythonInterpreter;
+import sg.edu.nus.se.its.interpreter.TestModels;
+import sg.edu.nus.se.its.interpreter.Trace;
+import sg.edu.nus.se.its.interpreter.TraceEntry;
+import sg.edu.nus.se.its.model.Constant;
+import sg.edu.nus.se.its.model.Expression;
+import sg.edu.nus.se.its.model.Function;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Operation;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.model.Variable;
+import sg.edu.nus.se.its.util.UtilFunctions;
+import sg.edu.nus.se.its.util.constants.Constants;
+
+/**
+ * Tests the type inference. The inferred types of the bundled models are checked against the
+ * values observed when executing them.
+ */
+public class TypeInferenceTest {
+
+  static Stream<String> cModels() {
+    return TestModels.models(".c.json");
+  }
+
+  static Stream<String> pythonModels() {
+    return TestModels.models(".py.json");
+  }
+
+  /**
+   * Checks that every defined value in the trace has the type inferred for its location.
+   */
+  private static void assertSound(TypeInference inference, Program program, Trace trace,
+      String model) {
+    for (TraceEntry entry : trace.getEntries()) {
+      FunctionTypes types = inference.infer(program, program.getfnc(entry.getFunctionName()));
+      for (Map.Entry<String, Object> value : entry.getMem().entrySet()) {
+        String name = value.getKey();
+        if (!Variable.isPrimedName(name) || UtilFunctions.isUndefined(value.getValue())) {
+          continue;
+        }
+        String inferred = types.getExitType(entry.getLocation(),
+            Variable.asUnprimedVariableName(name));
+        String actual = inference.getRules().valueType(value.getValue());
+        String message = String.format("%s: %s at %s:%d", model, name, entry.getFunctionName(),
+            entry.getLocation());
+        assertTrue(inferred != null, message + " is defined");
+        assertTrue(isCompatible(inferred, actual), message + ": " + inferred + " vs " + actual);
+      }
+    }
+  }
+
+  private static boolean isCompatible(String inferred, String actual) {
+    if (inferred.equals(TypeRules.TOP) || inferred.equals(actual)) {
+      return true;
+    }
+    // elements of arrays are undefined until they are assigned
+    return inferred.endsWith("[]") && actual.endsWith("[]")
+        && isCompatible(inferred.substring(0, inferred.length() - 2),
+            actual.substring(0, actual.length() - 2))
+        || actual.equals(TypeRules.TOP + "[]") && inferred.endsWith("[]");
+  }
+
+  @ParameterizedTest
+  @MethodSource("cModels")
+  void testSoundForC(String model) throws IOException {
+    Program program = loadProgram(model);
+    TypeInference inference = new TypeInference(new CTypeRules());
+    for (Input input : loadInputs(model)) {
+      CInterpreter interpreter = new CInterpreter();
+      interpreter.setStepLimit(10_000);
+      assertSound(inference, program, interpreter.runProgram(program, input).getTrace(), model);
+    }
+  }
+
+  @ParameterizedTest
+  @MethodSource("pythonModels")
+  void testSoundForPython(String model) throws IOException {
+    Program program = loadProgram(model);
+    TypeInference inference = new TypeInference(new PythonTypeRules());
+    for (String[] args : loadArgs(model)) {
+      AbstractInterpreter interpreter = new PythonInterpreter(null, entryFunction(program));
+      assertSound(inference, program,
+          interpreter.runProgram(program, new Input(null, args)).getTrace(), model);
+    }
+  }
+
+  private static Operation op(String name, Expression... args) {
+    return new Operation(name, new ArrayList<>(List.of(args)), 1);
+  }
+
+  /**
+   * Creates x = 0; while (x &lt; 10) x = x + 1.5; with x of the given type.
+   */
+  private static Function loop(String type) {
+    Function main = new Function("main", new ArrayList<>(), "int");
+    if (type != null) {
+      main.addType("x", type);
+    }
+    int init = main.addLocation(0, "init");
+    int cond = main.addLocation(0, "condition");
+    int body = main.addLocation(0, "body");
+    int end = main.addLocation(0, "exit");
+    main.addExpr(init, "x", new Constant("0", 1));
+    main.addExpr(cond, Constants.VAR_COND, op("<", new Variable("x"), new Constant("10", 1)));
+    main.addExpr(body, "x", op("+", new Variable("x"), new Constant("1.5", 1)));
+    main.addExpr(end, Constants.VAR_RET, new Constant("0", 1));
+    main.addLocationTrans(init, cond, null);
+    main.addLocationTrans(cond, body, end);
+    main.addLocationTrans(body, cond, null);
+    main.addLocationTrans(end, null, null);
+    return main;
+  }
+
+  @Test
+  void testJoinAtLoopHead() {
+    Function main = loop(null);
+    FunctionTypes types = new TypeInference(new CTypeRules()).infer(null, main);
+
+    assertEquals(CTypeRules.INT, types.getExitType(1, "x"));
+    assertEquals(TypeRules.TOP, types.getEntryType(2, "x"));
+    assertEquals(CTypeRules.INT, types.getExitType(2, Constants.VAR_COND));
+    assertEquals(CTypeRules.BOOL, types.getType(main.getExprs(2).get(0).getValue1()));
+    assertEquals(TypeRules.TOP, types.getType(main.getExprs(3).get(0).getValue1()));
+    assertNull(types.getEntryType(1, "x"));
+  }
+
+  @Test
+  void testDeclaredTypes() {
+    Function main = loop("int");
+    FunctionTypes types = new TypeInference(new CTypeRules()).infer(null, main);
+
+    assertEquals(CTypeRules.INT, types.getEntryType(2, "x"));
+    Operation add = (Operation) main.getExprs(3).get(0).getValue1();
+    assertEquals(CTypeRules.DOUBLE, types.getType(add));
+    assertEquals(CTypeRules.INT, types.getType(add.getArgs().get(0)));
+    assertTrue(types.isMonomorphic(add));
+  }
+
+  @Test
+  void testPythonLists() throws IOException {
+    Program program = loadProgram("pythonInBuiltFunction_c.py.json");
+    FunctionTypes types = new TypeInference(new PythonTypeRules())
+        .infer(program, program.getfnc("odd_index_list"));
+
+    assertEquals(PythonTypeRules.LIST, types.getEntryType(2, "list"));
+    assertEquals(PythonTypeRules.INT, types.getEntryType(2, "i"));
+    assertEquals(TypeRules.TOP, types.getEntryType(2, "x"));
+    assertEquals(PythonTypeRules.LIST, types.getExitType(3, Constants.VAR_RET));
+  }
+
+  @Test
+  void testCachedPerFunction() {
+    Function main = loop(null);
+    TypeInference inference = new TypeInference(new CTypeRules());
+    FunctionTypes types = inference.infer(null, main);
+
+    assertSame(types, inference.infer(null, main));
+    inference.invalidate(main);
+    assertNotSame(types, inference.infer(null, main));
+  }
+
+  @Test
+  void testRecomputedWhenFunctionOrProgramChanges() {
+    Function main = loop(null);
+    Program program = new Program();
+    program.addfnc(main);
+    TypeInference inference = new TypeInference(new CTypeRules());
+    FunctionTypes types = inference.infer(program, main);
+
+    assertSame(types, inference.infer(program, main));
+    assertNotSame(types, inference.infer(new Program(), main));
+
+    types = inference.infer(program, main);
+    main.addType("x", "int");
+    FunctionTypes declared = inference.infer(program, main);
+    assertNotSame(types, declared);
+    assertSame(declared, inference.infer(program, main));
+
+    Operation increment = (Operation) main.getExprs(3).get(0).getValue1();
+    increment.getArgs().get(1).setOriginalExpression(new Constant("1", 1));
+    assertNotSame(declared, inference.infer(program, main));
+  }
+}
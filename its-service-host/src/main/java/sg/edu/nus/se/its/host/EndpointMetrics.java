@@ -0,0 +1,75 @@
+package sg.edu.nus.se.its.host;
+
+import java.util.concurrent.atomic.LongAdder;
+import sg.edu.nus.se.its.util.LatencyRecorder;
+
+/**
+ * Counters and recent latencies of one endpoint of a {@link ServiceHost}.
+ */
+public final class EndpointMetrics {
+
+  private static final int SAMPLES = 1024;
+
+  private final LongAdder requests = new LongAdder();
+  private final LongAdder errors = new LongAdder();
+  private final LongAdder shed = new LongAdder();
+  private final LatencyRecorder latencies = new LatencyRecorder(SAMPLES);
+  private final LatencyRecorder queueWaits = new LatencyRecorder(SAMPLES);
+
+  // requests is incremented last, so a reader that sees a request also sees its other counters
+  void recordShed() {
+    shed.increment();
+    requests.increment();
+  }
+
+  void recordCompleted(long queueWaitNanos, long latencyNanos, boolean error) {
+    if (error) {
+      errors.increment();
+    }
+    queueWaits.record(queueWaitNanos);
+    latencies.record(latencyNanos);
+    requests.increment();
+  }
+
+  /**
+   * Returns the number of requests received, including the shed ones. A request is counted once
+   * its response is sent, which may be shortly after the client received the response.
+   */
+  public long getRequests() {
+    return requests.sum();
+  }
+
+  /**
+   * Returns the number of requests answered with an error.
+   */
+  public long getErrors() {
+    return errors.sum();
+  }
+
+  /**
+   * Returns the number of requests rejected because the queue was full.
+   */
+  public long getShed() {
+    return shed.sum();
+  }
+
+  /**
+   * Returns the recent latencies from receiving a request until its response was sent.
+   */
+  public LatencyRecorder getLatencies() {
+    return latencies;
+  }
+
+  /**
+   * Returns the recent times requests waited for a worker.
+   */
+  public LatencyRecorder getQueueWaits() {
+    return queueWaits;
+  }
+
+  @Override
+  public String toString() {
+    return "requests=" + getRequests() + ", errors=" + getErrors() + ", shed=" + getShed()
+        + ", p50=" + latencies.getPercentile(0.5) + ", p99=" + latencies.getPercentile(0.99);
+  }
+}
@@ -0,0 +1,20 @@
+package sg.edu.nus.se.its.host;
+
+import sg.edu.nus.se.its.interpreter.Interpreter;
+
+/**
+ * Creates the local interpreters that execute the programs sent to the interpreter endpoint of
+ * a {@link ServiceHost}.
+ */
+public interface InterpreterFactory {
+
+  /**
+   * Creates an interpreter for one request.
+   *
+   * @param language - the language of the program, "c" or "py"
+   * @param entryFunctionName - the name of the entry function
+   * @return the interpreter
+   */
+  Interpreter create(String language, String entryFunctionName);
+
+}
@@ -0,0 +1,440 @@
+package sg.edu.nus.se.its.host;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import org.apache.commons.io.FileUtils;
+import sg.edu.nus.se.its.interpreter.Interpreter;
+import sg.edu.nus.se.its.interpreter.Trace;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.parser.Parser;
+import sg.edu.nus.se.its.util.ServiceUtils;
+
+/**
+ * Embeddable HTTP server that serves the parser and interpreter contracts of the ITS services
+ * with local implementations, e.g., for grading without access to the remote services, load
+ * tests and tests of the service clients.
+ *
+ * <p>The endpoints are {@value #PARSER_PATH}, {@value #INTERPRETER_PATH} and its batch endpoint
+ * {@value #INTERPRETER_BATCH_PATH}, with the payloads of the {@code ParserServiceImpl} and the
+ * {@code InterpreterServiceImpl}. Requests are executed by a bounded pool of workers. Requests
+ * that find all workers busy and the queue full are shed with 503 Service Unavailable, so that
+ * an overloaded host answers quickly instead of timing out. Compressed requests are accepted and
+ * responses are compressed if the client accepts it.
+ */
+public class ServiceHost implements AutoCloseable {
+
+  public static final String PARSER_PATH = "/parser";
+
+  public static final String INTERPRETER_PATH = "/interpreter";
+
+  public static final String INTERPRETER_BATCH_PATH = "/interpreter/batch";
+
+  /**
+   * Default number of workers, one per processor.
+   */
+  public static final int DEFAULT_WORKERS = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Default number of requests waiting for a worker before requests are shed.
+   */
+  public static final int DEFAULT_QUEUE_CAPACITY = 64;
+
+  private static final int HTTP_OK = 200;
+  private static final int HTTP_BAD_REQUEST = 400;
+  private static final int HTTP_NOT_FOUND = 404;
+  private static final int HTTP_METHOD_NOT_ALLOWED = 405;
+  private static final int HTTP_INTERNAL_SERVER_ERROR = 500;
+  private static final int HTTP_SERVICE_UNAVAILABLE = 503;
+
+  // the threads of the server only read the request line and headers and hand over to a worker
+  private static final int DISPATCH_THREADS = 2;
+
+  private final Parser parser;
+  private final InterpreterFactory interpreters;
+  private int workers = DEFAULT_WORKERS;
+  private int queueCapacity = DEFAULT_QUEUE_CAPACITY;
+
+  private final Map<String, EndpointMetrics> metrics = new TreeMap<>();
+
+  private HttpServer server;
+  private ExecutorService dispatcher;
+  private ThreadPoolExecutor workerPool;
+
+  /**
+   * Initializes the host.
+   *
+   * @param parser - the parser of the parser endpoint, or null to serve no parser
+   * @param interpreters - the interpreters of the interpreter endpoints, or null to serve no
+   *     interpreter
+   */
+  public ServiceHost(Parser parser, InterpreterFactory interpreters) {
+    this.parser = parser;
+    this.interpreters = interpreters;
+    metrics.put(PARSER_PATH, new EndpointMetrics());
+    metrics.put(INTERPRETER_PATH, new EndpointMetrics());
+    metrics.put(INTERPRETER_BATCH_PATH, new EndpointMetrics());
+  }
+
+  /**
+   * Sets the number of requests executed concurrently. Must be called before the host starts.
+   *
+   * @param workers - the number of workers
+   */
+  public void setWorkers(int workers) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("Number of workers must be positive: " + workers);
+    }
+    this.workers = workers;
+  }
+
+  /**
+   * Sets the number of requests waiting for a worker, beyond which requests are shed. Must be
+   * called before the host starts.
+   *
+   * @param queueCapacity - the capacity of the queue
+   */
+  public void setQueueCapacity(int queueCapacity) {
+    if (queueCapacity < 1) {
+      throw new IllegalArgumentException("Queue capacity must be positive: " + queueCapacity);
+    }
+    this.queueCapacity = queueCapacity;
+  }
+
+  /**
+   * Starts the host on a free port of the loopback interface.
+   *
+   * @return this host
+   * @throws IOException - if the server cannot be started
+   */
+  public ServiceHost start() throws IOException {
+    return start(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+  }
+
+  /**
+   * Starts the host.
+   *
+   * @param address - the address the host listens on
+   * @return this host
+   * @throws IOException - if the server cannot be started
+   */
+  public synchronized ServiceHost start(InetSocketAddress address) throws IOException {
+    if (server != null) {
+      throw new IllegalStateException("Service host already started");
+    }
+    workerPool = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(queueCapacity), daemonThreads("its-host-worker-"));
+    dispatcher = Executors.newFixedThreadPool(DISPATCH_THREADS,
+        daemonThreads("its-host-dispatch-"));
+
+    server = HttpServer.create(address, 0);
+    server.createContext("/", this::dispatch);
+    server.setExecutor(dispatcher);
+    server.start();
+    return this;
+  }
+
+  private static ThreadFactory daemonThreads(String prefix) {
+    AtomicInteger threads = new AtomicInteger();
+    return runnable -> {
+      Thread thread = new Thread(runnable, prefix + threads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    };
+  }
+
+  /**
+   * Returns the base URL of the host, to which the paths of the endpoints are appended.
+   *
+   * @return the URL, e.g., "http://127.0.0.1:43210"
+   */
+  public String getUrl() {
+    InetSocketAddress address = server.getAddress();
+    return "http://" + address.getHostString() + ":" + address.getPort();
+  }
+
+  /**
+   * Returns the metrics of an endpoint.
+   *
+   * @param path - the path of the endpoint, e.g., {@link #INTERPRETER_PATH}
+   * @return the metrics, or null if the host has no such endpoint
+   */
+  public EndpointMetrics getMetrics(String path) {
+    return metrics.get(path);
+  }
+
+  public Map<String, EndpointMetrics> getMetrics() {
+    return Collections.unmodifiableMap(metrics);
+  }
+
+  /**
+   * Stops the host. Requests in progress are abandoned.
+   */
+  @Override
+  public synchronized void close() {
+    if (server != null) {
+      server.stop(0);
+      dispatcher.shutdownNow();
+      workerPool.shutdownNow();
+      server = null;
+    }
+  }
+
+  private void dispatch(HttpExchange exchange) throws IOException {
+    long received = System.nanoTime();
+    String path = exchange.getRequestURI().getPath();
+    EndpointMetrics endpoint = metrics.get(path);
+    if (endpoint == null || (path.equals(PARSER_PATH) ? parser : interpreters) == null) {
+      respondError(exchange, HTTP_NOT_FOUND, "Not Found");
+      return;
+    }
+    if (!"POST".equals(exchange.getRequestMethod())) {
+      respondError(exchange, HTTP_METHOD_NOT_ALLOWED, "Method Not Allowed");
+      return;
+    }
+
+    try {
+      workerPool.execute(() -> {
+        long started = System.nanoTime();
+        boolean error = true;
+        try {
+          error = handle(path, exchange);
+        } catch (IOException e) {
+          // the client went away, nothing to respond to
+        } finally {
+          exchange.close();
+          endpoint.recordCompleted(started - received, System.nanoTime() - received, error);
+        }
+      });
+    } catch (RejectedExecutionException e) {
+      endpoint.recordShed();
+      exchange.getResponseHeaders().set("Retry-After", "1");
+      respondError(exchange, HTTP_SERVICE_UNAVAILABLE, "Service Unavailable");
+    }
+  }
+
+  /**
+   * Request whose fields were validated, so that failures of its execution are server errors.
+   */
+  private interface Task {
+    Object execute() throws IOException;
+  }
+
+  /**
+   * Executes a request. Invalid requests are answered with 400 Bad Request, any failure of a
+   * valid request, including errors such as failed assertions, with 500 Internal Server Error.
+   *
+   * @return whether the request was answered with an error
+   */
+  private boolean handle(String path, HttpExchange exchange) throws IOException {
+    Task task;
+    try (Reader body = requestReader(exchange)) {
+      JsonObject request = JsonParser.parseReader(body).getAsJsonObject();
+      task = path.equals(PARSER_PATH) ? parse(request)
+          : interpret(request, path.equals(INTERPRETER_BATCH_PATH));
+    } catch (JsonParseException | IllegalStateException | IllegalArgumentException e) {
+      respondError(exchange, HTTP_BAD_REQUEST, "Malformed request: " + e.getMessage());
+      return true;
+    }
+
+    Object response;
+    try {
+      response = task.execute();
+    } catch (Throwable e) {
+      respondError(exchange, HTTP_INTERNAL_SERVER_ERROR, "Internal Server Error: " + e);
+      return true;
+    }
+    respond(exchange, HTTP_OK, response);
+    return false;
+  }
+
+  private Task parse(JsonObject request) {
+    String language = language(request);
+    String source = field(request, "source_code");
+
+    return () -> {
+      // the parser reads files, whose extension tells the language
+      Path directory = Files.createTempDirectory("its-host-");
+      try {
+        File file = directory.resolve("source." + language).toFile();
+        Files.writeString(file.toPath(), source);
+        return parser.parse(file);
+      } finally {
+        FileUtils.deleteQuietly(directory.toFile());
+      }
+    };
+  }
+
+  private Task interpret(JsonObject request, boolean batch) {
+    String language = language(request);
+    String function = field(request, "function");
+    Program program = program(field(request, "program_model"));
+
+    if (!batch) {
+      Input input = input(request);
+      return () -> execute(interpreters.create(language, function), program, input);
+    }
+    JsonElement batchInputs = request.get("batch");
+    if (batchInputs == null || !batchInputs.isJsonArray()) {
+      throw new IllegalArgumentException("Missing batch");
+    }
+    List<Input> inputs = new ArrayList<>();
+    for (JsonElement input : batchInputs.getAsJsonArray()) {
+      if (!input.isJsonObject()) {
+        throw new IllegalArgumentException("Malformed batch input: " + input);
+      }
+      inputs.add(input(input.getAsJsonObject()));
+    }
+    return () -> {
+      List<Trace> traces = new ArrayList<>();
+      for (Input input : inputs) {
+        traces.add(execute(interpreters.create(language, function), program, input));
+      }
+      return traces;
+    };
+  }
+
+  /**
+   * Returns the input of an execution, or null if it has neither inputs nor args.
+   */
+  private static Input input(JsonObject request) {
+    String[] inputs = toArray(field(request, "inputs"));
+    String[] args = toArray(field(request, "args"));
+    if (inputs.length == 0 && args.length == 0) {
+      return null;
+    }
+    return new Input(inputs, args);
+  }
+
+  private static Trace execute(Interpreter interpreter, Program program, Input input) {
+    if (input == null) {
+      return interpreter.executeProgram(program);
+    }
+    return interpreter.executeProgram(program, input);
+  }
+
+  private static Program program(String json) {
+    Program program;
+    try {
+      program = ServiceUtils.MODEL_GSON.fromJson(json, Program.class);
+    } catch (RuntimeException e) {
+      throw new IllegalArgumentException("Malformed program model: " + e.getMessage(), e);
+    }
+    if (program == null) {
+      throw new IllegalArgumentException("Missing program model");
+    }
+    return program;
+  }
+
+  private static String language(JsonObject request) {
+    String language = field(request, "language");
+    if (!language.equals("c") && !language.equals("py")) {
+      throw new IllegalArgumentException("Unsupported language: " + language);
+    }
+    return language;
+  }
+
+  /**
+   * Returns a string field of a request.
+   */
+  private static String field(JsonObject request, String name) {
+    JsonElement value = request.get(name);
+    if (value == null || !value.isJsonPrimitive() || !value.getAsJsonPrimitive().isString()) {
+      throw new IllegalArgumentException("Missing " + name);
+    }
+    return value.getAsString();
+  }
+
+  /**
+   * Splits a list of values in the "[a,b]" format of the interpreter requests.
+   */
+  private static String[] toArray(String list) {
+    if (list.isEmpty()) {
+      return new String[0];
+    }
+    if (!list.startsWith("[") || !list.endsWith("]")) {
+      throw new IllegalArgumentException("Malformed list: " + list);
+    }
+    String values = list.substring(1, list.length() - 1);
+    return values.isEmpty() ? new String[0] : values.split(",", -1);
+  }
+
+  private static Reader requestReader(HttpExchange exchange) throws IOException {
+    InputStream body = exchange.getRequestBody();
+    if ("gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))) {
+      body = new GZIPInputStream(body);
+    }
+    return new InputStreamReader(body, StandardCharsets.UTF_8);
+  }
+
+  private static void respondError(HttpExchange exchange, int code, String detail)
+      throws IOException {
+    JsonObject error = new JsonObject();
+    error.addProperty("detail", detail);
+    respond(exchange, code, error);
+  }
+
+  /**
+   * Streams the response, compressed if the client accepts it.
+   */
+  private static void respond(HttpExchange exchange, int code, Object response)
+      throws IOException {
+    String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+    boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+    exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+    if (gzip) {
+      exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+    }
+    // chunked, the length is not known before the response is serialized
+    exchange.sendResponseHeaders(code, 0);
+
+    OutputStream body = exchange.getResponseBody();
+    if (gzip) {
+      body = new GZIPOutputStream(body);
+    }
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(body,
+        StandardCharsets.UTF_8))) {
+      JsonWriter json = new JsonWriter(writer);
+      if (response instanceof JsonElement) {
+        ServiceUtils.MODEL_GSON.toJson((JsonElement) response, json);
+      } else {
+        ServiceUtils.MODEL_GSON.toJson(response, response.getClass(), json);
+      }
+      json.flush();
+    }
+  }
+}
@@ -0,0 +1,278 @@
+package sg.edu.nus.se.its.host;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import sg.edu.nus.se.its.interpreter.Interpreter;
+import sg.edu.nus.se.its.interpreter.InterpreterServiceImpl;
+import sg.edu.nus.se.its.interpreter.Trace;
+import sg.edu.nus.se.its.model.Input;
+import sg.edu.nus.se.its.model.Memory;
+import sg.edu.nus.se.its.model.Program;
+import sg.edu.nus.se.its.parser.Parser;
+import sg.edu.nus.se.its.parser.ParserServiceImpl;
+
+/**
+ * Tests the service host with the service clients and stub implementations.
+ */
+public class ServiceHostTest {
+
+  @TempDir
+  Path tempDir;
+
+  /**
+   * Parser that returns the source code as the only import statement.
+   */
+  private static final Parser ECHO_PARSER = file -> {
+    Program program = new Program();
+    program.setImportStatements(List.of(Files.readString(file.toPath())));
+    return program;
+  };
+
+  /**
+   * Interpreters whose trace holds the function, inputs and args of the execution.
+   */
+  private static final InterpreterFactory ECHO_INTERPRETERS = (language, function) ->
+      new Interpreter() {
+        @Override
+        public Trace executeProgram(Program program) {
+          return executeProgram(program, new Input());
+        }
+
+        @Override
+        public Trace executeProgram(Program program, Input input) {
+          Memory memory = new Memory();
+          memory.put("imports", String.valueOf(program.getImportStatements()));
+          memory.put("inputs", Arrays.toString(input.getInputs()));
+          memory.put("args", Arrays.toString(input.getArgs()));
+          Trace trace = new Trace();
+          trace.add(language + ":" + function, 1, memory);
+          return trace;
+        }
+      };
+
+  private File source(String name, String code) throws IOException {
+    Path file = tempDir.resolve(name);
+    Files.writeString(file, code);
+    return file.toFile();
+  }
+
+  @Test
+  void testServesParser() throws Exception {
+    try (ServiceHost host = new ServiceHost(ECHO_PARSER, null).start()) {
+      Parser parser = new ParserServiceImpl(host.getUrl() + ServiceHost.PARSER_PATH);
+
+      Program program = parser.parse(source("test.c", "int main() { return \"\\n\"; }"));
+
+      assertEquals(List.of("int main() { return \"\\n\"; }"), program.getImportStatements());
+      awaitRequests(host.getMetrics(ServiceHost.PARSER_PATH), 1);
+      assertEquals(1, host.getMetrics(ServiceHost.PARSER_PATH).getRequests());
+      assertEquals(0, host.getMetrics(ServiceHost.PARSER_PATH).getErrors());
+    }
+  }
+
+  @Test
+  void testServesInterpreter() {
+    try (ServiceHost host = startHost(ECHO_INTERPRETERS)) {
+      InterpreterServiceImpl interpreter = new InterpreterServiceImpl("py", "f",
+          host.getUrl() + ServiceHost.INTERPRETER_PATH);
+      Program program = new Program();
+      program.setImportStatements(List.of("import math"));
+
+      Trace trace = interpreter.executeProgram(program,
+          new Input(new String[] {"1", "2"}, new String[] {"x"}));
+
+      assertEquals("py:f", trace.getLastEntry().getFunctionName());
+      assertEquals("[import math]", trace.getLastEntry().getMem().get("imports"));
+      assertEquals("[1, 2]", trace.getLastEntry().getMem().get("inputs"));
+      assertEquals("[x]", trace.getLastEntry().getMem().get("args"));
+    }
+  }
+
+  @Test
+  void testServesInterpreterBatches() throws InterruptedException {
+    try (ServiceHost host = startHost(ECHO_INTERPRETERS)) {
+      InterpreterServiceImpl interpreter = new InterpreterServiceImpl("c", "main",
+          host.getUrl() + ServiceHost.INTERPRETER_PATH);
+      List<Input> inputs = new ArrayList<>();
+      for (int i = 0; i < 10; i++) {
+        inputs.add(new Input(new String[] {String.valueOf(i)}, new String[0]));
+      }
+
+      List<Trace> traces = interpreter.executeProgram(new Program(), inputs);
+
+      assertEquals(10, traces.size());
+      for (int i = 0; i < 10; i++) {
+        assertEquals("[" + i + "]", traces.get(i).getLastEntry().getMem().get("inputs"));
+      }
+      awaitRequests(host.getMetrics(ServiceHost.INTERPRETER_BATCH_PATH), 1);
+      assertEquals(1, host.getMetrics(ServiceHost.INTERPRETER_BATCH_PATH).getRequests());
+      assertEquals(0, host.getMetrics(ServiceHost.INTERPRETER_PATH).getRequests());
+    }
+  }
+
+  @Test
+  void testAnswersMissingEndpointsWithNotFound() throws Exception {
+    try (ServiceHost host = new ServiceHost(null, ECHO_INTERPRETERS).start()) {
+      assertEquals(404, post(host.getUrl() + "/unknown", "{}").statusCode());
+      assertEquals(404, post(host.getUrl() + ServiceHost.PARSER_PATH, "{}").statusCode());
+
+      Parser parser = new ParserServiceImpl(host.getUrl() + ServiceHost.PARSER_PATH);
+      RuntimeException e = assertThrows(RuntimeException.class,
+          () -> parser.parse(source("test.c", "")));
+      assertTrue(e.getMessage().startsWith("Endpoint not found!"));
+    }
+  }
+
+  @Test
+  void testAnswersMalformedRequestsWithBadRequest() throws Exception {
+    try (ServiceHost host = startHost(ECHO_INTERPRETERS)) {
+      String url = host.getUrl() + ServiceHost.INTERPRETER_PATH;
+
+      assertEquals(400, post(url, "not json").statusCode());
+      assertEquals(400, post(url, "{\"language\": \"java\"}").statusCode());
+      awaitRequests(host.getMetrics(ServiceHost.INTERPRETER_PATH), 2);
+      assertEquals(2, host.getMetrics(ServiceHost.INTERPRETER_PATH).getErrors());
+    }
+  }
+
+  @Test
+  void testAnswersFailedExecutionsWithInternalServerError() throws Exception {
+    InterpreterFactory failing = (language, function) -> new Interpreter() {
+      @Override
+      public Trace executeProgram(Program program) {
+        throw new AssertionError("unexpected opcode");
+      }
+
+      @Override
+      public Trace executeProgram(Program program, Input input) {
+        throw new IllegalArgumentException("unknown input");
+      }
+    };
+    try (ServiceHost host = startHost(failing)) {
+      String url = host.getUrl() + ServiceHost.INTERPRETER_PATH;
+      String request = "{\"language\": \"py\", \"function\": \"f\", \"program_model\": \"{}\", "
+          + "\"inputs\": \"%s\", \"args\": \"\"}";
+
+      HttpResponse<String> error = post(url, String.format(request, ""));
+      HttpResponse<String> failure = post(url, String.format(request, "[1]"));
+      HttpResponse<String> invalid = post(url, String.format(request, "1"));
+
+      assertEquals(500, error.statusCode());
+      assertTrue(error.body().contains("unexpected opcode"));
+      assertEquals(500, failure.statusCode());
+      assertEquals(400, invalid.statusCode());
+      awaitRequests(host.getMetrics(ServiceHost.INTERPRETER_PATH), 3);
+      assertEquals(3, host.getMetrics(ServiceHost.INTERPRETER_PATH).getErrors());
+    }
+  }
+
+  @Test
+  void testShedsRequestsBeyondQueue() throws Exception {
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch started = new CountDownLatch(1);
+    Parser blocking = file -> {
+      started.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      return new Program();
+    };
+    ServiceHost host = new ServiceHost(blocking, null);
+    host.setWorkers(1);
+    host.setQueueCapacity(1);
+    try (ServiceHost ignored = host.start()) {
+      String url = host.getUrl() + ServiceHost.PARSER_PATH;
+      String request = "{\"language\": \"c\", \"source_code\": \"\"}";
+
+      CompletableFuture<HttpResponse<String>> running = postAsync(url, request);
+      assertTrue(started.await(5, TimeUnit.SECONDS));
+      // one of the following requests is queued, the others find the queue full
+      List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+      for (int i = 0; i < 4; i++) {
+        responses.add(postAsync(url, request));
+      }
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (host.getMetrics(ServiceHost.PARSER_PATH).getShed() < 3
+          && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      release.countDown();
+
+      assertEquals(200, running.get(5, TimeUnit.SECONDS).statusCode());
+      int shed = 0;
+      for (CompletableFuture<HttpResponse<String>> response : responses) {
+        HttpResponse<String> completed = response.get(5, TimeUnit.SECONDS);
+        if (completed.statusCode() == 503) {
+          assertEquals("1", completed.headers().firstValue("Retry-After").orElse(null));
+          shed++;
+        } else {
+          assertEquals(200, completed.statusCode());
+        }
+      }
+      assertEquals(3, shed);
+      awaitRequests(host.getMetrics(ServiceHost.PARSER_PATH), 5);
+      assertEquals(3, host.getMetrics(ServiceHost.PARSER_PATH).getShed());
+      assertEquals(5, host.getMetrics(ServiceHost.PARSER_PATH).getRequests());
+    }
+  }
+
+  @Test
+  void testStartsQuickly() {
+    long start = System.nanoTime();
+    try (ServiceHost host = startHost(ECHO_INTERPRETERS)) {
+      long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+      assertTrue(millis < 1000, "started in " + millis + " ms");
+    }
+  }
+
+  private static ServiceHost startHost(InterpreterFactory interpreters) {
+    try {
+      return new ServiceHost(ECHO_PARSER, interpreters).start();
+    } catch (IOException e) {
+      throw new AssertionError(e);
+    }
+  }
+
+  /**
+   * Waits until the requests are counted, which happens after the response was sent.
+   */
+  private static void awaitRequests(EndpointMetrics metrics, long requests)
+      throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (metrics.getRequests() < requests && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+  }
+
+  private static final HttpClient CLIENT = HttpClient.newHttpClient();
+
+  private static HttpResponse<String> post(String url, String body) throws Exception {
+    return postAsync(url, body).get(5, TimeUnit.SECONDS);
+  }
+
+  private static CompletableFuture<HttpResponse<String>> postAsync(String url, String body) {
+    HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+        .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    return CLIENT.sendAsync(request, HttpResponse.BodyHandlers.ofString());
+  }
+}